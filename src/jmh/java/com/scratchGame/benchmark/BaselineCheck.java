@@ -0,0 +1,94 @@
+package com.scratchGame.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compares JMH results against the checked-in baseline and fails on regressions.
+ * <p>
+ * Run the benchmarks with the GC profiler and JSON output, then compare:
+ * <pre>
+ * mvn -P benchmark package -DskipTests
+ * java -jar target/benchmarks.jar -prof gc -rf json -rff target/jmh-result.json
+ * java -cp target/benchmarks.jar com.scratchGame.benchmark.BaselineCheck src/jmh/baseline.json target/jmh-result.json
+ * </pre>
+ * A benchmark regresses when its average time or its allocated bytes per operation exceed the baseline by more
+ * than the tolerance, 25% by default. Benchmarks missing from either file are reported but do not fail the check.
+ */
+public final class BaselineCheck {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    // Allocation below this many bytes per operation is noise of the profiler
+    private static final double ALLOCATION_SLACK = 16;
+
+    private BaselineCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineCheck <baseline.json> <results.json> [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.25;
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> results = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                System.out.println("NEW        " + entry.getKey());
+                continue;
+            }
+            double time = score(entry.getValue().path("primaryMetric"));
+            double baselineTime = score(expected.path("primaryMetric"));
+            double allocation = score(entry.getValue().path("secondaryMetrics").path(ALLOCATION));
+            double baselineAllocation = score(expected.path("secondaryMetrics").path(ALLOCATION));
+
+            boolean slower = time > baselineTime * (1 + tolerance);
+            boolean allocates = allocation > baselineAllocation * (1 + tolerance) + ALLOCATION_SLACK;
+            if (slower || allocates) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s: %.1f -> %.1f %s, %.0f -> %.0f B/op%n", slower || allocates ? "REGRESSION" : "OK",
+                    entry.getKey(), baselineTime, time, entry.getValue().path("primaryMetric").path("scoreUnit").asText(),
+                    baselineAllocation, allocation);
+        }
+        for (String key : baseline.keySet()) {
+            if (!results.containsKey(key)) {
+                System.out.println("MISSING    " + key);
+            }
+        }
+
+        System.out.println(regressions == 0 ? "No regressions" : regressions + " regression(s)");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> benchmarks = new TreeMap<>();
+        for (JsonNode benchmark : new ObjectMapper().readTree(file)) {
+            benchmarks.put(key(benchmark), benchmark);
+        }
+        return benchmarks;
+    }
+
+    private static String key(JsonNode benchmark) {
+        StringBuilder key = new StringBuilder(benchmark.path("benchmark").asText());
+        Iterator<Map.Entry<String, JsonNode>> params = benchmark.path("params").fields();
+        List<String> values = new ArrayList<>();
+        params.forEachRemaining(param -> values.add(param.getKey() + "=" + param.getValue().asText()));
+        Collections.sort(values);
+        if (!values.isEmpty()) {
+            key.append(values);
+        }
+        return key.toString();
+    }
+
+    private static double score(JsonNode metric) {
+        return metric.path("score").asDouble(0);
+    }
+}
@@ -0,0 +1,106 @@
+package com.scratchGame.benchmark;
+
+import com.scratchGame.models.Game;
+import com.scratchGame.utils.JsonUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Synthetic game configurations for the benchmarks, in the format of {@code src/main/resources/config.json}.
+ * <p>
+ * A game has a square board, {@code symbolCount} standard symbols with positioned weights on every cell and the
+ * five bonus symbols of the sample configuration, weighted so that {@code bonusDensity} of the cells are bonus
+ * cells on average. Every winning combination of the sample configuration is defined.
+ */
+final class BenchmarkGames {
+
+    private static final String[] BONUS_SYMBOLS = {"10x", "5x", "+1000", "+500", "MISS"};
+    private static final int[] BONUS_WEIGHTS = {1, 2, 3, 4, 5};
+
+    private BenchmarkGames() {
+    }
+
+    /**
+     * Writes the configuration to a temporary file, deleted on exit.
+     */
+    static Path writeConfig(int size, int symbolCount, double bonusDensity) {
+        try {
+            Path file = Files.createTempFile("benchmark-config-", ".json");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, configJson(size, symbolCount, bonusDensity));
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads the configuration through {@link JsonUtils#readGameConfig(String)}.
+     */
+    static Game create(int size, int symbolCount, double bonusDensity) {
+        return JsonUtils.readGameConfig(writeConfig(size, symbolCount, bonusDensity).toString());
+    }
+
+    static String configJson(int size, int symbolCount, double bonusDensity) {
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\"columns\":").append(size).append(",\"rows\":").append(size).append(",\"symbols\":{");
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            // The rarest symbols pay the most
+            json.append('"').append(standardName(symbol)).append("\":{\"reward_multiplier\":")
+                    .append(symbolCount - symbol).append(",\"type\":\"standard\"},");
+        }
+        json.append("\"10x\":{\"reward_multiplier\":10,\"type\":\"bonus\",\"impact\":\"multiply_reward\"},")
+                .append("\"5x\":{\"reward_multiplier\":5,\"type\":\"bonus\",\"impact\":\"multiply_reward\"},")
+                .append("\"+1000\":{\"extra\":1000,\"type\":\"bonus\",\"impact\":\"extra_bonus\"},")
+                .append("\"+500\":{\"extra\":500,\"type\":\"bonus\",\"impact\":\"extra_bonus\"},")
+                .append("\"MISS\":{\"type\":\"bonus\",\"impact\":\"miss\"}},");
+
+        json.append("\"probabilities\":{\"standard_symbols\":[");
+        int standardTotal = 0;
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                json.append(row + column > 0 ? "," : "")
+                        .append("{\"column\":").append(column).append(",\"row\":").append(row).append(",\"symbols\":{");
+                standardTotal = 0;
+                for (int symbol = 0; symbol < symbolCount; symbol++) {
+                    int weight = 100 * (symbol + 1);
+                    standardTotal += weight;
+                    json.append(symbol > 0 ? "," : "").append('"').append(standardName(symbol)).append("\":").append(weight);
+                }
+                json.append("}}");
+            }
+        }
+        json.append("],\"bonus_symbols\":{\"symbols\":{");
+        // Bonus weights are shared by every cell: bonus / (standard + bonus) = bonusDensity
+        double bonusTotal = bonusDensity >= 1 ? 0 : bonusDensity / (1 - bonusDensity) * standardTotal;
+        int weightSum = 0;
+        for (int weight : BONUS_WEIGHTS) {
+            weightSum += weight;
+        }
+        for (int i = 0; i < BONUS_SYMBOLS.length; i++) {
+            json.append(i > 0 ? "," : "").append('"').append(BONUS_SYMBOLS[i]).append("\":")
+                    .append(Math.round(bonusTotal * BONUS_WEIGHTS[i] / weightSum));
+        }
+        json.append("}}},");
+
+        json.append("\"win_combinations\":{");
+        double[] sameSymbolMultipliers = {1, 1.5, 2, 3, 5, 10, 20};
+        for (int count = 3; count <= 9; count++) {
+            json.append("\"same_symbol_").append(count).append("_times\":{\"reward_multiplier\":")
+                    .append(sameSymbolMultipliers[count - 3])
+                    .append(",\"when\":\"same_symbols\",\"count\":").append(count).append(",\"group\":\"same_symbols\"},");
+        }
+        json.append("\"same_symbols_horizontally\":{\"reward_multiplier\":2,\"when\":\"linear_symbols\",\"group\":\"horizontally_linear_symbols\"},")
+                .append("\"same_symbols_vertically\":{\"reward_multiplier\":2,\"when\":\"linear_symbols\",\"group\":\"vertically_linear_symbols\"},")
+                .append("\"same_symbols_diagonally_left_to_right\":{\"reward_multiplier\":5,\"when\":\"linear_symbols\",\"group\":\"ltr_diagonally_linear_symbols\"},")
+                .append("\"same_symbols_diagonally_right_to_left\":{\"reward_multiplier\":5,\"when\":\"linear_symbols\",\"group\":\"rtl_diagonally_linear_symbols\"}}}");
+        return json.toString();
+    }
+
+    private static String standardName(int symbol) {
+        return "S" + symbol;
+    }
+}
@@ -0,0 +1,46 @@
+package com.scratchGame.benchmark;
+
+import com.scratchGame.models.Game;
+import com.scratchGame.service.GameModel;
+import com.scratchGame.utils.JsonUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a configuration file with {@link JsonUtils#readGameConfig(String)} and compiling it into a
+ * {@link GameModel}, up to games of a thousand standard symbols weighted on every cell.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigBenchmark {
+
+    @Param({"3", "5", "10"})
+    public int size;
+
+    @Param({"6", "1000"})
+    public int symbolCount;
+
+    private String configFile;
+    private Game game;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        configFile = BenchmarkGames.writeConfig(size, symbolCount, 0.1).toString();
+        game = BenchmarkGames.create(size, symbolCount, 0.1);
+    }
+
+    @Benchmark
+    public Game readGameConfig() {
+        return JsonUtils.readGameConfig(configFile);
+    }
+
+    @Benchmark
+    public GameModel compileModel() {
+        return GameModel.compile(game);
+    }
+}
@@ -0,0 +1,72 @@
+package com.scratchGame.benchmark;
+
+import com.scratchGame.models.Board;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.GameResult;
+import com.scratchGame.service.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round hot paths: drawing a board, playing a full round into a {@link GameResult}, the allocation-free
+ * round used by simulations and batches of tickets into columnar buffers, over board size, number of standard
+ * symbols and bonus density. The batch benchmark reports the time per ticket.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+    @Param({"3", "5", "10"})
+    public int size;
+
+    @Param({"4", "12"})
+    public int symbolCount;
+
+    @Param({"0.0", "0.2"})
+    public double bonusDensity;
+
+    private MatrixGenerator matrixGenerator;
+    private GameService gameService;
+    private Board board;
+    private RoundEvaluation evaluation;
+    private BatchResult batch;
+    private long round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Game game = BenchmarkGames.create(size, symbolCount, bonusDensity);
+        GameModel model = GameModel.compile(game);
+        matrixGenerator = MatrixGenerator.forModel(model, new SplitMixRandom(42));
+        gameService = new GameService(game, matrixGenerator, RewardCalculator.forModel(model));
+        board = gameService.newBoard();
+        evaluation = new RoundEvaluation();
+        batch = new BatchResult(GameService.DEFAULT_BATCH_TICKETS);
+    }
+
+    @Benchmark
+    public List<List<String>> generateMatrix() {
+        return matrixGenerator.generateMatrix();
+    }
+
+    @Benchmark
+    public GameResult startGame() {
+        return gameService.startGame(100);
+    }
+
+    @Benchmark
+    public double playRound() {
+        return gameService.playRound(board, evaluation, round++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GameService.DEFAULT_BATCH_TICKETS)
+    public BatchResult playBatch() {
+        return gameService.playBatch(batch, 100);
+    }
+}
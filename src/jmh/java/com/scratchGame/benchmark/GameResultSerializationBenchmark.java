@@ -0,0 +1,63 @@
+package com.scratchGame.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.GameResult;
+import com.scratchGame.service.GameModel;
+import com.scratchGame.service.GameService;
+import com.scratchGame.service.MatrixGenerator;
+import com.scratchGame.service.RewardCalculator;
+import com.scratchGame.service.SplitMixRandom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing {@link GameResult}s to JSON with Jackson, the matrix, reward, winning combinations and bonus symbols
+ * of a round. The encoded board is left out, it only duplicates the matrix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameResultSerializationBenchmark {
+
+    private static final int RESULTS = 1024;
+
+    @Param({"3", "5", "10"})
+    public int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().addMixIn(GameResult.class, GameResultMixIn.class);
+    private final List<GameResult> results = new ArrayList<>(RESULTS);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Game game = BenchmarkGames.create(size, 6, 0.1);
+        GameModel model = GameModel.compile(game);
+        GameService gameService = new GameService(game, MatrixGenerator.forModel(model, new SplitMixRandom(42)),
+                RewardCalculator.forModel(model));
+        for (int round = 0; round < RESULTS; round++) {
+            results.add(gameService.startGame(100, round));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws JsonProcessingException {
+        GameResult result = results.get(next);
+        next = (next + 1) & (RESULTS - 1);
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    abstract static class GameResultMixIn {
+        @JsonIgnore
+        abstract Board getBoard();
+    }
+}
@@ -0,0 +1,54 @@
+package com.scratchGame.benchmark;
+
+import com.scratchGame.metrics.GameMetrics;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.GameResult;
+import com.scratchGame.service.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link GameMetrics}: the same rounds with instrumentation disabled and enabled at the default
+ * timing sample rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+
+    @Param({"3", "5"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private GameService gameService;
+    private Board board;
+    private RoundEvaluation evaluation;
+    private long round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Game game = BenchmarkGames.create(size, 6, 0.1);
+        GameModel model = GameModel.compile(game);
+        gameService = new GameService(game, MatrixGenerator.forModel(model, new SplitMixRandom(42)),
+                RewardCalculator.forModel(model), instrumented ? new GameMetrics() : GameMetrics.DISABLED);
+        board = gameService.newBoard();
+        evaluation = new RoundEvaluation();
+    }
+
+    @Benchmark
+    public GameResult startGame() {
+        return gameService.startGame(100);
+    }
+
+    @Benchmark
+    public double playRound() {
+        return gameService.playRound(board, evaluation, round++);
+    }
+}
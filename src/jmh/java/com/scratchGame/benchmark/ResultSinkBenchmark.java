@@ -0,0 +1,70 @@
+package com.scratchGame.benchmark;
+
+import com.scratchGame.models.Game;
+import com.scratchGame.output.ResultSink;
+import com.scratchGame.service.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a played batch with every {@link ResultSink} format into a channel that discards the bytes,
+ * reported per ticket.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSinkBenchmark {
+
+    @Param({"ndjson", "binary", "none"})
+    public String format;
+
+    private ResultSink sink;
+    private BatchResult batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Game game = BenchmarkGames.create(4, 6, 0.1);
+        GameModel model = GameModel.compile(game);
+        GameService gameService = new GameService(game, MatrixGenerator.forModel(model, new SplitMixRandom(42)),
+                RewardCalculator.forModel(model));
+        batch = gameService.playBatch(GameService.DEFAULT_BATCH_TICKETS, 100);
+        sink = ResultSink.open(format, new DiscardingChannel());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sink.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GameService.DEFAULT_BATCH_TICKETS)
+    public long write() {
+        sink.accept(batch);
+        return sink.getTickets();
+    }
+
+    static final class DiscardingChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer source) {
+            int bytes = source.remaining();
+            source.position(source.limit());
+            return bytes;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
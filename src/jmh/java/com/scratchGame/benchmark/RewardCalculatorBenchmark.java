@@ -0,0 +1,57 @@
+package com.scratchGame.benchmark;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.models.Game;
+import com.scratchGame.service.GameModel;
+import com.scratchGame.service.MatrixGenerator;
+import com.scratchGame.service.RewardCalculator;
+import com.scratchGame.service.SplitMixRandom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RewardCalculator#calculateReward} for the same symbols condition and every linear group, cycling through
+ * a fixed set of generated matrices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RewardCalculatorBenchmark {
+
+    private static final int MATRICES = 1024;
+
+    @Param({"3", "5", "10"})
+    public int size;
+
+    @Param({"same_symbol_3_times", "same_symbols_horizontally", "same_symbols_vertically",
+            "same_symbols_diagonally_left_to_right", "same_symbols_diagonally_right_to_left"})
+    public EnumWinningCombinationType combination;
+
+    private RewardCalculator rewardCalculator;
+    private final List<List<List<String>>> matrices = new ArrayList<>(MATRICES);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Game game = BenchmarkGames.create(size, 6, 0.1);
+        GameModel model = GameModel.compile(game);
+        rewardCalculator = RewardCalculator.forModel(model);
+        MatrixGenerator matrixGenerator = MatrixGenerator.forModel(model, new SplitMixRandom(42));
+        for (int round = 0; round < MATRICES; round++) {
+            matrices.add(matrixGenerator.generateBoard(round).toMatrix());
+        }
+    }
+
+    @Benchmark
+    public double calculateReward() {
+        List<List<String>> matrix = matrices.get(next);
+        next = (next + 1) & (MATRICES - 1);
+        return rewardCalculator.calculateReward(combination, matrix);
+    }
+}
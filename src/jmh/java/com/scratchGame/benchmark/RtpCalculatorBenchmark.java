@@ -0,0 +1,39 @@
+package com.scratchGame.benchmark;
+
+import com.scratchGame.service.GameModel;
+import com.scratchGame.service.RtpCalculator;
+import com.scratchGame.service.RtpReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RtpCalculator#calculate()} of the exact expectations of a compiled game, every same symbol rule from
+ * 3 to 9 times being configured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RtpCalculatorBenchmark {
+
+    @Param({"3", "5", "10"})
+    public int size;
+
+    @Param({"4", "12"})
+    public int symbolCount;
+
+    private GameModel model;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = GameModel.compile(BenchmarkGames.create(size, symbolCount, 0.1));
+    }
+
+    @Benchmark
+    public RtpReport calculate() {
+        return new RtpCalculator(model).calculate();
+    }
+}
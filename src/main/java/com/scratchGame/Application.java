@@ -1,17 +1,57 @@
 package com.scratchGame;
 
+import com.scratchGame.journal.ReplayVerifier;
+import com.scratchGame.journal.RoundJournal;
+import com.scratchGame.journal.VerificationReport;
+import com.scratchGame.metrics.GameMetrics;
+import com.scratchGame.metrics.MetricsServer;
 import com.scratchGame.models.Game;
 import com.scratchGame.models.GameResult;
+import com.scratchGame.output.ResultSink;
+import com.scratchGame.server.PlayServer;
+import com.scratchGame.service.BatchSink;
+import com.scratchGame.service.BoardEnumerator;
+import com.scratchGame.service.ConfigWatcher;
+import com.scratchGame.service.GameModel;
+import com.scratchGame.service.GameRegistry;
 import com.scratchGame.service.GameService;
-import com.scratchGame.service.MatrixGenerator;
-import com.scratchGame.service.RewardCalculator;
+import com.scratchGame.service.ModelSnapshot;
+import com.scratchGame.service.RtpCalculator;
+import com.scratchGame.service.SimulationStatistics;
+import com.scratchGame.service.Simulator;
+import com.scratchGame.service.SplitMixRandom;
 import com.scratchGame.utils.JsonUtils;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
 public class Application {
 
     public static void main(String[] args) {
         String configFilePath = null;
         double bettingAmount = 100;// Default betting amount
+        long simulatedRounds = 0;
+        double targetPrecision = 0;
+        Long seed = null;
+        Long round = null;
+        Integer metricsPort = null;
+        boolean exactRtp = false;
+        boolean enumerate = false;
+        Path checkpoint = null;
+        long playedTickets = 0;
+        Path output = null;
+        String outputFormat = null;
+        Path journal = null;
+        Path verified = null;
+        Path compiledConfig = null;
+        boolean watch = false;
+        Integer servePort = null;
+        Path gamesDirectory = null;
 
         // Parse command-line arguments
         for (int i = 0; i < args.length; i++) {
@@ -25,6 +65,85 @@ public class Application {
                     System.err.println("Invalid betting amount provided. Using default value 1000.0.");
                 }
                 i++; // Skip the next argument
+            } else if ("--simulate".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    simulatedRounds = Long.parseLong(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid number of simulated rounds provided.");
+                    return;
+                }
+                i++; // Skip the next argument
+            } else if (("--seed".equals(args[i]) || "--round".equals(args[i])) && i + 1 < args.length) {
+                try {
+                    long value = Long.parseLong(args[i + 1]);
+                    if ("--seed".equals(args[i])) {
+                        seed = value;
+                    } else {
+                        round = value;
+                    }
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid " + args[i] + " provided.");
+                    return;
+                }
+                i++; // Skip the next argument
+            } else if ("--metrics-port".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    metricsPort = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid metrics port provided.");
+                    return;
+                }
+                i++; // Skip the next argument
+            } else if ("--rtp".equals(args[i])) {
+                exactRtp = true;
+            } else if ("--serve".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    servePort = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid server port provided.");
+                    return;
+                }
+                i++; // Skip the next argument
+            } else if ("--games".equals(args[i]) && i + 1 < args.length) {
+                gamesDirectory = Path.of(args[i + 1]);
+                i++; // Skip the next argument
+            } else if ("--watch".equals(args[i])) {
+                watch = true;
+            } else if ("--enumerate".equals(args[i])) {
+                enumerate = true;
+            } else if ("--checkpoint".equals(args[i]) && i + 1 < args.length) {
+                checkpoint = Path.of(args[i + 1]);
+                i++; // Skip the next argument
+            } else if ("--play".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    playedTickets = Long.parseLong(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid number of played tickets provided.");
+                    return;
+                }
+                i++; // Skip the next argument
+            } else if ("--output".equals(args[i]) && i + 1 < args.length) {
+                output = Path.of(args[i + 1]);
+                i++; // Skip the next argument
+            } else if ("--output-format".equals(args[i]) && i + 1 < args.length) {
+                outputFormat = args[i + 1];
+                i++; // Skip the next argument
+            } else if ("--journal".equals(args[i]) && i + 1 < args.length) {
+                journal = Path.of(args[i + 1]);
+                i++; // Skip the next argument
+            } else if ("--verify".equals(args[i]) && i + 1 < args.length) {
+                verified = Path.of(args[i + 1]);
+                i++; // Skip the next argument
+            } else if ("--compile-config".equals(args[i]) && i + 1 < args.length) {
+                compiledConfig = Path.of(args[i + 1]);
+                i++; // Skip the next argument
+            } else if ("--target-precision".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    targetPrecision = Double.parseDouble(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid target precision provided. Playing every simulated round.");
+                }
+                i++; // Skip the next argument
             }
         }
 
@@ -33,28 +152,145 @@ public class Application {
             return;
         }
 
-        Game gameConfig = null;
+        MetricsServer metricsServer = null;
+        ConfigWatcher configWatcher = null;
 
         try {
-            // Load the game configuration from JSON
-            gameConfig = JsonUtils.readGameConfig(configFilePath);
+            GameModel model;
+            if (ModelSnapshot.isSnapshot(Path.of(configFilePath))) {
+                // A compiled snapshot is mapped as is, without parsing or compiling the configuration
+                model = ModelSnapshot.read(Path.of(configFilePath));
 
-            // Verify that the game configuration was loaded correctly
-            if (gameConfig == null) {
-                System.err.println("Failed to load game configuration.");
+                System.out.println("Game Snapshot Loaded:");
+                System.out.println(model);
+            } else {
+                // Load the game configuration from JSON
+                Game gameConfig = JsonUtils.readGameConfig(configFilePath);
+
+                // Verify that the game configuration was loaded correctly
+                if (gameConfig == null) {
+                    System.err.println("Failed to load game configuration.");
+                    return;
+                }
+
+                System.out.println("Game Configuration Loaded:");
+                System.out.println(gameConfig);
+
+                // Compile the configuration once, all services share the same model
+                model = GameModel.compile(gameConfig);
+            }
+
+            if (compiledConfig != null) {
+                // Later runs start from the snapshot with --config
+                ModelSnapshot.write(model, compiledConfig);
+                System.out.printf("Compiled configuration %016x to %s%n", model.getFingerprint(), compiledConfig);
+                return;
+            }
+
+            // A fixed seed makes every round reproducible, --round replays a single one
+            SplitMixRandom random = seed != null ? new SplitMixRandom(seed) : SplitMixRandom.withRandomSeed();
+            GameMetrics metrics = GameMetrics.DISABLED;
+            if (metricsPort != null) {
+                // Expose round metrics over JMX and in Prometheus format on /metrics while the game runs
+                metrics = new GameMetrics();
+                metrics.register(configFilePath);
+                metricsServer = new MetricsServer(metricsPort, metrics);
+                System.out.println("Serving metrics on port " + metricsServer.getPort());
+            }
+            GameService gameService = GameService.forModel(model, random, metrics);
+            if (watch) {
+                // Rounds started after the file changes are played on the reloaded configuration
+                configWatcher = new ConfigWatcher(Path.of(configFilePath), gameService);
+                System.out.println("Watching " + configWatcher.getFile() + " for changes");
+            }
+
+            if (servePort != null) {
+                // Serve plays over HTTP until the process is stopped
+                PlayServer playServer = new PlayServer(servePort, gameService,
+                        gamesDirectory != null ? new GameRegistry(gamesDirectory) : null,
+                        Runtime.getRuntime().availableProcessors(), PlayServer.DEFAULT_QUEUE_CAPACITY,
+                        PlayServer.DEFAULT_WARMUP_ROUNDS);
+                Runtime.getRuntime().addShutdownHook(new Thread(playServer::close));
+                System.out.println("Serving plays on port " + playServer.getPort()
+                        + (playServer.usesVirtualThreads() ? " on virtual threads" : " on platform threads"));
+                long start = System.nanoTime();
+                playServer.awaitReady(Duration.ofMinutes(1));
+                System.out.printf("Ready after a warm-up of %.3f s%n", (System.nanoTime() - start) / 1e9);
+                Thread.currentThread().join();
+                return;
+            }
+
+            if (exactRtp) {
+                // Exact expectations of the same symbol rules, without playing a round
+                gameService.printRtpReport(new RtpCalculator(model).calculate());
+                return;
+            }
+
+            if (enumerate) {
+                // Exact expectations of every combination from every board, resumable from the checkpoint
+                BoardEnumerator enumerator = new BoardEnumerator(model);
+                System.out.println("Enumerating " + enumerator.getBoardCount() + " boards in "
+                        + enumerator.getChunkCount() + " chunks");
+                gameService.printRtpReport(enumerator.run(checkpoint));
+                return;
+            }
+
+            if (verified != null) {
+                // Replay every recorded round of a journal directory or result file against the configuration
+                ReplayVerifier verifier = new ReplayVerifier(model, bettingAmount);
+                long start = System.nanoTime();
+                VerificationReport report = Files.isDirectory(verified)
+                        ? verifier.verifyJournal(verified)
+                        : verifier.verifyResults(verified);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                report.getMismatches().forEach(mismatch -> System.out.println("Mismatch: " + mismatch));
+                System.out.printf("Verified %d rounds in %.3f s (%.0f rounds/s): %d mismatches, %d skipped%n",
+                        report.getVerifiedRecords(), seconds, report.getVerifiedRecords() / seconds,
+                        report.getMismatchCount(), report.getSkippedRecords());
                 return;
             }
 
-            System.out.println("Game Configuration Loaded:");
-            System.out.println(gameConfig);
+            if (playedTickets > 0) {
+                // Stream every ticket to the output through one reused batch instead of rendering results
+                if (outputFormat == null) {
+                    // A journal is enough of a record on its own
+                    outputFormat = output == null && journal != null ? "none" : "ndjson";
+                }
+                if (output == null && !"none".equalsIgnoreCase(outputFormat)) {
+                    System.err.println("Output file is required to play tickets. Use --output <path> to specify.");
+                    return;
+                }
+                long start = System.nanoTime();
+                try (ResultSink sink = ResultSink.open(outputFormat, "none".equalsIgnoreCase(outputFormat) ? null : openOutput(output));
+                     RoundJournal roundJournal = journal != null ? new RoundJournal(journal, model) : null) {
+                    // Journal every round next to the output for audit and replay
+                    BatchSink played = roundJournal == null ? sink : batch -> {
+                        sink.accept(batch);
+                        roundJournal.accept(batch);
+                    };
+                    gameService.playBatch(playedTickets, bettingAmount, played);
+                    sink.flush();
+                    if (roundJournal != null) {
+                        roundJournal.flush();
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Played %d tickets in %.3f s (%.0f tickets/s)%n", playedTickets, seconds,
+                        playedTickets / seconds);
+                return;
+            }
 
-            // Initialize services
-            MatrixGenerator matrixGenerator = new MatrixGenerator(gameConfig);
-            RewardCalculator rewardCalculator = new RewardCalculator(gameConfig);
-            GameService gameService = new GameService(gameConfig, matrixGenerator, rewardCalculator);
+            if (simulatedRounds > 0) {
+                // Certify RTP and hit rate over many rounds instead of playing a single one
+                SimulationStatistics statistics = new Simulator(gameService).run(simulatedRounds, targetPrecision, null);
+                gameService.printSimulationResult(statistics);
+                return;
+            }
 
             // Start the game
-            GameResult gameResult = gameService.startGame(bettingAmount);
+            GameResult gameResult = round != null
+                    ? gameService.startGame(bettingAmount, round)
+                    : gameService.startGame(bettingAmount);
 
             // Print the game result
             gameService.printGameResult(gameResult);
@@ -63,6 +299,21 @@ public class Application {
         } catch (Exception e) {
             System.err.println("An error occurred during the game execution:");
             e.printStackTrace();
+        } finally {
+            if (configWatcher != null) {
+                configWatcher.close();
+            }
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
         }
     }
+
+    /**
+     * @return a channel truncating the file, or null without a file
+     */
+    private static WritableByteChannel openOutput(Path output) throws IOException {
+        return output == null ? null : FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
 }
@@ -6,5 +6,20 @@ package com.scratchGame.enums;
 public enum EnumBonusImpact {
     MULTIPLY_REWARD,
     EXTRA_BONUS,
-    MISS
+    MISS;
+
+    /**
+     * Maps the "impact" of a symbol configuration, e.g. "multiply_reward", to its enum value.
+     *
+     * @param impact the configured impact
+     * @return the matching impact, or null if the impact is unknown
+     */
+    public static EnumBonusImpact fromImpact(String impact) {
+        for (EnumBonusImpact value : values()) {
+            if (value.name().equalsIgnoreCase(impact)) {
+                return value;
+            }
+        }
+        return null;
+    }
 }
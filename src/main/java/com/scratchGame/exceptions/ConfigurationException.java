@@ -1,6 +1,10 @@
 package com.scratchGame.exceptions;
 
 public class ConfigurationException extends RuntimeException {
+    public ConfigurationException(String message) {
+        super(message);
+    }
+
     public ConfigurationException(String message, Throwable cause) {
         super(message, cause);
     }
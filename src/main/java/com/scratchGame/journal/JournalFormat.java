@@ -0,0 +1,117 @@
+package com.scratchGame.journal;
+
+import com.scratchGame.exceptions.GameException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Layout of the journal files.
+ * <p>
+ * A journal is a directory of segments named after the sequence of their first record,
+ * {@code journal-<sequence>.seg}. A segment starts with a {@link #HEADER_BYTES} byte header, followed by fixed-size
+ * big-endian records: the long seed, the long round, the double reward, the int combination bitset, the int bonus
+ * symbol id and the packed board. The header holds the number of records made durable so far; records past it are
+ * ignored. A closed segment has a sparse index, {@code journal-<sequence>.idx}, with the smallest and largest
+ * round of every block of {@link #INDEX_INTERVAL} records. The index of a segment that was not closed is rebuilt
+ * from its records.
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x53434a52;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_FIXED_BYTES = 32;
+    static final int INDEX_INTERVAL = 256;
+
+    // Header offsets
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_BYTES_OFFSET = 8;
+    static final int BOARD_WORDS_OFFSET = 12;
+    static final int ROWS_OFFSET = 16;
+    static final int COLUMNS_OFFSET = 20;
+    static final int SYMBOLS_OFFSET = 24;
+    static final int FINGERPRINT_OFFSET = 32;
+    static final int FIRST_SEQUENCE_OFFSET = 40;
+    static final int RECORDS_OFFSET = 48;
+
+    // Record offsets
+    static final int ROUND_OFFSET = 8;
+    static final int REWARD_OFFSET = 16;
+    static final int COMBINATIONS_OFFSET = 24;
+    static final int BONUS_SYMBOL_OFFSET = 28;
+    static final int BOARD_OFFSET = RECORD_FIXED_BYTES;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private JournalFormat() {
+    }
+
+    static int recordBytes(int boardWords) {
+        return RECORD_FIXED_BYTES + boardWords * Long.BYTES;
+    }
+
+    static Path segmentFile(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    static Path indexFile(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * @return the segments of the journal in sequence order, empty if the directory does not exist
+     */
+    static List<Path> segments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).forEach(segments::add);
+            // Sequences are zero padded, so name order is sequence order
+            segments.sort(Comparator.comparing(file -> file.getFileName().toString()));
+            return segments;
+        } catch (IOException e) {
+            throw new GameException("Failed to list journal " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if the segment holds a header, false if a crash left it shorter than a header or before its
+     * header reached the disk
+     */
+    static boolean hasHeader(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+        return channel.size() >= HEADER_BYTES && channel.read(magic, 0) == Integer.BYTES && magic.getInt(0) != 0;
+    }
+
+    /**
+     * Reads and checks the header of a segment.
+     */
+    static ByteBuffer readHeader(FileChannel channel, Path segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Reads until the header is complete or the file ends
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+            throw new GameException("Not a journal segment: " + segment);
+        }
+        if (header.getShort(VERSION_OFFSET) != VERSION) {
+            throw new GameException("Unsupported journal version " + header.getShort(VERSION_OFFSET) + ": " + segment);
+        }
+        return header;
+    }
+}
@@ -0,0 +1,341 @@
+package com.scratchGame.journal;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.metrics.GameMetrics;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.SymbolDictionary;
+import com.scratchGame.service.GameModel;
+import com.scratchGame.service.GameService;
+import com.scratchGame.service.MatrixGenerator;
+import com.scratchGame.service.RoundEvaluation;
+import com.scratchGame.service.SplitMixRandom;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Proves recorded rounds by playing them again.
+ * <p>
+ * Every record names the seed of its generator and its round index, which together determine the board. The
+ * verifier regenerates the board through {@link MatrixGenerator}, scores it through
+ * {@link GameService#playRound} and reports every recorded board, reward, combination or bonus symbol that differs.
+ * Records played with another configuration than the one verified against, as told by the
+ * {@link GameModel#getFingerprint() fingerprint} of their segment or line, are reported and skipped. Neither format
+ * records the bet, rewards are checked for the bet the verifier is given.
+ * <p>
+ * Journals are split into ranges of {@link #JOURNAL_CHUNK_RECORDS} records and result files into ranges of about
+ * {@link #RESULT_CHUNK_BYTES} bytes of whole lines, verified by a fixed pool of workers, so the work spreads over
+ * every core whatever the number of segments.
+ */
+public final class ReplayVerifier {
+
+    static final int JOURNAL_CHUNK_RECORDS = 1 << 16;
+    static final int RESULT_CHUNK_BYTES = 8 << 20;
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+            .build();
+    private static final EnumWinningCombinationType[] COMBINATION_TYPES = EnumWinningCombinationType.values();
+    private static final double REWARD_TOLERANCE = 1e-9;
+
+    private final GameModel model;
+    private final double bettingAmount;
+    private final int workers;
+    private final int journalChunkRecords;
+    private final int resultChunkBytes;
+
+    public ReplayVerifier(GameModel model, double bettingAmount) {
+        this(model, bettingAmount, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param model         the game the rounds must have been played with
+     * @param bettingAmount the bet every round was played for
+     * @param workers       the number of worker threads
+     */
+    public ReplayVerifier(GameModel model, double bettingAmount, int workers) {
+        this(model, bettingAmount, workers, JOURNAL_CHUNK_RECORDS, RESULT_CHUNK_BYTES);
+    }
+
+    ReplayVerifier(GameModel model, double bettingAmount, int workers, int journalChunkRecords, int resultChunkBytes) {
+        if (model == null) {
+            throw new InvalidArgumentException("Model cannot be null");
+        }
+        if (workers < 1 || journalChunkRecords < 1 || resultChunkBytes < 1) {
+            throw new InvalidArgumentException("Workers and chunk sizes must be positive");
+        }
+        this.model = model;
+        this.bettingAmount = bettingAmount;
+        this.workers = workers;
+        this.journalChunkRecords = journalChunkRecords;
+        this.resultChunkBytes = resultChunkBytes;
+    }
+
+    /**
+     * Verifies every durable record of a {@link RoundJournal} directory.
+     *
+     * @throws GameException if the journal cannot be read
+     */
+    public VerificationReport verifyJournal(Path directory) {
+        try (RoundJournalReader reader = new RoundJournalReader(directory)) {
+            VerificationReport report = new VerificationReport();
+            List<Callable<VerificationReport>> tasks = new ArrayList<>();
+            for (RoundJournalReader.Segment segment : reader.getSegments()) {
+                String source = segment.getPath().getFileName().toString();
+                if (segment.getFingerprint() != model.getFingerprint()) {
+                    report.addSkipped(segment.getRecordCount());
+                    report.addMismatch(new VerificationReport.Mismatch(source, segment.getFirstSequence(), 0, 0,
+                            "config", Long.toHexString(model.getFingerprint()), Long.toHexString(segment.getFingerprint())));
+                    continue;
+                }
+                for (int first = 0; first < segment.getRecordCount(); first += journalChunkRecords) {
+                    int start = first;
+                    int count = Math.min(journalChunkRecords, segment.getRecordCount() - first);
+                    tasks.add(() -> {
+                        Replay replay = new Replay();
+                        VerificationReport part = new VerificationReport();
+                        reader.forEach(segment, start, count, record -> replay.verify(source, record, part));
+                        return part;
+                    });
+                }
+            }
+            return run(tasks, report);
+        }
+    }
+
+    /**
+     * Verifies every line of a result file written by {@link com.scratchGame.output.NdjsonResultSink}. Lines without
+     * a config are replayed against the game of the verifier.
+     *
+     * @throws GameException if the file cannot be read or a line is not a result
+     */
+    public VerificationReport verifyResults(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            String source = file.getFileName().toString();
+            long size = channel.size();
+            List<Callable<VerificationReport>> tasks = new ArrayList<>();
+            for (long start = 0, end; start < size; start = end) {
+                end = lineEnd(channel, Math.min(size, start + resultChunkBytes), size);
+                long from = start;
+                int length = (int) (end - start);
+                tasks.add(() -> verifyLines(channel, source, from, length));
+            }
+            return run(tasks, new VerificationReport());
+        } catch (IOException e) {
+            throw new GameException("Failed to read results " + file + ": " + e.getMessage());
+        }
+    }
+
+    private VerificationReport run(List<Callable<VerificationReport>> tasks, VerificationReport report) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, tasks.size())));
+        try {
+            for (Future<VerificationReport> future : executor.invokeAll(tasks)) {
+                report.merge(future.get());
+            }
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Verification was interrupted");
+        } catch (ExecutionException e) {
+            throw new GameException("Verification failed: " + e.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the position after the first line break at or after position - 1, the size if there is none
+     */
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (long offset = position - 1; offset < size; offset += buffer.limit()) {
+            buffer.clear();
+            if (channel.read(buffer, offset) < 0) {
+                break;
+            }
+            buffer.flip();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    private VerificationReport verifyLines(FileChannel channel, String source, long from, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, from + bytes.position()) < 0) {
+                throw new GameException("Results are truncated: " + source);
+            }
+        }
+
+        Replay replay = new Replay();
+        VerificationReport part = new VerificationReport();
+        String expectedConfig = Long.toHexString(model.getFingerprint());
+        try (JsonParser parser = JSON_FACTORY.createParser(bytes.array(), 0, length)) {
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                long position = from + parser.currentTokenLocation().getByteOffset();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new GameException("Not a result at offset " + position + " of " + source);
+                }
+                Long seed = null;
+                Long round = null;
+                String config = null;
+                double reward = Double.NaN;
+                List<String> combinations = new ArrayList<>();
+                String bonusSymbol = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "seed" -> seed = parser.getLongValue();
+                        case "config" -> config = parser.getText();
+                        case "round" -> round = parser.getLongValue();
+                        case "reward" -> reward = parser.getDoubleValue();
+                        case "applied_winning_combinations" -> {
+                            while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                                combinations.add(parser.getText());
+                            }
+                        }
+                        case "applied_bonus_symbol" -> bonusSymbol = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                        default -> parser.skipChildren();
+                    }
+                }
+                if (seed == null || round == null) {
+                    throw new GameException("Result without seed or round at offset " + position + " of " + source);
+                }
+                if (config != null && !config.equals(expectedConfig)) {
+                    part.addSkipped(1);
+                    part.addMismatch(new VerificationReport.Mismatch(source, position, seed, round, "config",
+                            expectedConfig, config));
+                    continue;
+                }
+                replay.verify(source, position, seed, round, reward, combinations, bonusSymbol, part);
+            }
+        }
+        return part;
+    }
+
+    private static List<String> combinationNames(int combinations) {
+        List<String> names = new ArrayList<>();
+        for (int bits = combinations; bits != 0; bits &= bits - 1) {
+            names.add(COMBINATION_TYPES[Integer.numberOfTrailingZeros(bits)].name());
+        }
+        return names;
+    }
+
+    /**
+     * @return true if the names are the combinations of the bitset in ordinal order, as the result sink writes them
+     */
+    private static boolean sameCombinations(int combinations, List<String> names) {
+        int bits = combinations;
+        for (String name : names) {
+            if (bits == 0 || !COMBINATION_TYPES[Integer.numberOfTrailingZeros(bits)].name().equals(name)) {
+                return false;
+            }
+            bits &= bits - 1;
+        }
+        return bits == 0;
+    }
+
+    private static boolean sameReward(double expected, double recorded) {
+        return Math.abs(expected - recorded) <= REWARD_TOLERANCE * Math.max(1, Math.abs(expected));
+    }
+
+    /**
+     * Replays rounds for one worker, keeping its board and evaluation and the game of the last seed.
+     */
+    private final class Replay {
+
+        private final SymbolDictionary dictionary = model.getDictionary();
+        private final Board board = new Board(dictionary, model.getRows(), model.getColumns());
+        private final RoundEvaluation evaluation = new RoundEvaluation();
+        private final long[] packedBoard = new long[Board.packedLength(dictionary, model.getCellCount())];
+        private GameService gameService;
+        private long seed;
+
+        /**
+         * @return the reward of the round for the bet of the verifier
+         */
+        private double play(long seed, long round) {
+            if (gameService == null || seed != this.seed) {
+                this.seed = seed;
+                gameService = GameService.forModel(model, new SplitMixRandom(seed), GameMetrics.DISABLED);
+            }
+            return gameService.playRound(board, evaluation, round) * bettingAmount;
+        }
+
+        private int bonusSymbol() {
+            return evaluation.getBonusSymbolCount() > 0 ? evaluation.getBonusSymbol(0) : SymbolDictionary.BLANK;
+        }
+
+        private void verify(String source, RoundRecord record, VerificationReport report) {
+            long position = record.getSequence();
+            long seed = record.getSeed();
+            long round = record.getRound();
+            double reward = play(seed, round);
+            board.pack(packedBoard, 0);
+            if (!record.hasBoard(packedBoard)) {
+                Board recorded = record.getBoard(new Board(dictionary, model.getRows(), model.getColumns()));
+                report.addMismatch(new VerificationReport.Mismatch(source, position, seed, round, "board",
+                        board.toMatrix().toString(), recorded.toMatrix().toString()));
+            }
+            verifyReward(source, position, seed, round, reward, record.getReward(), report);
+            // Combinations and bonus symbols are compared as ids, names are only rendered for mismatches
+            if (evaluation.getCombinations() != record.getCombinations()) {
+                report.addMismatch(new VerificationReport.Mismatch(source, position, seed, round, "combinations",
+                        combinationNames(evaluation.getCombinations()).toString(),
+                        combinationNames(record.getCombinations()).toString()));
+            }
+            if (bonusSymbol() != record.getBonusSymbol()) {
+                report.addMismatch(new VerificationReport.Mismatch(source, position, seed, round, "bonus_symbol",
+                        dictionary.nameOf(bonusSymbol()), symbolName(record.getBonusSymbol())));
+            }
+            report.addVerified(1);
+        }
+
+        private String symbolName(int symbol) {
+            return symbol >= 0 && symbol < dictionary.size() ? dictionary.nameOf(symbol) : "#" + symbol;
+        }
+
+        private void verify(String source, long position, long seed, long round, double recordedReward,
+                            List<String> recordedCombinations, String recordedBonusSymbol, VerificationReport report) {
+            double reward = play(seed, round);
+            verifyReward(source, position, seed, round, reward, recordedReward, report);
+            if (!sameCombinations(evaluation.getCombinations(), recordedCombinations)) {
+                report.addMismatch(new VerificationReport.Mismatch(source, position, seed, round, "combinations",
+                        combinationNames(evaluation.getCombinations()).toString(), recordedCombinations.toString()));
+            }
+            String bonusSymbol = bonusSymbol() == SymbolDictionary.BLANK ? null : dictionary.nameOf(bonusSymbol());
+            if (!Objects.equals(bonusSymbol, recordedBonusSymbol)) {
+                report.addMismatch(new VerificationReport.Mismatch(source, position, seed, round, "bonus_symbol",
+                        bonusSymbol, recordedBonusSymbol));
+            }
+            report.addVerified(1);
+        }
+
+        private void verifyReward(String source, long position, long seed, long round, double reward,
+                                  double recordedReward, VerificationReport report) {
+            if (!sameReward(reward, recordedReward)) {
+                report.addMismatch(new VerificationReport.Mismatch(source, position, seed, round, "reward",
+                        String.valueOf(reward), String.valueOf(recordedReward)));
+            }
+        }
+    }
+}
@@ -0,0 +1,568 @@
+package com.scratchGame.journal;
+
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Board;
+import com.scratchGame.service.BatchResult;
+import com.scratchGame.service.BatchSink;
+import com.scratchGame.service.GameModel;
+
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only journal of played rounds in memory-mapped segment files, see {@link JournalFormat} for the layout.
+ * <p>
+ * Game threads only copy their records into pooled in-memory chunks. A writer thread owns the files: it copies
+ * full chunks into the mapped segment, rolls to a new segment once one holds {@code segmentRecords} records or the
+ * batches come from another game, keeps the sparse index of the segment and makes the records durable at most once per sync interval, so one fsync covers
+ * every record appended in between. Appending only waits for the writer when every chunk is queued, which bounds
+ * the memory of a journal that cannot keep up with the disk. Records are read back with {@link RoundJournalReader}.
+ * Journals are thread-safe.
+ */
+public final class RoundJournal implements BatchSink, AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(100);
+
+    static final int CHUNK_RECORDS = 1024;
+    static final int CHUNKS = 16;
+
+    // Queued by flush, close and a change of game to wake the writer, never written
+    private static final ByteBuffer SYNC = ByteBuffer.allocate(0);
+    private static final ByteBuffer CLOSE = ByteBuffer.allocate(0);
+    private static final ByteBuffer ROLL = ByteBuffer.allocate(0);
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long syncIntervalNanos;
+    private final long firstSequence;
+
+    // Producer side, guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BlockingQueue<ByteBuffer> freeChunks = new ArrayBlockingQueue<>(CHUNKS);
+    private final BlockingQueue<ByteBuffer> fullChunks = new ArrayBlockingQueue<>(CHUNKS + 2);
+    // Games of the queued ROLL requests, in queue order
+    private final Queue<GameModel> rolledModels = new ConcurrentLinkedQueue<>();
+    private GameModel model;
+    private int boardWords;
+    private int recordBytes;
+    private long[] packedBoard;
+    private ByteBuffer staging;
+    private long appended;
+    private boolean closed;
+
+    // Durable records, guarded by syncMonitor
+    private final Object syncMonitor = new Object();
+    private long synced;
+    private volatile Throwable failure;
+
+    // Writer side, only used by the writer thread
+    private final Thread writer;
+    private GameModel segmentModel;
+    private int segmentBoardWords;
+    private int segmentRecordBytes;
+    private long written;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private Path segmentPath;
+    private int segmentCount;
+    private int syncedSegmentCount;
+    private long[] blockMinRounds;
+    private long[] blockMaxRounds;
+
+    public RoundJournal(Path directory, GameModel model) {
+        this(directory, model, DEFAULT_SEGMENT_RECORDS, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Opens the journal, continuing after the last durable record of the segments already in the directory.
+     *
+     * @param directory      the directory of the segments, created if needed
+     * @param model          the game the rounds are played with
+     * @param segmentRecords the number of records of a segment
+     * @param syncInterval   the longest time a record stays in memory only
+     * @throws InvalidArgumentException if a segment would not fit a memory mapping
+     * @throws GameException            if the directory cannot be used
+     */
+    public RoundJournal(Path directory, GameModel model, int segmentRecords, Duration syncInterval) {
+        if (directory == null || model == null || syncInterval == null) {
+            throw new InvalidArgumentException("Directory, model and sync interval cannot be null");
+        }
+        if (segmentRecords < 1) {
+            throw new InvalidArgumentException("Segments must hold at least one record");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.syncIntervalNanos = Math.max(1, syncInterval.toNanos());
+        useModel(model);
+        useSegmentModel(model);
+        for (int i = 0; i < CHUNKS; i++) {
+            freeChunks.add(ByteBuffer.allocate(CHUNK_RECORDS * recordBytes));
+        }
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new GameException("Failed to create journal " + directory + ": " + e.getMessage());
+        }
+        this.firstSequence = nextSequence(directory);
+        this.written = firstSequence;
+        this.synced = firstSequence;
+        this.writer = new Thread(this::write, "round-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Appends every ticket of the batch. A batch of another game than the previous records, such as a batch played
+     * after the configuration was reloaded, starts a new segment for that game.
+     *
+     * @throws InvalidArgumentException if a segment of the game of the batch would not fit a memory mapping
+     * @throws GameException            if the journal is closed or the writer failed
+     */
+    @Override
+    public void accept(BatchResult batch) {
+        lock.lock();
+        try {
+            checkOpen();
+            if (batch.size() > 0 && batch.getFingerprint() != model.getFingerprint()) {
+                roll(batch.getModel());
+            }
+            long seed = batch.getSeed();
+            for (int ticket = 0; ticket < batch.size(); ticket++) {
+                ByteBuffer chunk = reserve();
+                chunk.putLong(seed)
+                        .putLong(batch.getRound(ticket))
+                        .putDouble(batch.getReward(ticket))
+                        .putInt(batch.getCombinations(ticket))
+                        .putInt(batch.getBonusSymbol(ticket));
+                for (int word = 0; word < boardWords; word++) {
+                    chunk.putLong(batch.getBoardWord(ticket, word));
+                }
+                appended++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a single round.
+     *
+     * @param seed         the seed of the generator of the round
+     * @param round        the round index
+     * @param board        the board of the round, of the game of the journal
+     * @param reward       the reward of the round
+     * @param combinations the won combinations as a bitset of combination type ordinals
+     * @param bonusSymbol  the id of the first bonus symbol of the board
+     */
+    public void append(long seed, long round, Board board, double reward, int combinations, int bonusSymbol) {
+        if (board == null || board.getDictionary() != model.getDictionary() || board.size() != model.getCellCount()) {
+            throw new InvalidArgumentException("Board does not belong to the game of the journal");
+        }
+        lock.lock();
+        try {
+            checkOpen();
+            ByteBuffer chunk = reserve();
+            chunk.putLong(seed).putLong(round).putDouble(reward).putInt(combinations).putInt(bonusSymbol);
+            board.pack(packedBoard, 0);
+            for (long word : packedBoard) {
+                chunk.putLong(word);
+            }
+            appended++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is durable.
+     *
+     * @throws GameException if the writer failed
+     */
+    public void flush() {
+        long target;
+        lock.lock();
+        try {
+            checkOpen();
+            handOver();
+            target = firstSequence + appended;
+            queue(SYNC);
+        } finally {
+            lock.unlock();
+        }
+        awaitSynced(target);
+    }
+
+    /**
+     * @return the number of records appended since the journal was opened
+     */
+    public long getAppendedRecords() {
+        lock.lock();
+        try {
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the sequence after the last durable record, counted over every segment of the directory
+     */
+    public long getSyncedSequence() {
+        synchronized (syncMonitor) {
+            return synced;
+        }
+    }
+
+    /**
+     * @return the sequence of the first record appended by this journal
+     */
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Makes every record durable, writes the index of the last segment and stops the writer.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            handOver();
+            queue(CLOSE);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Interrupted while closing the journal");
+        }
+        checkFailure();
+    }
+
+    /**
+     * Switches the producers to the game of the next records and asks the writer to start a segment for it once
+     * the records staged so far are written.
+     */
+    private void roll(GameModel next) {
+        useModel(next);
+        handOver();
+        rolledModels.add(next);
+        queue(ROLL);
+    }
+
+    /**
+     * Sets up the producer side for the records of the game.
+     */
+    private void useModel(GameModel next) {
+        int words = Board.packedLength(next.getDictionary(), next.getCellCount());
+        int bytes = JournalFormat.recordBytes(words);
+        if (JournalFormat.HEADER_BYTES + (long) segmentRecords * bytes > Integer.MAX_VALUE) {
+            throw new InvalidArgumentException("Segments of " + segmentRecords + " records of " + bytes
+                    + " bytes do not fit in 2 GiB");
+        }
+        model = next;
+        boardWords = words;
+        recordBytes = bytes;
+        packedBoard = new long[words];
+    }
+
+    private ByteBuffer reserve() {
+        if (staging != null && staging.remaining() < recordBytes) {
+            handOver();
+        }
+        while (staging == null) {
+            checkFailure();
+            try {
+                // Only waits when every chunk is queued for the writer
+                staging = freeChunks.poll(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GameException("Interrupted while appending to the journal");
+            }
+            if (staging != null && staging.capacity() < CHUNK_RECORDS * recordBytes) {
+                // Chunks of a game with smaller boards are regrown once for the records of the current one
+                staging = ByteBuffer.allocate(CHUNK_RECORDS * recordBytes);
+            }
+        }
+        return staging;
+    }
+
+    /**
+     * Queues the records staged so far for the writer.
+     */
+    private void handOver() {
+        if (staging != null && staging.position() > 0) {
+            staging.flip();
+            queue(staging);
+            staging = null;
+        }
+    }
+
+    /**
+     * Queues a chunk or a request for the writer, waiting while the writer lags behind flushes queued by other
+     * threads. Producers only queue under the lock, which the writer never waits for, so the writer keeps draining.
+     */
+    private void queue(ByteBuffer chunk) {
+        try {
+            while (!fullChunks.offer(chunk, 10, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Interrupted while appending to the journal");
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new GameException("Journal is closed");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        Throwable cause = failure;
+        if (cause != null) {
+            throw new GameException("Journal writer failed: " + cause.getMessage());
+        }
+    }
+
+    private void awaitSynced(long target) {
+        synchronized (syncMonitor) {
+            while (synced < target && failure == null) {
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GameException("Interrupted while flushing the journal");
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    private void write() {
+        try {
+            long nextSync = System.nanoTime() + syncIntervalNanos;
+            boolean running = true;
+            while (running) {
+                ByteBuffer chunk = fullChunks.poll(Math.max(0, nextSync - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (chunk == CLOSE) {
+                    running = false;
+                } else if (chunk == ROLL) {
+                    rollModel();
+                } else if (chunk != null && chunk != SYNC) {
+                    writeChunk(chunk);
+                    continue;
+                } else if (chunk == null) {
+                    // Nothing arrived for a whole interval, pick up the records still being staged. Producers
+                    // only queue under the lock, so the room checked here cannot be taken before the hand-over
+                    if (lock.tryLock()) {
+                        try {
+                            if (fullChunks.remainingCapacity() > 0) {
+                                handOver();
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                    for (ByteBuffer queued = fullChunks.peek(); queued != null && queued != CLOSE; queued = fullChunks.peek()) {
+                        fullChunks.poll();
+                        if (queued == ROLL) {
+                            rollModel();
+                        } else if (queued != SYNC) {
+                            writeChunk(queued);
+                        }
+                    }
+                }
+                if (chunk == SYNC || chunk == CLOSE || System.nanoTime() - nextSync >= 0) {
+                    sync();
+                    nextSync = System.nanoTime() + syncIntervalNanos;
+                }
+            }
+            finishSegment();
+        } catch (Throwable e) {
+            failure = e;
+            synchronized (syncMonitor) {
+                syncMonitor.notifyAll();
+            }
+            closeSegment();
+        }
+    }
+
+    /**
+     * Closes the segment of the previous game, the next records start a segment of the game of the request.
+     */
+    private void rollModel() throws IOException {
+        finishSegment();
+        useSegmentModel(rolledModels.remove());
+    }
+
+    private void useSegmentModel(GameModel next) {
+        segmentModel = next;
+        segmentBoardWords = Board.packedLength(next.getDictionary(), next.getCellCount());
+        segmentRecordBytes = JournalFormat.recordBytes(segmentBoardWords);
+    }
+
+    private void writeChunk(ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining()) {
+            if (segment == null || segmentCount == segmentRecords) {
+                roll();
+            }
+            int records = Math.min(chunk.remaining() / segmentRecordBytes, segmentRecords - segmentCount);
+            for (int record = 0; record < records; record++) {
+                index(segmentCount + record,
+                        chunk.getLong(chunk.position() + record * segmentRecordBytes + JournalFormat.ROUND_OFFSET));
+            }
+            int bytes = records * segmentRecordBytes;
+            segment.position(JournalFormat.HEADER_BYTES + segmentCount * segmentRecordBytes);
+            segment.put(chunk.slice(chunk.position(), bytes));
+            chunk.position(chunk.position() + bytes);
+            segmentCount += records;
+            written += records;
+        }
+        chunk.clear();
+        freeChunks.add(chunk);
+    }
+
+    private void index(int record, long round) {
+        int block = record / JournalFormat.INDEX_INTERVAL;
+        if (record % JournalFormat.INDEX_INTERVAL == 0) {
+            blockMinRounds[block] = round;
+            blockMaxRounds[block] = round;
+        } else {
+            blockMinRounds[block] = Math.min(blockMinRounds[block], round);
+            blockMaxRounds[block] = Math.max(blockMaxRounds[block], round);
+        }
+    }
+
+    /**
+     * Makes the records of the current segment durable: the records first, then the header counting them.
+     */
+    private void sync() {
+        if (segment != null && segmentCount != syncedSegmentCount) {
+            segment.force();
+            segment.putLong(JournalFormat.RECORDS_OFFSET, segmentCount);
+            segment.force();
+            syncedSegmentCount = segmentCount;
+        }
+        synchronized (syncMonitor) {
+            synced = written;
+            syncMonitor.notifyAll();
+        }
+    }
+
+    private void roll() throws IOException {
+        finishSegment();
+        segmentPath = JournalFormat.segmentFile(directory, written);
+        segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                JournalFormat.HEADER_BYTES + (long) segmentRecords * segmentRecordBytes);
+        segment.putInt(0, JournalFormat.MAGIC)
+                .putShort(JournalFormat.VERSION_OFFSET, JournalFormat.VERSION)
+                .putInt(JournalFormat.RECORD_BYTES_OFFSET, segmentRecordBytes)
+                .putInt(JournalFormat.BOARD_WORDS_OFFSET, segmentBoardWords)
+                .putInt(JournalFormat.ROWS_OFFSET, segmentModel.getRows())
+                .putInt(JournalFormat.COLUMNS_OFFSET, segmentModel.getColumns())
+                .putInt(JournalFormat.SYMBOLS_OFFSET, segmentModel.getDictionary().size())
+                .putLong(JournalFormat.FINGERPRINT_OFFSET, segmentModel.getFingerprint())
+                .putLong(JournalFormat.FIRST_SEQUENCE_OFFSET, written)
+                .putLong(JournalFormat.RECORDS_OFFSET, 0);
+        segmentCount = 0;
+        syncedSegmentCount = -1;
+        int blocks = (segmentRecords + JournalFormat.INDEX_INTERVAL - 1) / JournalFormat.INDEX_INTERVAL;
+        blockMinRounds = new long[blocks];
+        blockMaxRounds = new long[blocks];
+    }
+
+    /**
+     * Makes the segment durable, writes its index and closes it.
+     */
+    private void finishSegment() throws IOException {
+        if (segment == null) {
+            return;
+        }
+        sync();
+        int blocks = (segmentCount + JournalFormat.INDEX_INTERVAL - 1) / JournalFormat.INDEX_INTERVAL;
+        Path index = JournalFormat.indexFile(segmentPath);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index)))) {
+            output.writeInt(JournalFormat.MAGIC);
+            output.writeInt(blocks);
+            for (int block = 0; block < blocks; block++) {
+                output.writeLong(blockMinRounds[block]);
+                output.writeLong(blockMaxRounds[block]);
+            }
+        }
+        closeSegment();
+    }
+
+    private void closeSegment() {
+        try {
+            if (segmentChannel != null) {
+                segmentChannel.close();
+            }
+        } catch (IOException e) {
+            // The records were forced already, a failed close loses nothing
+        } finally {
+            segmentChannel = null;
+            segment = null;
+        }
+    }
+
+    /**
+     * Returns the sequence after the last durable record of the segments in the directory.
+     * <p>
+     * A crash before the first sync of the last segment leaves it without durable records, or even without a
+     * header. Such a segment is deleted, so that it is written again from its first sequence.
+     */
+    private static long nextSequence(Path directory) {
+        List<Path> segments = JournalFormat.segments(directory);
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Path segment = segments.get(i);
+            try {
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    if (JournalFormat.hasHeader(channel)) {
+                        ByteBuffer header = JournalFormat.readHeader(channel, segment);
+                        long records = header.getLong(JournalFormat.RECORDS_OFFSET);
+                        if (records > 0) {
+                            return header.getLong(JournalFormat.FIRST_SEQUENCE_OFFSET) + records;
+                        }
+                    }
+                }
+                Files.deleteIfExists(JournalFormat.indexFile(segment));
+                Files.delete(segment);
+            } catch (IOException e) {
+                throw new GameException("Failed to read journal segment " + segment + ": " + e.getMessage());
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,299 @@
+package com.scratchGame.journal;
+
+import com.scratchGame.exceptions.GameException;
+
+import java.io.DataInputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Reads the durable records of a {@link RoundJournal} directory.
+ * <p>
+ * Looking a round up only reads the blocks of {@link JournalFormat#INDEX_INTERVAL} records whose round range in the
+ * sparse index holds it, with one positional read per block: a journal of rounds played in order needs a single
+ * read. Segments without an index, such as the last segment of a journal that was not closed, have their index
+ * rebuilt from the records when the reader opens. Readers are not thread-safe.
+ */
+public final class RoundJournalReader implements AutoCloseable {
+
+    private final Path directory;
+    private final List<Segment> segments = new ArrayList<>();
+    private ByteBuffer block = ByteBuffer.allocate(0);
+
+    /**
+     * @param directory the directory of the journal
+     * @throws GameException if a segment cannot be read
+     */
+    public RoundJournalReader(Path directory) {
+        this.directory = directory;
+        try {
+            for (Path file : JournalFormat.segments(directory)) {
+                segments.add(new Segment(file));
+            }
+        } catch (IOException e) {
+            close();
+            throw new GameException("Failed to open journal " + directory + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * @return the number of durable records over every segment
+     */
+    public long getRecordCount() {
+        long records = 0;
+        for (Segment segment : segments) {
+            records += segment.records;
+        }
+        return records;
+    }
+
+    /**
+     * Finds the first record of a round.
+     *
+     * @param round the round index
+     * @return the record, null if the journal has none for the round
+     */
+    public RoundRecord find(long round) {
+        for (Segment segment : segments) {
+            for (int index = 0; index < segment.blockMinRounds.length; index++) {
+                if (round < segment.blockMinRounds[index] || round > segment.blockMaxRounds[index]) {
+                    continue;
+                }
+                int first = index * JournalFormat.INDEX_INTERVAL;
+                int count = Math.min(JournalFormat.INDEX_INTERVAL, segment.records - first);
+                ByteBuffer records = readBlock(segment, first, count);
+                for (int record = 0; record < count; record++) {
+                    int position = record * segment.recordBytes;
+                    if (records.getLong(position + JournalFormat.ROUND_OFFSET) == round) {
+                        return segment.record(records, position, first + record);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Passes every durable record to the consumer in sequence order.
+     */
+    public void forEach(Consumer<RoundRecord> consumer) {
+        for (Segment segment : segments) {
+            forEach(segment, consumer);
+        }
+    }
+
+    /**
+     * Passes the durable records of one segment to the consumer in sequence order.
+     */
+    public void forEach(Segment segment, Consumer<RoundRecord> consumer) {
+        forEach(segment, 0, segment.records, consumer);
+    }
+
+    /**
+     * Passes a range of the durable records of one segment to the consumer in sequence order. Unlike the rest of
+     * the reader, ranges may be read from several threads at once.
+     *
+     * @param segment the segment
+     * @param first   the index of the first record in the segment
+     * @param count   the number of records
+     */
+    public void forEach(Segment segment, int first, int count, Consumer<RoundRecord> consumer) {
+        if (first < 0 || count < 0 || first > segment.records - count) {
+            throw new IndexOutOfBoundsException("Records " + first + "+" + count + " out of " + segment.records);
+        }
+        MappedByteBuffer records = segment.map();
+        for (int record = first; record < first + count; record++) {
+            consumer.accept(segment.record(records, JournalFormat.HEADER_BYTES + record * segment.recordBytes, record));
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                // Nothing was written, closing cannot lose anything
+            }
+        }
+    }
+
+    private ByteBuffer readBlock(Segment segment, int first, int count) {
+        int bytes = count * segment.recordBytes;
+        if (block.capacity() < bytes) {
+            block = ByteBuffer.allocate(JournalFormat.INDEX_INTERVAL * segment.recordBytes);
+        }
+        block.clear().limit(bytes);
+        long position = JournalFormat.HEADER_BYTES + (long) first * segment.recordBytes;
+        try {
+            while (block.hasRemaining()) {
+                if (segment.channel.read(block, position + block.position()) < 0) {
+                    throw new GameException("Journal segment is truncated: " + segment.path);
+                }
+            }
+        } catch (IOException e) {
+            throw new GameException("Failed to read journal segment " + segment.path + ": " + e.getMessage());
+        }
+        return block.flip();
+    }
+
+    /**
+     * A segment file of the journal and the game its records were played with.
+     */
+    public static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final int recordBytes;
+        private final int boardWords;
+        private final int rows;
+        private final int columns;
+        private final int symbols;
+        private final long fingerprint;
+        private final long firstSequence;
+        private final int records;
+        private long[] blockMinRounds;
+        private long[] blockMaxRounds;
+
+        private Segment(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            ByteBuffer header = JournalFormat.readHeader(channel, path);
+            this.recordBytes = header.getInt(JournalFormat.RECORD_BYTES_OFFSET);
+            this.boardWords = header.getInt(JournalFormat.BOARD_WORDS_OFFSET);
+            this.rows = header.getInt(JournalFormat.ROWS_OFFSET);
+            this.columns = header.getInt(JournalFormat.COLUMNS_OFFSET);
+            this.symbols = header.getInt(JournalFormat.SYMBOLS_OFFSET);
+            this.fingerprint = header.getLong(JournalFormat.FINGERPRINT_OFFSET);
+            this.firstSequence = header.getLong(JournalFormat.FIRST_SEQUENCE_OFFSET);
+            long durable = header.getLong(JournalFormat.RECORDS_OFFSET);
+            if (recordBytes != JournalFormat.recordBytes(boardWords) || durable < 0
+                    || JournalFormat.HEADER_BYTES + durable * recordBytes > channel.size()) {
+                channel.close();
+                throw new GameException("Corrupt journal segment header: " + path);
+            }
+            this.records = (int) durable;
+            if (!readIndex()) {
+                rebuildIndex();
+            }
+        }
+
+        /**
+         * Loads the index written when the segment was closed.
+         *
+         * @return false if there is no index matching the durable records
+         */
+        private boolean readIndex() throws IOException {
+            Path index = JournalFormat.indexFile(path);
+            int blocks = (records + JournalFormat.INDEX_INTERVAL - 1) / JournalFormat.INDEX_INTERVAL;
+            if (!Files.isRegularFile(index) || Files.size(index) != 2 * Integer.BYTES + 2L * blocks * Long.BYTES) {
+                return false;
+            }
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+                if (input.readInt() != JournalFormat.MAGIC || input.readInt() != blocks) {
+                    return false;
+                }
+                blockMinRounds = new long[blocks];
+                blockMaxRounds = new long[blocks];
+                for (int block = 0; block < blocks; block++) {
+                    blockMinRounds[block] = input.readLong();
+                    blockMaxRounds[block] = input.readLong();
+                }
+                return true;
+            }
+        }
+
+        private void rebuildIndex() {
+            int blocks = (records + JournalFormat.INDEX_INTERVAL - 1) / JournalFormat.INDEX_INTERVAL;
+            blockMinRounds = new long[blocks];
+            blockMaxRounds = new long[blocks];
+            Arrays.fill(blockMinRounds, Long.MAX_VALUE);
+            Arrays.fill(blockMaxRounds, Long.MIN_VALUE);
+            MappedByteBuffer buffer = map();
+            for (int record = 0; record < records; record++) {
+                int block = record / JournalFormat.INDEX_INTERVAL;
+                long round = buffer.getLong(JournalFormat.HEADER_BYTES + record * recordBytes + JournalFormat.ROUND_OFFSET);
+                blockMinRounds[block] = Math.min(blockMinRounds[block], round);
+                blockMaxRounds[block] = Math.max(blockMaxRounds[block], round);
+            }
+        }
+
+        private MappedByteBuffer map() {
+            try {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, JournalFormat.HEADER_BYTES + (long) records * recordBytes);
+            } catch (IOException e) {
+                throw new GameException("Failed to map journal segment " + path + ": " + e.getMessage());
+            }
+        }
+
+        private RoundRecord record(ByteBuffer buffer, int position, int record) {
+            long[] board = new long[boardWords];
+            for (int word = 0; word < boardWords; word++) {
+                board[word] = buffer.getLong(position + JournalFormat.BOARD_OFFSET + word * Long.BYTES);
+            }
+            return new RoundRecord(firstSequence + record,
+                    buffer.getLong(position),
+                    buffer.getLong(position + JournalFormat.ROUND_OFFSET),
+                    buffer.getDouble(position + JournalFormat.REWARD_OFFSET),
+                    buffer.getInt(position + JournalFormat.COMBINATIONS_OFFSET),
+                    buffer.getInt(position + JournalFormat.BONUS_SYMBOL_OFFSET),
+                    board);
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * @return the {@link com.scratchGame.service.GameModel#getFingerprint() fingerprint} of the game
+         */
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        /**
+         * @return the number of symbols of the dictionary of the game, blank included
+         */
+        public int getSymbolCount() {
+            return symbols;
+        }
+
+        public long getFirstSequence() {
+            return firstSequence;
+        }
+
+        /**
+         * @return the number of durable records of the segment
+         */
+        public int getRecordCount() {
+            return records;
+        }
+    }
+}
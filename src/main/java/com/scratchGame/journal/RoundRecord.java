@@ -0,0 +1,95 @@
+package com.scratchGame.journal;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.util.*;
+
+/**
+ * A round read back from a journal. Instances are immutable.
+ */
+public final class RoundRecord {
+
+    private final long sequence;
+    private final long seed;
+    private final long round;
+    private final double reward;
+    private final int combinations;
+    private final int bonusSymbol;
+    private final long[] board;
+
+    RoundRecord(long sequence, long seed, long round, double reward, int combinations, int bonusSymbol, long[] board) {
+        this.sequence = sequence;
+        this.seed = seed;
+        this.round = round;
+        this.reward = reward;
+        this.combinations = combinations;
+        this.bonusSymbol = bonusSymbol;
+        this.board = board;
+    }
+
+    /**
+     * @return the position of the record in the journal, counted from 0 over every segment
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getRound() {
+        return round;
+    }
+
+    public double getReward() {
+        return reward;
+    }
+
+    /**
+     * @return the combinations won by any symbol as a bitset of {@link EnumWinningCombinationType} ordinals
+     */
+    public int getCombinations() {
+        return combinations;
+    }
+
+    /**
+     * @return the id of the first bonus symbol of the board, {@link SymbolDictionary#BLANK} if it has none
+     */
+    public int getBonusSymbol() {
+        return bonusSymbol;
+    }
+
+    /**
+     * Unpacks the recorded board.
+     *
+     * @param board a board of the game of the journal, overwritten
+     * @return the given board
+     */
+    public Board getBoard(Board board) {
+        board.unpack(this.board, 0);
+        return board;
+    }
+
+    /**
+     * @return true if the recorded board is the given packed board
+     */
+    boolean hasBoard(long[] packedBoard) {
+        return Arrays.equals(board, packedBoard);
+    }
+
+    @Override
+    public String toString() {
+        return "RoundRecord{" +
+                "sequence=" + sequence +
+                ", seed=" + seed +
+                ", round=" + round +
+                ", reward=" + reward +
+                ", combinations=" + Integer.toBinaryString(combinations) +
+                ", bonusSymbol=" + bonusSymbol +
+                ", board=" + Arrays.toString(board) +
+                '}';
+    }
+}
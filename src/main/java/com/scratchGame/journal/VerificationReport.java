@@ -0,0 +1,154 @@
+package com.scratchGame.journal;
+
+import java.util.*;
+
+/**
+ * Outcome of a {@link ReplayVerifier} run: the number of rounds replayed and the rounds that do not match their
+ * replay. Only the first {@link #MAX_REPORTED_MISMATCHES} mismatches are kept, all of them are counted.
+ */
+public final class VerificationReport {
+
+    public static final int MAX_REPORTED_MISMATCHES = 100;
+
+    private long verifiedRecords;
+    private long skippedRecords;
+    private long mismatchCount;
+    private final List<Mismatch> mismatches = new ArrayList<>();
+
+    void addVerified(long records) {
+        verifiedRecords += records;
+    }
+
+    void addSkipped(long records) {
+        skippedRecords += records;
+    }
+
+    void addMismatch(Mismatch mismatch) {
+        mismatchCount++;
+        if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+            mismatches.add(mismatch);
+        }
+    }
+
+    void merge(VerificationReport other) {
+        verifiedRecords += other.verifiedRecords;
+        skippedRecords += other.skippedRecords;
+        mismatchCount += other.mismatchCount;
+        for (Mismatch mismatch : other.mismatches) {
+            if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                mismatches.add(mismatch);
+            }
+        }
+    }
+
+    /**
+     * @return the number of records replayed, mismatching ones included
+     */
+    public long getVerifiedRecords() {
+        return verifiedRecords;
+    }
+
+    /**
+     * @return the number of records that were not replayed because they were played with another configuration
+     */
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    public long getMismatchCount() {
+        return mismatchCount;
+    }
+
+    /**
+     * @return the first mismatches, ordered by location
+     */
+    public List<Mismatch> getMismatches() {
+        List<Mismatch> sorted = new ArrayList<>(mismatches);
+        sorted.sort(Comparator.comparing(Mismatch::getSource).thenComparingLong(Mismatch::getPosition));
+        return sorted;
+    }
+
+    /**
+     * @return true if every record was replayed and matched
+     */
+    public boolean isValid() {
+        return mismatchCount == 0 && skippedRecords == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "VerificationReport{" +
+                "verifiedRecords=" + verifiedRecords +
+                ", skippedRecords=" + skippedRecords +
+                ", mismatchCount=" + mismatchCount +
+                ", mismatches=" + getMismatches() +
+                '}';
+    }
+
+    /**
+     * A recorded value that differs from the replay of its round.
+     */
+    public static final class Mismatch {
+
+        private final String source;
+        private final long position;
+        private final long seed;
+        private final long round;
+        private final String field;
+        private final String expected;
+        private final String recorded;
+
+        Mismatch(String source, long position, long seed, long round, String field, String expected, String recorded) {
+            this.source = source;
+            this.position = position;
+            this.seed = seed;
+            this.round = round;
+            this.field = field;
+            this.expected = expected;
+            this.recorded = recorded;
+        }
+
+        /**
+         * @return the file holding the record
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * @return the sequence of a journal record, the byte offset of a result line
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public long getRound() {
+            return round;
+        }
+
+        /**
+         * @return the mismatching field: config, board, reward, combinations or bonus_symbol
+         */
+        public String getField() {
+            return field;
+        }
+
+        public String getExpected() {
+            return expected;
+        }
+
+        public String getRecorded() {
+            return recorded;
+        }
+
+        @Override
+        public String toString() {
+            return source + "@" + position + " seed " + seed + " round " + round + ": " + field
+                    + " expected " + expected + " but recorded " + recorded;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.scratchGame.metrics;
+
+import com.scratchGame.enums.EnumBonusImpact;
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.exceptions.InvalidArgumentException;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToLongFunction;
+
+/**
+ * Counters and per-stage latency histograms of game rounds.
+ * <p>
+ * Every thread records into its own {@link Recorder}: counters are plain per-thread longs that readers sum across
+ * recorders, so counting a round costs a few stores and no atomic instruction. Once its thread has ended, a
+ * recorder is folded into the totals of the retired recorders, so a server starting a thread per request keeps
+ * a number of recorders bounded by the threads alive at once. Stage latencies are only measured
+ * on one round in {@code timingSampleRate} of every thread, which keeps reading the clock out of most rounds;
+ * the histograms then describe the sampled rounds. Nothing allocates while recording and every method is
+ * thread-safe, readers see counts at most a few rounds behind the recording threads.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+
+    /**
+     * The stages of a round, in the order they run.
+     */
+    public enum Stage {
+        GENERATION,
+        WIN_DETECTION,
+        REWARD,
+        BONUS
+    }
+
+    public static final int DEFAULT_TIMING_SAMPLE_RATE = 64;
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final EnumWinningCombinationType[] COMBINATION_TYPES = EnumWinningCombinationType.values();
+    private static final EnumBonusImpact[] IMPACTS = EnumBonusImpact.values();
+
+    // Layout of the counters of a recorder
+    private static final int ROUNDS = 0;
+    private static final int REWARD_ERRORS = 1;
+    private static final int WINS = 2;
+    private static final int BONUSES = WINS + COMBINATION_TYPES.length;
+    private static final int COUNTERS = BONUSES + IMPACTS.length;
+
+    private static final VarHandle COUNTER = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Metrics that record nothing, for services that are not instrumented.
+     */
+    public static final GameMetrics DISABLED = new GameMetrics(false, 1);
+
+    private final boolean enabled;
+    private final int timingSampleRate;
+    private final LatencyHistogram[] stageLatencies = new LatencyHistogram[STAGES.length];
+    private static final int MIN_PRUNE_THRESHOLD = 64;
+
+    private final ThreadLocal<Recorder> threadRecorder = ThreadLocal.withInitial(this::newRecorder);
+    // Recorders of the threads that may still record and the counts of the ended ones, guarded by this
+    private final List<Recorder> recorders = new ArrayList<>();
+    private final long[] retired = new long[COUNTERS];
+    private int pruneThreshold = MIN_PRUNE_THRESHOLD;
+
+    public GameMetrics() {
+        this(true, DEFAULT_TIMING_SAMPLE_RATE);
+    }
+
+    /**
+     * @param timingSampleRate one round in this many has its stages timed; 1 times every round
+     */
+    public GameMetrics(int timingSampleRate) {
+        this(true, timingSampleRate);
+    }
+
+    private GameMetrics(boolean enabled, int timingSampleRate) {
+        if (timingSampleRate < 1) {
+            throw new InvalidArgumentException("Timing sample rate must be positive");
+        }
+        this.enabled = enabled;
+        this.timingSampleRate = timingSampleRate;
+        Arrays.setAll(stageLatencies, stage -> new LatencyHistogram());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the recorder of the calling thread, to be used by that thread only
+     */
+    public Recorder recorder() {
+        return threadRecorder.get();
+    }
+
+    private synchronized Recorder newRecorder() {
+        if (recorders.size() >= pruneThreshold) {
+            prune();
+            // Pruning again once the live recorders have doubled keeps registering a thread O(1) amortized
+            pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, 2 * recorders.size());
+        }
+        Recorder recorder = new Recorder(Thread.currentThread());
+        recorders.add(recorder);
+        return recorder;
+    }
+
+    /**
+     * Folds the recorders of the ended threads into the retired totals. A thread that has ended wrote its last
+     * count before {@link Thread#isAlive()} returned false, so nothing is lost.
+     */
+    private void prune() {
+        for (Iterator<Recorder> iterator = recorders.iterator(); iterator.hasNext(); ) {
+            Recorder recorder = iterator.next();
+            if (!recorder.owner.isAlive()) {
+                for (int counter = 0; counter < COUNTERS; counter++) {
+                    retired[counter] += recorder.get(counter);
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of recorders not folded into the retired totals yet
+     */
+    synchronized int getRecorderCount() {
+        return recorders.size();
+    }
+
+    /**
+     * Records a reward error on the recorder of the calling thread.
+     */
+    public void recordRewardError() {
+        if (enabled) {
+            recorder().add(REWARD_ERRORS, 1);
+        }
+    }
+
+    /**
+     * Single-writer counters of one thread.
+     */
+    public final class Recorder {
+
+        private final Thread owner;
+        private final long[] counters = new long[COUNTERS];
+        // Rounds until the next timed one, spread so that threads do not time the same rounds
+        private int untilTimed = ThreadLocalRandom.current().nextInt(timingSampleRate) + 1;
+
+        private Recorder(Thread owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Decides whether the stages of the next round are timed.
+         */
+        public boolean sampleTiming() {
+            if (--untilTimed > 0) {
+                return false;
+            }
+            untilTimed = timingSampleRate;
+            return true;
+        }
+
+        public void recordStage(Stage stage, long nanos) {
+            stageLatencies[stage.ordinal()].record(nanos);
+        }
+
+        public void recordRound() {
+            add(ROUNDS, 1);
+        }
+
+        public void recordWin(EnumWinningCombinationType type) {
+            add(WINS + type.ordinal(), 1);
+        }
+
+        /**
+         * @param impact the impact of the bonus symbol
+         * @param cells  the number of cells of the symbol that applied
+         */
+        public void recordBonus(EnumBonusImpact impact, int cells) {
+            add(BONUSES + impact.ordinal(), cells);
+        }
+
+        private void add(int counter, long value) {
+            // Only the owning thread writes, opaque accesses make the value visible to readers without a fence
+            COUNTER.setOpaque(counters, counter, (long) COUNTER.getOpaque(counters, counter) + value);
+        }
+
+        private long get(int counter) {
+            return (long) COUNTER.getOpaque(counters, counter);
+        }
+    }
+
+    private synchronized long sum(int counter) {
+        // Summed under the lock, so that a recorder being folded into the retired totals is counted exactly once
+        long sum = retired[counter];
+        for (Recorder recorder : recorders) {
+            sum += recorder.get(counter);
+        }
+        return sum;
+    }
+
+    public LatencyHistogram getStageLatency(Stage stage) {
+        return stageLatencies[stage.ordinal()];
+    }
+
+    public long getWins(EnumWinningCombinationType type) {
+        return sum(WINS + type.ordinal());
+    }
+
+    public long getBonusesApplied(EnumBonusImpact impact) {
+        return sum(BONUSES + impact.ordinal());
+    }
+
+    @Override
+    public long getRounds() {
+        return sum(ROUNDS);
+    }
+
+    @Override
+    public long getRewardErrors() {
+        return sum(REWARD_ERRORS);
+    }
+
+    @Override
+    public Map<String, Long> getWinsByCombination() {
+        Map<String, Long> byCombination = new LinkedHashMap<>();
+        for (EnumWinningCombinationType type : COMBINATION_TYPES) {
+            byCombination.put(type.name(), getWins(type));
+        }
+        return byCombination;
+    }
+
+    @Override
+    public Map<String, Long> getBonusesAppliedByImpact() {
+        Map<String, Long> byImpact = new LinkedHashMap<>();
+        for (EnumBonusImpact impact : IMPACTS) {
+            byImpact.put(impact.name().toLowerCase(Locale.ROOT), getBonusesApplied(impact));
+        }
+        return byImpact;
+    }
+
+    @Override
+    public Map<String, Long> getStageSampleCounts() {
+        return byStage(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Double> getStageMeanNanos() {
+        Map<String, Double> byStage = new LinkedHashMap<>();
+        for (Stage stage : STAGES) {
+            byStage.put(stage.name(), getStageLatency(stage).getMean());
+        }
+        return byStage;
+    }
+
+    @Override
+    public Map<String, Long> getStageP50Nanos() {
+        return byStage(histogram -> histogram.getValueAtQuantile(0.5));
+    }
+
+    @Override
+    public Map<String, Long> getStageP99Nanos() {
+        return byStage(histogram -> histogram.getValueAtQuantile(0.99));
+    }
+
+    @Override
+    public Map<String, Long> getStageMaxNanos() {
+        return byStage(LatencyHistogram::getMax);
+    }
+
+    private Map<String, Long> byStage(ToLongFunction<LatencyHistogram> value) {
+        Map<String, Long> byStage = new LinkedHashMap<>();
+        for (Stage stage : STAGES) {
+            byStage.put(stage.name(), value.applyAsLong(getStageLatency(stage)));
+        }
+        return byStage;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under {@code com.scratchGame:type=GameMetrics,name=<name>}.
+     *
+     * @param name the name of the game
+     * @return the name the metrics were registered under
+     * @throws InvalidArgumentException if the name is invalid or already registered
+     */
+    public ObjectName register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName("com.scratchGame:type=GameMetrics,name=" + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new InvalidArgumentException("Metrics are already registered for " + name, e);
+        } catch (JMException e) {
+            throw new InvalidArgumentException("Cannot register metrics for " + name, e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.scratchGame.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link GameMetrics}. Latencies are in nanoseconds and keyed by stage name.
+ */
+public interface GameMetricsMXBean {
+
+    long getRounds();
+
+    long getRewardErrors();
+
+    Map<String, Long> getWinsByCombination();
+
+    Map<String, Long> getBonusesAppliedByImpact();
+
+    Map<String, Long> getStageSampleCounts();
+
+    Map<String, Double> getStageMeanNanos();
+
+    Map<String, Long> getStageP50Nanos();
+
+    Map<String, Long> getStageP99Nanos();
+
+    Map<String, Long> getStageMaxNanos();
+}
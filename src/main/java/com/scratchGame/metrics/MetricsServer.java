@@ -0,0 +1,59 @@
+package com.scratchGame.metrics;
+
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves {@link GameMetrics} in the Prometheus text format on {@code GET /metrics}.
+ */
+public class MetricsServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    /**
+     * Starts the server, {@link #close()} stops it.
+     *
+     * @param port    the port to listen on, 0 for any free port
+     * @param metrics the metrics to serve
+     * @throws InvalidArgumentException if the server cannot listen on the port
+     */
+    public MetricsServer(int port, GameMetrics metrics) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new InvalidArgumentException("Cannot listen on port " + port, e);
+        }
+        server.createContext("/metrics", exchange -> respond(exchange, metrics));
+        server.start();
+    }
+
+    private static void respond(HttpExchange exchange, GameMetrics metrics) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = PrometheusExporter.export(metrics).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusExporter.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
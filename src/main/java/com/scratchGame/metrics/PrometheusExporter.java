@@ -0,0 +1,63 @@
+package com.scratchGame.metrics;
+
+import com.scratchGame.enums.EnumBonusImpact;
+import com.scratchGame.enums.EnumWinningCombinationType;
+
+import java.util.Locale;
+
+/**
+ * Renders {@link GameMetrics} in the Prometheus text exposition format, version 0.0.4.
+ * Latencies are exported in seconds as summaries of the sampled rounds.
+ */
+public final class PrometheusExporter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private PrometheusExporter() {
+    }
+
+    public static String export(GameMetrics metrics) {
+        StringBuilder text = new StringBuilder(4096);
+
+        header(text, "scratch_game_rounds_total", "counter", "Rounds played");
+        text.append("scratch_game_rounds_total ").append(metrics.getRounds()).append('\n');
+
+        header(text, "scratch_game_wins_total", "counter", "Winning combinations applied, one per winning symbol");
+        for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
+            text.append("scratch_game_wins_total{combination=\"").append(type.name()).append("\"} ")
+                    .append(metrics.getWins(type)).append('\n');
+        }
+
+        header(text, "scratch_game_bonuses_applied_total", "counter", "Bonus cells applied to a winning round");
+        for (EnumBonusImpact impact : EnumBonusImpact.values()) {
+            text.append("scratch_game_bonuses_applied_total{impact=\"").append(impact.name().toLowerCase(Locale.ROOT))
+                    .append("\"} ").append(metrics.getBonusesApplied(impact)).append('\n');
+        }
+
+        header(text, "scratch_game_reward_errors_total", "counter", "Winning combinations whose reward could not be calculated");
+        text.append("scratch_game_reward_errors_total ").append(metrics.getRewardErrors()).append('\n');
+
+        header(text, "scratch_game_stage_latency_seconds", "summary", "Latency of the stages of the sampled rounds");
+        for (GameMetrics.Stage stage : GameMetrics.Stage.values()) {
+            LatencyHistogram histogram = metrics.getStageLatency(stage);
+            String label = stage.name().toLowerCase(Locale.ROOT);
+            for (double quantile : QUANTILES) {
+                text.append("scratch_game_stage_latency_seconds{stage=\"").append(label).append("\",quantile=\"")
+                        .append(quantile).append("\"} ").append(histogram.getValueAtQuantile(quantile) / NANOS_PER_SECOND).append('\n');
+            }
+            text.append("scratch_game_stage_latency_seconds_sum{stage=\"").append(label).append("\"} ")
+                    .append(histogram.getSum() / NANOS_PER_SECOND).append('\n');
+            text.append("scratch_game_stage_latency_seconds_count{stage=\"").append(label).append("\"} ")
+                    .append(histogram.getCount()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+}
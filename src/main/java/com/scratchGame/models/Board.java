@@ -0,0 +1,156 @@
+package com.scratchGame.models;
+
+import java.util.*;
+
+/**
+ * A game matrix stored as a flat, row-major array of symbol ids from a {@link SymbolDictionary}.
+ * <p>
+ * Symbol names are only looked up when the board is rendered with {@link #toMatrix()}.
+ * Boards are mutable so they can be refilled between rounds and must not be shared across threads.
+ */
+public final class Board {
+
+    private final SymbolDictionary dictionary;
+    private final int rows;
+    private final int columns;
+    private final int[] cells;
+
+    public Board(SymbolDictionary dictionary, int rows, int columns) {
+        this.dictionary = Objects.requireNonNull(dictionary, "Dictionary cannot be null");
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = new int[rows * columns];
+    }
+
+    /**
+     * Encodes a matrix of symbol names. Names that are not part of the dictionary are interned into
+     * an extended dictionary that only this board uses.
+     *
+     * @param dictionary the dictionary of the game
+     * @param matrix     the matrix to encode, rows must have the same size
+     * @return the encoded board
+     */
+    public static Board fromMatrix(SymbolDictionary dictionary, List<List<String>> matrix) {
+        Set<String> names = new LinkedHashSet<>();
+        matrix.forEach(names::addAll);
+        SymbolDictionary boardDictionary = dictionary.withNames(names);
+
+        int rows = matrix.size();
+        int columns = rows == 0 ? 0 : matrix.get(0).size();
+        Board board = new Board(boardDictionary, rows, columns);
+        for (int row = 0; row < rows; row++) {
+            List<String> symbols = matrix.get(row);
+            for (int column = 0; column < columns; column++) {
+                board.cells[row * columns + column] = boardDictionary.idOf(symbols.get(column));
+            }
+        }
+        return board;
+    }
+
+    public int get(int row, int column) {
+        return cells[row * columns + column];
+    }
+
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public void set(int index, int symbolId) {
+        cells[index] = symbolId;
+    }
+
+    public SymbolDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * @return the number of bits a cell takes in the packed form of boards of the dictionary
+     */
+    public static int bitsPerCell(SymbolDictionary dictionary) {
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(dictionary.size() - 1));
+    }
+
+    /**
+     * @return the number of longs of the packed form of a board, see {@link #pack(long[], int)}
+     */
+    public static int packedLength(SymbolDictionary dictionary, int cells) {
+        int cellsPerWord = Long.SIZE / bitsPerCell(dictionary);
+        return (cells + cellsPerWord - 1) / cellsPerWord;
+    }
+
+    /**
+     * Packs the symbol ids into longs, {@link #bitsPerCell(SymbolDictionary)} bits per cell in row-major order
+     * starting from the lowest bits. Cells never straddle two longs.
+     *
+     * @param words  the destination, with room for {@link #packedLength(SymbolDictionary, int)} longs
+     * @param offset the index of the first long
+     */
+    public void pack(long[] words, int offset) {
+        int bits = bitsPerCell(dictionary);
+        int cellsPerWord = Long.SIZE / bits;
+        for (int first = 0; first < cells.length; first += cellsPerWord) {
+            long word = 0;
+            for (int cell = Math.min(cells.length, first + cellsPerWord) - 1; cell >= first; cell--) {
+                word = word << bits | cells[cell];
+            }
+            words[offset++] = word;
+        }
+    }
+
+    /**
+     * Overwrites the cells with a board packed by {@link #pack(long[], int)}.
+     *
+     * @param words  the packed board
+     * @param offset the index of its first long
+     */
+    public void unpack(long[] words, int offset) {
+        int bits = bitsPerCell(dictionary);
+        int cellsPerWord = Long.SIZE / bits;
+        long mask = (1L << bits) - 1;
+        for (int first = 0; first < cells.length; first += cellsPerWord) {
+            long word = words[offset++];
+            for (int cell = first; cell < Math.min(cells.length, first + cellsPerWord); cell++) {
+                cells[cell] = (int) (word & mask);
+                word >>>= bits;
+            }
+        }
+    }
+
+    /**
+     * Renders the board as a matrix of symbol names.
+     *
+     * @return a List of Lists representing the game matrix
+     */
+    public List<List<String>> toMatrix() {
+        List<List<String>> matrix = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            String[] symbols = new String[columns];
+            for (int column = 0; column < columns; column++) {
+                symbols[column] = dictionary.nameOf(cells[row * columns + column]);
+            }
+            matrix.add(Arrays.asList(symbols));
+        }
+        return matrix;
+    }
+
+    @Override
+    public String toString() {
+        return "Board{" +
+                "rows=" + rows +
+                ", columns=" + columns +
+                ", matrix=" + toMatrix() +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.scratchGame.models;
+
+import java.util.Map;
+
+public class CellProbability {
+    private int column;
+    private int row;
+    private Map<String, Integer> symbols;
+
+    public CellProbability(int column, int row, Map<String, Integer> symbols) {
+        this.column = column;
+        this.row = row;
+        this.symbols = symbols;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public void setColumn(int column) {
+        this.column = column;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public Map<String, Integer> getSymbols() {
+        return symbols;
+    }
+
+    public void setSymbols(Map<String, Integer> symbols) {
+        this.symbols = symbols;
+    }
+
+    @Override
+    public String toString() {
+        return "CellProbability{" +
+                "column=" + column +
+                ", row=" + row +
+                ", symbols=" + symbols +
+                '}';
+    }
+}
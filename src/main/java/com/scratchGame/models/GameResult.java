@@ -1,29 +1,43 @@
 package com.scratchGame.models;
 
-import com.scratchGame.enums.EnumBonusImpact;
 import com.scratchGame.enums.EnumWinningCombinationType;
 
 import java.util.List;
 import java.util.Map;
 
 public class GameResult {
-    private final List<List<String>> matrix;
+    private final Board board;
     private final double reward;
     private final Map<String, List<EnumWinningCombinationType>> appliedWinningCombinations;
     private final List<String> appliedBonusSymbol;
+    private final long configVersion;
 
-    public GameResult(List<List<String>> matrix, double reward,
+    public GameResult(Board board, double reward,
                       Map<String, List<EnumWinningCombinationType>> appliedWinningCombinations,
                       List<String> appliedBonusSymbol) {
-        this.matrix = matrix;
+        this(board, reward, appliedWinningCombinations, appliedBonusSymbol, 0);
+    }
+
+    /**
+     * @param configVersion the fingerprint of the compiled configuration that scored the round
+     */
+    public GameResult(Board board, double reward,
+                      Map<String, List<EnumWinningCombinationType>> appliedWinningCombinations,
+                      List<String> appliedBonusSymbol, long configVersion) {
+        this.board = board;
         this.reward = reward;
         this.appliedWinningCombinations = appliedWinningCombinations;
         this.appliedBonusSymbol = appliedBonusSymbol;
+        this.configVersion = configVersion;
     }
 
-    // Getters for JSON serialization
+    public Board getBoard() {
+        return board;
+    }
+
+    // Getters for JSON serialization, the matrix is only rendered to symbol names here
     public List<List<String>> getMatrix() {
-        return matrix;
+        return board.toMatrix();
     }
 
     public double getReward() {
@@ -38,13 +52,21 @@ public class GameResult {
         return appliedBonusSymbol;
     }
 
+    /**
+     * @return the fingerprint of the configuration that scored the round, 0 if it is unknown
+     */
+    public long getConfigVersion() {
+        return configVersion;
+    }
+
     @Override
     public String toString() {
         return "GameResult{" +
-                "matrix=" + matrix +
+                "matrix=" + getMatrix() +
                 ", reward=" + reward +
                 ", appliedWinningCombinations=" + appliedWinningCombinations +
                 ", appliedBonusSymbol='" + appliedBonusSymbol + '\'' +
+                ", configVersion=" + Long.toHexString(configVersion) +
                 '}';
     }
 }
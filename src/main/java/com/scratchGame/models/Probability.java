@@ -1,11 +1,14 @@
 package com.scratchGame.models;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 public class Probability {
     private List<Map<String, Integer>> standardSymbolsProbabilities;
     private Map<String, Integer> bonusSymbolsProbabilities;
+    // Standard symbol weights keyed by their "column"/"row" position; empty when no positions were configured
+    private List<CellProbability> cellProbabilities = Collections.emptyList();
 
     public Probability(List<Map<String, Integer>> standardSymbolsProbabilities, Map<String, Integer> bonusSymbolsProbabilities) {
         this.standardSymbolsProbabilities = standardSymbolsProbabilities;
@@ -28,6 +31,14 @@ public class Probability {
         this.bonusSymbolsProbabilities = bonusSymbolsProbabilities;
     }
 
+    public List<CellProbability> getCellProbabilities() {
+        return cellProbabilities;
+    }
+
+    public void setCellProbabilities(List<CellProbability> cellProbabilities) {
+        this.cellProbabilities = cellProbabilities;
+    }
+
     @Override
     public String toString() {
         return "ProbabilityConfig{" +
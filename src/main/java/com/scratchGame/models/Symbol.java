@@ -1,11 +1,14 @@
 package com.scratchGame.models;
 
+/**
+ * Definition of a symbol. Immutable, so compiled models share their symbols with any number of threads.
+ */
 public class Symbol {
-    private String symbol;
-    private double rewardMultiplier;
-    private int extra;
-    private String type;
-    private String impact;
+    private final String symbol;
+    private final double rewardMultiplier;
+    private final int extra;
+    private final String type;
+    private final String impact;
 
     public Symbol(String symbol, double rewardMultiplier, int extra, String type, String impact) {
         this.symbol = symbol;
@@ -0,0 +1,152 @@
+package com.scratchGame.models;
+
+import java.util.*;
+
+/**
+ * Interns every symbol of a game configuration to a small int id.
+ * <p>
+ * Id {@link #BLANK} is reserved for cells that could not be filled. The remaining ids are assigned
+ * in name order, so the same configuration always produces the same ids. Instances are immutable.
+ */
+public final class SymbolDictionary {
+
+    public static final int BLANK = 0;
+    public static final String BLANK_NAME = " ";
+
+    private static final String BONUS_TYPE = "bonus";
+
+    private final String[] names;
+    private final Symbol[] symbols;
+    private final boolean[] bonus;
+    private final Map<String, Integer> ids;
+
+    private SymbolDictionary(List<String> names, Map<String, Symbol> symbols) {
+        int size = names.size() + 1;
+        this.names = new String[size];
+        this.symbols = new Symbol[size];
+        this.bonus = new boolean[size];
+        this.ids = new HashMap<>(size * 2);
+
+        this.names[BLANK] = BLANK_NAME;
+        ids.put(BLANK_NAME, BLANK);
+        for (int id = 1; id < size; id++) {
+            String name = names.get(id - 1);
+            Symbol symbol = symbols.get(name);
+            this.names[id] = name;
+            this.symbols[id] = symbol;
+            this.bonus[id] = symbol != null && BONUS_TYPE.equals(symbol.getType());
+            ids.put(name, id);
+        }
+    }
+
+    /**
+     * Builds the dictionary for a game configuration. Symbols that are only referenced from the
+     * probabilities are interned as well, without a {@link Symbol} definition.
+     *
+     * @param game the game configuration
+     * @return the dictionary of every symbol the game can produce
+     */
+    public static SymbolDictionary of(Game game) {
+        Objects.requireNonNull(game, "Game cannot be null");
+        Map<String, Symbol> symbols = Optional.ofNullable(game.getSymbols()).orElse(Collections.emptyMap());
+        Set<String> names = new TreeSet<>(symbols.keySet());
+
+        Probability probabilities = game.getProbabilities();
+        if (probabilities != null) {
+            Optional.ofNullable(probabilities.getStandardSymbolsProbabilities())
+                    .orElse(Collections.emptyList())
+                    .forEach(weights -> names.addAll(weights.keySet()));
+            Optional.ofNullable(probabilities.getCellProbabilities())
+                    .orElse(Collections.emptyList())
+                    .forEach(cell -> names.addAll(cell.getSymbols().keySet()));
+            Optional.ofNullable(probabilities.getBonusSymbolsProbabilities())
+                    .ifPresent(weights -> names.addAll(weights.keySet()));
+        }
+        names.remove(BLANK_NAME);
+
+        return new SymbolDictionary(new ArrayList<>(names), symbols);
+    }
+
+    /**
+     * Rebuilds a dictionary with known ids, e.g. the dictionary of a compiled snapshot.
+     *
+     * @param names   the names of ids 1 to n, in id order, without the blank name
+     * @param symbols the definitions of the symbols that have one, by name
+     * @return the dictionary assigning the names their position in the list plus one
+     */
+    public static SymbolDictionary of(List<String> names, Map<String, Symbol> symbols) {
+        Objects.requireNonNull(names, "Names cannot be null");
+        Objects.requireNonNull(symbols, "Symbols cannot be null");
+        return new SymbolDictionary(names, symbols);
+    }
+
+    /**
+     * Returns a dictionary that additionally knows the given names. Ids of the existing symbols are kept,
+     * unknown names are appended without a {@link Symbol} definition.
+     *
+     * @param additionalNames names that may not be part of this dictionary yet
+     * @return this dictionary if every name is already known, a new dictionary otherwise
+     */
+    public SymbolDictionary withNames(Collection<String> additionalNames) {
+        List<String> unknown = new ArrayList<>();
+        for (String name : additionalNames) {
+            if (!ids.containsKey(name) && !unknown.contains(name)) {
+                unknown.add(name);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return this;
+        }
+
+        List<String> allNames = new ArrayList<>(Arrays.asList(names).subList(1, names.length));
+        allNames.addAll(unknown);
+        Map<String, Symbol> allSymbols = new HashMap<>();
+        for (int id = 1; id < names.length; id++) {
+            if (symbols[id] != null) {
+                allSymbols.put(names[id], symbols[id]);
+            }
+        }
+        return new SymbolDictionary(allNames, allSymbols);
+    }
+
+    /**
+     * @return the id of the symbol, or -1 if the name is unknown
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return the configured symbol, or null for the blank id and symbols without a definition
+     */
+    public Symbol symbolOf(int id) {
+        return symbols[id];
+    }
+
+    public boolean isBonus(int id) {
+        return bonus[id];
+    }
+
+    /**
+     * @return true for every symbol that can take part in a winning combination
+     */
+    public boolean isStandard(int id) {
+        return id != BLANK && !bonus[id];
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public String toString() {
+        return "SymbolDictionary{" +
+                "names=" + Arrays.toString(names) +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.scratchGame.output;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.models.SymbolDictionary;
+import com.scratchGame.service.BatchResult;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes tickets as fixed-size big-endian binary records.
+ * <p>
+ * The output starts with a header: the int {@link #MAGIC}, the short {@link #VERSION}, the short number of symbol
+ * ids of the game and the name of every id as a short byte length followed by its UTF-8 bytes. Every ticket then
+ * takes {@link #RECORD_BYTES} bytes: the long seed, the long round index, the double reward, the int bitset of
+ * {@link EnumWinningCombinationType} ordinals and the int id of the first bonus symbol,
+ * {@link SymbolDictionary#BLANK} for none. All batches of a sink must come from the same game.
+ */
+public final class BinaryResultSink extends ChannelResultSink {
+
+    public static final int MAGIC = 0x53435252;
+    public static final short VERSION = 1;
+    public static final int RECORD_BYTES = 32;
+
+    private SymbolDictionary dictionary;
+
+    public BinaryResultSink(WritableByteChannel channel) {
+        super(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    @Override
+    public void accept(BatchResult batch) {
+        checkOpen();
+        if (batch.size() == 0) {
+            return;
+        }
+        if (dictionary == null) {
+            writeHeader(batch.getDictionary());
+        } else if (dictionary != batch.getDictionary()) {
+            throw new GameException("Batch does not belong to the game of the previous batches");
+        }
+
+        long seed = batch.getSeed();
+        for (int ticket = 0; ticket < batch.size(); ticket++) {
+            reserve(RECORD_BYTES)
+                    .putLong(seed)
+                    .putLong(batch.getRound(ticket))
+                    .putDouble(batch.getReward(ticket))
+                    .putInt(batch.getCombinations(ticket))
+                    .putInt(batch.getBonusSymbol(ticket));
+        }
+        countTickets(batch.size());
+    }
+
+    private void writeHeader(SymbolDictionary dictionary) {
+        this.dictionary = dictionary;
+        reserve(Integer.BYTES + 2 * Short.BYTES).putInt(MAGIC).putShort(VERSION).putShort((short) dictionary.size());
+        for (int symbol = 0; symbol < dictionary.size(); symbol++) {
+            byte[] name = dictionary.nameOf(symbol).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = reserve(Short.BYTES);
+            buffer.putShort((short) name.length);
+            put(name, 0, name.length);
+        }
+    }
+}
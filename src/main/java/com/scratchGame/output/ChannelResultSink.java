@@ -0,0 +1,106 @@
+package com.scratchGame.output;
+
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Base of the sinks writing to a {@link WritableByteChannel}: records are encoded into one direct buffer that is
+ * only written out when it is full, on {@link #flush()} and on {@link #close()}.
+ */
+abstract class ChannelResultSink implements ResultSink {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 18;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long tickets;
+    private boolean closed;
+
+    ChannelResultSink(WritableByteChannel channel, int bufferSize) {
+        if (channel == null) {
+            throw new InvalidArgumentException("Channel cannot be null");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Makes room for the given number of bytes, writing out the buffer if needed.
+     *
+     * @param bytes at most the size of the buffer
+     * @return the buffer to put the bytes into
+     */
+    final ByteBuffer reserve(int bytes) {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+        return buffer;
+    }
+
+    /**
+     * Copies bytes of any length into the buffer, writing it out as often as it fills up.
+     */
+    final void put(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            int chunk = Math.min(length, reserve(1).remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    final void countTickets(int count) {
+        tickets += count;
+    }
+
+    @Override
+    public long getTickets() {
+        return tickets;
+    }
+
+    @Override
+    public void flush() {
+        checkOpen();
+        drain();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new GameException("Failed to close the result channel: " + e.getMessage());
+            }
+        }
+    }
+
+    final void checkOpen() {
+        if (closed) {
+            throw new GameException("Result sink is closed");
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new GameException("Failed to write results: " + e.getMessage());
+        } finally {
+            buffer.clear();
+        }
+    }
+}
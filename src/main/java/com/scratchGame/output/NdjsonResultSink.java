@@ -0,0 +1,159 @@
+package com.scratchGame.output;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.models.SymbolDictionary;
+import com.scratchGame.service.BatchResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes one JSON object per line and ticket with the Jackson streaming generator, without building any tree:
+ * <pre>
+ * {"seed":7,"config":"5f0e8c61d2a3b4c7","round":42,"reward":300,"applied_winning_combinations":["same_symbol_3_times"],"applied_bonus_symbol":"10x"}
+ * </pre>
+ * The config is the hexadecimal {@link com.scratchGame.service.GameModel#getFingerprint() fingerprint} of the game,
+ * so that a round can be replayed against the configuration it was played with. Whole rewards are written without
+ * a fraction. The bonus symbol is null when the board has none. Field, combination and symbol names are encoded
+ * once.
+ */
+public final class NdjsonResultSink extends ChannelResultSink {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+            .build();
+
+    // Every integer up to 2^53 is exactly representable as a double
+    private static final double MAX_EXACT_INTEGER = 0x1p53;
+
+    private static final SerializedString SEED = new SerializedString("seed");
+    private static final SerializedString CONFIG = new SerializedString("config");
+    private static final SerializedString ROUND = new SerializedString("round");
+    private static final SerializedString REWARD = new SerializedString("reward");
+    private static final SerializedString WINNING_COMBINATIONS = new SerializedString("applied_winning_combinations");
+    private static final SerializedString BONUS_SYMBOL = new SerializedString("applied_bonus_symbol");
+    private static final SerializedString[] COMBINATION_NAMES = new SerializedString[EnumWinningCombinationType.values().length];
+
+    static {
+        for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
+            COMBINATION_NAMES[type.ordinal()] = new SerializedString(type.name());
+        }
+    }
+
+    private final JsonGenerator generator;
+    private SymbolDictionary dictionary;
+    private SerializedString[] symbolNames;
+    private long fingerprint;
+    private SerializedString config;
+
+    public NdjsonResultSink(WritableByteChannel channel) {
+        super(channel, DEFAULT_BUFFER_SIZE);
+        try {
+            this.generator = JSON_FACTORY.createGenerator(new BufferStream());
+        } catch (IOException e) {
+            throw new GameException("Failed to create the JSON generator: " + e.getMessage());
+        }
+        // Lines are terminated explicitly, the last record included
+        generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void accept(BatchResult batch) {
+        checkOpen();
+        if (batch.getDictionary() != dictionary && batch.size() > 0) {
+            encodeSymbolNames(batch.getDictionary());
+        }
+        if (config == null || batch.getFingerprint() != fingerprint) {
+            fingerprint = batch.getFingerprint();
+            config = new SerializedString(Long.toHexString(fingerprint));
+        }
+        long seed = batch.getSeed();
+        try {
+            for (int ticket = 0; ticket < batch.size(); ticket++) {
+                generator.writeStartObject();
+                generator.writeFieldName(SEED);
+                generator.writeNumber(seed);
+                generator.writeFieldName(CONFIG);
+                generator.writeString(config);
+                generator.writeFieldName(ROUND);
+                generator.writeNumber(batch.getRound(ticket));
+                generator.writeFieldName(REWARD);
+                writeReward(batch.getReward(ticket));
+                generator.writeFieldName(WINNING_COMBINATIONS);
+                generator.writeStartArray();
+                for (int bits = batch.getCombinations(ticket); bits != 0; bits &= bits - 1) {
+                    generator.writeString(COMBINATION_NAMES[Integer.numberOfTrailingZeros(bits)]);
+                }
+                generator.writeEndArray();
+                generator.writeFieldName(BONUS_SYMBOL);
+                int bonusSymbol = batch.getBonusSymbol(ticket);
+                if (bonusSymbol == SymbolDictionary.BLANK) {
+                    generator.writeNull();
+                } else {
+                    generator.writeString(symbolNames[bonusSymbol]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            // Hands the records to the channel buffer, which is only written out once full
+            generator.flush();
+        } catch (IOException e) {
+            throw new GameException("Failed to write results: " + e.getMessage());
+        }
+        countTickets(batch.size());
+    }
+
+    @Override
+    public void flush() {
+        checkOpen();
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new GameException("Failed to write results: " + e.getMessage());
+        }
+        super.flush();
+    }
+
+    /**
+     * Whole rewards are written as integers, which the generator formats without allocating a string.
+     */
+    private void writeReward(double reward) throws IOException {
+        if (reward == Math.rint(reward) && Math.abs(reward) < MAX_EXACT_INTEGER) {
+            generator.writeNumber((long) reward);
+        } else {
+            generator.writeNumber(reward);
+        }
+    }
+
+    private void encodeSymbolNames(SymbolDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.symbolNames = new SerializedString[dictionary.size()];
+        for (int symbol = 0; symbol < dictionary.size(); symbol++) {
+            symbolNames[symbol] = new SerializedString(dictionary.nameOf(symbol));
+        }
+    }
+
+    /**
+     * The generator writes into the channel buffer rather than to a stream of its own.
+     */
+    private final class BufferStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+            reserve(1).put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            put(bytes, offset, length);
+        }
+    }
+}
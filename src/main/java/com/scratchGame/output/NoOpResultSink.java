@@ -0,0 +1,29 @@
+package com.scratchGame.output;
+
+import com.scratchGame.service.BatchResult;
+
+/**
+ * Counts the tickets it is handed and discards them, to measure playing without output.
+ */
+public final class NoOpResultSink implements ResultSink {
+
+    private long tickets;
+
+    @Override
+    public void accept(BatchResult batch) {
+        tickets += batch.size();
+    }
+
+    @Override
+    public long getTickets() {
+        return tickets;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
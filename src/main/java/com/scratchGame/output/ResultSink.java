@@ -0,0 +1,58 @@
+package com.scratchGame.output;
+
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.service.BatchResult;
+import com.scratchGame.service.BatchSink;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the tickets of {@link BatchResult}s to a destination, for bulk output of played rounds.
+ * <p>
+ * Sinks encode every batch they are handed into their own buffer and write it out in large chunks, so they can
+ * receive the batches of {@link com.scratchGame.service.GameService#playBatch(long, double, BatchSink)} directly.
+ * Write failures are reported as {@link GameException}s. Sinks are not thread-safe.
+ */
+public interface ResultSink extends BatchSink, AutoCloseable {
+
+    /**
+     * @return the number of tickets written so far
+     */
+    long getTickets();
+
+    /**
+     * Writes everything buffered so far to the destination.
+     */
+    void flush();
+
+    /**
+     * Flushes the sink and closes its destination.
+     */
+    @Override
+    void close();
+
+    /**
+     * Opens a sink of the given format over a channel.
+     *
+     * @param format  "ndjson", "binary" or "none"
+     * @param channel the destination, closed with the sink, ignored by "none"
+     * @return the sink
+     * @throws InvalidArgumentException if the format is unknown
+     */
+    static ResultSink open(String format, WritableByteChannel channel) {
+        if (format == null) {
+            throw new InvalidArgumentException("Format cannot be null");
+        }
+        switch (format.toLowerCase()) {
+            case "ndjson":
+                return new NdjsonResultSink(channel);
+            case "binary":
+                return new BinaryResultSink(channel);
+            case "none":
+                return new NoOpResultSink();
+            default:
+                throw new InvalidArgumentException("Unknown result format: " + format);
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package com.scratchGame.server;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.exceptions.ConfigurationException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.metrics.GameMetrics;
+import com.scratchGame.models.GameResult;
+import com.scratchGame.output.ResultSink;
+import com.scratchGame.service.BatchResult;
+import com.scratchGame.service.GameModel;
+import com.scratchGame.service.GameRegistry;
+import com.scratchGame.service.GameService;
+import com.scratchGame.service.SplitMixRandom;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays rounds over HTTP with the JDK's built-in {@link HttpServer}.
+ * <ul>
+ *     <li>{@code GET /play?bet=100[&game=id]} plays one new round and answers a JSON object with the config
+ *     version, round index, reward, matrix, winning combinations and bonus symbols of the round. Rounds are
+ *     drawn by the server: a round is determined by its index, so a client choosing it could replay a win.</li>
+ *     <li>{@code GET /replay?round=n[&game=id]} answers round n again, as {@code /play} settled it and with its
+ *     original bet, without playing or recording it. Only the last {@link #SETTLED_ROUNDS} rounds settled by
+ *     {@code /play} on the current configuration can be replayed.</li>
+ *     <li>{@code GET /play/batch?tickets=n&bet=100[&game=id][&format=ndjson|binary]} streams the results of n
+ *     tickets in the format of {@link ResultSink}.</li>
+ *     <li>{@code GET /health} answers 200 once the server is ready, 503 while it warms up.</li>
+ * </ul>
+ * Requests run on virtual threads when the JDK has them, on a fixed pool of platform threads otherwise. Either way
+ * at most {@code workers + queueCapacity} requests are admitted at once: further requests are answered 503 with a
+ * {@code Retry-After} header right away instead of queueing without bound. Before reporting ready, the server plays
+ * warm-up rounds on a private service of the default game, so that the play path is compiled before the first
+ * request is measured. Games other than the default one are served from a {@link GameRegistry}.
+ */
+public class PlayServer implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final long DEFAULT_WARMUP_ROUNDS = 50_000;
+    public static final int MAX_BATCH_TICKETS = 1_000_000;
+    public static final int SETTLED_ROUNDS = 1 << 16;
+
+    private static final double DEFAULT_BET = 100;
+    private static final String JSON = "application/json";
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+            .build();
+    private static final ThreadLocal<Boolean> SHED = ThreadLocal.withInitial(() -> false);
+
+    static {
+        // The JDK server writes the headers and the body of a response apart, with Nagle's algorithm the body
+        // waits for the delayed acknowledgement of the headers, about 40 ms per request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final GameService gameService;
+    private final GameRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Semaphore admission;
+    private final int admissionLimit;
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private final AtomicLong plays = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Rounds settled by /play, keyed by game and round, oldest first; guarded by itself
+    private final Map<String, SettledRound> settledRounds = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SettledRound> eldest) {
+            return size() > SETTLED_ROUNDS;
+        }
+    };
+
+    public PlayServer(int port, GameService gameService) {
+        this(port, gameService, null, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY,
+                DEFAULT_WARMUP_ROUNDS);
+    }
+
+    /**
+     * Starts listening. The server answers 503 until the warm-up is done, see {@link #awaitReady(Duration)}.
+     *
+     * @param port          the port to listen on, 0 for any free port
+     * @param gameService   the service of requests without a game id, shared by every request
+     * @param registry      the games requests may ask for by id, or null to serve the default game only
+     * @param workers       the number of platform threads without virtual threads
+     * @param queueCapacity the number of requests admitted on top of the ones being played
+     * @param warmupRounds  the number of rounds played before the server reports ready, 0 to skip the warm-up
+     * @throws InvalidArgumentException if an argument is invalid or the server cannot listen on the port
+     */
+    public PlayServer(int port, GameService gameService, GameRegistry registry, int workers, int queueCapacity,
+                      long warmupRounds) {
+        if (gameService == null || workers <= 0 || queueCapacity < 0 || warmupRounds < 0) {
+            throw new InvalidArgumentException("Game service cannot be null, workers must be positive, queue capacity"
+                    + " and warm-up rounds cannot be negative");
+        }
+        this.gameService = gameService;
+        this.registry = registry;
+        this.admissionLimit = workers + queueCapacity;
+        this.admission = new Semaphore(admissionLimit);
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), daemonThreads());
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            executor.shutdown();
+            throw new InvalidArgumentException("Cannot listen on port " + port, e);
+        }
+        server.setExecutor(this::admit);
+        server.createContext("/play", exchange -> handle(exchange, this::play));
+        server.createContext("/play/batch", exchange -> handle(exchange, this::playBatch));
+        server.createContext("/replay", exchange -> handle(exchange, this::replay));
+        server.createContext("/health", this::health);
+        server.start();
+
+        Thread warmup = new Thread(() -> warmUp(warmupRounds), "play-server-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    /**
+     * Admits the exchange while there are permits left. An exchange that is not admitted runs on the dispatcher
+     * thread, where its handler only answers 503.
+     */
+    private void admit(Runnable exchange) {
+        if (!admission.tryAcquire()) {
+            shed(exchange);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    exchange.run();
+                } finally {
+                    admission.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            admission.release();
+            shed(exchange);
+        }
+    }
+
+    private static void shed(Runnable exchange) {
+        SHED.set(true);
+        try {
+            exchange.run();
+        } finally {
+            SHED.set(false);
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (SHED.get()) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respondError(exchange, 503, "Too many requests in flight");
+                return;
+            }
+            if (!isReady()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respondError(exchange, 503, "Warming up");
+                return;
+            }
+            inFlight.incrementAndGet();
+            try {
+                handler.handle(exchange, parameters(exchange.getRequestURI().getRawQuery()));
+            } catch (InvalidArgumentException e) {
+                respondError(exchange, 400, e.getMessage());
+            } catch (UnknownGameException e) {
+                respondError(exchange, 404, e.getMessage());
+            } catch (ConfigurationException e) {
+                respondError(exchange, 500, e.getMessage());
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void play(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        if (!"/play".equals(exchange.getRequestURI().getPath())) {
+            throw new UnknownGameException("Unknown path: " + exchange.getRequestURI().getPath());
+        }
+        if (parameters.containsKey("round")) {
+            throw new InvalidArgumentException("Rounds are drawn by the server, use /replay to show a settled round");
+        }
+        double bet = bet(parameters);
+        String game = parameters.get("game");
+        GameService service = service(game);
+        long round = service.claimRound();
+        GameResult result = service.startGame(bet, round);
+        plays.incrementAndGet();
+        synchronized (settledRounds) {
+            settledRounds.put(settledKey(game, round), new SettledRound(bet, result.getConfigVersion()));
+        }
+        respondResult(exchange, result, game, round);
+    }
+
+    private void replay(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        if (!"/replay".equals(exchange.getRequestURI().getPath())) {
+            throw new UnknownGameException("Unknown path: " + exchange.getRequestURI().getPath());
+        }
+        String value = parameters.get("round");
+        if (value == null) {
+            throw new InvalidArgumentException("Round is required");
+        }
+        long round = parseLong("round", value);
+        String game = parameters.get("game");
+        GameService service = service(game);
+        SettledRound settled;
+        synchronized (settledRounds) {
+            settled = settledRounds.get(settledKey(game, round));
+        }
+        if (settled == null || settled.configVersion != service.getModel().getFingerprint()) {
+            throw new UnknownGameException("Round " + round + " was not settled on the current configuration");
+        }
+        respondResult(exchange, service.replayGame(settled.bet, round), game, round);
+    }
+
+    private static String settledKey(String game, long round) {
+        return (game != null ? game : "") + '/' + round;
+    }
+
+    private static void respondResult(HttpExchange exchange, GameResult result, String game, long round)
+            throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+            writeResult(generator, result, game, round);
+        }
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, body.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            body.writeTo(out);
+        }
+    }
+
+    private void playBatch(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        if (!"/play/batch".equals(exchange.getRequestURI().getPath())) {
+            throw new UnknownGameException("Unknown path: " + exchange.getRequestURI().getPath());
+        }
+        double bet = bet(parameters);
+        long tickets = parseLong("tickets", parameters.getOrDefault("tickets", "1"));
+        if (tickets <= 0 || tickets > MAX_BATCH_TICKETS) {
+            throw new InvalidArgumentException("Tickets must be between 1 and " + MAX_BATCH_TICKETS);
+        }
+        String format = parameters.getOrDefault("format", "ndjson");
+        if (!"ndjson".equals(format) && !"binary".equals(format)) {
+            throw new InvalidArgumentException("Unknown result format: " + format);
+        }
+        GameService service = service(parameters.get("game"));
+        // The first batch is played before the headers commit to a 200, so that a failing request is still
+        // answered with its error; the other batches are streamed in chunks through the same buffers
+        BatchResult batch = service.playBatch((int) Math.min(tickets, GameService.DEFAULT_BATCH_TICKETS), bet);
+
+        exchange.getResponseHeaders().set("Content-Type", "ndjson".equals(format)
+                ? "application/x-ndjson" : "application/octet-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (ResultSink sink = ResultSink.open(format, Channels.newChannel(exchange.getResponseBody()))) {
+            sink.accept(batch);
+            for (long remaining = tickets - batch.size(); remaining > 0; remaining -= batch.size()) {
+                if (remaining < batch.capacity()) {
+                    batch = new BatchResult((int) remaining);
+                }
+                sink.accept(service.playBatch(batch, bet));
+            }
+            sink.flush();
+        }
+        plays.addAndGet(tickets);
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            boolean up = isReady();
+            ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+                generator.writeStartObject();
+                generator.writeStringField("status", up ? "UP" : "WARMING_UP");
+                generator.writeStringField("config", Long.toHexString(gameService.getModel().getFingerprint()));
+                generator.writeBooleanField("virtual_threads", virtualThreads);
+                generator.writeNumberField("in_flight", inFlight.get());
+                generator.writeNumberField("admission_limit", admissionLimit);
+                generator.writeNumberField("plays", plays.get());
+                generator.writeNumberField("rejected", rejected.get());
+                if (registry != null) {
+                    generator.writeNumberField("loaded_games", registry.size());
+                }
+                generator.writeEndObject();
+            }
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            exchange.sendResponseHeaders(up ? 200 : 503, body.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                body.writeTo(out);
+            }
+        }
+    }
+
+    private static void writeResult(JsonGenerator generator, GameResult result, String game, Long round)
+            throws IOException {
+        generator.writeStartObject();
+        if (game != null) {
+            generator.writeStringField("game", game);
+        }
+        generator.writeStringField("config", Long.toHexString(result.getConfigVersion()));
+        if (round != null) {
+            generator.writeNumberField("round", round);
+        }
+        generator.writeNumberField("reward", result.getReward());
+        generator.writeArrayFieldStart("matrix");
+        for (List<String> row : result.getMatrix()) {
+            generator.writeStartArray();
+            for (String symbol : row) {
+                generator.writeString(symbol);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeObjectFieldStart("applied_winning_combinations");
+        for (Map.Entry<String, List<EnumWinningCombinationType>> wins : result.getAppliedWinningCombinations().entrySet()) {
+            generator.writeArrayFieldStart(wins.getKey());
+            for (EnumWinningCombinationType combination : wins.getValue()) {
+                generator.writeString(combination.name());
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("applied_bonus_symbol");
+        for (String symbol : result.getAppliedBonusSymbol()) {
+            generator.writeString(symbol);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeStringField("error", message);
+            generator.writeEndObject();
+        }
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            body.writeTo(out);
+        }
+    }
+
+    private GameService service(String game) {
+        if (game == null) {
+            return gameService;
+        }
+        if (registry == null) {
+            throw new UnknownGameException("This server only plays its default game");
+        }
+        try {
+            return registry.getService(game);
+        } catch (InvalidArgumentException e) {
+            throw new UnknownGameException(e.getMessage());
+        }
+    }
+
+    private static double bet(Map<String, String> parameters) {
+        String value = parameters.get("bet");
+        if (value == null) {
+            return DEFAULT_BET;
+        }
+        try {
+            double bet = Double.parseDouble(value);
+            if (bet > 0 && Double.isFinite(bet)) {
+                return bet;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new InvalidArgumentException("Invalid bet: " + value);
+    }
+
+    private static long parseLong(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static Map<String, String> parameters(String query) {
+        if (query == null || query.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.putIfAbsent(decode(name), decode(value));
+        }
+        return parameters;
+    }
+
+    private static String decode(String component) {
+        try {
+            return URLDecoder.decode(component, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidArgumentException("Malformed query parameter: " + component);
+        }
+    }
+
+    /**
+     * Plays the rounds and batches of the play path on a private service of the default game, so that the
+     * compiled code is in place and the counters of the shared service are left alone.
+     */
+    private void warmUp(long rounds) {
+        try {
+            GameModel model = gameService.getModel();
+            GameService warmup = GameService.forModel(model, new SplitMixRandom(0), GameMetrics.DISABLED);
+            for (long round = 0; round < rounds; round++) {
+                // Closing the generator closes its stream, as it does for the response bodies
+                try (JsonGenerator generator = JSON_FACTORY.createGenerator(OutputStream.nullOutputStream())) {
+                    writeResult(generator, warmup.startGame(DEFAULT_BET), null, round);
+                }
+            }
+            try (ResultSink sink = ResultSink.open("ndjson", Channels.newChannel(OutputStream.nullOutputStream()))) {
+                warmup.playBatch(rounds, DEFAULT_BET, sink);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warm-up failed, serving cold: " + e.getMessage());
+        } finally {
+            ready.countDown();
+        }
+    }
+
+    /**
+     * @return true once the warm-up is done
+     */
+    public boolean isReady() {
+        return ready.getCount() == 0;
+    }
+
+    /**
+     * Waits for the warm-up.
+     *
+     * @return true if the server is ready, false if the timeout elapsed first
+     */
+    public boolean awaitReady(Duration timeout) throws InterruptedException {
+        return ready.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return true if requests run on virtual threads
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public long getPlays() {
+        return plays.get();
+    }
+
+    /**
+     * @return the number of requests that were answered 503 because too many requests were in flight
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    Semaphore admission() {
+        return admission;
+    }
+
+    /**
+     * Stops accepting requests and waits up to a second for the requests in flight.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * @return {@code Executors.newVirtualThreadPerTaskExecutor()} on JDKs that have virtual threads, null otherwise
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger next = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "play-server-" + next.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * The bet and configuration a round was settled with by {@code /play}.
+     */
+    private static final class SettledRound {
+        private final double bet;
+        private final long configVersion;
+
+        private SettledRound(double bet, long configVersion) {
+            this.bet = bet;
+            this.configVersion = configVersion;
+        }
+    }
+
+    /**
+     * A request for a game, path or round the server does not serve, answered 404.
+     */
+    private static final class UnknownGameException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private UnknownGameException(String message) {
+            super(message);
+        }
+    }
+}
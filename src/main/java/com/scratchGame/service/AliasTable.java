@@ -0,0 +1,145 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.InvalidArgumentException;
+
+import java.util.Arrays;
+
+/**
+ * Walker/Vose alias table over a fixed set of integer weights.
+ * <p>
+ * The table is built once in O(n) and then draws an outcome index in O(1) from a single
+ * 64 bit random value, independently of the sum of the weights. Each 32 bit half is mapped onto the buckets
+ * and onto the total weight with a multiply-shift, which is only exact when the number of weights and their sum
+ * are powers of two: otherwise every bucket and every coin flip is off by up to 2^-32, which biases an outcome by
+ * at most about 2^-32 per bucket it can be drawn from. Exact expectations, such as {@link RtpCalculator}, are
+ * computed from the integer weights and not from sampled draws.
+ */
+public final class AliasTable {
+
+    private final long totalWeight;
+    private final long[] thresholds;
+    private final int[] aliases;
+
+    /**
+     * Builds an alias table for the given weights.
+     *
+     * @param weights non-negative weights, at least one of them positive
+     * @throws InvalidArgumentException if the weights are empty, negative, all zero or too large
+     */
+    public AliasTable(int[] weights) {
+        if (weights == null || weights.length == 0) {
+            throw new InvalidArgumentException("Weights cannot be empty");
+        }
+        int n = weights.length;
+        long total = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new InvalidArgumentException("Weights cannot be negative");
+            }
+            total += weight;
+        }
+        if (total == 0 || total > Integer.MAX_VALUE) {
+            throw new InvalidArgumentException("Sum of weights must be between 1 and " + Integer.MAX_VALUE);
+        }
+
+        this.totalWeight = total;
+        this.thresholds = new long[n];
+        this.aliases = new int[n];
+
+        // Scale every weight by n so that the average bucket holds exactly totalWeight
+        long[] scaled = new long[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (long) weights[i] * n;
+            aliases[i] = i;
+            if (scaled[i] < total) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            thresholds[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - total;
+            if (scaled[more] < total) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        while (largeSize > 0) {
+            thresholds[large[--largeSize]] = total;
+        }
+        while (smallSize > 0) {
+            thresholds[small[--smallSize]] = total;
+        }
+    }
+
+    /**
+     * Restores a table built before, e.g. from a {@link ModelSnapshot}.
+     *
+     * @throws InvalidArgumentException if the arrays cannot belong to one table
+     */
+    AliasTable(long totalWeight, long[] thresholds, int[] aliases) {
+        if (thresholds.length == 0 || thresholds.length != aliases.length
+                || totalWeight <= 0 || totalWeight > Integer.MAX_VALUE) {
+            throw new InvalidArgumentException("Invalid alias table");
+        }
+        for (int i = 0; i < thresholds.length; i++) {
+            if (thresholds[i] < 0 || thresholds[i] > totalWeight || aliases[i] < 0 || aliases[i] >= aliases.length) {
+                throw new InvalidArgumentException("Invalid alias table");
+            }
+        }
+        this.totalWeight = totalWeight;
+        this.thresholds = thresholds;
+        this.aliases = aliases;
+    }
+
+    /**
+     * Draws an outcome index using the given random bits.
+     * The upper 32 bits pick the bucket, the lower 32 bits decide between the bucket and its alias.
+     *
+     * @param randomBits 64 uniformly distributed random bits
+     * @return an index into the weights the table was built from
+     */
+    public int sample(long randomBits) {
+        int bucket = (int) (((randomBits >>> 32) * thresholds.length) >>> 32);
+        long coin = ((randomBits & 0xFFFFFFFFL) * totalWeight) >>> 32;
+        int alias = aliases[bucket];
+        // Branch free select: the comparison is a coin flip the branch predictor cannot learn
+        int takeAlias = (int) ((thresholds[bucket] - 1 - coin) >> 63);
+        return bucket ^ ((bucket ^ alias) & takeAlias);
+    }
+
+    public int size() {
+        return thresholds.length;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    long getThreshold(int bucket) {
+        return thresholds[bucket];
+    }
+
+    int getAlias(int bucket) {
+        return aliases[bucket];
+    }
+
+    @Override
+    public String toString() {
+        return "AliasTable{" +
+                "totalWeight=" + totalWeight +
+                ", thresholds=" + Arrays.toString(thresholds) +
+                ", aliases=" + Arrays.toString(aliases) +
+                '}';
+    }
+}
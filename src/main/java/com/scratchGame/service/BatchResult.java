@@ -0,0 +1,219 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.SymbolDictionary;
+
+/**
+ * Results of a batch of tickets in primitive columns, filled by {@link GameService#playBatch(BatchResult, double)}.
+ * <p>
+ * Ticket i of a batch is described by the round index its board was drawn from, its reward, the winning
+ * combinations of every symbol as one bitset of {@link EnumWinningCombinationType} ordinals and the first bonus
+ * symbol of the board, and by its board packed with {@link Board#pack(long[], int)}. The round index is the id of
+ * the board: with the seed of the batch, {@link GameService#startGame(double, long)} replays the full result of the
+ * ticket. A batch keeps its columns, board and evaluation between fills, so refilling it allocates nothing. Batches
+ * are mutable and must not be shared across threads.
+ */
+public final class BatchResult {
+
+    private static final EnumWinningCombinationType[] COMBINATION_TYPES = EnumWinningCombinationType.values();
+
+    private final long[] rounds;
+    private final double[] rewards;
+    private final int[] combinations;
+    private final int[] bonusSymbols;
+    // Packed boards, boardWords longs per ticket
+    private long[] boards = new long[0];
+    private int boardWords;
+    private int size;
+    private GameModel model;
+    private SymbolDictionary dictionary;
+    private long seed;
+    private long fingerprint;
+
+    // Scratch state of the game that filled the batch last
+    private Board board;
+    private final RoundEvaluation evaluation = new RoundEvaluation();
+
+    /**
+     * @param capacity the number of tickets of a full batch
+     */
+    public BatchResult(int capacity) {
+        if (capacity < 0) {
+            throw new InvalidArgumentException("Capacity cannot be negative");
+        }
+        this.rounds = new long[capacity];
+        this.rewards = new double[capacity];
+        this.combinations = new int[capacity];
+        this.bonusSymbols = new int[capacity];
+    }
+
+    /**
+     * Clears the batch and returns a board of the game, reusing the board of the previous fill when it belongs
+     * to the same game.
+     */
+    Board reset(GameModel model, long seed) {
+        size = 0;
+        this.seed = seed;
+        this.model = model;
+        fingerprint = model.getFingerprint();
+        dictionary = model.getDictionary();
+        if (board == null || board.getDictionary() != dictionary || board.getRows() != model.getRows()
+                || board.getColumns() != model.getColumns()) {
+            board = new Board(dictionary, model.getRows(), model.getColumns());
+        }
+        boardWords = Board.packedLength(dictionary, model.getCellCount());
+        if (boards.length < capacity() * boardWords) {
+            boards = new long[capacity() * boardWords];
+        }
+        return board;
+    }
+
+    RoundEvaluation evaluation() {
+        return evaluation;
+    }
+
+    void add(long round, double reward, RoundEvaluation evaluation) {
+        rounds[size] = round;
+        rewards[size] = reward;
+        combinations[size] = evaluation.getCombinations();
+        bonusSymbols[size] = evaluation.getBonusSymbolCount() > 0 ? evaluation.getBonusSymbol(0) : SymbolDictionary.BLANK;
+        evaluation.getBoard().pack(boards, size * boardWords);
+        size++;
+    }
+
+    public int capacity() {
+        return rounds.length;
+    }
+
+    /**
+     * @return the number of tickets of the last fill
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the game that filled the batch last, null before the first fill
+     */
+    public GameModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return the dictionary of the symbol ids of the batch, null before the first fill
+     */
+    public SymbolDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return the seed of the generator the rounds of the batch were drawn from
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the {@link GameModel#getFingerprint() fingerprint} of the game that filled the batch
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the round index the board of the ticket was drawn from
+     */
+    public long getRound(int ticket) {
+        return rounds[checkTicket(ticket)];
+    }
+
+    /**
+     * @return the reward of the ticket for the bet of the batch
+     */
+    public double getReward(int ticket) {
+        return rewards[checkTicket(ticket)];
+    }
+
+    /**
+     * @return the combinations won by any symbol as a bitset of {@link EnumWinningCombinationType} ordinals
+     */
+    public int getCombinations(int ticket) {
+        return combinations[checkTicket(ticket)];
+    }
+
+    public boolean hasWon(int ticket, EnumWinningCombinationType type) {
+        return (getCombinations(ticket) & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * @return the id of the first bonus symbol of the board, {@link SymbolDictionary#BLANK} if it has none
+     */
+    public int getBonusSymbol(int ticket) {
+        return bonusSymbols[checkTicket(ticket)];
+    }
+
+    /**
+     * @return the number of longs of a packed board of the batch
+     */
+    public int getBoardWords() {
+        return boardWords;
+    }
+
+    /**
+     * @return a long of the packed board of the ticket, see {@link Board#pack(long[], int)}
+     */
+    public long getBoardWord(int ticket, int word) {
+        if (word < 0 || word >= boardWords) {
+            throw new IndexOutOfBoundsException("Word " + word + " out of " + boardWords);
+        }
+        return boards[checkTicket(ticket) * boardWords + word];
+    }
+
+    /**
+     * Unpacks the board of the ticket.
+     *
+     * @param ticket the ticket
+     * @param board  a board of the game of the batch, overwritten
+     * @return the given board
+     */
+    public Board getBoard(int ticket, Board board) {
+        board.unpack(boards, checkTicket(ticket) * boardWords);
+        return board;
+    }
+
+    /**
+     * @return the sum of the rewards of the batch
+     */
+    public double getTotalReward() {
+        double total = 0;
+        for (int ticket = 0; ticket < size; ticket++) {
+            total += rewards[ticket];
+        }
+        return total;
+    }
+
+    private int checkTicket(int ticket) {
+        if (ticket < 0 || ticket >= size) {
+            throw new IndexOutOfBoundsException("Ticket " + ticket + " out of " + size);
+        }
+        return ticket;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder tickets = new StringBuilder();
+        for (int ticket = 0; ticket < size; ticket++) {
+            tickets.append(ticket > 0 ? ", " : "").append(rounds[ticket]).append('=').append(rewards[ticket]);
+            for (int bits = combinations[ticket]; bits != 0; bits &= bits - 1) {
+                tickets.append(' ').append(COMBINATION_TYPES[Integer.numberOfTrailingZeros(bits)]);
+            }
+        }
+        return "BatchResult{" +
+                "seed=" + seed +
+                ", size=" + size +
+                ", tickets=[" + tickets +
+                "]}";
+    }
+}
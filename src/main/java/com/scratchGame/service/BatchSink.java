@@ -0,0 +1,16 @@
+package com.scratchGame.service;
+
+/**
+ * Receives the batches of {@link GameService#playBatch(long, double, BatchSink)} as they are filled.
+ */
+@FunctionalInterface
+public interface BatchSink {
+
+    /**
+     * Consumes a filled batch. The batch is refilled once the call returns, so a sink must copy anything it
+     * keeps.
+     *
+     * @param batch the tickets played since the previous call
+     */
+    void accept(BatchResult batch);
+}
@@ -0,0 +1,575 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exact RTP of a small game, line combinations included, from every board it can draw.
+ * <p>
+ * Boards are walked in reflected mixed-radix Gray code order (Knuth's Algorithm H), so two consecutive boards
+ * differ in a single cell. A step only updates the histogram and bitboard of the two symbols involved, their wins,
+ * the bonus factors and a product tree holding the probability of the board, instead of evaluating the board from
+ * scratch. Every board is weighted by its probability and the sums are compensated, so billions of boards add up
+ * without losing precision.
+ * <p>
+ * The space is split into chunks that fix the last cells of the board. Workers claim chunks and the completed ones
+ * are saved to a checkpoint at regular intervals, so a run stopped after hours resumes where it left off. The
+ * chunks only depend on the game, never on the number of workers. Boards are limited to 64 cells.
+ */
+public class BoardEnumerator {
+
+    /**
+     * Chunks the space is at least split into, when the board has enough cells.
+     */
+    static final int MIN_CHUNKS = 1024;
+
+    static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofMinutes(1);
+
+    private static final int CHECKPOINT_MAGIC = 0x53434b50;
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final int TYPES = EnumWinningCombinationType.values().length;
+
+    // Layout of the sums: probability weighted totals of the boards, then three sums per combination type
+    private static final int PROBABILITY = 0;
+    private static final int BASE = 1;
+    private static final int MULTIPLIED = 2;
+    private static final int EXTRA = 3;
+    private static final int HITS = 4;
+    private static final int WIN_PROBABILITY = 5;
+    private static final int EXPECTED_HITS = 6;
+    private static final int EXPECTED_PAYOUT = 7;
+    private static final int SUMS = WIN_PROBABILITY + 3 * TYPES;
+
+    private final GameModel model;
+    private final int workers;
+    private final long checkpointIntervalNanos;
+    private final LineEvaluator lineEvaluator;
+    private final WinningRule[] sameSymbolRules;
+    private final WinningRule[] lineRules;
+    private final int[] configuredTypes;
+    private final int minimumCount;
+    private final int minimumLineCount;
+    private final boolean[] standard;
+    private final int[] standardSymbols;
+    private final int[] bonusSymbols;
+    private final double[] multipliers;
+    private final double[] extras;
+
+    private final int cells;
+    private final int[][] cellSymbols;
+    private final double[][] cellProbabilities;
+    // Cells walked in Gray code order inside a chunk, and the last cells fixed by the chunk index
+    private final int[] grayCells;
+    private final int[] chunkCells;
+    private final int chunks;
+    private final long boards;
+    private final long fingerprint;
+
+    public BoardEnumerator(GameModel model) {
+        this(model, Runtime.getRuntime().availableProcessors(), DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * @param model              the compiled game model
+     * @param workers            the number of worker threads
+     * @param checkpointInterval the time between two checkpoints
+     * @throws InvalidArgumentException if the board has more than 64 cells or too many boards to count them
+     */
+    public BoardEnumerator(GameModel model, int workers, Duration checkpointInterval) {
+        if (model == null || checkpointInterval == null) {
+            throw new InvalidArgumentException("Model and checkpoint interval cannot be null");
+        }
+        if (workers < 1) {
+            throw new InvalidArgumentException("Workers must be positive");
+        }
+        if (model.getCellCount() > Long.SIZE) {
+            throw new InvalidArgumentException("Exhaustive enumeration is limited to " + Long.SIZE + " cells");
+        }
+        this.model = model;
+        this.workers = workers;
+        this.checkpointIntervalNanos = checkpointInterval.toNanos();
+        this.sameSymbolRules = model.getSameSymbolRules();
+        this.lineRules = model.getLineRules();
+        this.lineEvaluator = new LineEvaluator(model.getRows(), model.getColumns(), lineRules);
+        this.configuredTypes = new int[sameSymbolRules.length + lineRules.length];
+        for (int i = 0; i < configuredTypes.length; i++) {
+            WinningRule rule = i < sameSymbolRules.length ? sameSymbolRules[i] : lineRules[i - sameSymbolRules.length];
+            configuredTypes[i] = rule.getType().ordinal();
+        }
+        int minimumLineCount = Integer.MAX_VALUE;
+        for (WinningRule rule : lineRules) {
+            minimumLineCount = Math.min(minimumLineCount, rule.getLineLength());
+        }
+        this.minimumLineCount = minimumLineCount;
+        this.minimumCount = Math.min(minimumLineCount,
+                sameSymbolRules.length > 0 ? sameSymbolRules[0].getCount() : Integer.MAX_VALUE);
+
+        SymbolDictionary dictionary = model.getDictionary();
+        BonusEngine bonusEngine = model.getBonusEngine();
+        List<Integer> standardIds = new ArrayList<>();
+        List<Integer> bonusIds = new ArrayList<>();
+        this.standard = new boolean[dictionary.size()];
+        this.multipliers = new double[dictionary.size()];
+        this.extras = new double[dictionary.size()];
+        for (int symbol = 0; symbol < dictionary.size(); symbol++) {
+            multipliers[symbol] = bonusEngine.getMultiplier(symbol);
+            extras[symbol] = bonusEngine.getExtra(symbol);
+            standard[symbol] = dictionary.isStandard(symbol);
+            if (standard[symbol]) {
+                standardIds.add(symbol);
+            } else if (multipliers[symbol] != 1 || extras[symbol] != 0) {
+                bonusIds.add(symbol);
+            }
+        }
+        this.standardSymbols = standardIds.stream().mapToInt(Integer::intValue).toArray();
+        this.bonusSymbols = bonusIds.stream().mapToInt(Integer::intValue).toArray();
+
+        this.cells = model.getCellCount();
+        this.cellSymbols = new int[cells][];
+        this.cellProbabilities = new double[cells][];
+        long boardCount = 1;
+        List<Integer> variable = new ArrayList<>();
+        for (int cell = 0; cell < cells; cell++) {
+            int[] weights = model.getCellWeights(cell);
+            if (weights == null) {
+                cellSymbols[cell] = new int[]{SymbolDictionary.BLANK};
+                cellProbabilities[cell] = new double[]{1};
+            } else {
+                long total = Arrays.stream(weights).asLongStream().sum();
+                cellSymbols[cell] = model.getCellSymbols(cell);
+                cellProbabilities[cell] = Arrays.stream(weights).mapToDouble(weight -> (double) weight / total).toArray();
+            }
+            if (cellSymbols[cell].length > 1) {
+                variable.add(cell);
+                try {
+                    boardCount = Math.multiplyExact(boardCount, cellSymbols[cell].length);
+                } catch (ArithmeticException e) {
+                    throw new InvalidArgumentException("Too many boards to enumerate");
+                }
+            }
+        }
+        this.boards = boardCount;
+
+        // Fix the last cells until there are enough chunks, at least one cell is left to the Gray code
+        int chunkCount = 1;
+        int fixed = 0;
+        while (chunkCount < MIN_CHUNKS && fixed < variable.size() - 1) {
+            fixed++;
+            chunkCount *= cellSymbols[variable.get(variable.size() - fixed)].length;
+        }
+        this.chunks = chunkCount;
+        this.chunkCells = new int[fixed];
+        this.grayCells = new int[variable.size() - fixed];
+        for (int i = 0; i < variable.size(); i++) {
+            if (i < grayCells.length) {
+                grayCells[i] = variable.get(i);
+            } else {
+                chunkCells[i - grayCells.length] = variable.get(i);
+            }
+        }
+        this.fingerprint = fingerprint();
+    }
+
+    public long getBoardCount() {
+        return boards;
+    }
+
+    public int getChunkCount() {
+        return chunks;
+    }
+
+    /**
+     * Plays every board of the game.
+     *
+     * @param checkpoint the file the progress is saved to and resumed from, null to keep no checkpoint
+     * @return the exact expectations of the game
+     * @throws InvalidArgumentException if the checkpoint belongs to another game
+     * @throws GameException            if a worker fails or the checkpoint cannot be read or written
+     */
+    public RtpReport run(Path checkpoint) {
+        return run(checkpoint, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Plays the boards of at most {@code maxChunks} chunks that are not completed yet.
+     *
+     * @return the exact expectations of the game, or null if chunks remain
+     */
+    RtpReport run(Path checkpoint, int maxChunks) {
+        Progress progress = checkpoint != null ? load(checkpoint) : null;
+        Progress total = progress != null ? progress : new Progress();
+        BitSet done = (BitSet) total.completed.clone();
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger claimed = new AtomicInteger();
+        long[] lastSave = {System.nanoTime()};
+
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(() -> {
+                Walker walker = new Walker();
+                for (int chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                    if (done.get(chunk)) {
+                        continue;
+                    }
+                    if (claimed.incrementAndGet() > maxChunks) {
+                        break;
+                    }
+                    walker.walk(chunk);
+                    synchronized (total) {
+                        total.merge(walker.sums, walker.compensations);
+                        total.completed.set(chunk);
+                        if (checkpoint != null && System.nanoTime() - lastSave[0] >= checkpointIntervalNanos) {
+                            save(checkpoint, total);
+                            lastSave[0] = System.nanoTime();
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Enumeration was interrupted");
+        } catch (ExecutionException e) {
+            throw new GameException("Enumeration failed: " + e.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (checkpoint != null) {
+            save(checkpoint, total);
+        }
+        return total.completed.cardinality() == chunks ? total.toReport() : null;
+    }
+
+    /**
+     * Probability weighted sums of the completed chunks.
+     */
+    private final class Progress {
+
+        private final BitSet completed = new BitSet(chunks);
+        private final double[] sums = new double[SUMS];
+        private final double[] compensations = new double[SUMS];
+
+        private void merge(double[] chunkSums, double[] chunkCompensations) {
+            for (int i = 0; i < SUMS; i++) {
+                add(sums, compensations, i, chunkSums[i] + chunkCompensations[i]);
+            }
+        }
+
+        private RtpReport toReport() {
+            double[] winProbabilities = new double[TYPES];
+            double[] expectedHits = new double[TYPES];
+            double[] expectedPayouts = new double[TYPES];
+            for (int type = 0; type < TYPES; type++) {
+                winProbabilities[type] = sum(WIN_PROBABILITY + 3 * type);
+                expectedHits[type] = sum(EXPECTED_HITS + 3 * type);
+                expectedPayouts[type] = sum(EXPECTED_PAYOUT + 3 * type);
+            }
+            return new RtpReport(sum(BASE), sum(MULTIPLIED), sum(EXTRA), sum(HITS), true,
+                    winProbabilities, expectedHits, expectedPayouts);
+        }
+
+        private double sum(int index) {
+            return sums[index] + compensations[index];
+        }
+    }
+
+    /**
+     * Neumaier's compensated addition.
+     */
+    private static void add(double[] sums, double[] compensations, int index, double value) {
+        double sum = sums[index];
+        double next = sum + value;
+        compensations[index] += Math.abs(sum) >= Math.abs(value) ? (sum - next) + value : (value - next) + sum;
+        sums[index] = next;
+    }
+
+    /**
+     * Incremental state of the board of one worker.
+     */
+    private final class Walker {
+
+        private final double[] sums = new double[SUMS];
+        private final double[] compensations = new double[SUMS];
+
+        private final int[] outcomes = new int[cells];
+        private final int[] counts = new int[multipliers.length];
+        private final long[] masks = new long[multipliers.length];
+        // Per symbol: the combination types it wins as a bitmask, its reward for each of them and in total
+        private final int[] wins = new int[multipliers.length];
+        private final double[] typeRewards = new double[multipliers.length * TYPES];
+        private final double[] rewards = new double[multipliers.length];
+        private int winningSymbols;
+        private final int[] typeWinners = new int[TYPES];
+        private final double[] typeTotals = new double[TYPES];
+        private double multiplier;
+        private double extra;
+        // Product tree of the probabilities of the cells, the probability of the board at the root
+        private final int leaves = Integer.highestOneBit(Math.max(1, cells) * 2 - 1);
+        private final double[] tree = new double[2 * leaves];
+
+        // Algorithm H: digits, directions and focus pointers of the Gray code cells
+        private final int[] directions = new int[grayCells.length];
+        private final int[] focus = new int[grayCells.length + 1];
+
+        private void walk(int chunk) {
+            Arrays.fill(sums, 0);
+            Arrays.fill(compensations, 0);
+            Arrays.fill(outcomes, 0);
+            for (int i = 0, rest = chunk; i < chunkCells.length; i++) {
+                int radix = cellSymbols[chunkCells[i]].length;
+                outcomes[chunkCells[i]] = rest % radix;
+                rest /= radix;
+            }
+            reset();
+            visit();
+
+            Arrays.fill(directions, 1);
+            for (int j = 0; j < focus.length; j++) {
+                focus[j] = j;
+            }
+            while (true) {
+                int j = focus[0];
+                focus[0] = 0;
+                if (j == grayCells.length) {
+                    return;
+                }
+                int cell = grayCells[j];
+                int outcome = outcomes[cell] + directions[j];
+                move(cell, outcome);
+                if (outcome == 0 || outcome == cellSymbols[cell].length - 1) {
+                    directions[j] = -directions[j];
+                    focus[j] = focus[j + 1];
+                    focus[j + 1] = j + 1;
+                }
+                visit();
+            }
+        }
+
+        /**
+         * Evaluates the board of the current outcomes from scratch.
+         */
+        private void reset() {
+            Arrays.fill(counts, 0);
+            Arrays.fill(masks, 0);
+            Arrays.fill(wins, 0);
+            Arrays.fill(tree, 1);
+            Arrays.fill(typeWinners, 0);
+            Arrays.fill(typeTotals, 0);
+            winningSymbols = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                int symbol = cellSymbols[cell][outcomes[cell]];
+                counts[symbol]++;
+                masks[symbol] |= 1L << cell;
+                setProbability(cell, cellProbabilities[cell][outcomes[cell]]);
+            }
+            for (int symbol : standardSymbols) {
+                evaluate(symbol);
+            }
+            applyBonuses();
+        }
+
+        private void move(int cell, int outcome) {
+            int previous = cellSymbols[cell][outcomes[cell]];
+            int symbol = cellSymbols[cell][outcome];
+            outcomes[cell] = outcome;
+            counts[previous]--;
+            counts[symbol]++;
+            masks[previous] &= ~(1L << cell);
+            masks[symbol] |= 1L << cell;
+            setProbability(cell, cellProbabilities[cell][outcome]);
+
+            if (standard[previous]) {
+                evaluate(previous);
+            }
+            if (standard[symbol]) {
+                evaluate(symbol);
+            }
+            if (!standard[previous] || !standard[symbol]) {
+                applyBonuses();
+            }
+        }
+
+        private void setProbability(int cell, double probability) {
+            int node = leaves + cell;
+            tree[node] = probability;
+            for (node >>= 1; node > 0; node >>= 1) {
+                tree[node] = tree[2 * node] * tree[2 * node + 1];
+            }
+        }
+
+        /**
+         * Replaces the wins of a standard symbol, with the rules of {@link RoundEvaluator}.
+         */
+        private void evaluate(int symbol) {
+            for (int types = wins[symbol]; types != 0; types &= types - 1) {
+                int type = Integer.numberOfTrailingZeros(types);
+                // Totals are reset when nobody wins the type, so they do not drift over the chunk
+                typeTotals[type] = --typeWinners[type] == 0 ? 0 : typeTotals[type] - typeRewards[symbol * TYPES + type];
+            }
+            winningSymbols -= wins[symbol] != 0 ? 1 : 0;
+
+            int count = counts[symbol];
+            int won = 0;
+            double reward = 0;
+            if (count >= minimumCount) {
+                for (int i = 0; i < sameSymbolRules.length && count >= sameSymbolRules[i].getCount(); i++) {
+                    won |= addWin(symbol, sameSymbolRules[i], count);
+                    reward += typeRewards[symbol * TYPES + sameSymbolRules[i].getType().ordinal()];
+                }
+                if (count >= minimumLineCount) {
+                    for (WinningRule rule : lineRules) {
+                        if (count >= rule.getLineLength() && formsLine(symbol, rule)) {
+                            won |= addWin(symbol, rule, count);
+                            reward += typeRewards[symbol * TYPES + rule.getType().ordinal()];
+                        }
+                    }
+                }
+            }
+            wins[symbol] = won;
+            rewards[symbol] = reward;
+            winningSymbols += won != 0 ? 1 : 0;
+        }
+
+        /**
+         * @return true if the bitboard of the symbol covers a payline of the rule, or a run of its direction
+         */
+        private boolean formsLine(int symbol, WinningRule rule) {
+            Paylines paylines = rule.getPaylines();
+            return paylines != null ? paylines.anyWon(masks, symbol)
+                    : lineEvaluator.lineStarts(masks[symbol], rule.getGroup()) != 0;
+        }
+
+        private int addWin(int symbol, WinningRule rule, int count) {
+            int type = rule.getType().ordinal();
+            double reward = rule.reward(symbol, count);
+            typeRewards[symbol * TYPES + type] = reward;
+            typeWinners[type]++;
+            typeTotals[type] += reward;
+            return 1 << type;
+        }
+
+        private void applyBonuses() {
+            multiplier = 1;
+            extra = 0;
+            for (int symbol : bonusSymbols) {
+                for (int cell = counts[symbol]; cell > 0; cell--) {
+                    multiplier *= multipliers[symbol];
+                }
+                extra += extras[symbol] * counts[symbol];
+            }
+        }
+
+        private void visit() {
+            double probability = tree[1];
+            add(sums, compensations, PROBABILITY, probability);
+            if (winningSymbols == 0) {
+                return;
+            }
+            double base = 0;
+            for (int symbol : standardSymbols) {
+                base += rewards[symbol];
+            }
+            if (base != 0) {
+                add(sums, compensations, BASE, probability * base);
+                add(sums, compensations, MULTIPLIED, probability * base * multiplier);
+                add(sums, compensations, EXTRA, probability * extra);
+                if (base * multiplier + extra > 0) {
+                    add(sums, compensations, HITS, probability);
+                }
+            }
+            for (int type : configuredTypes) {
+                if (typeWinners[type] > 0) {
+                    add(sums, compensations, WIN_PROBABILITY + 3 * type, probability);
+                    add(sums, compensations, EXPECTED_HITS + 3 * type, probability * typeWinners[type]);
+                    add(sums, compensations, EXPECTED_PAYOUT + 3 * type, probability * typeTotals[type]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Identifies the game and its chunks, so a checkpoint is never resumed against another configuration.
+     */
+    private long fingerprint() {
+        return mix(model.getFingerprint(), chunks);
+    }
+
+    private static long mix(long hash, long value) {
+        return SplitMixRandom.mix64(hash ^ SplitMixRandom.mix64(value));
+    }
+
+    private Progress load(Path checkpoint) {
+        if (!Files.exists(checkpoint)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                throw new GameException("Not an enumeration checkpoint: " + checkpoint);
+            }
+            if (in.readLong() != fingerprint || in.readInt() != chunks) {
+                throw new InvalidArgumentException("Checkpoint " + checkpoint + " was written for another game");
+            }
+            Progress progress = new Progress();
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            progress.completed.or(BitSet.valueOf(words));
+            for (int i = 0; i < SUMS; i++) {
+                progress.sums[i] = in.readDouble();
+                progress.compensations[i] = in.readDouble();
+            }
+            return progress;
+        } catch (IOException e) {
+            throw new GameException("Could not read checkpoint " + checkpoint + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file first, so a crash never leaves a truncated checkpoint behind.
+     */
+    private void save(Path checkpoint, Progress progress) {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(chunks);
+            long[] words = progress.completed.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            for (int i = 0; i < SUMS; i++) {
+                out.writeDouble(progress.sums[i]);
+                out.writeDouble(progress.compensations[i]);
+            }
+        } catch (IOException e) {
+            throw new GameException("Could not write checkpoint " + checkpoint + ": " + e.getMessage());
+        }
+        try {
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new GameException("Could not write checkpoint " + checkpoint + ": " + e.getMessage());
+        }
+    }
+}
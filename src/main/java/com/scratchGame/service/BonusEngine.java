@@ -0,0 +1,109 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumBonusImpact;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.metrics.GameMetrics;
+import com.scratchGame.models.Symbol;
+import com.scratchGame.models.SymbolDictionary;
+
+/**
+ * Applies bonus symbols to a base reward.
+ * <p>
+ * The "impact", "reward_multiplier" and "extra" of every bonus symbol are compiled once into tables indexed
+ * by symbol id, so new bonus symbols only need configuration. Every bonus cell on the board applies its own
+ * impact: multipliers first, then extra bonuses. Bonuses only apply when the base reward is not zero.
+ * Engines are immutable and can be shared across threads.
+ */
+public final class BonusEngine {
+
+    private final EnumBonusImpact[] impacts;
+    private final double[] multipliers;
+    private final double[] extras;
+
+    public BonusEngine(SymbolDictionary dictionary) {
+        if (dictionary == null) {
+            throw new InvalidArgumentException("Dictionary cannot be null");
+        }
+        this.impacts = new EnumBonusImpact[dictionary.size()];
+        this.multipliers = new double[dictionary.size()];
+        this.extras = new double[dictionary.size()];
+
+        for (int id = 0; id < dictionary.size(); id++) {
+            Symbol symbol = dictionary.symbolOf(id);
+            if (!dictionary.isBonus(id) || symbol == null) {
+                continue;
+            }
+            impacts[id] = EnumBonusImpact.fromImpact(symbol.getImpact());
+            multipliers[id] = symbol.getRewardMultiplier();
+            extras[id] = symbol.getExtra();
+        }
+    }
+
+    /**
+     * @return the impact of the symbol, or null if it is not a bonus symbol with a known impact
+     */
+    public EnumBonusImpact getImpact(int symbol) {
+        return impacts[symbol];
+    }
+
+    /**
+     * @return the factor one cell of the symbol applies to the base reward, 1 unless it multiplies the reward
+     */
+    double getMultiplier(int symbol) {
+        return impacts[symbol] == EnumBonusImpact.MULTIPLY_REWARD ? multipliers[symbol] : 1;
+    }
+
+    /**
+     * @return the amount one cell of the symbol adds to the reward, 0 unless it is an extra bonus
+     */
+    double getExtra(int symbol) {
+        return impacts[symbol] == EnumBonusImpact.EXTRA_BONUS ? extras[symbol] : 0;
+    }
+
+    /**
+     * Applies the bonus symbols found by the evaluation to the base reward.
+     *
+     * @param baseReward the reward of the winning combinations
+     * @param evaluation the evaluation of the board
+     * @return the final reward
+     */
+    public double apply(double baseReward, RoundEvaluation evaluation) {
+        return apply(baseReward, evaluation, null);
+    }
+
+    /**
+     * Applies the bonus symbols found by the evaluation to the base reward, counting the applied bonus
+     * cells on the recorder.
+     *
+     * @param baseReward the reward of the winning combinations
+     * @param evaluation the evaluation of the board
+     * @param recorder   the recorder of the calling thread, or null to record nothing
+     * @return the final reward
+     */
+    public double apply(double baseReward, RoundEvaluation evaluation, GameMetrics.Recorder recorder) {
+        if (baseReward == 0) {
+            // If no base reward, bonuses do not apply
+            return 0;
+        }
+
+        double multiplier = 1;
+        double extra = 0;
+        for (int i = 0; i < evaluation.getBonusSymbolCount(); i++) {
+            int symbol = evaluation.getBonusSymbol(i);
+            EnumBonusImpact impact = impacts[symbol];
+            if (recorder != null && impact != null) {
+                recorder.recordBonus(impact, evaluation.getSymbolCount(symbol));
+            }
+            if (impact == EnumBonusImpact.MULTIPLY_REWARD) {
+                for (int cell = evaluation.getSymbolCount(symbol); cell > 0; cell--) {
+                    multiplier *= multipliers[symbol];
+                }
+            } else if (impact == EnumBonusImpact.EXTRA_BONUS) {
+                extra += extras[symbol] * evaluation.getSymbolCount(symbol);
+            }
+        }
+
+        // Apply multipliers first, then extra bonuses
+        return baseReward * multiplier + extra;
+    }
+}
@@ -0,0 +1,181 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.utils.JsonUtils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reloads the configuration of a {@link GameService} whenever its file changes.
+ * <p>
+ * A daemon thread watches the directory of the file. Once the file has not changed for the settle delay, the
+ * thread loads it, a JSON configuration or a {@link ModelSnapshot}, compiles it and publishes the model with
+ * {@link GameService#publish(GameModel)}. Loading and compiling happen on the watcher thread, so rounds keep
+ * playing on the previous model until the new one is published. A file that cannot be loaded is reported and
+ * leaves the current model in place.
+ */
+public class ConfigWatcher implements AutoCloseable {
+
+    public static final Duration DEFAULT_SETTLE = Duration.ofMillis(100);
+
+    private final Path file;
+    private final GameService gameService;
+    private final long settleNanos;
+    private final WatchService watchService;
+    private final Thread thread;
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile String lastError;
+
+    public ConfigWatcher(Path file, GameService gameService) {
+        this(file, gameService, DEFAULT_SETTLE);
+    }
+
+    /**
+     * Starts watching the file.
+     *
+     * @param file        the configuration file
+     * @param gameService the service to publish every reloaded model to
+     * @param settle      how long the file must stay unchanged before it is loaded, so that a file being written
+     *                    is not loaded half way
+     * @throws InvalidArgumentException if an argument is null or the directory of the file cannot be watched
+     */
+    public ConfigWatcher(Path file, GameService gameService, Duration settle) {
+        if (file == null || gameService == null || settle == null || settle.isNegative()) {
+            throw new InvalidArgumentException("File and game service cannot be null, settle cannot be negative");
+        }
+        this.file = file.toAbsolutePath();
+        this.gameService = gameService;
+        this.settleNanos = settle.toNanos();
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            // Editors and atomic moves replace the file instead of modifying it
+            this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new InvalidArgumentException("Cannot watch " + file + ": " + e.getMessage());
+        }
+        this.thread = new Thread(this::watch, "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Loads and compiles a configuration file.
+     *
+     * @param file a compiled {@link ModelSnapshot} or a JSON configuration
+     * @return the compiled model
+     * @throws com.scratchGame.exceptions.ConfigurationException if the file is not a valid configuration
+     */
+    public static GameModel load(Path file) {
+        return ModelSnapshot.isSnapshot(file)
+                ? ModelSnapshot.read(file)
+                : GameModel.compile(JsonUtils.readGameConfig(file.toString()));
+    }
+
+    /**
+     * Loads the file now and publishes its model unless it is the current one. Reloads run one at a time, so a
+     * reload that read an older version of the file can never publish after one that read a newer version.
+     *
+     * @return true if a new model was published
+     */
+    public synchronized boolean reload() {
+        GameModel model;
+        try {
+            model = load(file);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            lastError = e.getMessage();
+            System.err.println("Failed to reload configuration " + file + ": " + e.getMessage());
+            return false;
+        }
+        if (model.getFingerprint() == gameService.getModel().getFingerprint()) {
+            return false;
+        }
+        gameService.publish(model);
+        reloads.incrementAndGet();
+        System.out.println("Reloaded configuration " + file + ": version " + Long.toHexString(model.getFingerprint()));
+        return true;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!changed(watchService.take())) {
+                    continue;
+                }
+                // Wait until the writer is done with the file
+                WatchKey key;
+                while ((key = watchService.poll(settleNanos, TimeUnit.NANOSECONDS)) != null) {
+                    changed(key);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Consumes the events of the key.
+     *
+     * @return true if one of them may have changed the file
+     */
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of models published since the watcher started
+     */
+    public long getReloads() {
+        return reloads.get();
+    }
+
+    /**
+     * @return the number of times the file could not be loaded
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return the reason the file could not be loaded the last time, or null
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Stops watching the file. The current model stays published.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Nothing is left to release
+        }
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,347 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.ConfigurationException;
+import com.scratchGame.models.*;
+
+import java.util.*;
+
+/**
+ * Immutable, thread-safe compilation of a {@link Game} configuration.
+ * <p>
+ * Compiling interns the symbols into a {@link SymbolDictionary}, builds one {@link AliasTable} per cell,
+ * turns the configured winning combinations into a rule plan of {@link WinningRule}s with reward tables
+ * indexed by symbol id and the covered areas of line combinations compiled into {@link Paylines}, and compiles
+ * the bonus symbols into a {@link BonusEngine}. Rounds then only read these arrays: there are no map lookups and
+ * unconfigured combinations are never evaluated.
+ */
+public final class GameModel {
+
+    private final int rows;
+    private final int columns;
+    private final SymbolDictionary dictionary;
+    private final AliasTable[] cellTables;
+    private final int[][] cellSymbols;
+    private final int[][] cellWeights;
+    private final WinningRule[] sameSymbolRules;
+    private final WinningRule[] lineRules;
+    private final WinningRule[] rulesByType;
+    private final BonusEngine bonusEngine;
+    private final long fingerprint;
+
+    /**
+     * Assembles a model from compiled parts. Cells with the same weights may share their arrays.
+     *
+     * @param cellTables  the sampler of every cell, null where no symbol can be drawn
+     * @param cellSymbols the symbol ids of every cell, indexed like the weights of its sampler
+     * @param cellWeights the configured weights of every cell
+     * @param rules       the configured rules, in any order
+     */
+    GameModel(int rows, int columns, SymbolDictionary dictionary, AliasTable[] cellTables, int[][] cellSymbols,
+              int[][] cellWeights, Collection<WinningRule> rules) {
+        this.rows = rows;
+        this.columns = columns;
+        this.dictionary = dictionary;
+        this.cellTables = cellTables;
+        this.cellSymbols = cellSymbols;
+        this.cellWeights = cellWeights;
+
+        this.rulesByType = new WinningRule[EnumWinningCombinationType.values().length];
+        List<WinningRule> sameSymbols = new ArrayList<>();
+        List<WinningRule> lines = new ArrayList<>();
+        for (WinningRule rule : rules) {
+            if (rule.getWhen() == WinningCondition.same_symbols) {
+                sameSymbols.add(rule);
+            } else if (rule.getPaylines() != null
+                    || rule.getGroup() != null && rule.getGroup() != WinningGroup.same_symbols) {
+                lines.add(rule);
+            } else {
+                continue;
+            }
+            rulesByType[rule.getType().ordinal()] = rule;
+        }
+        sameSymbols.sort(Comparator.comparingInt(WinningRule::getCount).thenComparing(WinningRule::getType));
+        lines.sort(Comparator.comparing(WinningRule::getType));
+        this.sameSymbolRules = sameSymbols.toArray(new WinningRule[0]);
+        this.lineRules = lines.toArray(new WinningRule[0]);
+
+        this.bonusEngine = new BonusEngine(dictionary);
+        this.fingerprint = fingerprint();
+    }
+
+    /**
+     * Compiles a game configuration.
+     *
+     * @param game the game configuration
+     * @return the compiled model
+     * @throws NullPointerException if the game is null
+     */
+    public static GameModel compile(Game game) {
+        Objects.requireNonNull(game, "Game cannot be null");
+        int cells = game.getRows() * game.getColumns();
+        SymbolDictionary dictionary = SymbolDictionary.of(game);
+        AliasTable[] cellTables = new AliasTable[cells];
+        int[][] cellSymbols = new int[cells][];
+        int[][] cellWeights = new int[cells][];
+        buildCellTables(game, dictionary, cellTables, cellSymbols, cellWeights);
+
+        double[] symbolMultipliers = symbolMultipliers(dictionary);
+        List<WinningRule> rules = new ArrayList<>();
+        Map<String, WinningCombination> winCombinations = Optional.ofNullable(game.getWinCombinations())
+                .orElse(Collections.emptyMap());
+        for (WinningCombination combination : winCombinations.values()) {
+            if (combination.getCombinationType() == null || combination.getWhen() == null) {
+                continue;
+            }
+            rules.add(new WinningRule(combination.getCombinationType(), combination.getWhen(), combination.getGroup(),
+                    combination.getCount(), combination.getRewardMultiplier(), symbolMultipliers,
+                    paylines(combination, game.getRows(), game.getColumns())));
+        }
+        return new GameModel(game.getRows(), game.getColumns(), dictionary, cellTables, cellSymbols, cellWeights, rules);
+    }
+
+    /**
+     * Compiles the covered areas of a line combination into paylines, one per non-empty area.
+     *
+     * @return the paylines, or null if the combination is not a line combination with covered areas
+     * @throws ConfigurationException if an area covers a cell that is not a row:column cell of the board
+     */
+    private static Paylines paylines(WinningCombination combination, int rows, int columns) {
+        if (combination.getWhen() != WinningCondition.linear_symbols) {
+            return null;
+        }
+        List<List<String>> areas = Optional.ofNullable(combination.getCoveredAreas()).orElse(Collections.emptyList());
+        List<int[]> lines = new ArrayList<>();
+        for (List<String> area : areas) {
+            if (area == null || area.isEmpty()) {
+                continue;
+            }
+            int[] cells = new int[area.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = cellOf(combination, area.get(i), rows, columns);
+            }
+            lines.add(cells);
+        }
+        return lines.isEmpty() ? null : new Paylines(lines.toArray(new int[0][]), rows * columns);
+    }
+
+    private static int cellOf(WinningCombination combination, String cell, int rows, int columns) {
+        int separator = cell == null ? -1 : cell.indexOf(':');
+        try {
+            int row = Integer.parseInt(cell.substring(0, separator).trim());
+            int column = Integer.parseInt(cell.substring(separator + 1).trim());
+            if (row >= 0 && row < rows && column >= 0 && column < columns) {
+                return row * columns + column;
+            }
+        } catch (RuntimeException e) {
+            // Reported below with the cell
+        }
+        throw new ConfigurationException("Win combination " + combination.getCombinationType() + " covers " + cell
+                + ", which is not a row:column cell of the " + rows + "x" + columns + " board");
+    }
+
+    /**
+     * @return the multiplier of every symbol id, 1 for the blank id and symbols without a definition
+     */
+    static double[] symbolMultipliers(SymbolDictionary dictionary) {
+        double[] symbolMultipliers = new double[dictionary.size()];
+        for (int symbol = 0; symbol < dictionary.size(); symbol++) {
+            Symbol config = dictionary.symbolOf(symbol);
+            symbolMultipliers[symbol] = config != null ? config.getRewardMultiplier() : 1;
+        }
+        return symbolMultipliers;
+    }
+
+    /**
+     * Compiles the standard and bonus weights of every cell into alias tables.
+     * Cells with an explicit "column"/"row" entry use their own standard weights, all other cells
+     * use the standard weights of every entry combined. Bonus weights apply to every cell.
+     * Cells sharing the same weights share the same table.
+     */
+    private static void buildCellTables(Game game, SymbolDictionary dictionary, AliasTable[] cellTables,
+                                        int[][] cellSymbols, int[][] cellWeights) {
+        Probability probabilities = Optional.ofNullable(game.getProbabilities())
+                .orElse(new Probability(Collections.emptyList(), Collections.emptyMap()));
+
+        Map<String, Integer> bonusWeights = Optional.ofNullable(probabilities.getBonusSymbolsProbabilities())
+                .orElse(Collections.emptyMap());
+        Map<String, Integer> pooledWeights = new TreeMap<>();
+        Optional.ofNullable(probabilities.getStandardSymbolsProbabilities())
+                .orElse(Collections.emptyList())
+                .forEach(weights -> mergeWeights(pooledWeights, weights));
+
+        Map<String, Integer>[] positionedWeights = positionedWeights(probabilities, game.getRows(), game.getColumns());
+        Map<Map<String, Integer>, Integer> sharedTables = new HashMap<>();
+
+        for (int cell = 0; cell < cellTables.length; cell++) {
+            Map<String, Integer> weights = new TreeMap<>();
+            mergeWeights(weights, positionedWeights[cell] != null ? positionedWeights[cell] : pooledWeights);
+            mergeWeights(weights, bonusWeights);
+            if (weights.isEmpty()) {
+                continue;
+            }
+
+            Integer sharedCell = sharedTables.putIfAbsent(weights, cell);
+            if (sharedCell != null) {
+                cellTables[cell] = cellTables[sharedCell];
+                cellSymbols[cell] = cellSymbols[sharedCell];
+                cellWeights[cell] = cellWeights[sharedCell];
+                continue;
+            }
+
+            cellSymbols[cell] = weights.keySet().stream().mapToInt(dictionary::idOf).toArray();
+            cellWeights[cell] = weights.values().stream().mapToInt(Integer::intValue).toArray();
+            cellTables[cell] = new AliasTable(cellWeights[cell]);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<String, Integer>[] positionedWeights(Probability probabilities, int rows, int columns) {
+        Map<String, Integer>[] positioned = new Map[rows * columns];
+        List<CellProbability> cellProbabilities = Optional.ofNullable(probabilities.getCellProbabilities())
+                .orElse(Collections.emptyList());
+        for (CellProbability cellProbability : cellProbabilities) {
+            int row = cellProbability.getRow();
+            int column = cellProbability.getColumn();
+            if (row >= 0 && row < rows && column >= 0 && column < columns) {
+                positioned[row * columns + column] = cellProbability.getSymbols();
+            }
+        }
+        return positioned;
+    }
+
+    private static void mergeWeights(Map<String, Integer> target, Map<String, Integer> weights) {
+        weights.forEach((symbol, weight) -> {
+            if (weight != null && weight > 0) {
+                target.merge(symbol, weight, Integer::sum);
+            }
+        });
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getCellCount() {
+        return cellTables.length;
+    }
+
+    public SymbolDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return the sampler of the cell, or null if no symbol can be drawn there
+     */
+    AliasTable getCellTable(int cell) {
+        return cellTables[cell];
+    }
+
+    /**
+     * @return the symbol ids of the cell, indexed like the weights of {@link #getCellTable(int)}
+     */
+    int[] getCellSymbols(int cell) {
+        return cellSymbols[cell];
+    }
+
+    /**
+     * @return the configured weights of the cell, indexed like {@link #getCellSymbols(int)}, or null if no symbol
+     * can be drawn there. Cells with the same weights share the same arrays.
+     */
+    int[] getCellWeights(int cell) {
+        return cellWeights[cell];
+    }
+
+    /**
+     * @return the configured same symbol rules, by ascending required count
+     */
+    public WinningRule[] getSameSymbolRules() {
+        return sameSymbolRules.clone();
+    }
+
+    /**
+     * @return the configured line rules: rules with covered areas win on their {@link Paylines}, the others on
+     * the runs of the direction of their group
+     */
+    public WinningRule[] getLineRules() {
+        return lineRules.clone();
+    }
+
+    /**
+     * @return the configured rule of the combination type, or null if the configuration does not define it
+     */
+    public WinningRule getRule(EnumWinningCombinationType type) {
+        return rulesByType[type.ordinal()];
+    }
+
+    public BonusEngine getBonusEngine() {
+        return bonusEngine;
+    }
+
+    /**
+     * @return a hash of everything that decides the result of a round: the dimensions, the symbols, the weights of
+     * every cell, the rules and their rewards and the bonus symbols. Models of the same configuration have the
+     * same fingerprint, so records of played rounds can be matched to the configuration that scored them.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    private long fingerprint() {
+        long hash = mix(mix(0, rows), columns);
+        for (int symbol = 0; symbol < dictionary.size(); symbol++) {
+            hash = mix(mix(hash, dictionary.nameOf(symbol).hashCode()), dictionary.isBonus(symbol) ? 1 : 0);
+            hash = mix(hash, Double.doubleToLongBits(bonusEngine.getMultiplier(symbol)));
+            hash = mix(hash, Double.doubleToLongBits(bonusEngine.getExtra(symbol)));
+        }
+        for (int cell = 0; cell < cellSymbols.length; cell++) {
+            int outcomes = cellSymbols[cell] == null ? 0 : cellSymbols[cell].length;
+            hash = mix(hash, outcomes);
+            for (int i = 0; i < outcomes; i++) {
+                hash = mix(mix(hash, cellSymbols[cell][i]), cellWeights[cell][i]);
+            }
+        }
+        for (WinningRule rule : rulesByType) {
+            if (rule == null) {
+                hash = mix(hash, -1);
+                continue;
+            }
+            hash = mix(mix(mix(hash, rule.getWhen().ordinal()), rule.getGroup() == null ? -1 : rule.getGroup().ordinal()),
+                    rule.getCount());
+            for (int symbol = 0; symbol < dictionary.size(); symbol++) {
+                hash = mix(hash, Double.doubleToLongBits(rule.reward(symbol, 1)));
+            }
+            Paylines paylines = rule.getPaylines();
+            hash = mix(hash, paylines == null ? -1 : paylines.size());
+            for (int line = 0; paylines != null && line < paylines.size(); line++) {
+                int[] cells = paylines.getCells(line);
+                hash = mix(hash, cells.length);
+                for (int cell : cells) {
+                    hash = mix(hash, cell);
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return SplitMixRandom.mix64(hash ^ SplitMixRandom.mix64(value));
+    }
+
+    @Override
+    public String toString() {
+        return "GameModel{" +
+                "rows=" + rows +
+                ", columns=" + columns +
+                ", dictionary=" + dictionary +
+                ", sameSymbolRules=" + Arrays.toString(sameSymbolRules) +
+                ", lineRules=" + Arrays.toString(lineRules) +
+                '}';
+    }
+}
@@ -0,0 +1,259 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.ConfigurationException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Compiled games of a catalog directory, keyed by game id.
+ * <p>
+ * The game {@code <id>} is configured by {@code <id>.snapshot}, a {@link ModelSnapshot}, or {@code <id>.json}.
+ * Games are loaded on their first request, at most once even when several threads ask for them, and get their own
+ * {@link GameService}. At most {@code capacity} games are kept: loading one more evicts the game that was requested
+ * least recently. Models are built on a shared {@link TablePool}, so variants with the same symbols or weights hold
+ * one copy of these tables.
+ * <p>
+ * Requests for a loaded game are a single concurrent map lookup, without locking. Thread-safe.
+ */
+public class GameRegistry {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final Pattern GAME_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]{0,127}");
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String JSON_SUFFIX = ".json";
+
+    private final Path directory;
+    private final int capacity;
+    private final ConcurrentHashMap<String, Entry> games = new ConcurrentHashMap<>();
+    private final TablePool tablePool = new TablePool();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public GameRegistry(Path directory) {
+        this(directory, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param directory the catalog directory
+     * @param capacity  the number of games kept loaded
+     * @throws InvalidArgumentException if the directory is null or the capacity is not positive
+     */
+    public GameRegistry(Path directory, int capacity) {
+        if (directory == null || capacity <= 0) {
+            throw new InvalidArgumentException("Directory cannot be null and capacity must be positive");
+        }
+        this.directory = directory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the service of a game, loading the game if it is not loaded.
+     *
+     * @param gameId the game id
+     * @return the service playing the game
+     * @throws InvalidArgumentException if the id is not valid or the catalog has no such game
+     * @throws ConfigurationException   if the configuration of the game cannot be loaded
+     */
+    public GameService getService(String gameId) {
+        Entry entry = games.get(checkId(gameId));
+        if (entry != null && entry.load.isDone()) {
+            hits.incrementAndGet();
+            entry.lastRequest = System.nanoTime();
+            return entry.get();
+        }
+        if (entry == null) {
+            Entry loading = new Entry(gameId);
+            entry = games.putIfAbsent(gameId, loading);
+            if (entry == null) {
+                entry = loading;
+                loads.incrementAndGet();
+                loading.load.run();
+                evict(loading);
+            }
+        }
+        entry.lastRequest = System.nanoTime();
+        return entry.get();
+    }
+
+    /**
+     * @return the model of the game, see {@link #getService(String)}
+     */
+    public GameModel getModel(String gameId) {
+        return getService(gameId).getModel();
+    }
+
+    /**
+     * @return the ids of every game of the catalog directory, loaded or not, in name order
+     */
+    public List<String> getGameIds() {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SNAPSHOT_SUFFIX) || name.endsWith(JSON_SUFFIX))
+                    .map(name -> name.substring(0, name.lastIndexOf('.')))
+                    .filter(id -> GAME_ID.matcher(id).matches())
+                    .distinct()
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to list games of " + directory, e);
+        }
+    }
+
+    /**
+     * @return the ids of the games that are loaded
+     */
+    public Set<String> getLoadedGameIds() {
+        return Collections.unmodifiableSet(new TreeSet<>(games.keySet()));
+    }
+
+    /**
+     * Drops a loaded game, its next request loads it again.
+     *
+     * @return true if the game was loaded
+     */
+    public boolean invalidate(String gameId) {
+        return games.remove(checkId(gameId)) != null;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * @return the number of requests that found their game loaded
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of times a game was loaded
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the number of cells that draw from the alias table of a game loaded before
+     */
+    public int getSharedTables() {
+        synchronized (tablePool) {
+            return tablePool.getSharedTables();
+        }
+    }
+
+    private GameService load(String gameId) {
+        Path snapshot = directory.resolve(gameId + SNAPSHOT_SUFFIX);
+        Path json = directory.resolve(gameId + JSON_SUFFIX);
+        Path file = Files.exists(snapshot) ? snapshot : json;
+        if (!Files.exists(file)) {
+            throw new InvalidArgumentException("Unknown game: " + gameId);
+        }
+        GameModel model = ConfigWatcher.load(file);
+        synchronized (tablePool) {
+            model = tablePool.intern(model);
+        }
+        Game gameConfig = new Game();
+        gameConfig.setRows(model.getRows());
+        gameConfig.setColumns(model.getColumns());
+        return new GameService(gameConfig, MatrixGenerator.forModel(model), RewardCalculator.forModel(model));
+    }
+
+    /**
+     * Evicts the least recently requested games until the registry is back to its capacity. Only misses evict,
+     * so the scan over the loaded games stays off the path of the hits.
+     */
+    private void evict(Entry loaded) {
+        if (!loaded.succeeded()) {
+            // Failed loads are not kept, the next request tries again
+            games.remove(loaded.gameId, loaded);
+            return;
+        }
+        synchronized (games) {
+            while (games.size() > capacity) {
+                Entry eldest = null;
+                for (Entry entry : games.values()) {
+                    if (entry != loaded && entry.load.isDone()
+                            && (eldest == null || entry.lastRequest - eldest.lastRequest < 0)) {
+                        eldest = entry;
+                    }
+                }
+                if (eldest == null) {
+                    // Every other game is still loading, they evict once they are done
+                    return;
+                }
+                if (games.remove(eldest.gameId, eldest)) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static String checkId(String gameId) {
+        if (gameId == null || !GAME_ID.matcher(gameId).matches()) {
+            throw new InvalidArgumentException("Invalid game id: " + gameId);
+        }
+        return gameId;
+    }
+
+    private final class Entry {
+        private final String gameId;
+        private final FutureTask<GameService> load;
+        private volatile long lastRequest = System.nanoTime();
+
+        private Entry(String gameId) {
+            this.gameId = gameId;
+            this.load = new FutureTask<>(() -> GameRegistry.this.load(gameId));
+        }
+
+        private boolean succeeded() {
+            try {
+                load.get();
+                return true;
+            } catch (ExecutionException | InterruptedException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Waits for the game to be loaded.
+         */
+        private GameService get() {
+            try {
+                return load.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigurationException("Interrupted while loading game " + gameId, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new ConfigurationException("Failed to load game " + gameId, e.getCause());
+            }
+        }
+    }
+}
@@ -1,277 +1,345 @@
 package com.scratchGame.service;
 
-import com.scratchGame.enums.EnumBonusImpact;
 import com.scratchGame.enums.EnumWinningCombinationType;
-import com.scratchGame.exceptions.GameException;
 import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.metrics.GameMetrics;
+import com.scratchGame.models.Board;
 import com.scratchGame.models.Game;
 import com.scratchGame.models.GameResult;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Plays rounds of a compiled game.
+ * <p>
+ * Everything a round reads from the configuration is held by one immutable {@link Engine}. Every round reads the
+ * current engine once and plays on it to the end, so {@link #publish(GameModel)} can swap in a new configuration at
+ * any time: rounds in flight finish on the old model, rounds starting after the swap use the new one, without
+ * locking the play path.
+ * <p>
+ * One service is shared by any number of threads. A round only keeps its state in its own board and evaluation,
+ * rounds are drawn from a counter-based random source keyed by their index, and the round counter is claimed
+ * atomically, so playing takes no lock and concurrent rounds are the rounds a single thread would have played.
+ */
 public class GameService {
-    private final Game gameConfig;
-    private final MatrixGenerator matrixGenerator;
-    private final RewardCalculator rewardCalculator;
+    private final GameMetrics metrics;
+    private volatile Engine engine;
 
-    // Hardcoded normal symbols
-    private static final Set<String> NORMAL_SYMBOLS = Set.of("A", "B", "C", "D", "E","F"); // Add your normal symbols here
+    /**
+     * Number of tickets of the batches {@link #playBatch(long, double, BatchSink)} hands to its sink.
+     */
+    public static final int DEFAULT_BATCH_TICKETS = 1024;
+
+    private static final EnumWinningCombinationType[] COMBINATION_TYPES = EnumWinningCombinationType.values();
 
     public GameService(Game gameConfig, MatrixGenerator matrixGenerator, RewardCalculator rewardCalculator) {
-        if (gameConfig == null || matrixGenerator == null || rewardCalculator == null) {
+        this(gameConfig, matrixGenerator, rewardCalculator, GameMetrics.DISABLED);
+    }
+
+    /**
+     * Constructs a GameService recording every round into the given metrics.
+     *
+     * @param metrics the metrics of the game, {@link GameMetrics#DISABLED} to record nothing
+     */
+    public GameService(Game gameConfig, MatrixGenerator matrixGenerator, RewardCalculator rewardCalculator, GameMetrics metrics) {
+        this(matrixGenerator, rewardCalculator, metrics);
+        if (gameConfig == null) {
             throw new InvalidArgumentException("Arguments cannot be null");
         }
-        this.gameConfig = gameConfig;
-        this.matrixGenerator = matrixGenerator;
-        this.rewardCalculator = rewardCalculator;
     }
 
-    public GameResult startGame(double bettingAmount) {
-        // Generate matrix
-        List<List<String>> matrix = matrixGenerator.generateMatrix();
-
-        // Check for wins
-        Map<String, List<EnumWinningCombinationType>> winCombinations = checkForWins(matrix);
-
-        // Calculate base reward
-        double baseReward = calculateBaseRewards(winCombinations, matrix);
-
-        // Check and apply bonus symbols
-        double finalReward = applyBonusSymbols(baseReward, matrix);
-
-        // Collect applied bonus symbol impact
-        List<String> appliedBonusSymbols = collectAppliedBonus(matrix);
-
-        return new GameResult(matrix, finalReward * bettingAmount, winCombinations, appliedBonusSymbols);
+    private GameService(MatrixGenerator matrixGenerator, RewardCalculator rewardCalculator, GameMetrics metrics) {
+        if (matrixGenerator == null || rewardCalculator == null || metrics == null) {
+            throw new InvalidArgumentException("Arguments cannot be null");
+        }
+        this.metrics = metrics;
+        this.engine = new Engine(matrixGenerator, rewardCalculator);
     }
 
+    /**
+     * Constructs a GameService playing an already compiled game model with a random seed, recording nothing.
+     *
+     * @param model the compiled game model
+     * @return the service
+     */
+    public static GameService forModel(GameModel model) {
+        return new GameService(MatrixGenerator.forModel(model), RewardCalculator.forModel(model), GameMetrics.DISABLED);
+    }
 
+    /**
+     * Constructs a GameService playing an already compiled game model, the generator and the calculator
+     * are both compiled from it.
+     *
+     * @param model   the compiled game model
+     * @param random  the random source, a fixed seed makes every round reproducible
+     * @param metrics the metrics of the game, {@link GameMetrics#DISABLED} to record nothing
+     * @return the service
+     */
+    public static GameService forModel(GameModel model, RoundRandom random, GameMetrics metrics) {
+        return new GameService(MatrixGenerator.forModel(model, random), RewardCalculator.forModel(model), metrics);
+    }
 
-    private Map<String, List<EnumWinningCombinationType>> checkForWins(List<List<String>> matrix) {
-        Map<String, List<EnumWinningCombinationType>> winCombinations = new HashMap<>();
-
-        // Check for each type of winning combination
-        for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
-            switch (type) {
-                case same_symbol_3_times:
-                case same_symbol_4_times:
-                case same_symbol_5_times:
-                case same_symbol_6_times:
-                case same_symbol_7_times:
-                case same_symbol_8_times:
-                case same_symbol_9_times:
-                    addSymbolOccurrencesForCombination(matrix, type, winCombinations);
-                    break;
-                case same_symbols_horizontally:
-                    addHorizontalSymbols(matrix, winCombinations);
-                    break;
-                case same_symbols_vertically:
-                    addVerticalSymbols(matrix, winCombinations);
-                    break;
-                case same_symbols_diagonally_left_to_right:
-                    addDiagonalSymbols(matrix, true, winCombinations);
-                    break;
-                case same_symbols_diagonally_right_to_left:
-                    addDiagonalSymbols(matrix, false, winCombinations);
-                    break;
-                default:
-                    throw new GameException("Unsupported winning combination type: " + type);
-            }
+    /**
+     * Atomically replaces the configuration of the game. Rounds already playing finish on the previous model,
+     * rounds started afterwards are played on the new one. The round counter and the random source carry over,
+     * so round indexes are never reused.
+     *
+     * @param model the new compiled model
+     * @return the model that was replaced
+     */
+    public GameModel publish(GameModel model) {
+        if (model == null) {
+            throw new InvalidArgumentException("Model cannot be null");
         }
+        Engine previous;
+        synchronized (this) {
+            // Publishers are serialized so that no swap is lost, rounds only read the volatile field
+            previous = engine;
+            engine = new Engine(previous.matrixGenerator.withModel(model), RewardCalculator.forModel(model));
+        }
+        return previous.model;
+    }
 
-        return winCombinations;
+    /**
+     * @return the model new rounds are played on
+     */
+    public GameModel getModel() {
+        return engine.model;
     }
 
-    private void addSymbolOccurrencesForCombination(List<List<String>> matrix, EnumWinningCombinationType type, Map<String, List<EnumWinningCombinationType>> winCombinations) {
-        int countRequired = Integer.parseInt(type.name().split("_")[2]); // Extract the count from the type
-        matrix.stream()
-                .flatMap(List::stream)
-                .filter(NORMAL_SYMBOLS::contains) // Filter normal symbols
-                .collect(Collectors.groupingBy(symbol -> symbol, Collectors.counting())) // Group symbols and count their occurrences
-                .entrySet().stream()
-                .filter(entry -> entry.getValue() >= countRequired) // Filter symbols that meet or exceed the required count
-                .forEach(entry -> winCombinations.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(type));
+    public GameResult startGame(double bettingAmount) {
+        Engine current = engine;
+        GameMetrics.Recorder recorder = recorder();
+        long start = recorder != null && recorder.sampleTiming() ? System.nanoTime() : 0;
+        // Generate matrix
+        return playGame(current, current.matrixGenerator.generateBoard(), bettingAmount, recorder, start);
     }
 
-    private void addHorizontalSymbols(List<List<String>> matrix, Map<String, List<EnumWinningCombinationType>> winCombinations) {
-        for (List<String> row : matrix) {
-            addConsecutiveSymbolsToMap(row, EnumWinningCombinationType.same_symbols_horizontally, winCombinations);
-        }
+    /**
+     * Replays a round of the game: with the seed of the generator, the round index alone determines the result.
+     *
+     * @param bettingAmount the bet
+     * @param round         the round index
+     * @return the result of the round
+     */
+    public GameResult startGame(double bettingAmount, long round) {
+        Engine current = engine;
+        GameMetrics.Recorder recorder = recorder();
+        long start = recorder != null && recorder.sampleTiming() ? System.nanoTime() : 0;
+        return playGame(current, current.matrixGenerator.generateBoard(round), bettingAmount, recorder, start);
     }
 
-    private void addVerticalSymbols(List<List<String>> matrix, Map<String, List<EnumWinningCombinationType>> winCombinations) {
-        int matrixSize = matrix.size();
+    /**
+     * Claims the index of a new round, never claimed again, to be played with {@link #startGame(double, long)} by
+     * a caller that needs to know which round it played.
+     *
+     * @return the round index
+     */
+    public long claimRound() {
+        return engine.matrixGenerator.claimRounds(1);
+    }
 
-        for (int col = 0; col < matrixSize; col++) {
-            List<String> column = new ArrayList<>();
-            for (List<String> row : matrix) {
-                column.add(row.get(col));
-            }
-            addConsecutiveSymbolsToMap(column, EnumWinningCombinationType.same_symbols_vertically, winCombinations);
-        }
+    /**
+     * Evaluates a round again for display or audit, without recording it in the metrics.
+     *
+     * @param bettingAmount the bet the round was played for
+     * @param round         the round index
+     * @return the result of the round on the current model
+     */
+    public GameResult replayGame(double bettingAmount, long round) {
+        Engine current = engine;
+        return playGame(current, current.matrixGenerator.generateBoard(round), bettingAmount, null, 0);
     }
 
-    private void addDiagonalSymbols(List<List<String>> matrix, boolean leftToRight, Map<String, List<EnumWinningCombinationType>> winCombinations) {
-        int matrixSize = matrix.size();
-        int countRequired = 3; // Default value; adjust as needed for specific requirements
-
-        for (int row = 0; row <= matrixSize - countRequired; row++) {
-            for (int col = 0; col <= matrixSize - countRequired; col++) {
-                String symbol;
-                if (leftToRight) {
-                    symbol = getDiagonalSymbol(matrix, row, col, countRequired, true);
-                } else {
-                    symbol = getDiagonalSymbol(matrix, row, col, countRequired, false);
-                }
-                if (symbol != null && NORMAL_SYMBOLS.contains(symbol)) {
-                    winCombinations.computeIfAbsent(symbol, k -> new ArrayList<>())
-                            .add(leftToRight ? EnumWinningCombinationType.same_symbols_diagonally_left_to_right : EnumWinningCombinationType.same_symbols_diagonally_right_to_left);
-                }
-            }
-        }
+    /**
+     * @param start the time generation started when the round is timed, 0 otherwise
+     */
+    private GameResult playGame(Engine engine, Board board, double bettingAmount, GameMetrics.Recorder recorder,
+                                long start) {
+        RoundEvaluation evaluation = new RoundEvaluation();
+        double finalReward = start == 0
+                ? scoreRound(engine, board, evaluation, recorder)
+                : scoreTimedRound(engine, board, evaluation, recorder, start);
+        return new GameResult(board, finalReward * bettingAmount, evaluation.toWinCombinations(), evaluation.toBonusSymbols(),
+                engine.model.getFingerprint());
     }
 
-    private String getDiagonalSymbol(List<List<String>> matrix, int startRow, int startCol, int countRequired, boolean leftToRight) {
-        String symbol = matrix.get(startRow).get(startCol);
-        for (int i = 0; i < countRequired; i++) {
-            int row = startRow + i;
-            int col = leftToRight ? startCol + i : startCol - i;
-            if (row >= matrix.size() || col < 0 || col >= matrix.get(0).size() || !matrix.get(row).get(col).equals(symbol)) {
-                return null;
-            }
-        }
-        return symbol;
+    /**
+     * @return the recorder of the calling thread, or null when metrics are disabled
+     */
+    private GameMetrics.Recorder recorder() {
+        return metrics.isEnabled() ? metrics.recorder() : null;
     }
 
-    private void addConsecutiveSymbolsToMap(List<String> symbols, EnumWinningCombinationType winType, Map<String, List<EnumWinningCombinationType>> matchesMap) {
-        int countRequired = 3; // Default value; adjust as needed for specific requirements
+    /**
+     * Evaluates a generated board and records the round when a recorder is given.
+     */
+    private double scoreRound(Engine engine, Board board, RoundEvaluation evaluation, GameMetrics.Recorder recorder) {
+        // Check for wins, histogram, line state and bonus symbols come from a single pass over the board
+        engine.roundEvaluator.evaluate(board, evaluation);
+        // Calculate base reward
+        double baseReward = calculateBaseRewards(engine, evaluation, recorder);
+        // Check and apply bonus symbols
+        double finalReward = applyBonusSymbols(engine, baseReward, evaluation, recorder);
+        if (recorder != null) {
+            // Wins and bonuses were counted along the way
+            recorder.recordRound();
+        }
+        return finalReward;
+    }
 
-        int consecutiveCount = 0;
-        String previousSymbol = null;
+    /**
+     * {@link #scoreRound} with every stage timed, kept apart so that the clock reads stay out of the
+     * common path.
+     *
+     * @param start the time generation of the board started
+     */
+    private double scoreTimedRound(Engine engine, Board board, RoundEvaluation evaluation, GameMetrics.Recorder recorder,
+                                   long start) {
+        long generated = System.nanoTime();
+        engine.roundEvaluator.evaluate(board, evaluation);
+        long evaluated = System.nanoTime();
+        double baseReward = calculateBaseRewards(engine, evaluation, recorder);
+        long rewarded = System.nanoTime();
+        double finalReward = applyBonusSymbols(engine, baseReward, evaluation, recorder);
+        long bonusApplied = System.nanoTime();
+
+        recorder.recordStage(GameMetrics.Stage.GENERATION, generated - start);
+        recorder.recordStage(GameMetrics.Stage.WIN_DETECTION, evaluated - generated);
+        recorder.recordStage(GameMetrics.Stage.REWARD, rewarded - evaluated);
+        recorder.recordStage(GameMetrics.Stage.BONUS, bonusApplied - rewarded);
+        recorder.recordRound();
+        return finalReward;
+    }
 
-        for (String symbol : symbols) {
-            if (NORMAL_SYMBOLS.contains(symbol)) {
-                if (symbol.equals(previousSymbol)) {
-                    consecutiveCount++;
-                } else {
-                    previousSymbol = symbol;
-                    consecutiveCount = 1;
-                }
+    /**
+     * Plays a round for a bet of 1 without rendering a {@link GameResult}, for simulations.
+     * Safe to call from several threads as long as each one passes its own board and evaluation.
+     *
+     * @param board      the board to draw the round into, see {@link #newBoard()}
+     * @param evaluation the evaluation to overwrite
+     * @param round      the round index, see {@link MatrixGenerator#generateBoard(Board, long)}
+     * @return the reward of the round for a bet of 1
+     */
+    public double playRound(Board board, RoundEvaluation evaluation, long round) {
+        return playRound(engine, board, evaluation, round);
+    }
 
-                if (consecutiveCount >= countRequired) {
-                   if (!matchesMap.getOrDefault(symbol, Collections.emptyList()).contains(winType)) {
-                        matchesMap.computeIfAbsent(symbol, k -> new ArrayList<>()).add(winType);
-                    }
-                }
-            }
+    private double playRound(Engine engine, Board board, RoundEvaluation evaluation, long round) {
+        GameMetrics.Recorder recorder = recorder();
+        if (recorder != null && recorder.sampleTiming()) {
+            long start = System.nanoTime();
+            return scoreTimedRound(engine, engine.matrixGenerator.generateBoard(board, round), evaluation, recorder, start);
         }
+        return scoreRound(engine, engine.matrixGenerator.generateBoard(board, round), evaluation, recorder);
     }
 
-    double calculateBaseRewards(Map<String, List<EnumWinningCombinationType>> winCombinations, List<List<String>> matrix) {
-        return winCombinations.entrySet().stream()
-                .flatMap(entry -> entry.getValue().stream().map(combination -> Map.entry(entry.getKey(), combination)))
-                .mapToDouble(entry -> {
-                    try {
-                        return rewardCalculator.calculateReward(entry.getValue(), matrix);
-                    } catch (InvalidArgumentException e) {
-                        System.err.println("Error calculating reward for combination: " + entry.getValue() + " - " + e.getMessage());
-                        return 0.0;
-                    }
-                })
-                .sum();
+    /**
+     * Plays a batch of tickets into new columnar buffers, see {@link #playBatch(BatchResult, double)}.
+     *
+     * @param tickets       the number of tickets
+     * @param bettingAmount the bet of every ticket
+     * @return the results of the tickets
+     */
+    public BatchResult playBatch(int tickets, double bettingAmount) {
+        return playBatch(new BatchResult(tickets), bettingAmount);
     }
 
-    double applyBonusSymbols(double baseReward, List<List<String>> matrix) {
-        if (baseReward == 0) {
-            // If no base reward, bonuses do not apply
-            return 0;
+    /**
+     * Plays one ticket per slot of the batch without rendering any {@link GameResult}. The tickets draw
+     * consecutive rounds of the generator, claimed at once, and the batch reuses its own board and evaluation,
+     * so a warmed up batch is refilled without allocating anything. Safe to call from several threads as long as
+     * each one passes its own batch. Every ticket of a batch is played on the same model.
+     *
+     * @param batch         the batch to overwrite, filled up to its capacity
+     * @param bettingAmount the bet of every ticket
+     * @return the given batch
+     */
+    public BatchResult playBatch(BatchResult batch, double bettingAmount) {
+        if (batch == null) {
+            throw new InvalidArgumentException("Batch cannot be null");
         }
-
-        // Collect all potential bonus impacts
-        List<EnumBonusImpact> bonusImpacts = collectAppliedBonusImpacts(matrix);
-
-        // Apply each impact sequentially
-        double finalReward = baseReward;
-
-        // Apply multipliers first
-        for (EnumBonusImpact impact : bonusImpacts) {
-            if (impact == EnumBonusImpact.MULTIPLY_REWARD) {
-                finalReward *= getMultiplierFromBonus(matrix);
-            }
+        Engine current = engine;
+        Board board = batch.reset(current.model, current.matrixGenerator.getRandom().getSeed());
+        RoundEvaluation evaluation = batch.evaluation();
+        long first = current.matrixGenerator.claimRounds(batch.capacity());
+        for (int ticket = 0; ticket < batch.capacity(); ticket++) {
+            long round = first + ticket;
+            batch.add(round, playRound(current, board, evaluation, round) * bettingAmount, evaluation);
         }
+        return batch;
+    }
 
-        // Apply extra bonuses
-        for (EnumBonusImpact impact : bonusImpacts) {
-            if (impact == EnumBonusImpact.EXTRA_BONUS) {
-                finalReward += getExtraBonusFromBonus(matrix);
+    /**
+     * Plays any number of tickets through one reused batch of {@link #DEFAULT_BATCH_TICKETS} tickets, handing
+     * every filled batch to the sink.
+     *
+     * @param tickets       the number of tickets
+     * @param bettingAmount the bet of every ticket
+     * @param sink          receives the batches in round order
+     */
+    public void playBatch(long tickets, double bettingAmount, BatchSink sink) {
+        if (tickets < 0 || sink == null) {
+            throw new InvalidArgumentException("Tickets cannot be negative and sink cannot be null");
+        }
+        BatchResult batch = new BatchResult((int) Math.min(tickets, DEFAULT_BATCH_TICKETS));
+        for (long remaining = tickets; remaining > 0; remaining -= batch.size()) {
+            if (remaining < batch.capacity()) {
+                batch = new BatchResult((int) remaining);
             }
+            sink.accept(playBatch(batch, bettingAmount));
         }
-
-        return finalReward;
     }
 
-    private List<EnumBonusImpact> collectAppliedBonusImpacts(List<List<String>> matrix) {
-        return matrix.stream()
-                .flatMap(List::stream)
-                .filter(symbol -> symbol.matches("10x|5x|\\+1000|\\+500|MISS"))
-                .map(this::determineBonusImpact)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    /**
+     * @return an empty board of the dimensions of the current model, to be reused with
+     * {@link #playRound(Board, RoundEvaluation, long)} as long as the model is not replaced
+     */
+    public Board newBoard() {
+        GameModel model = engine.model;
+        return new Board(model.getDictionary(), model.getRows(), model.getColumns());
     }
-    private List<String> collectAppliedBonus(List<List<String>> matrix) {
-        return matrix.stream()
-                .flatMap(List::stream)
-                .filter(symbol -> symbol.matches("10x|5x|\\+1000|\\+500|MISS"))
-                .distinct() // Ensure unique symbols if needed
-                .collect(Collectors.toList());
+
+    /**
+     * Sums the rewards of every won combination, counting each win on the recorder when one is given
+     * so that the wins are only walked once.
+     */
+    double calculateBaseRewards(RoundEvaluation evaluation, GameMetrics.Recorder recorder) {
+        return calculateBaseRewards(engine, evaluation, recorder);
     }
 
-    private EnumBonusImpact determineBonusImpact(String bonusSymbol) {
-        switch (bonusSymbol) {
-            case "10x":
-            case "5x":
-                return EnumBonusImpact.MULTIPLY_REWARD;
-            case "+1000":
-            case "+500":
-                return EnumBonusImpact.EXTRA_BONUS;
-            case "MISS":
-                return EnumBonusImpact.MISS;
-            default:
-                return null; // No bonus impact
+    private double calculateBaseRewards(Engine engine, RoundEvaluation evaluation, GameMetrics.Recorder recorder) {
+        double baseReward = 0;
+        for (int i = 0; i < evaluation.getWinningSymbolCount(); i++) {
+            int symbol = evaluation.getWinningSymbol(i);
+            for (int wins = evaluation.getWins(symbol); wins != 0; wins &= wins - 1) {
+                EnumWinningCombinationType combination = COMBINATION_TYPES[Integer.numberOfTrailingZeros(wins)];
+                if (recorder != null) {
+                    recorder.recordWin(combination);
+                }
+                try {
+                    baseReward += engine.rewardCalculator.calculateSymbolReward(combination, symbol, evaluation.getSymbolCount(symbol));
+                } catch (InvalidArgumentException e) {
+                    metrics.recordRewardError();
+                    System.err.println("Error calculating reward for combination: " + combination + " - " + e.getMessage());
+                }
+            }
         }
+        return baseReward;
     }
 
-    private double getMultiplierFromBonus(List<List<String>> matrix) {
-        String bonusSymbol = matrix.stream()
-                .flatMap(List::stream)
-                .filter(symbol -> symbol.equals("10x") || symbol.equals("5x"))
-                .findFirst()
-                .orElse("1x"); // Default multiplier if none found
-
-        if ("10x".equals(bonusSymbol)) {
-            return 10;
-        } else if ("5x".equals(bonusSymbol)) {
-            return 5;
-        } else {
-            return 1;
-        }
+    double applyBonusSymbols(double baseReward, RoundEvaluation evaluation, GameMetrics.Recorder recorder) {
+        return applyBonusSymbols(engine, baseReward, evaluation, recorder);
     }
 
-    private double getExtraBonusFromBonus(List<List<String>> matrix) {
-        String bonusSymbol = matrix.stream()
-                .flatMap(List::stream)
-                .filter(symbol -> symbol.equals("+1000") || symbol.equals("+500"))
-                .findFirst()
-                .orElse("+0"); // Default extra bonus if none found
-
-        if ("+1000".equals(bonusSymbol)) {
-            return 1000;
-        } else if ("+500".equals(bonusSymbol)) {
-            return 500;
-        } else {
-            return 0;
-        }
+    private static double applyBonusSymbols(Engine engine, double baseReward, RoundEvaluation evaluation,
+                                            GameMetrics.Recorder recorder) {
+        return engine.bonusEngine.apply(baseReward, evaluation, recorder);
+    }
+
+    public GameMetrics getMetrics() {
+        return metrics;
     }
 
     public void printGameResult(GameResult gameResult) {
@@ -286,5 +354,69 @@ public class GameService {
                 System.out.println(symbol + ": " + combinations.stream().map(EnumWinningCombinationType::name).collect(Collectors.joining(", "))));
         System.out.println();
         System.out.println("Applied Bonus Symbol: " + (gameResult.getAppliedBonusSymbol() != null ? gameResult.getAppliedBonusSymbol() : "MISS"));
+        System.out.println("Config Version: " + Long.toHexString(gameResult.getConfigVersion()));
+    }
+
+    public void printSimulationResult(SimulationStatistics statistics) {
+        System.out.println("Simulation Result:");
+        System.out.println("Rounds: " + statistics.getRounds());
+        System.out.printf("RTP: %.6f +/- %.6f (95%%)%n", statistics.getRtp(), statistics.getRtpHalfWidth(Simulator.Z_95));
+        System.out.printf("Hit rate: %.6f +/- %.6f (95%%)%n", statistics.getHitRate(), statistics.getHitRateHalfWidth(Simulator.Z_95));
+        System.out.printf("Variance: %.6f%n", statistics.getVariance());
+        System.out.println("Max win: " + statistics.getMaxWin());
+        System.out.println();
+        System.out.println("Winning Combination Hits:");
+        for (EnumWinningCombinationType type : COMBINATION_TYPES) {
+            if (statistics.getCombinationHits(type) > 0) {
+                System.out.println(type.name() + ": " + statistics.getCombinationHits(type));
+            }
+        }
+    }
+
+    public void printRtpReport(RtpReport report) {
+        System.out.println("Exact RTP:");
+        System.out.printf("RTP: %.9f%n", report.getRtp());
+        System.out.printf("Base RTP: %.9f%n", report.getBaseRtp());
+        System.out.printf("Multiplier contribution: %.9f%n", report.getMultiplierContribution());
+        System.out.printf("Extra contribution: %.9f%n", report.getExtraContribution());
+        System.out.printf("Hit rate: %.9f%n", report.getHitRate());
+        if (!report.isComplete()) {
+            System.out.println("Line combinations are not included.");
+        }
+        System.out.println();
+        System.out.println("Winning Combinations:");
+        GameModel model = engine.model;
+        List<WinningRule> rules = new ArrayList<>(Arrays.asList(model.getSameSymbolRules()));
+        if (report.isComplete()) {
+            rules.addAll(Arrays.asList(model.getLineRules()));
+        }
+        for (WinningRule rule : rules) {
+            EnumWinningCombinationType type = rule.getType();
+            System.out.printf("%s: probability %.9f, hits per round %.9f, payout %.9f%n", type.name(),
+                    report.getWinProbability(type), report.getExpectedHits(type), report.getExpectedPayout(type));
+        }
+    }
+
+    /**
+     * The compiled parts of one configuration a round is played on.
+     */
+    private static final class Engine {
+        private final GameModel model;
+        private final MatrixGenerator matrixGenerator;
+        private final RewardCalculator rewardCalculator;
+        private final RoundEvaluator roundEvaluator;
+        private final BonusEngine bonusEngine;
+
+        private Engine(MatrixGenerator matrixGenerator, RewardCalculator rewardCalculator) {
+            this.model = matrixGenerator.getModel();
+            if (rewardCalculator.getModel().getFingerprint() != model.getFingerprint()) {
+                // Symbol ids of the board would index the reward tables of another configuration
+                throw new InvalidArgumentException("Matrix generator and reward calculator must be compiled from the same configuration");
+            }
+            this.matrixGenerator = matrixGenerator;
+            this.rewardCalculator = rewardCalculator;
+            this.roundEvaluator = new RoundEvaluator(model);
+            this.bonusEngine = model.getBonusEngine();
+        }
     }
 }
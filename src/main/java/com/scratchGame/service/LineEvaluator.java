@@ -0,0 +1,302 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.util.Arrays;
+
+/**
+ * Finds the symbols forming horizontal, vertical and diagonal lines on a board of any rows and columns.
+ * <p>
+ * Every direction has its own run length, the count of its line rule or {@link #RUN_LENGTH} by default.
+ * Boards of up to 64 cells are evaluated as bitboards: every symbol gets one row-major bitmask, and the runs of a
+ * direction are found by and-ing the mask with itself shifted by one step, then by the doubled run, so a run of
+ * length {@code n} takes O(log n) operations. Only the bits of the cells a line may start from are kept.
+ * Larger boards are scanned once, keeping the length of the run ending in every cell.
+ */
+public final class LineEvaluator {
+
+    public static final int RUN_LENGTH = 3;
+
+    private static final int[] NO_SYMBOLS = new int[0];
+    private static final WinningRule[] NO_RULES = new WinningRule[0];
+
+    private final int rows;
+    private final int columns;
+    private final boolean bitboard;
+    // Indexed by WinningGroup ordinal
+    private final int[] runLengths;
+    private final int[] steps = new int[WinningGroup.values().length];
+    private final long[] lineStarts = new long[WinningGroup.values().length];
+    private final int minimumRunLength;
+
+    /**
+     * Creates an evaluator finding lines of {@link #RUN_LENGTH} cells in every direction.
+     */
+    public LineEvaluator(int rows, int columns) {
+        this(rows, columns, NO_RULES);
+    }
+
+    /**
+     * Creates an evaluator finding the lines of the given rules, lines of {@link #RUN_LENGTH} cells in the
+     * directions without a rule. Rules with paylines are not found along a direction and are ignored.
+     *
+     * @param lineRules the line rules of the game, see {@link GameModel#getLineRules()}
+     */
+    public LineEvaluator(int rows, int columns, WinningRule[] lineRules) {
+        this(rows, columns, runLengths(lineRules), minimumRunLength(lineRules));
+    }
+
+    private LineEvaluator(int rows, int columns, int[] runLengths, int minimumRunLength) {
+        this.rows = rows;
+        this.columns = columns;
+        this.bitboard = rows * columns <= Long.SIZE;
+        this.runLengths = runLengths;
+        this.minimumRunLength = minimumRunLength;
+
+        for (WinningGroup group : WinningGroup.values()) {
+            if (group == WinningGroup.same_symbols) {
+                continue;
+            }
+            steps[group.ordinal()] = step(group);
+            long starts = 0;
+            for (int row = 0; row < rows && bitboard; row++) {
+                for (int column = 0; column < columns; column++) {
+                    if (canStartLine(group, row, column)) {
+                        starts |= 1L << (row * columns + column);
+                    }
+                }
+            }
+            lineStarts[group.ordinal()] = starts;
+        }
+    }
+
+    private static int[] runLengths(WinningRule[] lineRules) {
+        int[] runLengths = new int[WinningGroup.values().length];
+        Arrays.fill(runLengths, RUN_LENGTH);
+        for (WinningRule rule : lineRules) {
+            if (rule.getPaylines() == null && rule.getGroup() != null && rule.getGroup() != WinningGroup.same_symbols) {
+                runLengths[rule.getGroup().ordinal()] = rule.getRunLength();
+            }
+        }
+        return runLengths;
+    }
+
+    private static int minimumRunLength(WinningRule[] lineRules) {
+        int minimum = Integer.MAX_VALUE;
+        for (WinningRule rule : lineRules) {
+            if (rule.getPaylines() == null) {
+                minimum = Math.min(minimum, rule.getRunLength());
+            }
+        }
+        return minimum == Integer.MAX_VALUE ? RUN_LENGTH : minimum;
+    }
+
+    /**
+     * Returns an evaluator for the dimensions of the board, reusing the given one when they match.
+     */
+    static LineEvaluator forBoard(LineEvaluator evaluator, Board board) {
+        if (evaluator != null && evaluator.rows == board.getRows() && evaluator.columns == board.getColumns()) {
+            return evaluator;
+        }
+        return new LineEvaluator(board.getRows(), board.getColumns(),
+                evaluator != null ? evaluator.runLengths : runLengths(NO_RULES),
+                evaluator != null ? evaluator.minimumRunLength : RUN_LENGTH);
+    }
+
+    /**
+     * @return the number of consecutive cells forming a line in the direction
+     */
+    public int getRunLength(WinningGroup group) {
+        return runLengths[group.ordinal()];
+    }
+
+    /**
+     * @return the shortest run length of the rules, a symbol with fewer cells forms no line
+     */
+    public int getMinimumRunLength() {
+        return minimumRunLength;
+    }
+
+    /**
+     * Builds one bitmask per symbol id, bit {@code row * columns + column} being set when the symbol
+     * occupies that cell.
+     *
+     * @param board the board to index
+     * @return the masks indexed by symbol id, or null if the board is too large for a bitboard
+     */
+    public long[] symbolMasks(Board board) {
+        if (!bitboard) {
+            return null;
+        }
+        long[] masks = new long[board.getDictionary().size()];
+        for (int cell = 0; cell < board.size(); cell++) {
+            masks[board.get(cell)] |= 1L << cell;
+        }
+        return masks;
+    }
+
+    /**
+     * Returns the cells from which a line of the symbol starts.
+     *
+     * @param symbolMask the bitmask of the symbol
+     * @param group      the line direction
+     * @return a bitmask of line start cells, zero if the symbol forms no line
+     */
+    public long lineStarts(long symbolMask, WinningGroup group) {
+        int step = steps[group.ordinal()];
+        int runLength = runLengths[group.ordinal()];
+        long starts = lineStarts[group.ordinal()] & symbolMask;
+        // Bit i of runs is set when the run of the given length starting in cell i is the symbol's
+        long runs = symbolMask;
+        for (int length = 1; length < runLength && starts != 0; ) {
+            int extension = Math.min(length, runLength - length);
+            runs &= runs >>> (extension * step);
+            starts &= runs;
+            length += extension;
+        }
+        return starts;
+    }
+
+    /**
+     * Finds every symbol forming at least one line in the given direction.
+     * Symbols are returned in the order their first line is met when scanning the board:
+     * row by row for horizontal and diagonal lines, column by column for vertical lines.
+     *
+     * @param board the board to evaluate
+     * @param masks the masks from {@link #symbolMasks(Board)}, may be null for large boards
+     * @param group the line direction
+     * @return the ids of the symbols forming a line, blank cells excluded
+     */
+    public int[] findLineSymbols(Board board, long[] masks, WinningGroup group) {
+        if (group == WinningGroup.same_symbols) {
+            throw new GameException("Unsupported winning group: " + group);
+        }
+        if (masks == null) {
+            return scanLineSymbols(board, group);
+        }
+
+        int[] symbols = NO_SYMBOLS;
+        int[] firstPositions = NO_SYMBOLS;
+        int found = 0;
+        for (int id = 1; id < masks.length; id++) {
+            if (Long.bitCount(masks[id]) < runLengths[group.ordinal()]) {
+                continue;
+            }
+            long starts = lineStarts(masks[id], group);
+            if (starts == 0) {
+                continue;
+            }
+            if (found == symbols.length) {
+                symbols = Arrays.copyOf(symbols, Math.max(4, found * 2));
+                firstPositions = Arrays.copyOf(firstPositions, symbols.length);
+            }
+            int position = firstScanPosition(starts, group);
+            int insertAt = found++;
+            while (insertAt > 0 && firstPositions[insertAt - 1] > position) {
+                symbols[insertAt] = symbols[insertAt - 1];
+                firstPositions[insertAt] = firstPositions[insertAt - 1];
+                insertAt--;
+            }
+            symbols[insertAt] = id;
+            firstPositions[insertAt] = position;
+        }
+        return found == symbols.length ? symbols : Arrays.copyOf(symbols, found);
+    }
+
+    private int firstScanPosition(long starts, WinningGroup group) {
+        if (group != WinningGroup.vertically_linear_symbols) {
+            return Long.numberOfTrailingZeros(starts);
+        }
+        int first = Integer.MAX_VALUE;
+        for (long remaining = starts; remaining != 0; remaining &= remaining - 1) {
+            int cell = Long.numberOfTrailingZeros(remaining);
+            first = Math.min(first, (cell % columns) * rows + cell / columns);
+        }
+        return first;
+    }
+
+    /**
+     * Scans the board once in the order of {@link #findLineSymbols}, keeping the length of the run ending in every
+     * cell. A run ends after its start in that order, at a constant distance, so the first run completed by a
+     * symbol is also the one starting first.
+     */
+    private int[] scanLineSymbols(Board board, WinningGroup group) {
+        boolean[] seen = new boolean[board.getDictionary().size()];
+        int[] symbols = new int[seen.length];
+        int found = 0;
+        boolean columnMajor = group == WinningGroup.vertically_linear_symbols;
+        int outer = columnMajor ? columns : rows;
+        int inner = columnMajor ? rows : columns;
+        int step = steps[group.ordinal()];
+        int runLength = runLengths[group.ordinal()];
+        int[] runs = new int[board.size()];
+
+        for (int i = 0; i < outer; i++) {
+            for (int j = 0; j < inner; j++) {
+                int row = columnMajor ? j : i;
+                int column = columnMajor ? i : j;
+                int cell = row * columns + column;
+                int symbol = board.get(cell);
+                runs[cell] = continuesRun(group, row, column) && board.get(cell - step) == symbol
+                        ? runs[cell - step] + 1 : 1;
+                if (runs[cell] >= runLength && symbol != SymbolDictionary.BLANK && !seen[symbol]) {
+                    seen[symbol] = true;
+                    symbols[found++] = symbol;
+                }
+            }
+        }
+        return Arrays.copyOf(symbols, found);
+    }
+
+    /**
+     * @return true if the cell has a previous cell in the direction
+     */
+    private boolean continuesRun(WinningGroup group, int row, int column) {
+        switch (group) {
+            case horizontally_linear_symbols:
+                return column > 0;
+            case vertically_linear_symbols:
+                return row > 0;
+            case ltr_diagonally_linear_symbols:
+                return row > 0 && column > 0;
+            case rtl_diagonally_linear_symbols:
+                return row > 0 && column < columns - 1;
+            default:
+                return false;
+        }
+    }
+
+    private boolean canStartLine(WinningGroup group, int row, int column) {
+        int runLength = runLengths[group.ordinal()];
+        switch (group) {
+            case horizontally_linear_symbols:
+                return column <= columns - runLength;
+            case vertically_linear_symbols:
+                return row <= rows - runLength;
+            case ltr_diagonally_linear_symbols:
+                return row <= rows - runLength && column <= columns - runLength;
+            case rtl_diagonally_linear_symbols:
+                return row <= rows - runLength && column >= runLength - 1;
+            default:
+                return false;
+        }
+    }
+
+    private int step(WinningGroup group) {
+        switch (group) {
+            case horizontally_linear_symbols:
+                return 1;
+            case vertically_linear_symbols:
+                return columns;
+            case ltr_diagonally_linear_symbols:
+                return columns + 1;
+            case rtl_diagonally_linear_symbols:
+                return columns - 1;
+            default:
+                throw new GameException("Unsupported winning group: " + group);
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package com.scratchGame.service;
 
+import com.scratchGame.models.Board;
 import com.scratchGame.models.Game;
-import com.scratchGame.models.Probability;
+import com.scratchGame.models.SymbolDictionary;
 
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Generates a game matrix with symbols based on their probabilities.
+ * <p>
+ * The configured weights are compiled once into one {@link AliasTable} per cell by {@link GameModel},
+ * so every cell is drawn in O(1) regardless of the sum of the weights. Cells are produced as symbol ids
+ * on a {@link Board}; names are only created when the board is rendered.
+ * <p>
+ * Cells are drawn from a counter-based {@link RoundRandom}: the board of a round only depends on the seed and
+ * the round index, so {@link #generateBoard(Board, long)} regenerates any round directly and is safe to call
+ * from several threads.
  */
 public class MatrixGenerator {
 
-    private static final String DEFAULT_SYMBOL = " "; // Default symbol for uninitialized cells
-
-    private final Game game;
-    private final Random random;
+    private final GameModel model;
+    private final RoundRandom random;
+    // Next round index of the boards generated without an explicit round
+    private final AtomicLong nextRound;
 
     /**
      * Constructs a MatrixGenerator with the specified game configuration.
@@ -24,91 +32,134 @@ public class MatrixGenerator {
      * @throws IllegalArgumentException if the game configuration is null or has non-positive rows/columns
      */
     public MatrixGenerator(Game game) {
-        Objects.requireNonNull(game, "Game cannot be null");
-        if (game.getRows() < 0 || game.getColumns() < 0) {
-            throw new IllegalArgumentException("Rows and columns must be positive");
-        }
-        this.game = game;
-        this.random = ThreadLocalRandom.current(); // Use ThreadLocalRandom for better performance
+        this(GameModel.compile(validate(game)));
+    }
+
+    private MatrixGenerator(GameModel model) {
+        this(model, SplitMixRandom.withRandomSeed());
+    }
+
+    private MatrixGenerator(GameModel model, RoundRandom random) {
+        this(model, random, new AtomicLong());
+    }
+
+    private MatrixGenerator(GameModel model, RoundRandom random, AtomicLong nextRound) {
+        this.model = model;
+        this.random = random;
+        this.nextRound = nextRound;
     }
 
     /**
-     * Generates a game matrix with symbols based on their probabilities.
+     * Constructs a MatrixGenerator drawing from an already compiled game model with a random seed.
      *
-     * @return a List of Lists representing the game matrix
+     * @param model the compiled game model
+     * @return the generator
      */
-    public List<List<String>> generateMatrix() {
-        int rows = game.getRows();
-        int columns = game.getColumns();
-        List<List<String>> matrix = new ArrayList<>(rows);
-
-        List<String> combinedSymbols = getCombinedSymbolList();
-
-        for (int row = 0; row < rows; row++) {
-            matrix.add(generateRow(columns, combinedSymbols));
-        }
+    public static MatrixGenerator forModel(GameModel model) {
+        return new MatrixGenerator(Objects.requireNonNull(model, "Model cannot be null"));
+    }
 
-        return matrix;
+    /**
+     * Constructs a MatrixGenerator drawing from an already compiled game model with the given random source.
+     *
+     * @param model  the compiled game model
+     * @param random the random source, a fixed seed makes every round reproducible
+     * @return the generator
+     */
+    public static MatrixGenerator forModel(GameModel model, RoundRandom random) {
+        return new MatrixGenerator(Objects.requireNonNull(model, "Model cannot be null"),
+                Objects.requireNonNull(random, "Random cannot be null"));
     }
 
     /**
-     * Combines and shuffles symbols from standard and bonus probabilities.
+     * Returns a generator drawing from another model with the same random source and the same round counter,
+     * so rounds claimed from either generator are never claimed twice.
      *
-     * @return a List of combined and shuffled symbols
+     * @param model the compiled game model
+     * @return the generator
      */
-    private List<String> getCombinedSymbolList() {
-        Probability probabilities = Optional.ofNullable(game.getProbabilities())
-                .orElse(new Probability(Collections.emptyList(), Collections.emptyMap()));
+    MatrixGenerator withModel(GameModel model) {
+        return new MatrixGenerator(Objects.requireNonNull(model, "Model cannot be null"), random, nextRound);
+    }
 
-        List<String> standardSymbols = flattenSymbolProbabilities(probabilities.getStandardSymbolsProbabilities());
-        List<String> bonusSymbols = flattenSymbolProbabilities(probabilities.getBonusSymbolsProbabilities());
+    private static Game validate(Game game) {
+        Objects.requireNonNull(game, "Game cannot be null");
+        if (game.getRows() < 0 || game.getColumns() < 0) {
+            throw new IllegalArgumentException("Rows and columns must be positive");
+        }
+        return game;
+    }
 
-        // Combine symbols and shuffle for better randomness
-        List<String> combinedSymbols = new ArrayList<>(standardSymbols.size() + bonusSymbols.size());
-        combinedSymbols.addAll(standardSymbols);
-        combinedSymbols.addAll(bonusSymbols);
-        Collections.shuffle(combinedSymbols, random); // Shuffle for better distribution
+    /**
+     * Generates a game board with symbols based on their probabilities.
+     *
+     * @return a board of symbol ids from {@link #getDictionary()}
+     */
+    public Board generateBoard() {
+        return generateBoard(nextRound.getAndIncrement());
+    }
 
-        return combinedSymbols;
+    /**
+     * Generates the board of a round.
+     *
+     * @param round the round index
+     * @return the board of the round, the same for every call with the same seed and round
+     */
+    public Board generateBoard(long round) {
+        return generateBoard(new Board(model.getDictionary(), model.getRows(), model.getColumns()), round);
     }
 
     /**
-     * Flattens a list of maps representing symbol probabilities into a list of symbols.
+     * Draws a round into an existing board, so simulations can reuse one board for every round.
      *
-     * @param probabilities a list of maps where each map represents symbol probabilities
-     * @return a List of symbols based on the probabilities
+     * @param board a board of the dimensions of the game, overwritten
+     * @param round the round index
+     * @return the given board
      */
-    private List<String> flattenSymbolProbabilities(List<Map<String, Integer>> probabilities) {
-        return probabilities.stream()
-                .flatMap(map -> map.entrySet().stream()
-                        .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream()))
-                .collect(Collectors.toList());
+    public Board generateBoard(Board board, long round) {
+        long roundKey = random.roundKey(round);
+        for (int cell = 0; cell < board.size(); cell++) {
+            board.set(cell, sampleCell(cell, random.bits(roundKey, cell)));
+        }
+        return board;
     }
 
     /**
-     * Flattens a map of symbol probabilities into a list of symbols.
+     * Claims consecutive round indexes from the rounds generated without an explicit round.
      *
-     * @param probabilities a map where keys are symbols and values are their probabilities
-     * @return a List of symbols based on the probabilities
+     * @param count the number of rounds to claim
+     * @return the first claimed round index
      */
-    private List<String> flattenSymbolProbabilities(Map<String, Integer> probabilities) {
-        return probabilities.entrySet().stream()
-                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
-                .collect(Collectors.toList());
+    long claimRounds(int count) {
+        return nextRound.getAndAdd(count);
     }
 
     /**
-     * Generates a row of symbols for the matrix.
+     * Generates a game matrix with symbols based on their probabilities.
      *
-     * @param columns the number of columns in the row
-     * @param symbols the list of symbols to use
-     * @return a List of strings representing the row
+     * @return a List of Lists representing the game matrix
      */
-    private List<String> generateRow(int columns, List<String> symbols) {
-        List<String> row = new ArrayList<>(Collections.nCopies(columns, DEFAULT_SYMBOL));
-        for (int i = 0; i < Math.min(columns, symbols.size()); i++) {
-            row.set(i, symbols.get(i));
+    public List<List<String>> generateMatrix() {
+        return generateBoard().toMatrix();
+    }
+
+    public GameModel getModel() {
+        return model;
+    }
+
+    public RoundRandom getRandom() {
+        return random;
+    }
+
+    public SymbolDictionary getDictionary() {
+        return model.getDictionary();
+    }
+
+    private int sampleCell(int cell, long randomBits) {
+        AliasTable table = model.getCellTable(cell);
+        if (table == null) {
+            return SymbolDictionary.BLANK;
         }
-        return row;
+        return model.getCellSymbols(cell)[table.sample(randomBits)];
     }
 }
@@ -0,0 +1,357 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.ConfigurationException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Symbol;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of a compiled {@link GameModel}.
+ * <p>
+ * A snapshot holds everything compiling a configuration produces: the symbol dictionary with the definition of every
+ * symbol, the weights and alias table of every cell and the rule plan with the cells of every payline. Loading one
+ * maps the file and copies the tables back, without parsing, validating or compiling the configuration again.
+ * <p>
+ * The file starts with a {@link #HEADER_BYTES} byte big-endian header: the magic number, the format version, the
+ * payload length, the CRC32C of the payload and the fingerprint of the model. Snapshots of another version, with a
+ * wrong checksum or restoring a model with another fingerprint are rejected.
+ */
+public final class ModelSnapshot {
+
+    static final int MAGIC = 0x5343474d;
+    static final short VERSION = 2;
+    static final int HEADER_BYTES = 32;
+
+    // Header offsets
+    static final int VERSION_OFFSET = 4;
+    static final int PAYLOAD_BYTES_OFFSET = 8;
+    static final int CHECKSUM_OFFSET = 12;
+    static final int FINGERPRINT_OFFSET = 16;
+
+    private static final int NO_CELL = -1;
+
+    private ModelSnapshot() {
+    }
+
+    /**
+     * Writes the snapshot of a model. The file is replaced atomically, so readers never see a partial snapshot.
+     *
+     * @param model the compiled model
+     * @param file  the snapshot file
+     * @throws ConfigurationException if the file cannot be written
+     */
+    public static void write(GameModel model, Path file) {
+        Objects.requireNonNull(model, "Model cannot be null");
+        byte[] payload = payload(model);
+        CRC32C checksum = new CRC32C();
+        checksum.update(payload);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(0, MAGIC)
+                .putShort(VERSION_OFFSET, VERSION)
+                .putInt(PAYLOAD_BYTES_OFFSET, payload.length)
+                .putInt(CHECKSUM_OFFSET, (int) checksum.getValue())
+                .putLong(FINGERPRINT_OFFSET, model.getFingerprint());
+
+        Path target = file.toAbsolutePath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer[] buffers = {header, ByteBuffer.wrap(payload)};
+                while (buffers[1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to write snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Loads the model of a snapshot.
+     *
+     * @param file the snapshot file
+     * @return the model, with the fingerprint of the model the snapshot was written from
+     * @throws ConfigurationException if the file cannot be read or is not a valid snapshot
+     */
+    public static GameModel read(Path file) {
+        ByteBuffer snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new ConfigurationException("Not a snapshot: " + file);
+            }
+            snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to read snapshot " + file, e);
+        }
+
+        if (snapshot.getInt(0) != MAGIC) {
+            throw new ConfigurationException("Not a snapshot: " + file);
+        }
+        short version = snapshot.getShort(VERSION_OFFSET);
+        if (version != VERSION) {
+            throw new ConfigurationException("Snapshot " + file + " has version " + version + ", expected " + VERSION
+                    + ". Compile the configuration again");
+        }
+        int payloadBytes = snapshot.getInt(PAYLOAD_BYTES_OFFSET);
+        if (payloadBytes != snapshot.capacity() - HEADER_BYTES) {
+            throw new ConfigurationException("Snapshot " + file + " is truncated");
+        }
+        ByteBuffer payload = snapshot.slice(HEADER_BYTES, payloadBytes);
+        CRC32C checksum = new CRC32C();
+        checksum.update(payload.duplicate());
+        if ((int) checksum.getValue() != snapshot.getInt(CHECKSUM_OFFSET)) {
+            throw new ConfigurationException("Snapshot " + file + " is corrupted: checksum mismatch");
+        }
+
+        GameModel model;
+        try {
+            model = model(payload);
+        } catch (BufferUnderflowException | IllegalArgumentException | InvalidArgumentException e) {
+            throw new ConfigurationException("Snapshot " + file + " is corrupted: " + e.getMessage(), e);
+        }
+        if (model.getFingerprint() != snapshot.getLong(FINGERPRINT_OFFSET)) {
+            throw new ConfigurationException("Snapshot " + file + " does not restore the model it was written from");
+        }
+        return model;
+    }
+
+    /**
+     * @return true if the file starts like a snapshot, false for any other file, e.g. a JSON configuration
+     */
+    public static boolean isSnapshot(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Read the first bytes only
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static byte[] payload(GameModel model) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(model.getRows());
+            out.writeInt(model.getColumns());
+
+            // Dictionary: the names of ids 1 to n and the definitions of the symbols that have one
+            SymbolDictionary dictionary = model.getDictionary();
+            out.writeInt(dictionary.size() - 1);
+            for (int id = 1; id < dictionary.size(); id++) {
+                writeString(out, dictionary.nameOf(id));
+                Symbol symbol = dictionary.symbolOf(id);
+                out.writeBoolean(symbol != null);
+                if (symbol != null) {
+                    writeString(out, symbol.getType());
+                    writeString(out, symbol.getImpact());
+                    out.writeDouble(symbol.getRewardMultiplier());
+                    out.writeInt(symbol.getExtra());
+                }
+            }
+
+            // Cells: the first cell with a table stores it, cells with the same weights refer to that cell
+            Map<AliasTable, Integer> tableCells = new IdentityHashMap<>();
+            out.writeInt(model.getCellCount());
+            for (int cell = 0; cell < model.getCellCount(); cell++) {
+                AliasTable table = model.getCellTable(cell);
+                if (table == null) {
+                    out.writeInt(NO_CELL);
+                    continue;
+                }
+                Integer sharedCell = tableCells.putIfAbsent(table, cell);
+                out.writeInt(sharedCell != null ? sharedCell : cell);
+                if (sharedCell != null) {
+                    continue;
+                }
+                int[] symbols = model.getCellSymbols(cell);
+                int[] weights = model.getCellWeights(cell);
+                out.writeInt(symbols.length);
+                out.writeLong(table.getTotalWeight());
+                for (int i = 0; i < symbols.length; i++) {
+                    out.writeInt(symbols[i]);
+                    out.writeInt(weights[i]);
+                    out.writeLong(table.getThreshold(i));
+                    out.writeInt(table.getAlias(i));
+                }
+            }
+
+            // Rule plan, by combination name so that reordering the enums does not break snapshots
+            List<WinningRule> rules = new ArrayList<>();
+            for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
+                Optional.ofNullable(model.getRule(type)).ifPresent(rules::add);
+            }
+            out.writeInt(rules.size());
+            for (WinningRule rule : rules) {
+                writeString(out, rule.getType().name());
+                writeString(out, rule.getWhen().name());
+                writeString(out, rule.getGroup() == null ? null : rule.getGroup().name());
+                out.writeInt(rule.getCount());
+                out.writeDouble(rule.getRewardMultiplier());
+                Paylines paylines = rule.getPaylines();
+                out.writeInt(paylines == null ? 0 : paylines.size());
+                for (int line = 0; paylines != null && line < paylines.size(); line++) {
+                    int[] cells = paylines.getCells(line);
+                    out.writeInt(cells.length);
+                    for (int cell : cells) {
+                        out.writeInt(cell);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to write snapshot", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GameModel model(ByteBuffer in) {
+        int rows = in.getInt();
+        int columns = in.getInt();
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("invalid board " + rows + "x" + columns);
+        }
+
+        int symbolCount = in.getInt();
+        List<String> names = new ArrayList<>(symbolCount);
+        Map<String, Symbol> symbols = new HashMap<>();
+        for (int i = 0; i < symbolCount; i++) {
+            String name = readString(in);
+            names.add(name);
+            if (in.get() != 0) {
+                String type = readString(in);
+                String impact = readString(in);
+                double rewardMultiplier = in.getDouble();
+                int extra = in.getInt();
+                symbols.put(name, new Symbol(name, rewardMultiplier, extra, type, impact));
+            }
+        }
+        SymbolDictionary dictionary = SymbolDictionary.of(names, symbols);
+
+        int cells = in.getInt();
+        if (cells != rows * columns) {
+            throw new IllegalArgumentException(cells + " cells on a " + rows + "x" + columns + " board");
+        }
+        AliasTable[] cellTables = new AliasTable[cells];
+        int[][] cellSymbols = new int[cells][];
+        int[][] cellWeights = new int[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            int tableCell = in.getInt();
+            if (tableCell == NO_CELL) {
+                continue;
+            }
+            if (tableCell < 0 || tableCell > cell || cellTables[tableCell] == null && tableCell != cell) {
+                throw new IllegalArgumentException("cell " + cell + " refers to cell " + tableCell);
+            }
+            if (tableCell < cell) {
+                cellTables[cell] = cellTables[tableCell];
+                cellSymbols[cell] = cellSymbols[tableCell];
+                cellWeights[cell] = cellWeights[tableCell];
+                continue;
+            }
+            int outcomes = in.getInt();
+            long totalWeight = in.getLong();
+            if (outcomes <= 0 || outcomes > in.remaining()) {
+                throw new IllegalArgumentException("cell " + cell + " has " + outcomes + " outcomes");
+            }
+            int[] cellSymbol = new int[outcomes];
+            int[] weights = new int[outcomes];
+            long[] thresholds = new long[outcomes];
+            int[] aliases = new int[outcomes];
+            for (int i = 0; i < outcomes; i++) {
+                cellSymbol[i] = in.getInt();
+                weights[i] = in.getInt();
+                thresholds[i] = in.getLong();
+                aliases[i] = in.getInt();
+                if (cellSymbol[i] <= SymbolDictionary.BLANK || cellSymbol[i] >= dictionary.size()) {
+                    throw new IllegalArgumentException("cell " + cell + " draws unknown symbol " + cellSymbol[i]);
+                }
+            }
+            cellTables[cell] = new AliasTable(totalWeight, thresholds, aliases);
+            cellSymbols[cell] = cellSymbol;
+            cellWeights[cell] = weights;
+        }
+
+        double[] symbolMultipliers = GameModel.symbolMultipliers(dictionary);
+        int ruleCount = in.getInt();
+        List<WinningRule> rules = new ArrayList<>(Math.max(0, Math.min(ruleCount, in.remaining())));
+        for (int i = 0; i < ruleCount; i++) {
+            EnumWinningCombinationType type = EnumWinningCombinationType.valueOf(readString(in));
+            WinningCondition when = WinningCondition.valueOf(readString(in));
+            String group = readString(in);
+            int count = in.getInt();
+            double rewardMultiplier = in.getDouble();
+            int[][] lines = new int[length(in)][];
+            for (int line = 0; line < lines.length; line++) {
+                lines[line] = new int[length(in)];
+                for (int cell = 0; cell < lines[line].length; cell++) {
+                    lines[line][cell] = in.getInt();
+                }
+            }
+            rules.add(new WinningRule(type, when, group == null ? null : WinningGroup.valueOf(group), count,
+                    rewardMultiplier, symbolMultipliers, lines.length == 0 ? null : new Paylines(lines, cells)));
+        }
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException(in.remaining() + " unexpected bytes");
+        }
+        return new GameModel(rows, columns, dictionary, cellTables, cellSymbols, cellWeights, rules);
+    }
+
+    /**
+     * Writes the length of the UTF-8 bytes, -1 for null, followed by the bytes.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a length read from the snapshot, checked against the bytes left
+     */
+    private static int length(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining() / Integer.BYTES) {
+            throw new IllegalArgumentException("invalid length " + length);
+        }
+        return length;
+    }
+}
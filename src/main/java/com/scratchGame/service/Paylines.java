@@ -0,0 +1,215 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.util.*;
+
+/**
+ * The paylines of a line rule, compiled from the covered areas of its winning combination.
+ * <p>
+ * Every payline is a bitmask over the row-major cells of the board, kept as the (word, bits) pairs of the 64-cell
+ * words it touches: a single pair on boards of up to 64 cells. A symbol wins a payline when the mask lies within
+ * the bitboard of the symbol, one and-and-compare per word whatever the number of cells of the line.
+ * <p>
+ * Paylines are indexed by their first cell, their anchor. Only the symbol in the anchor can win the paylines
+ * anchored there, so the board is read once per anchor and every payline anchored on a bonus symbol or a blank
+ * cell is skipped at once. Instances are immutable.
+ */
+final class Paylines {
+
+    private final int cellCount;
+    private final int words;
+    // Cells of every payline, ascending, in configuration order
+    private final int[][] cells;
+    private final int[] lengths;
+    private final int minimumLength;
+    // Masks of payline i are the pairs maskWords[j], maskBits[j] for maskOffsets[i] <= j < maskOffsets[i + 1]
+    private final int[] maskOffsets;
+    private final int[] maskWords;
+    private final long[] maskBits;
+    // Paylines anchored in anchors[a] are anchorLines[j] for anchorOffsets[a] <= j < anchorOffsets[a + 1]
+    private final int[] anchors;
+    private final int[] anchorOffsets;
+    private final int[] anchorLines;
+
+    /**
+     * @param lines     the cells of every payline, row-major, in any order and possibly repeated
+     * @param cellCount the number of cells of the board
+     * @throws InvalidArgumentException if a payline is empty or covers a cell outside of the board
+     */
+    Paylines(int[][] lines, int cellCount) {
+        this.cellCount = cellCount;
+        this.words = (cellCount + Long.SIZE - 1) / Long.SIZE;
+        this.cells = new int[lines.length][];
+        this.lengths = new int[lines.length];
+        int minimum = Integer.MAX_VALUE;
+        for (int line = 0; line < lines.length; line++) {
+            int[] lineCells = Arrays.stream(lines[line]).sorted().distinct().toArray();
+            if (lineCells.length == 0) {
+                throw new InvalidArgumentException("Payline " + line + " covers no cell");
+            }
+            if (lineCells[0] < 0 || lineCells[lineCells.length - 1] >= cellCount) {
+                throw new InvalidArgumentException("Payline " + line + " covers a cell outside of the "
+                        + cellCount + " cells of the board");
+            }
+            cells[line] = lineCells;
+            lengths[line] = lineCells.length;
+            minimum = Math.min(minimum, lineCells.length);
+        }
+        this.minimumLength = lines.length > 0 ? minimum : Integer.MAX_VALUE;
+
+        // Bitmasks, one pair per word touched by the line
+        this.maskOffsets = new int[lines.length + 1];
+        List<Integer> wordList = new ArrayList<>();
+        List<Long> bitList = new ArrayList<>();
+        for (int line = 0; line < lines.length; line++) {
+            int word = -1;
+            for (int cell : cells[line]) {
+                if (cell / Long.SIZE != word) {
+                    word = cell / Long.SIZE;
+                    wordList.add(word);
+                    bitList.add(0L);
+                }
+                bitList.set(bitList.size() - 1, bitList.get(bitList.size() - 1) | 1L << cell);
+            }
+            maskOffsets[line + 1] = wordList.size();
+        }
+        this.maskWords = wordList.stream().mapToInt(Integer::intValue).toArray();
+        this.maskBits = bitList.stream().mapToLong(Long::longValue).toArray();
+
+        // Inverted index from the anchor cells to their paylines
+        int[] anchored = new int[cellCount];
+        for (int[] lineCells : cells) {
+            anchored[lineCells[0]]++;
+        }
+        int anchorCount = (int) Arrays.stream(anchored).filter(count -> count > 0).count();
+        this.anchors = new int[anchorCount];
+        this.anchorOffsets = new int[anchorCount + 1];
+        int[] nextLine = new int[cellCount];
+        for (int cell = 0, anchor = 0; cell < cellCount; cell++) {
+            if (anchored[cell] > 0) {
+                anchors[anchor] = cell;
+                nextLine[cell] = anchorOffsets[anchor];
+                anchorOffsets[anchor + 1] = anchorOffsets[anchor] + anchored[cell];
+                anchor++;
+            }
+        }
+        this.anchorLines = new int[lines.length];
+        for (int line = 0; line < lines.length; line++) {
+            anchorLines[nextLine[cells[line][0]]++] = line;
+        }
+    }
+
+    /**
+     * @return the number of paylines
+     */
+    int size() {
+        return cells.length;
+    }
+
+    /**
+     * @return the cells of the payline, ascending
+     */
+    int[] getCells(int line) {
+        return cells[line].clone();
+    }
+
+    /**
+     * @return the fewest cells of a payline, a symbol with fewer cells wins none of them
+     */
+    int getMinimumLength() {
+        return minimumLength;
+    }
+
+    /**
+     * @return the number of 64-cell words of a bitboard of the board
+     */
+    int getWords() {
+        return words;
+    }
+
+    /**
+     * Builds the bitboard of every symbol, {@link #getWords()} longs per symbol id.
+     */
+    long[] symbolMasks(Board board) {
+        long[] masks = new long[board.getDictionary().size() * words];
+        for (int cell = 0; cell < board.size(); cell++) {
+            masks[board.get(cell) * words + cell / Long.SIZE] |= 1L << cell;
+        }
+        return masks;
+    }
+
+    /**
+     * @param masks  bitboards of {@link #getWords()} longs each
+     * @param offset the index of the first word of the bitboard
+     * @return true if the bitboard covers at least one payline
+     */
+    boolean anyWon(long[] masks, int offset) {
+        for (int line = 0; line < cells.length; line++) {
+            if (won(line, masks, offset)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the rule to every standard symbol winning at least one payline. A symbol wins the rule once,
+     * however many of its paylines it covers.
+     *
+     * @param board      the board of the round
+     * @param masks      the bitboards of the symbols, {@link #getWords()} longs per symbol id
+     * @param evaluation the evaluation holding the symbol histogram of the board
+     * @param typeBit    the bit of the combination type of the rule
+     */
+    void evaluate(Board board, long[] masks, RoundEvaluation evaluation, int typeBit) {
+        SymbolDictionary symbols = board.getDictionary();
+        for (int anchor = 0; anchor < anchors.length; anchor++) {
+            int symbol = board.get(anchors[anchor]);
+            if (!symbols.isStandard(symbol) || evaluation.hasWins(symbol, typeBit)) {
+                continue;
+            }
+            int count = evaluation.getSymbolCount(symbol);
+            int offset = symbol * words;
+            for (int i = anchorOffsets[anchor]; i < anchorOffsets[anchor + 1]; i++) {
+                int line = anchorLines[i];
+                if (lengths[line] <= count && won(line, masks, offset)) {
+                    evaluation.addWins(symbol, typeBit);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the symbol filling the first payline in configuration order filled by a single symbol,
+     * {@link SymbolDictionary#BLANK} if no payline is
+     * @throws InvalidArgumentException if the board does not have the cells of the paylines
+     */
+    int firstWinningSymbol(Board board) {
+        if (board.size() != cellCount) {
+            throw new InvalidArgumentException("Board of " + board.size() + " cells does not match the "
+                    + cellCount + " cells of the paylines");
+        }
+        long[] masks = symbolMasks(board);
+        for (int line = 0; line < cells.length; line++) {
+            int symbol = board.get(cells[line][0]);
+            if (symbol != SymbolDictionary.BLANK && won(line, masks, symbol * words)) {
+                return symbol;
+            }
+        }
+        return SymbolDictionary.BLANK;
+    }
+
+    private boolean won(int line, long[] masks, int offset) {
+        for (int i = maskOffsets[line]; i < maskOffsets[line + 1]; i++) {
+            long bits = maskBits[i];
+            if ((masks[offset + maskWords[i]] & bits) != bits) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -5,30 +5,66 @@ import com.scratchGame.enums.WinningGroup;
 import com.scratchGame.enums.WinningCondition;
 import com.scratchGame.exceptions.GameException;
 import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Board;
 import com.scratchGame.models.Game;
 import com.scratchGame.models.Symbol;
-import com.scratchGame.models.WinningCombination;
+import com.scratchGame.models.SymbolDictionary;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * Rewards of the winning combinations of a compiled {@link GameModel}.
+ * <p>
+ * Only reads the immutable tables of its model and keeps no state between calls, so one calculator is shared by
+ * every thread playing the game.
+ */
 public class RewardCalculator {
 
-    private Game game;
+    private final GameModel model;
+    private final LineEvaluator lineEvaluator;
 
     public RewardCalculator(Game game) {
+        this(compile(game));
+    }
+
+    private RewardCalculator(GameModel model) {
+        this.model = model;
+        this.lineEvaluator = new LineEvaluator(model.getRows(), model.getColumns(), model.getLineRules());
+    }
+
+    /**
+     * Constructs a RewardCalculator reading the reward tables of an already compiled game model.
+     *
+     * @param model the compiled game model
+     * @return the calculator
+     */
+    public static RewardCalculator forModel(GameModel model) {
+        if (model == null) {
+            throw new InvalidArgumentException("Model cannot be null");
+        }
+        return new RewardCalculator(model);
+    }
+
+    private static GameModel compile(Game game) {
         if (game == null) {
             throw new InvalidArgumentException("Game cannot be null");
         }
-        this.game = game;
+        return GameModel.compile(game);
     }
 
     public double calculateReward(EnumWinningCombinationType winningCombinationType, List<List<String>> gameMatrix) {
         if (winningCombinationType == null || gameMatrix == null) {
             throw new InvalidArgumentException("Arguments cannot be null");
         }
+        return calculateBoardReward(winningCombinationType, Board.fromMatrix(model.getDictionary(), gameMatrix));
+    }
 
-        WinningCombination combination = getWinningCombinationConfig(winningCombinationType);
+    public double calculateBoardReward(EnumWinningCombinationType winningCombinationType, Board gameMatrix) {
+        if (winningCombinationType == null || gameMatrix == null) {
+            throw new InvalidArgumentException("Arguments cannot be null");
+        }
+
+        WinningRule combination = getWinningRule(winningCombinationType);
         double baseRewardMultiplier = combination.getRewardMultiplier();
         int countRequired = combination.getCount();
         WinningCondition condition = combination.getWhen();
@@ -38,105 +74,89 @@ public class RewardCalculator {
             case same_symbols:
                 return calculateRewardForSameSymbols(gameMatrix, countRequired, baseRewardMultiplier);
             case linear_symbols:
+                if (combination.getPaylines() != null) {
+                    return calculateRewardForPaylines(gameMatrix, combination.getPaylines(), baseRewardMultiplier);
+                }
                 return calculateRewardForLinearSymbols(gameMatrix, group, baseRewardMultiplier);
             default:
                 throw new GameException("Unsupported winning condition: " + condition);
         }
     }
 
-    private WinningCombination getWinningCombinationConfig(EnumWinningCombinationType winningCombinationType) {
-        return Optional.ofNullable(game.getWinCombinations().get(winningCombinationType.name()))
-                .orElseThrow(() -> new GameException("Winning combination configuration not found for: " + winningCombinationType));
+    /**
+     * Calculates the reward one symbol earns for one winning combination: the combination multiplier times the
+     * symbol multiplier, times the number of occurrences of the symbol for same symbol combinations.
+     * The reward is read from the tables of the compiled {@link GameModel}.
+     *
+     * @param winningCombinationType a combination configured for the game
+     * @param symbol                 the id of the winning symbol
+     * @param symbolCount            the number of occurrences of the symbol on the board
+     * @return the reward of the symbol for the combination
+     */
+    public double calculateSymbolReward(EnumWinningCombinationType winningCombinationType, int symbol, int symbolCount) {
+        if (winningCombinationType == null) {
+            throw new InvalidArgumentException("Arguments cannot be null");
+        }
+        return getWinningRule(winningCombinationType).reward(symbol, symbolCount);
     }
 
-    private double calculateRewardForSameSymbols(List<List<String>> gameMatrix, int countRequired, double baseRewardMultiplier) {
-        Map<String, Long> symbolOccurrences = countSymbolOccurrences(gameMatrix);
-
-        return symbolOccurrences.entrySet().stream()
-                .filter(entry -> entry.getValue() >= countRequired)
-                .mapToDouble(entry -> {
-                    Symbol symbol = game.getSymbols().get(entry.getKey());
-                    double symbolMultiplier = (symbol != null) ? symbol.getRewardMultiplier() : 1;
-                    return baseRewardMultiplier * symbolMultiplier * entry.getValue();
-                })
-                .sum();
+    public GameModel getModel() {
+        return model;
     }
 
-    private double calculateRewardForLinearSymbols(List<List<String>> gameMatrix, WinningGroup group, double baseRewardMultiplier) {
-        switch (group) {
-            case horizontally_linear_symbols:
-                return calculateLinearReward(gameMatrix, baseRewardMultiplier, true);
-            case vertically_linear_symbols:
-                return calculateLinearReward(gameMatrix, baseRewardMultiplier, false);
-            case ltr_diagonally_linear_symbols:
-                return calculateDiagonalReward(gameMatrix, baseRewardMultiplier, true);
-            case rtl_diagonally_linear_symbols:
-                return calculateDiagonalReward(gameMatrix, baseRewardMultiplier, false);
-            default:
-                throw new GameException("Unsupported winning group: " + group);
+    private WinningRule getWinningRule(EnumWinningCombinationType winningCombinationType) {
+        WinningRule rule = model.getRule(winningCombinationType);
+        if (rule == null) {
+            throw new GameException("Winning combination configuration not found for: " + winningCombinationType);
         }
+        return rule;
     }
 
-    private double calculateLinearReward(List<List<String>> gameMatrix, double baseRewardMultiplier, boolean horizontal) {
-        int rows = gameMatrix.size();
-        int cols = horizontal ? gameMatrix.get(0).size() : rows;
-
-        for (int i = 0; i < rows; i++) {
-            int consecutiveCount = 0;
-            String currentSymbol = null;
-
-            for (int j = 0; j < cols; j++) {
-                String symbol = horizontal ? gameMatrix.get(i).get(j) : gameMatrix.get(j).get(i);
+    private double calculateRewardForSameSymbols(Board gameMatrix, int countRequired, double baseRewardMultiplier) {
+        int[] symbolOccurrences = countSymbolOccurrences(gameMatrix);
+        SymbolDictionary symbols = gameMatrix.getDictionary();
 
-                if (symbol.equals(currentSymbol)) {
-                    consecutiveCount++;
-                } else {
-                    currentSymbol = symbol;
-                    consecutiveCount = 1;
-                }
-
-                if (consecutiveCount >= 3) { // Example count, adjust as needed
-                    Symbol symbolObj = game.getSymbols().get(symbol);
-                    double symbolMultiplier = (symbolObj != null) ? symbolObj.getRewardMultiplier() : 1;
-                    return baseRewardMultiplier * symbolMultiplier;
-                }
+        double reward = 0;
+        for (int id = 0; id < symbolOccurrences.length; id++) {
+            if (id != SymbolDictionary.BLANK && symbolOccurrences[id] >= countRequired) {
+                reward += baseRewardMultiplier * symbolMultiplier(symbols, id) * symbolOccurrences[id];
             }
         }
-        return 0.0;
+        return reward;
     }
 
-    private double calculateDiagonalReward(List<List<String>> gameMatrix, double baseRewardMultiplier, boolean leftToRight) {
-        int numRows = gameMatrix.size();
-        int numCols = gameMatrix.get(0).size();
-
-        for (int row = 0; row <= numRows - 3; row++) {
-            for (int col = (leftToRight ? 0 : 3 - 1); leftToRight ? (col <= numCols - 3) : (col >= 3 - 1); col += (leftToRight ? 1 : -1)) {
-                if (checkDiagonal(gameMatrix, row, col, 3, leftToRight)) { // Example count, adjust as needed
-                    String symbol = gameMatrix.get(row).get(col);
-                    Symbol symbolObj = game.getSymbols().get(symbol);
-                    double symbolMultiplier = (symbolObj != null) ? symbolObj.getRewardMultiplier() : 1;
-                    return baseRewardMultiplier * symbolMultiplier;
-                }
-            }
+    private double calculateRewardForLinearSymbols(Board gameMatrix, WinningGroup group, double baseRewardMultiplier) {
+        if (group == WinningGroup.same_symbols) {
+            throw new GameException("Unsupported winning group: " + group);
         }
-        return 0.0;
+        LineEvaluator evaluator = LineEvaluator.forBoard(lineEvaluator, gameMatrix);
+        int[] lineSymbols = evaluator.findLineSymbols(gameMatrix, evaluator.symbolMasks(gameMatrix), group);
+        if (lineSymbols.length == 0) {
+            return 0.0;
+        }
+        // The first line found on the board pays
+        return baseRewardMultiplier * symbolMultiplier(gameMatrix.getDictionary(), lineSymbols[0]);
     }
 
-    private Map<String, Long> countSymbolOccurrences(List<List<String>> gameMatrix) {
-        return gameMatrix.stream()
-                .flatMap(List::stream)
-                .collect(Collectors.groupingBy(symbol -> symbol, Collectors.counting()));
+    private double calculateRewardForPaylines(Board gameMatrix, Paylines paylines, double baseRewardMultiplier) {
+        int symbol = paylines.firstWinningSymbol(gameMatrix);
+        if (symbol == SymbolDictionary.BLANK) {
+            return 0.0;
+        }
+        // The first configured payline filled by a symbol pays
+        return baseRewardMultiplier * symbolMultiplier(gameMatrix.getDictionary(), symbol);
     }
 
-    private boolean checkDiagonal(List<List<String>> gameMatrix, int startRow, int startCol, int countRequired, boolean leftToRight) {
-        String symbol = gameMatrix.get(startRow).get(startCol);
-        for (int i = 0; i < countRequired; i++) {
-            int row = startRow + i;
-            int col = leftToRight ? startCol + i : startCol - i;
-            if (row >= gameMatrix.size() || col < 0 || col >= gameMatrix.get(0).size() || !gameMatrix.get(row).get(col).equals(symbol)) {
-                return false;
-            }
+    private int[] countSymbolOccurrences(Board gameMatrix) {
+        int[] occurrences = new int[gameMatrix.getDictionary().size()];
+        for (int cell = 0; cell < gameMatrix.size(); cell++) {
+            occurrences[gameMatrix.get(cell)]++;
         }
-        return true;
+        return occurrences;
+    }
+
+    private double symbolMultiplier(SymbolDictionary symbols, int id) {
+        Symbol symbol = symbols.symbolOf(id);
+        return (symbol != null) ? symbol.getRewardMultiplier() : 1;
     }
 }
@@ -0,0 +1,259 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.util.*;
+
+/**
+ * Everything a single pass of {@link RoundEvaluator} learns about a board: the symbol histogram,
+ * the bonus symbols in board order, the per-symbol bitboards and the winning combinations of every symbol.
+ * <p>
+ * An evaluation can be reused for any number of rounds but must not be shared across threads.
+ */
+public final class RoundEvaluation {
+
+    private static final EnumWinningCombinationType[] COMBINATION_TYPES = EnumWinningCombinationType.values();
+    // Never equal to a symbol id
+    static final int NO_SYMBOL = -1;
+
+    private Board board;
+    private int[] counts = new int[0];
+    private long[] masks = new long[0];
+    private int[] wins = new int[0];
+    private int[] winningSymbols = new int[0];
+    private int winningSymbolCount;
+    private int[] bonusSymbols = new int[0];
+    private int bonusSymbolCount;
+    // Bitboards of several words per symbol, for the paylines of boards that do not fit a single word
+    private long[] cellMasks = new long[0];
+
+    // Run-length state of the current and the previous row for boards that do not fit a bitboard, indexed by
+    // column + 1: the first and the last slot hold no symbol, so that diagonals never continue past the edges
+    int[] rowSymbols = new int[0];
+    int[] previousRowSymbols = new int[0];
+    int[] verticalRuns = new int[0];
+    int[] previousVerticalRuns = new int[0];
+    int[] ltrRuns = new int[0];
+    int[] previousLtrRuns = new int[0];
+    int[] rtlRuns = new int[0];
+    int[] previousRtlRuns = new int[0];
+
+    // Evaluations of the row bands of a board evaluated in parallel
+    private RoundEvaluation[] bands = new RoundEvaluation[0];
+
+    void reset(Board board, boolean bitboard) {
+        this.board = board;
+        int symbols = board.getDictionary().size();
+        if (counts.length < symbols) {
+            counts = new int[symbols];
+            masks = new long[symbols];
+            wins = new int[symbols];
+            winningSymbols = new int[symbols];
+            bonusSymbols = new int[symbols];
+        } else {
+            Arrays.fill(counts, 0, symbols, 0);
+            Arrays.fill(masks, 0, symbols, 0);
+            Arrays.fill(wins, 0, symbols, 0);
+        }
+        winningSymbolCount = 0;
+        bonusSymbolCount = 0;
+
+        int slots = board.getColumns() + 2;
+        if (bitboard) {
+            return;
+        }
+        if (rowSymbols.length < slots) {
+            rowSymbols = new int[slots];
+            previousRowSymbols = new int[slots];
+            verticalRuns = new int[slots];
+            previousVerticalRuns = new int[slots];
+            ltrRuns = new int[slots];
+            previousLtrRuns = new int[slots];
+            rtlRuns = new int[slots];
+            previousRtlRuns = new int[slots];
+        }
+        // No symbol above the first row nor beyond the edges
+        Arrays.fill(previousRowSymbols, 0, slots, NO_SYMBOL);
+        rowSymbols[0] = NO_SYMBOL;
+        rowSymbols[slots - 1] = NO_SYMBOL;
+    }
+
+    void addCell(int symbol) {
+        if (counts[symbol]++ == 0 && board.getDictionary().isBonus(symbol)) {
+            bonusSymbols[bonusSymbolCount++] = symbol;
+        }
+    }
+
+    void addToMask(int symbol, int cell) {
+        masks[symbol] |= 1L << cell;
+    }
+
+    void addWin(int symbol, EnumWinningCombinationType type) {
+        wins[symbol] |= 1 << type.ordinal();
+    }
+
+    /**
+     * @param types a bit set of combination type ordinals
+     */
+    void addWins(int symbol, int types) {
+        wins[symbol] |= types;
+    }
+
+    /**
+     * @param types a bit set of combination type ordinals
+     * @return true if the symbol wins at least one of the types
+     */
+    boolean hasWins(int symbol, int types) {
+        return (wins[symbol] & types) != 0;
+    }
+
+    void clearWins(int symbol) {
+        wins[symbol] = 0;
+    }
+
+    /**
+     * @return reusable evaluations of the bands of a board, one per band
+     */
+    RoundEvaluation[] bands(int count) {
+        if (bands.length != count) {
+            RoundEvaluation[] resized = Arrays.copyOf(bands, count);
+            for (int band = bands.length; band < count; band++) {
+                resized[band] = new RoundEvaluation();
+            }
+            bands = resized;
+        }
+        return bands;
+    }
+
+    /**
+     * Adds the histogram, the bonus symbols and the line wins of the band below the bands merged so far.
+     */
+    void merge(RoundEvaluation band) {
+        for (int i = 0; i < band.bonusSymbolCount; i++) {
+            int symbol = band.bonusSymbols[i];
+            if (counts[symbol] == 0) {
+                bonusSymbols[bonusSymbolCount++] = symbol;
+            }
+        }
+        for (int symbol = 0; symbol < board.getDictionary().size(); symbol++) {
+            counts[symbol] += band.counts[symbol];
+            wins[symbol] |= band.wins[symbol];
+        }
+    }
+
+    void collectWinningSymbols() {
+        for (int symbol = 0; symbol < board.getDictionary().size(); symbol++) {
+            if (wins[symbol] != 0) {
+                winningSymbols[winningSymbolCount++] = symbol;
+            }
+        }
+    }
+
+    long mask(int symbol) {
+        return masks[symbol];
+    }
+
+    /**
+     * @return the single-word bitboards of the symbols, indexed by symbol id
+     */
+    long[] masks() {
+        return masks;
+    }
+
+    /**
+     * Builds the bitboard of every symbol of the board in {@code words} longs per symbol id.
+     *
+     * @return the bitboards, valid until the next call
+     */
+    long[] indexCells(int words) {
+        int size = board.getDictionary().size() * words;
+        if (cellMasks.length < size) {
+            cellMasks = new long[size];
+        } else {
+            Arrays.fill(cellMasks, 0, size, 0);
+        }
+        for (int cell = 0; cell < board.size(); cell++) {
+            cellMasks[board.get(cell) * words + cell / Long.SIZE] |= 1L << cell;
+        }
+        return cellMasks;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getSymbolCount(int symbol) {
+        return counts[symbol];
+    }
+
+    public boolean hasWon(int symbol, EnumWinningCombinationType type) {
+        return (wins[symbol] & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * @return the winning combinations of the symbol as a bitset of {@link EnumWinningCombinationType} ordinals
+     */
+    public int getWins(int symbol) {
+        return wins[symbol];
+    }
+
+    /**
+     * @return the combinations won by any symbol as a bitset of {@link EnumWinningCombinationType} ordinals
+     */
+    public int getCombinations() {
+        int combinations = 0;
+        for (int i = 0; i < winningSymbolCount; i++) {
+            combinations |= wins[winningSymbols[i]];
+        }
+        return combinations;
+    }
+
+    public int getWinningSymbolCount() {
+        return winningSymbolCount;
+    }
+
+    public int getWinningSymbol(int index) {
+        return winningSymbols[index];
+    }
+
+    public int getBonusSymbolCount() {
+        return bonusSymbolCount;
+    }
+
+    /**
+     * @return the distinct bonus symbols on the board, in the order they first appear
+     */
+    public int getBonusSymbol(int index) {
+        return bonusSymbols[index];
+    }
+
+    /**
+     * Renders the winning combinations keyed by symbol name.
+     */
+    public Map<String, List<EnumWinningCombinationType>> toWinCombinations() {
+        SymbolDictionary symbols = board.getDictionary();
+        Map<String, List<EnumWinningCombinationType>> winCombinations = new HashMap<>();
+        for (int i = 0; i < winningSymbolCount; i++) {
+            int symbol = winningSymbols[i];
+            List<EnumWinningCombinationType> types = new ArrayList<>(Integer.bitCount(wins[symbol]));
+            for (int bits = wins[symbol]; bits != 0; bits &= bits - 1) {
+                types.add(COMBINATION_TYPES[Integer.numberOfTrailingZeros(bits)]);
+            }
+            winCombinations.put(symbols.nameOf(symbol), types);
+        }
+        return winCombinations;
+    }
+
+    /**
+     * Renders the distinct bonus symbols in board order.
+     */
+    public List<String> toBonusSymbols() {
+        List<String> names = new ArrayList<>(bonusSymbolCount);
+        for (int i = 0; i < bonusSymbolCount; i++) {
+            names.add(board.getDictionary().nameOf(bonusSymbols[i]));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,318 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates a round in a single pass over the board.
+ * <p>
+ * The pass builds the symbol histogram, the bonus symbols in board order and the line state:
+ * per-symbol bitboards for boards of up to 64 cells, run-length counters per row, column and diagonal
+ * for larger boards, so any rows x columns board is evaluated in time linear in its cells whatever the run length
+ * of every line rule. Every configured winning combination is then derived from that state without reading the
+ * board again; combinations the {@link GameModel} does not define are never evaluated. Line rules with covered
+ * areas are the exception: their {@link Paylines} read the anchor cells of the board and are matched against the
+ * symbol bitboards, built in one more pass on boards of more than 64 cells.
+ * <p>
+ * Boards of at least {@link #PARALLEL_THRESHOLD} cells are split into bands of rows scanned in parallel on the
+ * common fork-join pool when more than one core is available, see {@link #scanBands}.
+ * Evaluators are immutable and can be shared across threads.
+ */
+public final class RoundEvaluator {
+
+    /**
+     * Boards of at least this many cells, 128 x 128, are evaluated in parallel bands. A single-threaded pass over
+     * them takes a few hundred microseconds, well above the cost of waking the workers and merging the bands.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    // Fewest rows of a band, so that the halo of the longest usual runs stays small next to the band
+    private static final int MIN_BAND_ROWS = 16;
+
+    private final int rows;
+    private final int columns;
+    private final boolean bitboard;
+    private final LineEvaluator lineEvaluator;
+    private final WinningRule[] sameSymbolRules;
+    // Line rules scanning the direction of their group, and line rules with paylines
+    private final WinningRule[] lineRules;
+    private final WinningRule[] paylineRules;
+    // Fewest cells of a symbol that can win a rule
+    private final int minimumCount;
+    // Bit of the configured line combination of every WinningGroup ordinal, 0 if the direction is not configured
+    private final int[] lineBits = new int[WinningGroup.values().length];
+    private final int[] runLengths = new int[WinningGroup.values().length];
+    // Pool scanning the bands, null when boards are scanned on the calling thread
+    private final ForkJoinPool pool;
+    private final int bands;
+    // Rows scanned above a band so that runs crossing into the band are found
+    private final int halo;
+
+    /**
+     * Creates an evaluator for the rule plan of a compiled game model.
+     *
+     * @param model the compiled game model
+     */
+    public RoundEvaluator(GameModel model) {
+        this(model, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(), PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param pool              the pool scanning the bands of large boards
+     * @param parallelism       the number of bands to split large boards into at most
+     * @param parallelThreshold the fewest cells of a board scanned in bands
+     */
+    RoundEvaluator(GameModel model, ForkJoinPool pool, int parallelism, int parallelThreshold) {
+        this.rows = model.getRows();
+        this.columns = model.getColumns();
+        this.bitboard = rows * columns <= Long.SIZE;
+        this.sameSymbolRules = model.getSameSymbolRules();
+        this.lineRules = Arrays.stream(model.getLineRules()).filter(rule -> rule.getPaylines() == null)
+                .toArray(WinningRule[]::new);
+        this.paylineRules = Arrays.stream(model.getLineRules()).filter(rule -> rule.getPaylines() != null)
+                .toArray(WinningRule[]::new);
+        this.lineEvaluator = new LineEvaluator(rows, columns, lineRules);
+        this.minimumCount = Math.min(lineEvaluator.getMinimumRunLength(),
+                sameSymbolRules.length > 0 ? sameSymbolRules[0].getCount() : Integer.MAX_VALUE);
+        for (WinningRule rule : lineRules) {
+            lineBits[rule.getGroup().ordinal()] = 1 << rule.getType().ordinal();
+            runLengths[rule.getGroup().ordinal()] = rule.getRunLength();
+        }
+
+        int longestRun = 0;
+        for (WinningRule rule : lineRules) {
+            longestRun = Math.max(longestRun, rule.getRunLength());
+        }
+        this.halo = Math.max(0, longestRun - 1);
+        int bandCount = Math.min(parallelism, rows / MIN_BAND_ROWS);
+        boolean parallel = !bitboard && (long) rows * columns >= parallelThreshold && bandCount > 1;
+        this.pool = parallel ? pool : null;
+        this.bands = parallel ? bandCount : 1;
+    }
+
+    /**
+     * @return the number of bands a board is split into, 1 when boards are scanned on the calling thread
+     */
+    int getBands() {
+        return bands;
+    }
+
+    public RoundEvaluation evaluate(Board board) {
+        RoundEvaluation evaluation = new RoundEvaluation();
+        evaluate(board, evaluation);
+        return evaluation;
+    }
+
+    /**
+     * Evaluates the board into a reusable evaluation.
+     *
+     * @param board      the board of the round, must match the dimensions of this evaluator
+     * @param evaluation the evaluation to overwrite
+     * @throws InvalidArgumentException if the board does not match the dimensions of the game
+     */
+    public void evaluate(Board board, RoundEvaluation evaluation) {
+        if (board.getRows() != rows || board.getColumns() != columns) {
+            throw new InvalidArgumentException("Board of " + board.getRows() + "x" + board.getColumns()
+                    + " does not match the game of " + rows + "x" + columns);
+        }
+        evaluation.reset(board, bitboard);
+        if (bitboard) {
+            scanBitboard(board, evaluation);
+        } else if (pool != null) {
+            scanBands(board, evaluation);
+        } else {
+            scanRuns(board, evaluation, 0, 0, rows);
+        }
+
+        SymbolDictionary symbols = board.getDictionary();
+        for (int symbol = 1; symbol < symbols.size(); symbol++) {
+            int count = evaluation.getSymbolCount(symbol);
+            if (count < minimumCount || !symbols.isStandard(symbol)) {
+                continue;
+            }
+            for (int i = 0; i < sameSymbolRules.length && count >= sameSymbolRules[i].getCount(); i++) {
+                evaluation.addWin(symbol, sameSymbolRules[i].getType());
+            }
+            if (bitboard && count >= lineEvaluator.getMinimumRunLength()) {
+                long mask = evaluation.mask(symbol);
+                for (WinningRule rule : lineRules) {
+                    if (count >= rule.getRunLength() && lineEvaluator.lineStarts(mask, rule.getGroup()) != 0) {
+                        evaluation.addWin(symbol, rule.getType());
+                    }
+                }
+            }
+        }
+        if (paylineRules.length > 0) {
+            evaluatePaylines(board, evaluation);
+        }
+        evaluation.collectWinningSymbols();
+    }
+
+    /**
+     * Matches the paylines against the bitboards of the symbols, read from the scan for boards of up to 64 cells
+     * and built in one more pass over larger boards.
+     */
+    private void evaluatePaylines(Board board, RoundEvaluation evaluation) {
+        long[] masks = bitboard ? evaluation.masks() : evaluation.indexCells(paylineRules[0].getPaylines().getWords());
+        for (WinningRule rule : paylineRules) {
+            rule.getPaylines().evaluate(board, masks, evaluation, 1 << rule.getType().ordinal());
+        }
+    }
+
+    private void scanBitboard(Board board, RoundEvaluation evaluation) {
+        for (int cell = 0; cell < board.size(); cell++) {
+            int symbol = board.get(cell);
+            evaluation.addCell(symbol);
+            evaluation.addToMask(symbol, cell);
+        }
+    }
+
+    /**
+     * Row-major pass keeping the length of the run ending in the current cell for every direction.
+     * A diagonal run continues the run of the previous row one column to the left (left to right)
+     * or one column to the right (right to left).
+     * <p>
+     * Neighbouring symbols of a random board are as likely to differ as not, so the pass does not branch on them:
+     * runs are extended with masks and the won directions are taken from the sign of {@code length - 1 - run}.
+     * Runs of bonus symbols and blank cells are dropped once at the end.
+     *
+     * @param firstRow   the first row scanned
+     * @param countedRow the first row whose cells are counted, rows above it only carry their runs over
+     * @param endRow     the row after the last row scanned
+     */
+    private void scanRuns(Board board, RoundEvaluation evaluation, int firstRow, int countedRow, int endRow) {
+        int[] rowSymbols = evaluation.rowSymbols;
+        int[] previousRowSymbols = evaluation.previousRowSymbols;
+        int[] verticalRuns = evaluation.verticalRuns;
+        int[] previousVerticalRuns = evaluation.previousVerticalRuns;
+        int[] ltrRuns = evaluation.ltrRuns;
+        int[] previousLtrRuns = evaluation.previousLtrRuns;
+        int[] rtlRuns = evaluation.rtlRuns;
+        int[] previousRtlRuns = evaluation.previousRtlRuns;
+        int horizontalBit = lineBits[WinningGroup.horizontally_linear_symbols.ordinal()];
+        int verticalBit = lineBits[WinningGroup.vertically_linear_symbols.ordinal()];
+        int ltrBit = lineBits[WinningGroup.ltr_diagonally_linear_symbols.ordinal()];
+        int rtlBit = lineBits[WinningGroup.rtl_diagonally_linear_symbols.ordinal()];
+        int horizontalLength = runLengths[WinningGroup.horizontally_linear_symbols.ordinal()];
+        int verticalLength = runLengths[WinningGroup.vertically_linear_symbols.ordinal()];
+        int ltrLength = runLengths[WinningGroup.ltr_diagonally_linear_symbols.ordinal()];
+        int rtlLength = runLengths[WinningGroup.rtl_diagonally_linear_symbols.ordinal()];
+
+        for (int row = firstRow; row < endRow; row++) {
+            boolean counted = row >= countedRow;
+            int horizontalRun = 0;
+            int previous = RoundEvaluation.NO_SYMBOL;
+            for (int column = 0, slot = 1; column < columns; column++, slot++) {
+                int symbol = board.get(row * columns + column);
+                if (counted) {
+                    evaluation.addCell(symbol);
+                }
+
+                horizontalRun = extendRun(horizontalRun, symbol, previous);
+                int verticalRun = extendRun(previousVerticalRuns[slot], symbol, previousRowSymbols[slot]);
+                int ltrRun = extendRun(previousLtrRuns[slot - 1], symbol, previousRowSymbols[slot - 1]);
+                int rtlRun = extendRun(previousRtlRuns[slot + 1], symbol, previousRowSymbols[slot + 1]);
+                verticalRuns[slot] = verticalRun;
+                ltrRuns[slot] = ltrRun;
+                rtlRuns[slot] = rtlRun;
+                rowSymbols[slot] = symbol;
+                previous = symbol;
+
+                evaluation.addWins(symbol, (horizontalLength - 1 - horizontalRun >> 31 & horizontalBit)
+                        | (verticalLength - 1 - verticalRun >> 31 & verticalBit)
+                        | (ltrLength - 1 - ltrRun >> 31 & ltrBit)
+                        | (rtlLength - 1 - rtlRun >> 31 & rtlBit));
+            }
+
+            // The current row becomes the previous row of the next one
+            int[] swap = previousRowSymbols;
+            previousRowSymbols = rowSymbols;
+            rowSymbols = swap;
+            swap = previousVerticalRuns;
+            previousVerticalRuns = verticalRuns;
+            verticalRuns = swap;
+            swap = previousLtrRuns;
+            previousLtrRuns = ltrRuns;
+            ltrRuns = swap;
+            swap = previousRtlRuns;
+            previousRtlRuns = rtlRuns;
+            rtlRuns = swap;
+        }
+
+        SymbolDictionary symbols = board.getDictionary();
+        for (int symbol = 0; symbol < symbols.size(); symbol++) {
+            if (!symbols.isStandard(symbol)) {
+                evaluation.clearWins(symbol);
+            }
+        }
+    }
+
+    /**
+     * Scans the bands of the board in parallel, each one into its own evaluation, and merges them in row order.
+     * <p>
+     * A band also scans the {@code halo} rows above it, without counting their cells: every line ending in the band
+     * lies within the band and its halo, so the vertical and diagonal runs crossing from one band into the next
+     * are found whole. A line ending in the halo is a line of the board as well, the wins of the bands are merged
+     * as sets so that finding it twice is harmless.
+     */
+    private void scanBands(Board board, RoundEvaluation evaluation) {
+        RoundEvaluation[] partials = evaluation.bands(bands);
+        pool.invoke(new BandScan(board, partials, 0, bands));
+        for (RoundEvaluation partial : partials) {
+            evaluation.merge(partial);
+        }
+    }
+
+    private void scanBand(Board board, RoundEvaluation partial, int band) {
+        int firstRow = rows * band / bands;
+        int endRow = rows * (band + 1) / bands;
+        partial.reset(board, false);
+        scanRuns(board, partial, Math.max(0, firstRow - halo), firstRow, endRow);
+    }
+
+    /**
+     * Scans a range of bands, splitting it in halves down to single bands.
+     */
+    private final class BandScan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final RoundEvaluation[] partials;
+        private final int fromBand;
+        private final int toBand;
+
+        private BandScan(Board board, RoundEvaluation[] partials, int fromBand, int toBand) {
+            this.board = board;
+            this.partials = partials;
+            this.fromBand = fromBand;
+            this.toBand = toBand;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBand - fromBand == 1) {
+                scanBand(board, partials[fromBand], fromBand);
+                return;
+            }
+            int middle = (fromBand + toBand) >>> 1;
+            invokeAll(new BandScan(board, partials, fromBand, middle), new BandScan(board, partials, middle, toBand));
+        }
+    }
+
+    /**
+     * @return the run ending in a cell of the symbol, given the run ending in the previous cell of the direction
+     */
+    private static int extendRun(int run, int symbol, int previous) {
+        int difference = symbol ^ previous;
+        // All ones when the symbols differ, which starts a new run
+        int differs = (difference | -difference) >> 31;
+        return (run & ~differs) + 1;
+    }
+}
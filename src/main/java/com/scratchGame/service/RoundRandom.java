@@ -0,0 +1,33 @@
+package com.scratchGame.service;
+
+/**
+ * Counter-based source of random bits for rounds.
+ * <p>
+ * Every value is a pure function of the seed of the source, the round index and the index of the draw within
+ * the round, so any round can be regenerated directly without replaying the rounds before it, and parallel
+ * workers draw independent streams without sharing any state. Implementations must be immutable.
+ */
+public interface RoundRandom {
+
+    /**
+     * @return the seed the source was keyed with
+     */
+    long getSeed();
+
+    /**
+     * Derives the key of the stream of a round, computed once per round.
+     *
+     * @param round the round index
+     * @return the key of the round
+     */
+    long roundKey(long round);
+
+    /**
+     * Returns the random bits of a draw of a round.
+     *
+     * @param roundKey the key of the round, see {@link #roundKey(long)}
+     * @param draw     the index of the draw within the round
+     * @return 64 uniformly distributed bits
+     */
+    long bits(long roundKey, int draw);
+}
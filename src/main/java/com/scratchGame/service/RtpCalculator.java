@@ -0,0 +1,340 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.util.*;
+
+/**
+ * Exact expected return of the same symbol combinations of a game, computed from the cell weights of a
+ * {@link GameModel} without playing a round.
+ * <p>
+ * Cells are drawn independently, so the number of cells of a symbol follows a Poisson binomial distribution
+ * that a dynamic program over the cells computes in O(cells^2). Carrying the bonus multipliers of the other
+ * cells through the same program gives the expected multiplied reward. Extra bonuses only pay on winning
+ * boards, which takes the probability that no symbol reaches a count: when every cell that can hold a standard
+ * symbol shares the same weights it is a convolution over the symbols in O(symbols x cells x count), otherwise
+ * a program over the joint counts of every symbol below the count, limited to {@link #MAX_JOINT_STATES}.
+ * <p>
+ * Line combinations are not modelled: for games configuring them the report covers the same symbol rules alone,
+ * {@link BoardEnumerator} covers them on small boards.
+ * Reward multipliers are assumed positive, so a board pays exactly when it wins a same symbol rule.
+ */
+public final class RtpCalculator {
+
+    /**
+     * Joint symbol counts above which the probability that nobody wins a rule is not computed.
+     */
+    static final int MAX_JOINT_STATES = 1 << 20;
+
+    private final GameModel model;
+    private final SymbolDictionary dictionary;
+    private final BonusEngine bonusEngine;
+
+    // Cells drawing from the same weights: the probability of every symbol id and the number of such cells
+    private final List<double[]> classProbabilities = new ArrayList<>();
+    private final List<Integer> classCells = new ArrayList<>();
+
+    /**
+     * @param model the compiled game model
+     * @throws InvalidArgumentException if the model is null
+     */
+    public RtpCalculator(GameModel model) {
+        if (model == null) {
+            throw new InvalidArgumentException("Model cannot be null");
+        }
+        this.model = model;
+        this.dictionary = model.getDictionary();
+        this.bonusEngine = model.getBonusEngine();
+        groupCells();
+    }
+
+    private void groupCells() {
+        Map<int[], Integer> classes = new IdentityHashMap<>();
+        for (int cell = 0; cell < model.getCellCount(); cell++) {
+            int[] weights = model.getCellWeights(cell);
+            Integer index = classes.get(weights);
+            if (index == null) {
+                index = classProbabilities.size();
+                classes.put(weights, index);
+                classProbabilities.add(probabilities(model.getCellSymbols(cell), weights));
+                classCells.add(0);
+            }
+            classCells.set(index, classCells.get(index) + 1);
+        }
+    }
+
+    private double[] probabilities(int[] symbols, int[] weights) {
+        double[] probabilities = new double[dictionary.size()];
+        if (weights == null) {
+            // Cells without weights stay blank
+            probabilities[SymbolDictionary.BLANK] = 1;
+            return probabilities;
+        }
+        long total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        for (int i = 0; i < symbols.length; i++) {
+            probabilities[symbols[i]] += (double) weights[i] / total;
+        }
+        return probabilities;
+    }
+
+    /**
+     * Computes the exact expectations of the game.
+     *
+     * @return the report
+     */
+    public RtpReport calculate() {
+        WinningRule[] rules = model.getSameSymbolRules();
+        int types = EnumWinningCombinationType.values().length;
+        double[] winProbabilities = new double[types];
+        double[] expectedHits = new double[types];
+        double[] expectedPayouts = new double[types];
+
+        // Per symbol: the distribution of its count, and the same weighted by the multipliers of the other cells
+        double baseRtp = 0;
+        double multipliedRtp = 0;
+        for (int symbol = 1; symbol < dictionary.size(); symbol++) {
+            if (!dictionary.isStandard(symbol)) {
+                continue;
+            }
+            double[][] distributions = countDistributions(symbol);
+            double[] counts = distributions[0];
+            double[] multiplied = distributions[1];
+            for (WinningRule rule : rules) {
+                int type = rule.getType().ordinal();
+                for (int count = Math.max(rule.getCount(), 0); count < counts.length; count++) {
+                    double reward = rule.reward(symbol, count);
+                    expectedHits[type] += counts[count];
+                    expectedPayouts[type] += counts[count] * reward;
+                    multipliedRtp += multiplied[count] * reward;
+                }
+            }
+        }
+        for (WinningRule rule : rules) {
+            baseRtp += expectedPayouts[rule.getType().ordinal()];
+        }
+
+        double hitRate = 0;
+        double extraContribution = 0;
+        Map<Integer, double[]> noWins = new HashMap<>();
+        for (WinningRule rule : rules) {
+            double[] noWin = noWins.computeIfAbsent(rule.getCount(), this::noWin);
+            winProbabilities[rule.getType().ordinal()] = 1 - noWin[0];
+        }
+        if (rules.length > 0) {
+            // Rules are sorted by count: a board pays when it wins the first one
+            double[] noWin = noWins.get(rules[0].getCount());
+            hitRate = 1 - noWin[0];
+            extraContribution = expectedExtra() - noWin[1];
+        }
+        return new RtpReport(baseRtp, multipliedRtp, extraContribution, hitRate, model.getLineRules().length == 0,
+                winProbabilities, expectedHits, expectedPayouts);
+    }
+
+    /**
+     * @return the probability of every count of the symbol, and E[M * 1(count)] with M the product of the bonus
+     * multipliers on the board
+     */
+    private double[][] countDistributions(int symbol) {
+        double[] counts = new double[model.getCellCount() + 1];
+        double[] multiplied = new double[model.getCellCount() + 1];
+        counts[0] = 1;
+        multiplied[0] = 1;
+        int cells = 0;
+        for (int i = 0; i < classProbabilities.size(); i++) {
+            double[] probabilities = classProbabilities.get(i);
+            double p = probabilities[symbol];
+            double otherMultiplier = expectedMultiplier(probabilities) - p;
+            for (int n = 0; n < classCells.get(i); n++) {
+                cells++;
+                for (int count = cells; count > 0; count--) {
+                    counts[count] = counts[count] * (1 - p) + counts[count - 1] * p;
+                    multiplied[count] = multiplied[count] * otherMultiplier + multiplied[count - 1] * p;
+                }
+                counts[0] *= 1 - p;
+                multiplied[0] *= otherMultiplier;
+            }
+        }
+        return new double[][]{counts, multiplied};
+    }
+
+    private double expectedMultiplier(double[] probabilities) {
+        double multiplier = 0;
+        for (int symbol = 0; symbol < probabilities.length; symbol++) {
+            multiplier += probabilities[symbol] * bonusEngine.getMultiplier(symbol);
+        }
+        return multiplier;
+    }
+
+    private double expectedExtra(double[] probabilities) {
+        double extra = 0;
+        for (int symbol = 0; symbol < probabilities.length; symbol++) {
+            extra += probabilities[symbol] * bonusEngine.getExtra(symbol);
+        }
+        return extra;
+    }
+
+    private double expectedExtra() {
+        double extra = 0;
+        for (int i = 0; i < classProbabilities.size(); i++) {
+            extra += classCells.get(i) * expectedExtra(classProbabilities.get(i));
+        }
+        return extra;
+    }
+
+    private double standardProbability(double[] probabilities) {
+        double standard = 0;
+        for (int symbol = 1; symbol < probabilities.length; symbol++) {
+            if (dictionary.isStandard(symbol)) {
+                standard += probabilities[symbol];
+            }
+        }
+        return standard;
+    }
+
+    /**
+     * @param count the count of a rule
+     * @return the probability that no symbol reaches the count, and the expected extra bonus of those boards,
+     * both NaN if the joint counts exceed {@link #MAX_JOINT_STATES}
+     */
+    private double[] noWin(int count) {
+        if (count <= 0) {
+            return new double[]{0, 0};
+        }
+        // Cells that cannot hold a standard symbol never change the counts
+        double freeExtra = 0;
+        List<Integer> constrained = new ArrayList<>();
+        for (int i = 0; i < classProbabilities.size(); i++) {
+            if (standardProbability(classProbabilities.get(i)) > 0) {
+                constrained.add(i);
+            } else {
+                freeExtra += classCells.get(i) * expectedExtra(classProbabilities.get(i));
+            }
+        }
+
+        double[] noWin;
+        if (constrained.isEmpty()) {
+            noWin = new double[]{1, 0};
+        } else if (constrained.size() == 1) {
+            int index = constrained.get(0);
+            double[] probabilities = classProbabilities.get(index);
+            int cells = classCells.get(index);
+            // The extra of a bonus cell pays when the other cells do not win
+            noWin = new double[]{identicalNoWin(probabilities, cells, count),
+                    cells * expectedExtra(probabilities) * identicalNoWin(probabilities, cells - 1, count)};
+        } else {
+            noWin = jointNoWin(constrained, count);
+        }
+        return new double[]{noWin[0], noWin[1] + freeExtra * noWin[0]};
+    }
+
+    /**
+     * Probability that no standard symbol reaches the count on cells sharing the same weights: the ways to place
+     * fewer than {@code count} cells of every symbol, convolved symbol by symbol over the number of cells used.
+     */
+    private double identicalNoWin(double[] probabilities, int cells, int count) {
+        double[] used = new double[cells + 1];
+        used[0] = 1;
+        for (int symbol = 1; symbol < probabilities.length; symbol++) {
+            double p = probabilities[symbol];
+            if (!dictionary.isStandard(symbol) || p == 0) {
+                continue;
+            }
+            double[] next = new double[cells + 1];
+            for (int j = 0; j <= cells; j++) {
+                // used[j] * C(cells - j, c) * p^c for every count c of the symbol in the free cells
+                double term = used[j];
+                for (int c = 0; c < count && j + c <= cells && term != 0; c++) {
+                    next[j + c] += term;
+                    term *= p * (cells - j - c) / (c + 1);
+                }
+            }
+            used = next;
+        }
+        double other = 1 - standardProbability(probabilities);
+        double noWin = 0;
+        for (int j = 0; j <= cells; j++) {
+            noWin += used[j] * Math.pow(other, cells - j);
+        }
+        return noWin;
+    }
+
+    /**
+     * Probability that no standard symbol reaches the count, and the expected extra bonus of those boards, over
+     * the joint counts of every symbol. A state holds the count of every symbol in a mixed radix number.
+     */
+    private double[] jointNoWin(List<Integer> constrained, int count) {
+        int constrainedCells = 0;
+        boolean[] drawn = new boolean[dictionary.size()];
+        for (int index : constrained) {
+            constrainedCells += classCells.get(index);
+            double[] probabilities = classProbabilities.get(index);
+            for (int symbol = 1; symbol < probabilities.length; symbol++) {
+                drawn[symbol] |= dictionary.isStandard(symbol) && probabilities[symbol] > 0;
+            }
+        }
+        int[] symbols = new int[dictionary.size()];
+        int symbolCount = 0;
+        for (int symbol = 1; symbol < drawn.length; symbol++) {
+            if (drawn[symbol]) {
+                symbols[symbolCount++] = symbol;
+            }
+        }
+        // No symbol holds more cells than the board
+        int radix = Math.min(count, constrainedCells + 1);
+        long states = 1;
+        int[] strides = new int[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            strides[i] = (int) states;
+            states *= radix;
+            if (states > MAX_JOINT_STATES) {
+                return new double[]{Double.NaN, Double.NaN};
+            }
+        }
+
+        double[] noWin = new double[(int) states];
+        double[] extra = new double[(int) states];
+        noWin[0] = 1;
+        int[] digits = new int[symbolCount];
+        double[] p = new double[symbolCount];
+        for (int index : constrained) {
+            double[] probabilities = classProbabilities.get(index);
+            double other = 1 - standardProbability(probabilities);
+            double cellExtra = expectedExtra(probabilities);
+            for (int i = 0; i < symbolCount; i++) {
+                p[i] = probabilities[symbols[i]];
+            }
+            for (int n = 0; n < classCells.get(index); n++) {
+                // Descending, so the states a state is reached from still hold the previous cell
+                Arrays.fill(digits, radix - 1);
+                for (int state = (int) states - 1; state >= 0; state--) {
+                    double probability = noWin[state] * other;
+                    double stateExtra = extra[state] * other + noWin[state] * cellExtra;
+                    for (int i = 0; i < symbolCount; i++) {
+                        if (digits[i] > 0) {
+                            probability += noWin[state - strides[i]] * p[i];
+                            stateExtra += extra[state - strides[i]] * p[i];
+                        }
+                    }
+                    noWin[state] = probability;
+                    extra[state] = stateExtra;
+                    for (int i = 0; i < symbolCount && --digits[i] < 0; i++) {
+                        digits[i] = radix - 1;
+                    }
+                }
+            }
+        }
+
+        double probability = 0;
+        double expectedExtra = 0;
+        for (int state = 0; state < noWin.length; state++) {
+            probability += noWin[state];
+            expectedExtra += extra[state];
+        }
+        return new double[]{probability, expectedExtra};
+    }
+}
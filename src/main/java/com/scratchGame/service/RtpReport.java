@@ -0,0 +1,113 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+
+import java.util.*;
+
+/**
+ * Exact expectations of a game computed by {@link RtpCalculator} or {@link BoardEnumerator}, with every reward
+ * expressed in multiples of the bet. Instances are immutable.
+ */
+public final class RtpReport {
+
+    private final double rtp;
+    private final double baseRtp;
+    private final double multiplierContribution;
+    private final double extraContribution;
+    private final double hitRate;
+    private final boolean complete;
+    private final double[] winProbabilities;
+    private final double[] expectedHits;
+    private final double[] expectedPayouts;
+
+    RtpReport(double baseRtp, double multipliedRtp, double extraContribution, double hitRate, boolean complete,
+              double[] winProbabilities, double[] expectedHits, double[] expectedPayouts) {
+        this.rtp = multipliedRtp + extraContribution;
+        this.baseRtp = baseRtp;
+        this.multiplierContribution = multipliedRtp - baseRtp;
+        this.extraContribution = extraContribution;
+        this.hitRate = hitRate;
+        this.complete = complete;
+        this.winProbabilities = winProbabilities;
+        this.expectedHits = expectedHits;
+        this.expectedPayouts = expectedPayouts;
+    }
+
+    /**
+     * @return the return to player, the expected final reward per unit bet
+     */
+    public double getRtp() {
+        return rtp;
+    }
+
+    /**
+     * @return the expected reward of the winning combinations, before bonuses
+     */
+    public double getBaseRtp() {
+        return baseRtp;
+    }
+
+    /**
+     * @return the part of the RTP added by the multiplying bonus symbols
+     */
+    public double getMultiplierContribution() {
+        return multiplierContribution;
+    }
+
+    /**
+     * @return the part of the RTP added by the extra bonus symbols, which only pay on winning boards
+     */
+    public double getExtraContribution() {
+        return extraContribution;
+    }
+
+    /**
+     * @return the probability that a round pays
+     */
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    /**
+     * @return true when the report covers every configured combination, false when line combinations were left out
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the probability that at least one symbol wins the combination, 0 if it is not configured, or NaN if
+     * the board has too many cells and symbols for the exact joint probability
+     */
+    public double getWinProbability(EnumWinningCombinationType type) {
+        return winProbabilities[type.ordinal()];
+    }
+
+    /**
+     * @return the expected number of symbols winning the combination per round, the long run rate of
+     * {@link SimulationStatistics#getCombinationHits(EnumWinningCombinationType)}
+     */
+    public double getExpectedHits(EnumWinningCombinationType type) {
+        return expectedHits[type.ordinal()];
+    }
+
+    /**
+     * @return the expected reward of the combination per unit bet, before bonuses
+     */
+    public double getExpectedPayout(EnumWinningCombinationType type) {
+        return expectedPayouts[type.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return "RtpReport{" +
+                "rtp=" + rtp +
+                ", baseRtp=" + baseRtp +
+                ", multiplierContribution=" + multiplierContribution +
+                ", extraContribution=" + extraContribution +
+                ", hitRate=" + hitRate +
+                ", complete=" + complete +
+                ", expectedPayouts=" + Arrays.toString(expectedPayouts) +
+                '}';
+    }
+}
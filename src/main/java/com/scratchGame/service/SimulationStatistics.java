@@ -0,0 +1,150 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+
+import java.util.*;
+
+/**
+ * Mergeable statistics of simulated rounds, with every reward expressed in multiples of the bet.
+ * <p>
+ * The mean and variance are kept with Welford's update and merged with Chan's parallel formula, so partial
+ * statistics of independent workers can be combined in any order without losing precision over billions of rounds.
+ * Instances are not thread-safe: every worker keeps its own and merges it into a shared total.
+ */
+public final class SimulationStatistics {
+
+    private static final EnumWinningCombinationType[] COMBINATION_TYPES = EnumWinningCombinationType.values();
+
+    private long rounds;
+    private long hits;
+    private double mean;
+    private double m2;
+    private double maxWin;
+    private final long[] combinationHits = new long[COMBINATION_TYPES.length];
+
+    /**
+     * Records a round.
+     *
+     * @param reward     the reward of the round for a bet of 1
+     * @param evaluation the evaluation of the round
+     */
+    public void add(double reward, RoundEvaluation evaluation) {
+        rounds++;
+        double delta = reward - mean;
+        mean += delta / rounds;
+        m2 += delta * (reward - mean);
+        if (reward > 0) {
+            hits++;
+            maxWin = Math.max(maxWin, reward);
+        }
+        for (int i = 0; i < evaluation.getWinningSymbolCount(); i++) {
+            for (int wins = evaluation.getWins(evaluation.getWinningSymbol(i)); wins != 0; wins &= wins - 1) {
+                combinationHits[Integer.numberOfTrailingZeros(wins)]++;
+            }
+        }
+    }
+
+    /**
+     * Adds the rounds of another statistics to this one.
+     *
+     * @param other the statistics to merge, left unchanged
+     */
+    public void merge(SimulationStatistics other) {
+        if (other.rounds == 0) {
+            return;
+        }
+        long total = rounds + other.rounds;
+        double delta = other.mean - mean;
+        mean += delta * other.rounds / total;
+        m2 += other.m2 + delta * delta * ((double) rounds * other.rounds / total);
+        rounds = total;
+        hits += other.hits;
+        maxWin = Math.max(maxWin, other.maxWin);
+        for (int i = 0; i < combinationHits.length; i++) {
+            combinationHits[i] += other.combinationHits[i];
+        }
+    }
+
+    public SimulationStatistics copy() {
+        SimulationStatistics copy = new SimulationStatistics();
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getRounds() {
+        return rounds;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the return to player, the mean reward per unit bet
+     */
+    public double getRtp() {
+        return mean;
+    }
+
+    public double getHitRate() {
+        return rounds == 0 ? 0 : (double) hits / rounds;
+    }
+
+    /**
+     * @return the sample variance of the reward per unit bet
+     */
+    public double getVariance() {
+        return rounds < 2 ? 0 : m2 / (rounds - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMaxWin() {
+        return maxWin;
+    }
+
+    /**
+     * @return the number of times the combination was won, counting every winning symbol
+     */
+    public long getCombinationHits(EnumWinningCombinationType type) {
+        return combinationHits[type.ordinal()];
+    }
+
+    /**
+     * Half width of the normal confidence interval of the RTP.
+     *
+     * @param z the quantile of the confidence level, 1.96 for 95%
+     * @return the half width, or infinity before two rounds were recorded
+     */
+    public double getRtpHalfWidth(double z) {
+        return rounds < 2 ? Double.POSITIVE_INFINITY : z * Math.sqrt(getVariance() / rounds);
+    }
+
+    /**
+     * Half width of the normal confidence interval of the hit rate.
+     *
+     * @param z the quantile of the confidence level, 1.96 for 95%
+     * @return the half width, or infinity before any round was recorded
+     */
+    public double getHitRateHalfWidth(double z) {
+        if (rounds == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double hitRate = getHitRate();
+        return z * Math.sqrt(hitRate * (1 - hitRate) / rounds);
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationStatistics{" +
+                "rounds=" + rounds +
+                ", hits=" + hits +
+                ", rtp=" + mean +
+                ", variance=" + getVariance() +
+                ", maxWin=" + maxWin +
+                ", combinationHits=" + Arrays.toString(combinationHits) +
+                '}';
+    }
+}
@@ -0,0 +1,125 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Board;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Monte Carlo simulation of a game on every core.
+ * <p>
+ * One worker per thread claims batches of rounds from a shared counter and plays them through
+ * {@link GameService#playRound(Board, RoundEvaluation, long)} with its own board and evaluation, so the hot loop
+ * allocates nothing. After every batch the worker merges its {@link SimulationStatistics} into the running total,
+ * reports progress and stops all workers once the confidence interval of the RTP is narrow enough.
+ * Round i of a run is always round i of the generator, so the rounds played only depend on its seed,
+ * not on the number of workers or their scheduling.
+ */
+public class Simulator {
+
+    /**
+     * Quantile of the 95% confidence level used for the target precision.
+     */
+    public static final double Z_95 = 1.959963984540054;
+
+    static final int DEFAULT_BATCH_ROUNDS = 1 << 16;
+
+    private final GameService gameService;
+    private final int workers;
+    private final int batchRounds;
+
+    public Simulator(GameService gameService) {
+        this(gameService, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_ROUNDS);
+    }
+
+    /**
+     * @param gameService the game to simulate, shared by all workers
+     * @param workers     the number of worker threads
+     * @param batchRounds the number of rounds a worker plays between two merges
+     */
+    public Simulator(GameService gameService, int workers, int batchRounds) {
+        if (gameService == null) {
+            throw new InvalidArgumentException("Game service cannot be null");
+        }
+        if (workers < 1 || batchRounds < 1) {
+            throw new InvalidArgumentException("Workers and batch rounds must be positive");
+        }
+        this.gameService = gameService;
+        this.workers = workers;
+        this.batchRounds = batchRounds;
+    }
+
+    /**
+     * Simulates rounds for a bet of 1.
+     *
+     * @param rounds          the maximum number of rounds
+     * @param targetPrecision the half width of the 95% confidence interval of the RTP at which the simulation
+     *                        stops early, or 0 to always play every round
+     * @param progress        receives a snapshot of the total after every batch, may be null
+     * @return the statistics of every played round
+     * @throws GameException if a round fails
+     */
+    public SimulationStatistics run(long rounds, double targetPrecision, Consumer<SimulationStatistics> progress) {
+        if (rounds < 0 || targetPrecision < 0) {
+            throw new InvalidArgumentException("Rounds and target precision cannot be negative");
+        }
+        SimulationStatistics total = new SimulationStatistics();
+        AtomicLong claimed = new AtomicLong();
+        AtomicBoolean stopped = new AtomicBoolean();
+        // Early stops are only trusted once every worker contributed a batch
+        long minimumRounds = (long) workers * batchRounds;
+
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(() -> {
+                Board board = gameService.newBoard();
+                RoundEvaluation evaluation = new RoundEvaluation();
+                SimulationStatistics batch = new SimulationStatistics();
+                while (!stopped.get()) {
+                    long start = claimed.getAndAdd(batchRounds);
+                    if (start >= rounds) {
+                        break;
+                    }
+                    long end = Math.min(rounds, start + batchRounds);
+                    for (long round = start; round < end; round++) {
+                        batch.add(gameService.playRound(board, evaluation, round), evaluation);
+                    }
+
+                    synchronized (total) {
+                        total.merge(batch);
+                        if (targetPrecision > 0 && total.getRounds() >= minimumRounds
+                                && total.getRtpHalfWidth(Z_95) <= targetPrecision) {
+                            stopped.set(true);
+                        }
+                        if (progress != null) {
+                            progress.accept(total.copy());
+                        }
+                    }
+                    batch = new SimulationStatistics();
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Simulation was interrupted");
+        } catch (ExecutionException e) {
+            throw new GameException("Simulation failed: " + e.getCause().getMessage());
+        } finally {
+            stopped.set(true);
+            executor.shutdownNow();
+        }
+        return total;
+    }
+}
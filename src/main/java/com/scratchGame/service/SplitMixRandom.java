@@ -0,0 +1,57 @@
+package com.scratchGame.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link RoundRandom} built on the SplitMix64 finalizer.
+ * <p>
+ * The key of a round is the mix of the seed plus the round index times the golden gamma; the draws of the round
+ * are the SplitMix64 stream starting at that key. The mix is a bijection, so distinct rounds of one seed
+ * always get distinct keys.
+ */
+public final class SplitMixRandom implements RoundRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+
+    public SplitMixRandom(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return a source keyed with a random seed, for rounds that do not need to be reproduced
+     */
+    public static SplitMixRandom withRandomSeed() {
+        return new SplitMixRandom(ThreadLocalRandom.current().nextLong());
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public long roundKey(long round) {
+        return mix64(seed + round * GOLDEN_GAMMA);
+    }
+
+    @Override
+    public long bits(long roundKey, int draw) {
+        return mix64(roundKey + (draw + 1L) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Stafford's variant 13 of the MurmurHash3 finalizer, as used by {@link java.util.SplittableRandom}.
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return "SplitMixRandom{seed=" + seed + '}';
+    }
+}
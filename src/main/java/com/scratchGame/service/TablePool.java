@@ -0,0 +1,124 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.models.Symbol;
+import com.scratchGame.models.SymbolDictionary;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Shares equal tables between compiled models.
+ * <p>
+ * Variants of a game usually differ in a few rewards only, their dictionaries, cell weights and alias tables are
+ * the same. {@link #intern(GameModel)} rebuilds a model on the tables already held by other models of the pool.
+ * The pool only references tables weakly, so tables of models that are no longer used are collected.
+ * Not thread-safe, callers synchronize.
+ */
+final class TablePool {
+
+    private final Map<String, WeakReference<SymbolDictionary>> dictionaries = new HashMap<>();
+    private final Map<Integer, List<PooledArray>> arrays = new HashMap<>();
+    private final ReferenceQueue<int[]> collectedArrays = new ReferenceQueue<>();
+    // Keyed by the interned weights, compared by identity
+    private final Map<int[], AliasTable> tables = new WeakHashMap<>();
+    private int sharedTables;
+
+    /**
+     * @return a model equal to the given one, built on the tables of the pool where they match
+     */
+    GameModel intern(GameModel model) {
+        purge();
+        SymbolDictionary dictionary = dictionary(model.getDictionary());
+        int cells = model.getCellCount();
+        AliasTable[] cellTables = new AliasTable[cells];
+        int[][] cellSymbols = new int[cells][];
+        int[][] cellWeights = new int[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            if (model.getCellTable(cell) == null) {
+                continue;
+            }
+            cellSymbols[cell] = array(model.getCellSymbols(cell));
+            cellWeights[cell] = array(model.getCellWeights(cell));
+            AliasTable table = model.getCellTable(cell);
+            AliasTable shared = tables.putIfAbsent(cellWeights[cell], table);
+            if (shared != null && shared != table) {
+                sharedTables++;
+            }
+            cellTables[cell] = shared != null ? shared : table;
+        }
+
+        List<WinningRule> rules = new ArrayList<>();
+        for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
+            Optional.ofNullable(model.getRule(type)).ifPresent(rules::add);
+        }
+        return new GameModel(model.getRows(), model.getColumns(), dictionary, cellTables, cellSymbols, cellWeights,
+                rules);
+    }
+
+    /**
+     * @return the number of cells whose alias table was replaced by the table of another model
+     */
+    int getSharedTables() {
+        return sharedTables;
+    }
+
+    private SymbolDictionary dictionary(SymbolDictionary dictionary) {
+        StringBuilder key = new StringBuilder();
+        for (int id = 0; id < dictionary.size(); id++) {
+            key.append(dictionary.nameOf(id)).append('\u0000');
+            Symbol symbol = dictionary.symbolOf(id);
+            if (symbol != null) {
+                key.append(symbol.getType()).append('\u0000').append(symbol.getImpact()).append('\u0000')
+                        .append(symbol.getRewardMultiplier()).append('\u0000').append(symbol.getExtra());
+            }
+            key.append('\u0001');
+        }
+        SymbolDictionary shared = Optional.ofNullable(dictionaries.get(key.toString()))
+                .map(WeakReference::get)
+                .orElse(null);
+        if (shared != null) {
+            return shared;
+        }
+        dictionaries.put(key.toString(), new WeakReference<>(dictionary));
+        return dictionary;
+    }
+
+    private int[] array(int[] array) {
+        int hash = Arrays.hashCode(array);
+        List<PooledArray> bucket = arrays.computeIfAbsent(hash, key -> new ArrayList<>(1));
+        for (PooledArray pooled : bucket) {
+            int[] shared = pooled.get();
+            if (shared != null && Arrays.equals(shared, array)) {
+                return shared;
+            }
+        }
+        bucket.add(new PooledArray(array, hash, collectedArrays));
+        return array;
+    }
+
+    /**
+     * Drops the references to the arrays that were collected since the last call.
+     */
+    private void purge() {
+        dictionaries.values().removeIf(reference -> reference.get() == null);
+        for (Reference<? extends int[]> collected; (collected = collectedArrays.poll()) != null; ) {
+            PooledArray pooled = (PooledArray) collected;
+            List<PooledArray> bucket = arrays.get(pooled.hash);
+            if (bucket != null && bucket.remove(pooled) && bucket.isEmpty()) {
+                arrays.remove(pooled.hash);
+            }
+        }
+    }
+
+    private static final class PooledArray extends WeakReference<int[]> {
+        private final int hash;
+
+        private PooledArray(int[] array, int hash, ReferenceQueue<int[]> queue) {
+            super(array, queue);
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+
+/**
+ * A configured winning combination compiled against a {@link com.scratchGame.models.SymbolDictionary}.
+ * Holds the reward of every symbol for this rule, indexed by symbol id. Instances are immutable.
+ */
+public final class WinningRule {
+
+    private final EnumWinningCombinationType type;
+    private final WinningCondition when;
+    private final WinningGroup group;
+    private final int count;
+    private final double rewardMultiplier;
+    private final double[] symbolRewards;
+    private final Paylines paylines;
+
+    WinningRule(EnumWinningCombinationType type, WinningCondition when, WinningGroup group, int count,
+                double rewardMultiplier, double[] symbolMultipliers) {
+        this(type, when, group, count, rewardMultiplier, symbolMultipliers, null);
+    }
+
+    /**
+     * @param paylines the compiled covered areas of a line rule, null to scan the direction of its group
+     */
+    WinningRule(EnumWinningCombinationType type, WinningCondition when, WinningGroup group, int count,
+                double rewardMultiplier, double[] symbolMultipliers, Paylines paylines) {
+        this.type = type;
+        this.when = when;
+        this.group = group;
+        this.count = count;
+        this.rewardMultiplier = rewardMultiplier;
+        this.symbolRewards = new double[symbolMultipliers.length];
+        for (int symbol = 0; symbol < symbolMultipliers.length; symbol++) {
+            symbolRewards[symbol] = rewardMultiplier * symbolMultipliers[symbol];
+        }
+        this.paylines = paylines;
+    }
+
+    /**
+     * Returns the reward of a symbol winning this rule: the rule multiplier times the symbol multiplier,
+     * times the number of occurrences of the symbol for same symbol rules.
+     *
+     * @param symbol      the symbol id
+     * @param symbolCount the number of occurrences of the symbol on the board
+     * @return the reward of the symbol for this rule
+     */
+    public double reward(int symbol, int symbolCount) {
+        // Ids outside the table belong to symbols without a definition, which pay with a multiplier of 1
+        double reward = symbol < symbolRewards.length ? symbolRewards[symbol] : rewardMultiplier;
+        return when == WinningCondition.same_symbols ? reward * symbolCount : reward;
+    }
+
+    public EnumWinningCombinationType getType() {
+        return type;
+    }
+
+    public WinningCondition getWhen() {
+        return when;
+    }
+
+    public WinningGroup getGroup() {
+        return group;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of consecutive cells a line rule needs: its count, {@link LineEvaluator#RUN_LENGTH} when
+     * no count is configured
+     */
+    public int getRunLength() {
+        return count > 0 ? count : LineEvaluator.RUN_LENGTH;
+    }
+
+    /**
+     * @return the fewest cells of a symbol that can win this line rule: the cells of its shortest payline, its run
+     * length when it has no paylines
+     */
+    public int getLineLength() {
+        return paylines != null ? paylines.getMinimumLength() : getRunLength();
+    }
+
+    /**
+     * @return the paylines of a line rule configured with covered areas, null if the rule scans the direction of
+     * its group instead
+     */
+    Paylines getPaylines() {
+        return paylines;
+    }
+
+    public double getRewardMultiplier() {
+        return rewardMultiplier;
+    }
+
+    @Override
+    public String toString() {
+        return "WinningRule{" +
+                "type=" + type +
+                ", when=" + when +
+                ", group=" + group +
+                ", count=" + count +
+                ", rewardMultiplier=" + rewardMultiplier +
+                ", paylines=" + (paylines == null ? 0 : paylines.size()) +
+                '}';
+    }
+}
@@ -1,185 +1,378 @@
 package com.scratchGame.utils;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.scratchGame.enums.EnumBonusImpact;
 import com.scratchGame.enums.EnumWinningCombinationType;
 import com.scratchGame.enums.WinningCondition;
 import com.scratchGame.enums.WinningGroup;
 import com.scratchGame.exceptions.ConfigurationException;
-import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.CellProbability;
 import com.scratchGame.models.Game;
 import com.scratchGame.models.Probability;
 import com.scratchGame.models.Symbol;
 import com.scratchGame.models.WinningCombination;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
+/**
+ * Loads game configurations with the Jackson streaming parser.
+ * <p>
+ * The document is read once, token by token, straight into the model classes: no tree and no string of the whole
+ * file is built. Malformed values are reported with their line and column as they are read. References between
+ * the sections, from probabilities to symbols and from covered areas to cells, are checked on the parsed model
+ * once the document ends, since the sections of a JSON object may come in any order.
+ */
 public class JsonUtils {
 
-    public static Game readGameConfig(String filePath) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            StringBuilder jsonStringBuilder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonStringBuilder.append(line);
-            }
-
-            JSONObject jsonObject = new JSONObject(jsonStringBuilder.toString());
-
-            int columns = jsonObject.getInt("columns");
-            int rows = jsonObject.getInt("rows");
-
-            // Parse symbols
-            Map<String, Symbol> symbols = parseSymbols(jsonObject.getJSONObject("symbols"));
-
-            // Parse probabilities
-            Probability probabilities = parseProbabilities(jsonObject.getJSONObject("probabilities"));
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+            .build();
 
-            // Parse win combinations
-            Map<String, WinningCombination> winCombinations = parseWinningCombinations(jsonObject.getJSONObject("win_combinations"));
+    private static final String STANDARD = "standard";
+    private static final String BONUS = "bonus";
 
-            return new Game(columns, rows, symbols, probabilities, winCombinations);
+    /**
+     * @param filePath the path of the configuration file
+     * @return the configuration
+     * @throws ConfigurationException if the file cannot be read or is not a valid configuration
+     */
+    public static Game readGameConfig(String filePath) {
+        try (JsonParser parser = JSON_FACTORY.createParser(new File(filePath))) {
+            return readGameConfig(parser);
+        } catch (JsonProcessingException e) {
+            throw new ConfigurationException("Failed to parse config file: " + e.getOriginalMessage()
+                    + at(e.getLocation()), e);
         } catch (IOException e) {
             throw new ConfigurationException("Failed to read config file", e);
-        } catch (JSONException e) {
-            throw new ConfigurationException("Failed to parse config file", e);
         }
     }
 
-    private static Map<String, Symbol> parseSymbols(JSONObject symbolsJson) throws JSONException {
-        Map<String, Symbol> symbols = new HashMap<>();
-        Iterator<String> keys = symbolsJson.keys();
+    /**
+     * Reads a configuration from a stream, which is left open.
+     *
+     * @throws ConfigurationException if the stream cannot be read or is not a valid configuration
+     */
+    public static Game readGameConfig(InputStream input) {
+        try (JsonParser parser = JSON_FACTORY.createParser(input)) {
+            return readGameConfig(parser);
+        } catch (JsonProcessingException e) {
+            throw new ConfigurationException("Failed to parse config: " + e.getOriginalMessage()
+                    + at(e.getLocation()), e);
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to read config", e);
+        }
+    }
 
-        while (keys.hasNext()) {
-            String key = keys.next();
-            JSONObject symbolJson = symbolsJson.getJSONObject(key);
-            double rewardMultiplier = symbolJson.optDouble("reward_multiplier", 0.0);
-            int extra = symbolJson.optInt("extra", 0);
-            String type = symbolJson.optString("type", "standard");
-            String impact = symbolJson.optString("impact", "");
+    private static Game readGameConfig(JsonParser parser) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT, "configuration");
+        Integer columns = null;
+        Integer rows = null;
+        Map<String, Symbol> symbols = null;
+        Probability probabilities = null;
+        Map<String, WinningCombination> winCombinations = null;
+        while (nextField(parser)) {
+            switch (parser.currentName()) {
+                case "columns" -> columns = readInt(parser);
+                case "rows" -> rows = readInt(parser);
+                case "symbols" -> symbols = readSymbols(parser);
+                case "probabilities" -> probabilities = readProbabilities(parser);
+                case "win_combinations" -> winCombinations = readWinCombinations(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        if (columns == null || rows == null || symbols == null || probabilities == null || winCombinations == null) {
+            throw new ConfigurationException("Config must define columns, rows, symbols, probabilities and "
+                    + "win_combinations");
+        }
 
-            Symbol symbolConfig = new Symbol(key, rewardMultiplier, extra, type, impact);
-            symbols.put(key, symbolConfig);
+        Game game = new Game(columns, rows, symbols, probabilities, winCombinations);
+        validate(game);
+        return game;
+    }
 
-            System.out.println("Symbol Added to Map: " + symbols.get(key));
+    private static Map<String, Symbol> readSymbols(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "symbols");
+        Map<String, Symbol> symbols = new HashMap<>();
+        while (nextField(parser)) {
+            String name = parser.currentName();
+            expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "symbol " + name);
+            double rewardMultiplier = 0.0;
+            int extra = 0;
+            String type = STANDARD;
+            String impact = "";
+            while (nextField(parser)) {
+                switch (parser.currentName()) {
+                    case "reward_multiplier" -> rewardMultiplier = readDouble(parser);
+                    case "extra" -> extra = readInt(parser);
+                    case "type" -> type = readString(parser);
+                    case "impact" -> impact = readString(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (!STANDARD.equals(type) && !BONUS.equals(type)) {
+                throw error(parser, "Symbol " + name + " has unknown type '" + type + "'");
+            }
+            if (BONUS.equals(type) && EnumBonusImpact.fromImpact(impact) == null) {
+                throw error(parser, "Bonus symbol " + name + " has unknown impact '" + impact + "'");
+            }
+            if (symbols.put(name, new Symbol(name, rewardMultiplier, extra, type, impact)) != null) {
+                throw error(parser, "Symbol " + name + " is defined twice");
+            }
         }
-
         return symbols;
     }
 
-    private static Probability parseProbabilities(JSONObject probabilitiesJson) throws JSONException {
-        JSONArray standardSymbolsArray = probabilitiesJson.getJSONArray("standard_symbols");
-        List<Map<String, Integer>> standardSymbols = parseStandardSymbols(standardSymbolsArray);
-
-        JSONObject bonusSymbolsJson = probabilitiesJson.getJSONObject("bonus_symbols");
-        Map<String, Integer> bonusSymbols = parseBonusSymbols(bonusSymbolsJson);
+    private static Probability readProbabilities(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "probabilities");
+        List<CellProbability> cellProbabilities = new ArrayList<>();
+        Map<String, Integer> bonusSymbols = new HashMap<>();
+        while (nextField(parser)) {
+            switch (parser.currentName()) {
+                case "standard_symbols" -> {
+                    expect(parser, parser.currentToken(), JsonToken.START_ARRAY, "standard_symbols");
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        cellProbabilities.add(readCellProbability(parser));
+                    }
+                }
+                case "bonus_symbols" -> {
+                    expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "bonus_symbols");
+                    while (nextField(parser)) {
+                        if ("symbols".equals(parser.currentName())) {
+                            bonusSymbols = readWeights(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
 
-        return new Probability(standardSymbols, bonusSymbols);
+        List<Map<String, Integer>> standardSymbols = new ArrayList<>(cellProbabilities.size());
+        for (CellProbability cellProbability : cellProbabilities) {
+            standardSymbols.add(cellProbability.getSymbols());
+        }
+        Probability probability = new Probability(standardSymbols, bonusSymbols);
+        probability.setCellProbabilities(cellProbabilities);
+        return probability;
     }
 
-    private static List<Map<String, Integer>> parseStandardSymbols(JSONArray standardSymbolsArray) throws JSONException {
-        List<Map<String, Integer>> standardSymbolsList = new ArrayList<>();
-
-        for (int i = 0; i < standardSymbolsArray.length(); i++) {
-            JSONObject item = standardSymbolsArray.getJSONObject(i);
-            Map<String, Integer> symbolMap = new HashMap<>();
-
-            JSONObject symbolsObject = item.getJSONObject("symbols");
-            Iterator<String> keys = symbolsObject.keys();
-            while (keys.hasNext()) {
-                String key = keys.next();
-                symbolMap.put(key, symbolsObject.getInt(key));
+    private static CellProbability readCellProbability(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "standard symbol probability");
+        Integer column = null;
+        Integer row = null;
+        Map<String, Integer> symbols = null;
+        while (nextField(parser)) {
+            switch (parser.currentName()) {
+                case "column" -> column = readInt(parser);
+                case "row" -> row = readInt(parser);
+                case "symbols" -> symbols = readWeights(parser);
+                default -> parser.skipChildren();
             }
-
-            standardSymbolsList.add(symbolMap);
         }
-
-        return standardSymbolsList;
+        if (column == null || row == null || symbols == null) {
+            throw error(parser, "Standard symbol probability must define column, row and symbols");
+        }
+        return new CellProbability(column, row, symbols);
     }
 
-    private static Map<String, Integer> parseBonusSymbols(JSONObject bonusSymbolsJson) throws JSONException {
-        Map<String, Integer> bonusSymbols = new HashMap<>();
-        JSONObject symbolsObject = bonusSymbolsJson.getJSONObject("symbols");
-        Iterator<String> keys = symbolsObject.keys();
-
-        while (keys.hasNext()) {
-            String key = keys.next();
-            bonusSymbols.put(key, symbolsObject.getInt(key));
+    private static Map<String, Integer> readWeights(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "symbol weights");
+        Map<String, Integer> weights = new HashMap<>();
+        while (nextField(parser)) {
+            String name = parser.currentName();
+            int weight = readInt(parser);
+            if (weight < 0) {
+                throw error(parser, "Weight of symbol " + name + " cannot be negative");
+            }
+            weights.put(name, weight);
         }
-
-        return bonusSymbols;
+        return weights;
     }
 
-    private static Map<String, WinningCombination> parseWinningCombinations(JSONObject winCombinationsJson) throws JSONException {
+    private static Map<String, WinningCombination> readWinCombinations(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "win_combinations");
         Map<String, WinningCombination> winCombinations = new HashMap<>();
-        Iterator<String> keys = winCombinationsJson.keys();
-
-        while (keys.hasNext()) {
-            String key = keys.next();
-            JSONObject wcJson = winCombinationsJson.getJSONObject(key);
+        while (nextField(parser)) {
+            String name = parser.currentName();
+            EnumWinningCombinationType combinationType = readEnum(parser, EnumWinningCombinationType.class, name,
+                    "win combination");
+            expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "win combination " + name);
+            double rewardMultiplier = 0.0;
+            WinningCondition when = null;
+            WinningGroup group = null;
+            int count = 0;
+            List<List<String>> coveredAreas = new ArrayList<>();
+            while (nextField(parser)) {
+                switch (parser.currentName()) {
+                    case "reward_multiplier" -> rewardMultiplier = readDouble(parser);
+                    case "when" -> when = readEnum(parser, WinningCondition.class, readString(parser), "condition");
+                    case "group" -> group = readEnum(parser, WinningGroup.class, readString(parser), "group");
+                    case "count" -> count = readInt(parser);
+                    case "covered_areas" -> coveredAreas = readCoveredAreas(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (when == null || group == null) {
+                throw error(parser, "Win combination " + name + " must define when and group");
+            }
+            if ((when == WinningCondition.same_symbols) != (group == WinningGroup.same_symbols)) {
+                throw error(parser, "Win combination " + name + " cannot group " + group + " symbols when " + when);
+            }
+            if (when == WinningCondition.same_symbols && count < 1) {
+                throw error(parser, "Win combination " + name + " must count at least one symbol");
+            }
+            // The count of a line is its run length, 0 when not configured for the default length
+            if (when == WinningCondition.linear_symbols && (count < 0 || count == 1)) {
+                throw error(parser, "Win combination " + name + " must run over at least two cells");
+            }
+            winCombinations.put(name, new WinningCombination(combinationType, rewardMultiplier, when, group, count,
+                    coveredAreas));
+        }
+        return winCombinations;
+    }
 
-            // Extract values
-            EnumWinningCombinationType combinationType;
-            try {
-                combinationType = EnumWinningCombinationType.valueOf(key);
-            } catch (IllegalArgumentException e) {
-                // Handle unknown enum types gracefully
-                combinationType = EnumWinningCombinationType.same_symbol_3_times; // Default or handle accordingly
-                System.err.println("Warning: Invalid combination type '" + key + "'. Defaulting to 'same_symbol_3_times'.");
+    private static List<List<String>> readCoveredAreas(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY, "covered_areas");
+        List<List<String>> coveredAreas = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser, parser.currentToken(), JsonToken.START_ARRAY, "covered area");
+            List<String> area = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                area.add(readString(parser));
             }
+            coveredAreas.add(area);
+        }
+        return coveredAreas;
+    }
 
-            double rewardMultiplier = wcJson.optDouble("reward_multiplier", 0.0);
-            String whenStr = wcJson.optString("when", "");
-            int count = wcJson.optInt("count", 0);
+    /**
+     * Checks the references between the sections of a parsed configuration.
+     */
+    private static void validate(Game game) {
+        int rows = game.getRows();
+        int columns = game.getColumns();
+        if (rows < 1 || columns < 1) {
+            throw new ConfigurationException("Rows and columns must be positive");
+        }
+        Map<String, Symbol> symbols = game.getSymbols();
 
-            // Parse 'when' field
-            WinningCondition when;
-            try {
-                when = WinningCondition.valueOf(whenStr);
-            } catch (IllegalArgumentException e) {
-                when = WinningCondition.same_symbols; // Default or handle accordingly
-                System.err.println("Warning: Invalid 'when' condition '" + whenStr + "'. Defaulting to 'SAME_SYMBOLS'.");
+        Set<Integer> cells = new HashSet<>();
+        for (CellProbability cell : game.getProbabilities().getCellProbabilities()) {
+            if (cell.getRow() < 0 || cell.getRow() >= rows || cell.getColumn() < 0 || cell.getColumn() >= columns) {
+                throw new ConfigurationException("Probability of cell " + cell.getRow() + ":" + cell.getColumn()
+                        + " is outside of the " + rows + "x" + columns + " board");
             }
-
-            // Parse 'group' field
-            WinningGroup group;
-            try {
-                group = WinningGroup.valueOf(wcJson.optString("group", "SAME_SYMBOLS"));
-            } catch (IllegalArgumentException e) {
-                group = WinningGroup.same_symbols; // Default or handle accordingly
-                System.err.println("Warning: Invalid 'group' '" + wcJson.optString("group") + "'. Defaulting to 'SAME_SYMBOLS'.");
+            if (!cells.add(cell.getRow() * columns + cell.getColumn())) {
+                throw new ConfigurationException("Probability of cell " + cell.getRow() + ":" + cell.getColumn()
+                        + " is defined twice");
             }
+            checkSymbols(symbols, cell.getSymbols().keySet(), STANDARD, "cell " + cell.getRow() + ":" + cell.getColumn());
+        }
+        checkSymbols(symbols, game.getProbabilities().getBonusSymbolsProbabilities().keySet(), BONUS, "bonus symbols");
 
-            JSONArray coveredAreasArray = wcJson.optJSONArray("covered_areas");
-
-            // Parse coveredAreas
-            List<List<String>> coveredAreas = new ArrayList<>();
-            if (coveredAreasArray != null) {
-                for (int i = 0; i < coveredAreasArray.length(); i++) {
-                    JSONArray areaArray = coveredAreasArray.getJSONArray(i);
-                    List<String> areaList = new ArrayList<>();
-                    for (int j = 0; j < areaArray.length(); j++) {
-                        areaList.add(areaArray.getString(j));
+        for (Map.Entry<String, WinningCombination> entry : game.getWinCombinations().entrySet()) {
+            for (List<String> area : entry.getValue().getCoveredAreas()) {
+                if (area.isEmpty()) {
+                    throw new ConfigurationException("Win combination " + entry.getKey() + " covers an empty area");
+                }
+                for (String cell : area) {
+                    if (!isCell(cell, rows, columns)) {
+                        throw new ConfigurationException("Win combination " + entry.getKey() + " covers " + cell
+                                + ", which is not a row:column cell of the " + rows + "x" + columns + " board");
                     }
-                    coveredAreas.add(areaList);
                 }
             }
+        }
+    }
+
+    private static void checkSymbols(Map<String, Symbol> symbols, Set<String> names, String type, String owner) {
+        for (String name : names) {
+            Symbol symbol = symbols.get(name);
+            if (symbol == null) {
+                throw new ConfigurationException("Probabilities of " + owner + " reference undefined symbol " + name);
+            }
+            if (!type.equals(symbol.getType())) {
+                throw new ConfigurationException("Probabilities of " + owner + " reference " + symbol.getType()
+                        + " symbol " + name + " where " + type + " symbols are expected");
+            }
+        }
+    }
 
-            // Create WinningCombination object
-            WinningCombination wcConfig = new WinningCombination(combinationType, rewardMultiplier, when, group, count, coveredAreas);
+    private static boolean isCell(String cell, int rows, int columns) {
+        int separator = cell.indexOf(':');
+        if (separator < 0) {
+            return false;
+        }
+        try {
+            int row = Integer.parseInt(cell.substring(0, separator));
+            int column = Integer.parseInt(cell.substring(separator + 1));
+            return row >= 0 && row < rows && column >= 0 && column < columns;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
 
-            // Add to map
-            winCombinations.put(key, wcConfig);
+    /**
+     * Moves to the value of the next field of the current object.
+     *
+     * @return false at the end of the object
+     */
+    private static boolean nextField(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_OBJECT) {
+            return false;
+        }
+        expect(parser, token, JsonToken.FIELD_NAME, "field");
+        parser.nextToken();
+        return true;
+    }
+
+    private static int readInt(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.VALUE_NUMBER_INT, parser.currentName());
+        return parser.getIntValue();
+    }
 
-            // Debugging statements
-            System.out.println("Parsed winning combination: " + key);
-            System.out.println("Winning Combination: " + wcConfig);
+    private static double readDouble(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isNumeric()) {
+            throw error(parser, "Expected a number for " + parser.currentName());
         }
+        return parser.getDoubleValue();
+    }
 
-        return winCombinations;
+    private static String readString(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.VALUE_STRING, parser.currentName());
+        return parser.getText();
+    }
+
+    private static <E extends Enum<E>> E readEnum(JsonParser parser, Class<E> type, String value, String description) {
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw error(parser, "Unknown " + description + " '" + value + "'");
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected, String description) {
+        if (token != expected) {
+            throw error(parser, "Expected " + expected.name().toLowerCase(Locale.ROOT).replace('_', ' ')
+                    + " for " + description + " but found " + token);
+        }
+    }
+
+    private static ConfigurationException error(JsonParser parser, String message) {
+        return new ConfigurationException(message + at(parser.currentTokenLocation()));
+    }
+
+    private static String at(JsonLocation location) {
+        return location == null ? "" : " at line " + location.getLineNr() + ", column " + location.getColumnNr();
     }
 }
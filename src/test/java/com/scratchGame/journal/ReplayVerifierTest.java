@@ -0,0 +1,153 @@
+package com.scratchGame.journal;
+
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.models.*;
+import com.scratchGame.output.ResultSink;
+import com.scratchGame.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayVerifierTest {
+
+    @TempDir
+    Path directory;
+
+    private GameModel model;
+    private GameService gameService;
+
+    @BeforeEach
+    public void setUp() {
+        Game gameConfig = RoundJournalTest.createGame();
+        model = GameModel.compile(gameConfig);
+        gameService = new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(5)),
+                RewardCalculator.forModel(model));
+    }
+
+    @Test
+    public void testVerifyJournal_AcceptsPlayedRounds() {
+        Path journal = writeJournal(3000);
+
+        VerificationReport report = new ReplayVerifier(model, 2, 3, 700, 1).verifyJournal(journal);
+
+        assertTrue(report.isValid(), report.toString());
+        assertEquals(3000, report.getVerifiedRecords());
+    }
+
+    @Test
+    public void testVerifyJournal_ReportsTamperedRecords() throws Exception {
+        Path journal = writeJournal(3000);
+        int recordBytes = JournalFormat.recordBytes(Board.packedLength(model.getDictionary(), model.getCellCount()));
+        // Record 1500 is record 500 of the second segment, record 2999 the last of the third
+        Path second = JournalFormat.segmentFile(journal, 1000);
+        Path third = JournalFormat.segmentFile(journal, 2000);
+        overwrite(second, JournalFormat.HEADER_BYTES + 500L * recordBytes + JournalFormat.REWARD_OFFSET,
+                ByteBuffer.allocate(Double.BYTES).putDouble(0, 123456));
+        overwrite(third, JournalFormat.HEADER_BYTES + 999L * recordBytes + JournalFormat.BOARD_OFFSET,
+                ByteBuffer.allocate(Long.BYTES).putLong(0, 0));
+
+        VerificationReport report = new ReplayVerifier(model, 2, 2, 256, 1).verifyJournal(journal);
+
+        assertFalse(report.isValid());
+        assertEquals(3000, report.getVerifiedRecords());
+        List<VerificationReport.Mismatch> mismatches = report.getMismatches();
+        assertTrue(report.getMismatchCount() >= 2, report.toString());
+        VerificationReport.Mismatch reward = mismatches.get(0);
+        assertEquals(1500, reward.getPosition());
+        assertEquals(1500, reward.getRound());
+        assertEquals(5, reward.getSeed());
+        assertEquals("reward", reward.getField());
+        assertEquals("123456.0", reward.getRecorded());
+        // A blanked board no longer matches its round, whatever the reward of the round was
+        assertTrue(mismatches.stream().anyMatch(mismatch -> mismatch.getPosition() == 2999
+                && mismatch.getField().equals("board")), report.toString());
+        assertTrue(mismatches.stream().allMatch(mismatch -> mismatch.getPosition() == 1500
+                || mismatch.getPosition() == 2999), report.toString());
+    }
+
+    @Test
+    public void testVerifyJournal_SkipsSegmentsOfAnotherConfig() {
+        Path journal = writeJournal(2500);
+        Game otherConfig = RoundJournalTest.createGame();
+        otherConfig.setRows(4);
+        GameModel other = GameModel.compile(otherConfig);
+
+        VerificationReport report = new ReplayVerifier(other, 2).verifyJournal(journal);
+
+        assertFalse(report.isValid());
+        assertEquals(0, report.getVerifiedRecords());
+        assertEquals(2500, report.getSkippedRecords());
+        assertEquals(3, report.getMismatchCount());
+        assertEquals("config", report.getMismatches().get(0).getField());
+        assertEquals(Long.toHexString(model.getFingerprint()), report.getMismatches().get(0).getRecorded());
+    }
+
+    @Test
+    public void testVerifyResults_ChecksEveryLine() throws Exception {
+        Path results = directory.resolve("results.ndjson");
+        try (ResultSink sink = ResultSink.open("ndjson", FileChannel.open(results, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE))) {
+            gameService.playBatch(2000L, 2, sink);
+        }
+        // Small ranges, so that lines are split over many workers
+        ReplayVerifier verifier = new ReplayVerifier(model, 2, 3, 1, 4096);
+
+        VerificationReport report = verifier.verifyResults(results);
+        assertTrue(report.isValid(), report.toString());
+        assertEquals(2000, report.getVerifiedRecords());
+
+        List<String> lines = new ArrayList<>(Files.readAllLines(results, StandardCharsets.UTF_8));
+        String line = lines.get(1234);
+        String tampered = line.replaceFirst("\"applied_bonus_symbol\":(null|\"[^\"]*\")", "\"applied_bonus_symbol\":\"C\"");
+        assertNotEquals(line, tampered);
+        lines.set(1234, tampered);
+        Files.write(results, lines, StandardCharsets.UTF_8);
+        long offset = 0;
+        for (int i = 0; i < 1234; i++) {
+            offset += lines.get(i).length() + 1;
+        }
+
+        report = verifier.verifyResults(results);
+        assertEquals(2000, report.getVerifiedRecords());
+        assertEquals(1, report.getMismatchCount(), report.toString());
+        VerificationReport.Mismatch mismatch = report.getMismatches().get(0);
+        assertEquals("bonus_symbol", mismatch.getField());
+        assertEquals(offset, mismatch.getPosition());
+        assertEquals(1234, mismatch.getRound());
+        assertEquals("C", mismatch.getRecorded());
+    }
+
+    @Test
+    public void testVerifyResults_RejectsOtherFiles() throws Exception {
+        Path results = directory.resolve("results.ndjson");
+        Files.writeString(results, "[1, 2]\n");
+
+        assertThrows(GameException.class, () -> new ReplayVerifier(model, 1).verifyResults(results));
+        assertThrows(GameException.class, () -> new ReplayVerifier(model, 1).verifyResults(directory.resolve("missing")));
+    }
+
+    private Path writeJournal(long rounds) {
+        Path journal = directory.resolve("journal");
+        try (RoundJournal roundJournal = new RoundJournal(journal, model, 1000, Duration.ofMillis(10))) {
+            gameService.playBatch(rounds, 2, roundJournal);
+        }
+        return journal;
+    }
+
+    private static void overwrite(Path file, long position, ByteBuffer bytes) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.scratchGame.journal;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.*;
+import com.scratchGame.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoundJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private GameModel model;
+    private GameService gameService;
+
+    @BeforeEach
+    public void setUp() {
+        Game gameConfig = createGame();
+        model = GameModel.compile(gameConfig);
+        gameService = new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(11)),
+                RewardCalculator.forModel(model));
+    }
+
+    static Game createGame() {
+        Game gameConfig = new Game();
+        gameConfig.setRows(3);
+        gameConfig.setColumns(4);
+        gameConfig.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "B", new Symbol("B", 1.5, 0, "standard", ""),
+                "C", new Symbol("C", 1.0, 0, "standard", ""),
+                "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward"),
+                "+100", new Symbol("+100", 0, 100, "bonus", "extra_bonus")
+        ));
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 3, "B", 2, "C", 2)),
+                Map.of("10x", 1, "+100", 1)));
+        gameConfig.setWinCombinations(Map.of(
+                "same_symbol_3_times", new WinningCombination(EnumWinningCombinationType.same_symbol_3_times,
+                        1, WinningCondition.same_symbols, WinningGroup.same_symbols, 3, null),
+                "same_symbols_horizontally", new WinningCombination(EnumWinningCombinationType.same_symbols_horizontally,
+                        2, WinningCondition.linear_symbols, WinningGroup.horizontally_linear_symbols, 0, null)));
+        return gameConfig;
+    }
+
+    @Test
+    public void testAccept_RecordsReadBackInOrder() {
+        // Batches are refilled once the sink returns, the expected records are rendered while they are current
+        List<String> expected = new ArrayList<>();
+        Board board = gameService.newBoard();
+        try (RoundJournal journal = new RoundJournal(directory, model)) {
+            gameService.playBatch(3000, 2, batch -> {
+                journal.accept(batch);
+                for (int ticket = 0; ticket < batch.size(); ticket++) {
+                    expected.add(batch.getSeed() + " " + batch.getRound(ticket) + " " + batch.getReward(ticket) + " "
+                            + batch.getCombinations(ticket) + " " + batch.getBonusSymbol(ticket) + " "
+                            + batch.getBoard(ticket, board).toMatrix());
+                }
+            });
+            assertEquals(3000, journal.getAppendedRecords());
+        }
+
+        List<String> actual = new ArrayList<>();
+        try (RoundJournalReader reader = new RoundJournalReader(directory)) {
+            assertEquals(3000, reader.getRecordCount());
+            assertEquals(1, reader.getSegments().size());
+            RoundJournalReader.Segment segment = reader.getSegments().get(0);
+            assertEquals(model.getFingerprint(), segment.getFingerprint());
+            assertEquals(3, segment.getRows());
+            assertEquals(4, segment.getColumns());
+            assertEquals(model.getDictionary().size(), segment.getSymbolCount());
+            reader.forEach(record -> {
+                assertEquals(actual.size(), record.getSequence());
+                actual.add(record.getSeed() + " " + record.getRound() + " " + record.getReward() + " "
+                        + record.getCombinations() + " " + record.getBonusSymbol() + " "
+                        + record.getBoard(board).toMatrix());
+            });
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testFind_ReplaysTheRecordedRound() {
+        try (RoundJournal journal = new RoundJournal(directory, model)) {
+            gameService.playBatch(5000L, 3, journal);
+        }
+
+        try (RoundJournalReader reader = new RoundJournalReader(directory)) {
+            Board board = gameService.newBoard();
+            for (long round : new long[]{0, 255, 256, 1234, 4999}) {
+                RoundRecord record = reader.find(round);
+                assertNotNull(record, "round " + round);
+                assertEquals(round, record.getRound());
+                assertEquals(round, record.getSequence());
+                GameResult result = gameService.startGame(3, round);
+                assertEquals(result.getReward(), record.getReward(), 1e-9);
+                assertEquals(result.getMatrix(), record.getBoard(board).toMatrix());
+            }
+            assertNull(reader.find(5000));
+            assertNull(reader.find(-1));
+        }
+    }
+
+    @Test
+    public void testSegments_RollAndContinueAfterReopen() {
+        try (RoundJournal journal = new RoundJournal(directory, model, 500, Duration.ofMillis(10))) {
+            gameService.playBatch(1200L, 1, journal);
+        }
+        try (RoundJournal journal = new RoundJournal(directory, model, 500, Duration.ofMillis(10))) {
+            assertEquals(1200, journal.getFirstSequence());
+            gameService.playBatch(100L, 1, journal);
+        }
+
+        try (RoundJournalReader reader = new RoundJournalReader(directory)) {
+            List<RoundJournalReader.Segment> segments = reader.getSegments();
+            assertEquals(4, segments.size());
+            assertEquals(List.of(0L, 500L, 1000L, 1200L),
+                    segments.stream().map(RoundJournalReader.Segment::getFirstSequence).toList());
+            assertEquals(List.of(500, 500, 200, 100),
+                    segments.stream().map(RoundJournalReader.Segment::getRecordCount).toList());
+            long[] next = new long[1];
+            reader.forEach(record -> {
+                assertEquals(next[0], record.getSequence());
+                // The service kept drawing rounds after the first journal was closed
+                assertEquals(next[0]++, record.getRound());
+            });
+            assertEquals(1300, next[0]);
+            assertEquals(1250, reader.find(1250).getSequence());
+        }
+    }
+
+    @Test
+    public void testReader_RebuildsMissingIndex() throws Exception {
+        try (RoundJournal journal = new RoundJournal(directory, model, 1000, Duration.ofMillis(10))) {
+            gameService.playBatch(2500L, 1, journal);
+        }
+        try (var files = Files.list(directory)) {
+            for (Path index : files.filter(file -> file.toString().endsWith(".idx")).toList()) {
+                Files.delete(index);
+            }
+        }
+
+        try (RoundJournalReader reader = new RoundJournalReader(directory)) {
+            assertEquals(2500, reader.getRecordCount());
+            assertEquals(1777, reader.find(1777).getRound());
+        }
+    }
+
+    @Test
+    public void testFlush_MakesRecordsReadableBeforeClose() {
+        try (RoundJournal journal = new RoundJournal(directory, model)) {
+            gameService.playBatch(700L, 1, journal);
+            Board board = gameService.newBoard();
+            GameResult result = gameService.startGame(1, 42);
+            journal.append(11, 42, result.getBoard(), result.getReward(), 0, SymbolDictionary.BLANK);
+            journal.flush();
+            assertEquals(701, journal.getSyncedSequence());
+
+            // The last segment is still open, so its index is rebuilt from the durable records
+            try (RoundJournalReader reader = new RoundJournalReader(directory)) {
+                assertEquals(701, reader.getRecordCount());
+                List<RoundRecord> records = new ArrayList<>();
+                reader.forEach(record -> {
+                    if (record.getRound() == 42) {
+                        records.add(record);
+                    }
+                });
+                assertEquals(2, records.size());
+                assertEquals(700, records.get(1).getSequence());
+                assertEquals(result.getMatrix(), records.get(1).getBoard(board).toMatrix());
+                assertEquals(records.get(0).getSequence(), reader.find(42).getSequence());
+            }
+        }
+    }
+
+    @Test
+    public void testReopen_AfterACrashBeforeTheFirstSyncOfASegment() throws Exception {
+        // Never synced by the interval: the first chunk rolls into a second segment that no sync ever counts
+        RoundJournal crashed = new RoundJournal(directory, model, 1000, Duration.ofHours(1));
+        gameService.playBatch(1100L, 1, crashed);
+        Path unsynced = directory.resolve("journal-00000000000000001000.seg");
+        for (int wait = 0; wait < 500 && !Files.exists(unsynced); wait++) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.exists(unsynced));
+
+        // The crashed journal is abandoned without closing it
+        try (RoundJournal journal = new RoundJournal(directory, model, 1000, Duration.ofMillis(10))) {
+            assertEquals(1000, journal.getFirstSequence());
+            gameService.playBatch(50L, 1, journal);
+        }
+        // A crash before the header of a segment reached the disk leaves zeros only
+        Files.write(directory.resolve("journal-00000000000000001050.seg"), new byte[4096]);
+        try (RoundJournal journal = new RoundJournal(directory, model, 1000, Duration.ofMillis(10))) {
+            assertEquals(1050, journal.getFirstSequence());
+            gameService.playBatch(10L, 1, journal);
+        }
+
+        try (RoundJournalReader reader = new RoundJournalReader(directory)) {
+            assertEquals(1060, reader.getRecordCount());
+            long[] next = new long[1];
+            reader.forEach(record -> assertEquals(next[0]++, record.getSequence()));
+            assertEquals(1060, next[0]);
+        }
+    }
+
+    @Test
+    public void testFlush_ConcurrentFlushesWhileTheWriterLags() throws Exception {
+        int threads = 4 * RoundJournal.CHUNKS;
+        try (RoundJournal journal = new RoundJournal(directory, model, 4096, Duration.ofHours(1))) {
+            GameResult result = gameService.startGame(1, 0);
+            List<Thread> flushers = new ArrayList<>();
+            List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+            for (int thread = 0; thread < threads; thread++) {
+                Thread flusher = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            journal.append(1, i, result.getBoard(), result.getReward(), 0, SymbolDictionary.BLANK);
+                            journal.flush();
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                });
+                flushers.add(flusher);
+                flusher.start();
+            }
+            for (Thread flusher : flushers) {
+                // A lost sync request leaves its flusher waiting for good
+                flusher.join(30_000);
+                assertFalse(flusher.isAlive());
+            }
+
+            assertEquals(List.of(), failures);
+            assertEquals(threads * 50L, journal.getSyncedSequence());
+        }
+    }
+
+    @Test
+    public void testAccept_RollsToANewSegmentWhenTheGameChanges() {
+        // A reloaded configuration, as with --watch, changes the game between batches
+        Game gameConfig = createGame();
+        gameConfig.setRows(4);
+        GameModel reloaded = GameModel.compile(gameConfig);
+        try (RoundJournal journal = new RoundJournal(directory, model, 1000, Duration.ofMillis(10))) {
+            gameService.playBatch(700L, 1, journal);
+            gameService.publish(reloaded);
+            gameService.playBatch(600L, 1, journal);
+            // Compiling the first configuration again gives back the same game
+            gameService.publish(GameModel.compile(createGame()));
+            gameService.playBatch(100L, 1, journal);
+            assertEquals(1400, journal.getAppendedRecords());
+        }
+        try (RoundJournal journal = new RoundJournal(directory, model, 1000, Duration.ofMillis(10))) {
+            assertEquals(1400, journal.getFirstSequence());
+            gameService.playBatch(100L, 1, journal);
+        }
+
+        try (RoundJournalReader reader = new RoundJournalReader(directory)) {
+            List<RoundJournalReader.Segment> segments = reader.getSegments();
+            assertEquals(List.of(0L, 700L, 1300L, 1400L),
+                    segments.stream().map(RoundJournalReader.Segment::getFirstSequence).toList());
+            assertEquals(List.of(700, 600, 100, 100),
+                    segments.stream().map(RoundJournalReader.Segment::getRecordCount).toList());
+            assertEquals(List.of(model.getFingerprint(), reloaded.getFingerprint(), model.getFingerprint(), model.getFingerprint()),
+                    segments.stream().map(RoundJournalReader.Segment::getFingerprint).toList());
+            assertEquals(List.of(3, 4, 3, 3), segments.stream().map(RoundJournalReader.Segment::getRows).toList());
+            long[] next = new long[1];
+            reader.forEach(record -> assertEquals(next[0]++, record.getSequence()));
+            assertEquals(1500, next[0]);
+            Board board = new Board(reloaded.getDictionary(), 4, 4);
+            assertEquals(4, reader.find(1000).getBoard(board).toMatrix().size());
+        }
+
+        // Every segment is replayed against its own game
+        VerificationReport report = new ReplayVerifier(model, 1).verifyJournal(directory);
+        assertEquals(900, report.getVerifiedRecords());
+        assertEquals(600, report.getSkippedRecords());
+        assertEquals(1, report.getMismatchCount());
+        report = new ReplayVerifier(reloaded, 1).verifyJournal(directory);
+        assertEquals(600, report.getVerifiedRecords());
+        assertEquals(900, report.getSkippedRecords());
+    }
+
+    @Test
+    public void testJournal_InvalidArguments() {
+        assertThrows(InvalidArgumentException.class, () -> new RoundJournal(directory, model, 0, Duration.ZERO));
+        assertThrows(InvalidArgumentException.class, () -> new RoundJournal(directory, null));
+
+        RoundJournal journal = new RoundJournal(directory, model);
+        Board other = new Board(model.getDictionary(), 2, 2);
+        assertThrows(InvalidArgumentException.class, () -> journal.append(1, 1, other, 0, 0, 0));
+        journal.close();
+        journal.close();
+        assertThrows(GameException.class, () -> journal.accept(gameService.playBatch(1, 1)));
+        assertThrows(GameException.class, journal::flush);
+    }
+}
@@ -0,0 +1,200 @@
+package com.scratchGame.metrics;
+
+import com.scratchGame.enums.EnumBonusImpact;
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.*;
+import com.scratchGame.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameMetricsTest {
+
+    private Game gameConfig;
+
+    @BeforeEach
+    public void setUp() {
+        // Every cell is "A" except the bonus cells, so every round wins
+        gameConfig = new Game();
+        gameConfig.setRows(3);
+        gameConfig.setColumns(3);
+        gameConfig.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward")
+        ));
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 3)), Map.of("10x", 1)));
+        gameConfig.setWinCombinations(Map.of("same_symbol_3_times", new WinningCombination(
+                EnumWinningCombinationType.same_symbol_3_times, 1, WinningCondition.same_symbols,
+                WinningGroup.same_symbols, 3, null)));
+    }
+
+    private GameService gameService(GameMetrics metrics) {
+        GameModel model = GameModel.compile(gameConfig);
+        return new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(5)),
+                RewardCalculator.forModel(model), metrics);
+    }
+
+    @Test
+    public void testStartGame_RecordsCountersAndStages() {
+        GameMetrics metrics = new GameMetrics(1);
+        GameService gameService = gameService(metrics);
+        long bonusCells = 0;
+        int winningRounds = 0;
+        for (int round = 0; round < 200; round++) {
+            GameResult result = gameService.startGame(1, round);
+            if (result.getReward() > 0) {
+                winningRounds++;
+                bonusCells += result.getMatrix().stream().flatMap(List::stream).filter("10x"::equals).count();
+            }
+        }
+
+        assertEquals(200, metrics.getRounds());
+        assertEquals(winningRounds, metrics.getWins(EnumWinningCombinationType.same_symbol_3_times));
+        assertEquals(bonusCells, metrics.getBonusesApplied(EnumBonusImpact.MULTIPLY_REWARD));
+        assertEquals(0, metrics.getRewardErrors());
+        for (GameMetrics.Stage stage : GameMetrics.Stage.values()) {
+            assertEquals(200, metrics.getStageLatency(stage).getCount(), stage.name());
+        }
+    }
+
+    @Test
+    public void testPlayRound_SamplesTiming() {
+        GameMetrics metrics = new GameMetrics(64);
+        GameService gameService = gameService(metrics);
+        Board board = gameService.newBoard();
+        RoundEvaluation evaluation = new RoundEvaluation();
+        for (int round = 0; round < 64_000; round++) {
+            gameService.playRound(board, evaluation, round);
+        }
+
+        assertEquals(64_000, metrics.getRounds());
+        long sampled = metrics.getStageLatency(GameMetrics.Stage.GENERATION).getCount();
+        assertEquals(1000, sampled, "One round in 64 should be timed");
+    }
+
+    @Test
+    public void testStartGame_RecordersOfEndedThreadsAreRetired() throws Exception {
+        // A server playing every request on a new thread
+        GameMetrics metrics = new GameMetrics(8);
+        GameService gameService = gameService(metrics);
+        int maxRecorders = 0;
+        for (int wave = 0; wave < 50; wave++) {
+            List<Thread> threads = new ArrayList<>();
+            for (int request = 0; request < 40; request++) {
+                Thread thread = new Thread(() -> {
+                    for (int round = 0; round < 50; round++) {
+                        gameService.startGame(1);
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            maxRecorders = Math.max(maxRecorders, metrics.getRecorderCount());
+        }
+
+        // At most 40 threads were alive at once, ended ones are folded in as new threads register
+        assertTrue(maxRecorders <= 128, "Recorders: " + maxRecorders);
+        // The rounds of the retired recorders are kept
+        assertEquals(100_000, metrics.getRounds());
+        assertEquals(100_000 / 8, metrics.getStageLatency(GameMetrics.Stage.GENERATION).getCount(), 2000);
+    }
+
+    @Test
+    public void testReplayGame_RecordsNothing() {
+        GameMetrics metrics = new GameMetrics(1);
+        GameService gameService = gameService(metrics);
+        long round = gameService.claimRound();
+        GameResult played = gameService.startGame(3, round);
+
+        GameResult replayed = gameService.replayGame(3, round);
+
+        assertEquals(played.getMatrix(), replayed.getMatrix());
+        assertEquals(played.getReward(), replayed.getReward());
+        assertEquals(1, metrics.getRounds());
+        assertEquals(1, metrics.getStageLatency(GameMetrics.Stage.GENERATION).getCount());
+        assertEquals(round + 1, gameService.claimRound());
+    }
+
+    @Test
+    public void testStartGame_CountsRewardErrors() {
+        GameModel model = GameModel.compile(gameConfig);
+        GameMetrics metrics = new GameMetrics();
+        RewardCalculator failing = new RewardCalculator(gameConfig) {
+            @Override
+            public double calculateSymbolReward(EnumWinningCombinationType type, int symbol, int symbolCount) {
+                throw new InvalidArgumentException("Broken reward");
+            }
+        };
+        GameService gameService = new GameService(gameConfig, MatrixGenerator.forModel(model), failing, metrics);
+
+        GameResult result = gameService.startGame(1);
+
+        assertEquals(0, result.getReward());
+        assertEquals(1, metrics.getRewardErrors());
+    }
+
+    @Test
+    public void testDisabled_RecordsNothing() {
+        GameService gameService = gameService(GameMetrics.DISABLED);
+        gameService.startGame(1);
+
+        assertFalse(GameMetrics.DISABLED.isEnabled());
+        assertEquals(0, GameMetrics.DISABLED.getRounds());
+        assertEquals(0, GameMetrics.DISABLED.getStageLatency(GameMetrics.Stage.GENERATION).getCount());
+        assertThrows(InvalidArgumentException.class, () -> new GameMetrics(0));
+    }
+
+    @Test
+    public void testExport_PrometheusTextAndMBean() throws Exception {
+        GameMetrics metrics = new GameMetrics(1);
+        GameService gameService = gameService(metrics);
+        for (int round = 0; round < 10; round++) {
+            gameService.startGame(1, round);
+        }
+
+        String text;
+        try (MetricsServer server = new MetricsServer(0, metrics)) {
+            text = get("http://localhost:" + server.getPort() + "/metrics");
+        }
+        assertTrue(text.contains("# TYPE scratch_game_rounds_total counter\nscratch_game_rounds_total 10\n"), text);
+        assertTrue(text.contains("scratch_game_wins_total{combination=\"same_symbol_3_times\"} "
+                + metrics.getWins(EnumWinningCombinationType.same_symbol_3_times) + "\n"), text);
+        assertTrue(text.contains("scratch_game_stage_latency_seconds_count{stage=\"win_detection\"} 10\n"), text);
+        assertTrue(text.contains("scratch_game_stage_latency_seconds{stage=\"generation\",quantile=\"0.99\"} "), text);
+
+        ObjectName name = metrics.register("metrics-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(10L, server.getAttribute(name, "Rounds"));
+            assertThrows(InvalidArgumentException.class, () -> metrics.register("metrics-test"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private static String get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(PrometheusExporter.CONTENT_TYPE, connection.getContentType());
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
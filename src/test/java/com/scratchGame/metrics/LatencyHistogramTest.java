@@ -0,0 +1,71 @@
+package com.scratchGame.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets_CoverEveryValue() {
+        long previousUpperBound = -1;
+        for (int bucket = 0; bucket < 900; bucket++) {
+            long upperBound = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(upperBound > previousUpperBound, "Bucket " + bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(previousUpperBound + 1));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upperBound));
+            previousUpperBound = upperBound;
+        }
+        assertEquals(5, LatencyHistogram.bucketOf(5));
+        assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE), LatencyHistogram.bucketOf(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testQuantiles_WithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(3);
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            long value = (long) Math.exp(random.nextDouble(2, 16));
+            values.add(value);
+            histogram.record(value);
+        }
+        values.sort(null);
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(values.get(values.size() - 1), histogram.getMax());
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            long expected = values.get((int) Math.ceil(quantile * values.size()) - 1);
+            long actual = histogram.getValueAtQuantile(quantile);
+            assertTrue(actual >= expected && actual <= expected + expected / 16 + 1,
+                    quantile + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    @Test
+    public void testRecord_Concurrently() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(100 + offset);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(200_000, histogram.getCount());
+        assertEquals(103, histogram.getMax());
+        assertEquals(50_000L * (100 + 101 + 102 + 103), histogram.getSum());
+        assertEquals(0, new LatencyHistogram().getValueAtQuantile(0.5));
+    }
+}
@@ -0,0 +1,65 @@
+package com.scratchGame.output;
+
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.models.SymbolDictionary;
+import com.scratchGame.service.BatchResult;
+import com.scratchGame.service.GameService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryResultSinkTest {
+
+    private final GameService gameService = NdjsonResultSinkTest.createGameService();
+
+    @Test
+    public void testAccept_WritesHeaderAndFixedSizeRecords() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<long[]> expected = new ArrayList<>();
+        SymbolDictionary[] dictionary = new SymbolDictionary[1];
+
+        try (ResultSink sink = ResultSink.open("binary", Channels.newChannel(bytes))) {
+            gameService.playBatch(10_000, 3, batch -> {
+                sink.accept(batch);
+                dictionary[0] = batch.getDictionary();
+                for (int ticket = 0; ticket < batch.size(); ticket++) {
+                    expected.add(new long[]{batch.getSeed(), batch.getRound(ticket),
+                            Double.doubleToLongBits(batch.getReward(ticket)), batch.getCombinations(ticket),
+                            batch.getBonusSymbol(ticket)});
+                }
+            });
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        assertEquals(BinaryResultSink.MAGIC, buffer.getInt());
+        assertEquals(BinaryResultSink.VERSION, buffer.getShort());
+        assertEquals(dictionary[0].size(), buffer.getShort());
+        for (int symbol = 0; symbol < dictionary[0].size(); symbol++) {
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            assertEquals(dictionary[0].nameOf(symbol), new String(name, StandardCharsets.UTF_8));
+        }
+        assertEquals(expected.size() * BinaryResultSink.RECORD_BYTES, buffer.remaining());
+        for (long[] record : expected) {
+            assertArrayEquals(record, new long[]{buffer.getLong(), buffer.getLong(),
+                    Double.doubleToLongBits(buffer.getDouble()), buffer.getInt(), buffer.getInt()});
+        }
+    }
+
+    @Test
+    public void testAccept_RejectsBatchOfAnotherGame() {
+        try (ResultSink sink = new BinaryResultSink(Channels.newChannel(new ByteArrayOutputStream()))) {
+            sink.accept(gameService.playBatch(10, 1));
+            BatchResult other = NdjsonResultSinkTest.createGameService().playBatch(10, 1);
+
+            assertThrows(GameException.class, () -> sink.accept(other));
+            assertEquals(10, sink.getTickets());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.scratchGame.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.GameException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.*;
+import com.scratchGame.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NdjsonResultSinkTest {
+
+    private GameService gameService;
+
+    @BeforeEach
+    public void setUp() {
+        gameService = createGameService();
+    }
+
+    static GameService createGameService() {
+        Game gameConfig = new Game();
+        gameConfig.setRows(3);
+        gameConfig.setColumns(3);
+        gameConfig.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "B", new Symbol("B", 1.5, 0, "standard", ""),
+                "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward"),
+                "+100", new Symbol("+100", 0, 100, "bonus", "extra_bonus")
+        ));
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 3, "B", 2)), Map.of("10x", 1, "+100", 1)));
+        gameConfig.setWinCombinations(Map.of(
+                "same_symbol_3_times", new WinningCombination(EnumWinningCombinationType.same_symbol_3_times,
+                        1, WinningCondition.same_symbols, WinningGroup.same_symbols, 3, null),
+                "same_symbols_vertically", new WinningCombination(EnumWinningCombinationType.same_symbols_vertically,
+                        2, WinningCondition.linear_symbols, WinningGroup.vertically_linear_symbols, 0, null)));
+        GameModel model = GameModel.compile(gameConfig);
+        return new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(7)),
+                RewardCalculator.forModel(model));
+    }
+
+    @Test
+    public void testAccept_WritesOneLinePerTicket() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // Batches are refilled once the sink returns, the expected records are rendered while they are current
+        List<String> expected = new ArrayList<>();
+
+        try (ResultSink sink = ResultSink.open("ndjson", Channels.newChannel(bytes))) {
+            // Larger than the channel buffer, so the records are written out in several chunks
+            gameService.playBatch(3000, 2.5, batch -> {
+                sink.accept(batch);
+                for (int ticket = 0; ticket < batch.size(); ticket++) {
+                    expected.add(describe(batch, ticket));
+                }
+            });
+            assertEquals(3000, sink.getTickets());
+        }
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3001, lines.length);
+        assertEquals("", lines[3000]);
+        ObjectMapper mapper = new ObjectMapper();
+        for (int line = 0; line < expected.size(); line++) {
+            JsonNode record = mapper.readTree(lines[line]);
+            List<String> combinations = new ArrayList<>();
+            record.get("applied_winning_combinations").forEach(name -> combinations.add(name.asText()));
+            JsonNode bonus = record.get("applied_bonus_symbol");
+            assertEquals(expected.get(line), record.get("seed").asLong() + " " + record.get("round").asLong() + " "
+                    + record.get("reward").asDouble() + " " + combinations + " " + (bonus.isNull() ? null : bonus.asText()));
+        }
+    }
+
+    @Test
+    public void testAccept_FractionalRewards() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BatchResult batch = gameService.playBatch(200, 0.1);
+
+        try (ResultSink sink = new NdjsonResultSink(Channels.newChannel(bytes))) {
+            sink.accept(batch);
+        }
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        for (int ticket = 0; ticket < batch.size(); ticket++) {
+            assertEquals(batch.getReward(ticket), new ObjectMapper().readTree(lines[ticket]).get("reward").asDouble(), 0);
+        }
+    }
+
+    @Test
+    public void testOpen_InvalidArguments() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertThrows(InvalidArgumentException.class, () -> ResultSink.open("xml", Channels.newChannel(bytes)));
+        assertThrows(InvalidArgumentException.class, () -> ResultSink.open(null, Channels.newChannel(bytes)));
+        assertThrows(InvalidArgumentException.class, () -> new NdjsonResultSink(null));
+
+        ResultSink sink = ResultSink.open("NDJSON", Channels.newChannel(bytes));
+        sink.close();
+        assertThrows(GameException.class, () -> sink.accept(gameService.playBatch(1, 1)));
+    }
+
+    @Test
+    public void testNoOpSink_CountsTickets() {
+        ResultSink sink = ResultSink.open("none", null);
+
+        gameService.playBatch(2500, 1, sink);
+
+        assertEquals(2500, sink.getTickets());
+    }
+
+    private static String describe(BatchResult batch, int ticket) {
+        List<String> combinations = new ArrayList<>();
+        for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
+            if (batch.hasWon(ticket, type)) {
+                combinations.add(type.name());
+            }
+        }
+        int bonus = batch.getBonusSymbol(ticket);
+        return batch.getSeed() + " " + batch.getRound(ticket) + " " + batch.getReward(ticket) + " " + combinations + " "
+                + (bonus == SymbolDictionary.BLANK ? null : batch.getDictionary().nameOf(bonus));
+    }
+}
@@ -0,0 +1,226 @@
+package com.scratchGame.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scratchGame.exceptions.ConfigurationException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.GameResult;
+import com.scratchGame.service.*;
+import com.scratchGame.utils.JsonUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayServerTest {
+
+    private static final String CONFIG = "src/main/resources/config.json";
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private GameModel model;
+    private GameService gameService;
+    private PlayServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Game gameConfig = JsonUtils.readGameConfig(CONFIG);
+        model = GameModel.compile(gameConfig);
+        gameService = new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(21)),
+                RewardCalculator.forModel(model));
+        Files.copy(Path.of(CONFIG), directory.resolve("classic.json"));
+        server = new PlayServer(0, gameService, new GameRegistry(directory), 2, 4, 1000);
+        assertTrue(server.awaitReady(Duration.ofSeconds(30)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testHealth_ReportsReady() throws Exception {
+        HttpResponse<String> response = get("/health");
+
+        assertEquals(200, response.statusCode());
+        JsonNode health = objectMapper.readTree(response.body());
+        assertEquals("UP", health.get("status").asText());
+        assertEquals(Long.toHexString(model.getFingerprint()), health.get("config").asText());
+        assertEquals(6, health.get("admission_limit").asInt());
+    }
+
+    @Test
+    public void testPlay_AnswersTheRound() throws Exception {
+        HttpResponse<String> response = get("/play?bet=10");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(null));
+        JsonNode round = objectMapper.readTree(response.body());
+        GameResult expected = gameService.replayGame(10, round.get("round").asLong());
+        assertEquals(Long.toHexString(model.getFingerprint()), round.get("config").asText());
+        assertEquals(expected.getReward(), round.get("reward").asDouble());
+        assertEquals(expected.getMatrix(), objectMapper.convertValue(round.get("matrix"), List.class));
+        assertEquals(expected.getAppliedBonusSymbol(),
+                objectMapper.convertValue(round.get("applied_bonus_symbol"), List.class));
+        assertEquals(expected.getAppliedWinningCombinations().keySet(),
+                objectMapper.convertValue(round.get("applied_winning_combinations"), Map.class).keySet());
+
+        // Other games of the catalog, by id
+        JsonNode classic = objectMapper.readTree(get("/play?game=classic").body());
+        assertEquals("classic", classic.get("game").asText());
+        assertEquals(model.getRows(), classic.get("matrix").size());
+        assertEquals(2, server.getPlays());
+    }
+
+    @Test
+    public void testReplay_AnswersTheSettledRoundWithoutPlayingIt() throws Exception {
+        JsonNode played = objectMapper.readTree(get("/play?bet=10").body());
+        long round = played.get("round").asLong();
+        long plays = server.getPlays();
+        long nextRound = gameService.claimRound() + 1;
+
+        // The bet of the request is ignored, the round is shown with the bet it was settled with
+        HttpResponse<String> response = get("/replay?round=" + round + "&bet=1000");
+        assertEquals(200, response.statusCode());
+        assertEquals(played, objectMapper.readTree(response.body()));
+        assertEquals(plays, server.getPlays());
+        assertEquals(nextRound, gameService.claimRound());
+
+        // Rounds that /play did not settle, or settled for another game, cannot be shown
+        assertEquals(404, get("/replay?round=" + (round + 1_000_000)).statusCode());
+        assertEquals(404, get("/replay?round=" + round + "&game=classic").statusCode());
+        JsonNode classic = objectMapper.readTree(get("/play?game=classic").body());
+        assertEquals(200, get("/replay?round=" + classic.get("round").asLong() + "&game=classic").statusCode());
+        assertEquals(400, get("/replay").statusCode());
+        assertEquals(404, get("/replay/other?round=" + round).statusCode());
+
+        // A reloaded configuration no longer shows the rounds settled on the previous one
+        Game gameConfig = JsonUtils.readGameConfig(CONFIG);
+        gameConfig.setRows(gameConfig.getRows() + 1);
+        gameService.publish(GameModel.compile(gameConfig));
+        assertEquals(404, get("/replay?round=" + round).statusCode());
+    }
+
+    @Test
+    public void testPlayBatch_StreamsEveryTicket() throws Exception {
+        HttpResponse<String> response = get("/play/batch?tickets=2500&bet=1");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(null));
+        String[] lines = response.body().split("\n");
+        assertEquals(2500, lines.length);
+        Set<Long> rounds = new HashSet<>();
+        for (String line : lines) {
+            rounds.add(objectMapper.readTree(line).get("round").asLong());
+        }
+        assertEquals(2500, rounds.size());
+        assertEquals(2500, server.getPlays());
+    }
+
+    @Test
+    public void testPlay_RejectsInvalidRequests() throws Exception {
+        assertEquals(400, get("/play?bet=-1").statusCode());
+        assertEquals(400, get("/play?round=x").statusCode());
+        // A client choosing the round could replay a winning one at any bet
+        assertEquals(400, get("/play?bet=10&round=7").statusCode());
+        assertEquals(400, get("/play/batch?tickets=0").statusCode());
+        assertEquals(400, get("/play/batch?format=xml").statusCode());
+        assertEquals(400, rawStatus("/play?bet=%zz"));
+        assertEquals(400, rawStatus("/play/batch?tickets=1%2"));
+        HttpResponse<String> unknown = get("/play?game=missing");
+        assertEquals(404, unknown.statusCode());
+        assertTrue(unknown.body().contains("Unknown game"), unknown.body());
+        assertEquals(404, get("/play/other").statusCode());
+        assertEquals(404, get("/play/batch/other?tickets=5").statusCode());
+        HttpResponse<String> unknownBatch = get("/play/batch?tickets=5&game=missing");
+        assertEquals(404, unknownBatch.statusCode());
+        assertTrue(unknownBatch.body().contains("Unknown game"), unknownBatch.body());
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri("/play")).POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(0, server.getPlays());
+    }
+
+    @Test
+    public void testPlayBatch_AnswersTheErrorOfTheFirstBatch() throws Exception {
+        GameService failing = new GameService(JsonUtils.readGameConfig(CONFIG), MatrixGenerator.forModel(model),
+                RewardCalculator.forModel(model)) {
+            @Override
+            public BatchResult playBatch(BatchResult batch, double bettingAmount) {
+                throw new ConfigurationException("Game cannot be played");
+            }
+        };
+        try (PlayServer failingServer = new PlayServer(0, failing, null, 1, 1, 0)) {
+            assertTrue(failingServer.awaitReady(Duration.ofSeconds(30)));
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:"
+                    + failingServer.getPort() + "/play/batch?tickets=5")).build(), HttpResponse.BodyHandlers.ofString());
+
+            // Nothing was sent before the first batch was played, the error is still answered
+            assertEquals(500, response.statusCode());
+            assertTrue(response.body().contains("Game cannot be played"), response.body());
+            assertEquals(0, failingServer.getPlays());
+        }
+    }
+
+    @Test
+    public void testPlay_ShedsRequestsOverTheAdmissionLimit() throws Exception {
+        // Every permit is taken, as if six requests were in flight
+        server.admission().acquire(6);
+        HttpResponse<String> response = get("/play");
+        assertEquals(503, response.statusCode());
+        assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+        assertEquals(1, server.getRejected());
+
+        server.admission().release(6);
+        assertEquals(200, get("/play").statusCode());
+    }
+
+    @Test
+    public void testServer_InvalidArguments() {
+        assertThrows(InvalidArgumentException.class, () -> new PlayServer(0, null));
+        assertThrows(InvalidArgumentException.class, () -> new PlayServer(0, gameService, null, 0, 1, 0));
+        assertThrows(InvalidArgumentException.class, () -> new PlayServer(server.getPort(), gameService));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Sends the request target as is, for queries that {@link URI} refuses to build.
+     */
+    private int rawStatus(String target) throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + target + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII)).readLine();
+            return Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
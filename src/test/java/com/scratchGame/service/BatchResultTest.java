@@ -0,0 +1,136 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.*;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BatchResultTest {
+
+    private GameModel model;
+    private GameService gameService;
+
+    @BeforeEach
+    public void setUp() {
+        Game gameConfig = new Game();
+        gameConfig.setRows(3);
+        gameConfig.setColumns(3);
+        gameConfig.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "B", new Symbol("B", 1.0, 0, "standard", ""),
+                "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward"),
+                "+100", new Symbol("+100", 0, 100, "bonus", "extra_bonus")
+        ));
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 3, "B", 2)), Map.of("10x", 1, "+100", 1)));
+        Map<String, WinningCombination> winCombinations = new HashMap<>();
+        winCombinations.put("same_symbol_3_times", new WinningCombination(EnumWinningCombinationType.same_symbol_3_times,
+                1, WinningCondition.same_symbols, WinningGroup.same_symbols, 3, null));
+        winCombinations.put("same_symbol_5_times", new WinningCombination(EnumWinningCombinationType.same_symbol_5_times,
+                5, WinningCondition.same_symbols, WinningGroup.same_symbols, 5, null));
+        winCombinations.put("same_symbols_horizontally", new WinningCombination(EnumWinningCombinationType.same_symbols_horizontally,
+                2, WinningCondition.linear_symbols, WinningGroup.horizontally_linear_symbols, 0, null));
+        gameConfig.setWinCombinations(winCombinations);
+
+        model = GameModel.compile(gameConfig);
+        gameService = new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(7)),
+                RewardCalculator.forModel(model));
+    }
+
+    @Test
+    public void testPlayBatch_MatchesStartGame() {
+        GameService replay = new GameService(new Game(), MatrixGenerator.forModel(model, new SplitMixRandom(7)),
+                RewardCalculator.forModel(model));
+
+        BatchResult batch = gameService.playBatch(500, 10);
+
+        assertEquals(500, batch.size());
+        assertSame(model.getDictionary(), batch.getDictionary());
+        for (int ticket = 0; ticket < batch.size(); ticket++) {
+            assertEquals(ticket, batch.getRound(ticket));
+            GameResult result = replay.startGame(10, batch.getRound(ticket));
+            assertEquals(result.getReward(), batch.getReward(ticket), 1e-9);
+
+            Set<EnumWinningCombinationType> won = new HashSet<>();
+            result.getAppliedWinningCombinations().values().forEach(won::addAll);
+            for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
+                assertEquals(won.contains(type), batch.hasWon(ticket, type), type.name());
+            }
+            List<String> bonusSymbols = result.getAppliedBonusSymbol();
+            String bonus = bonusSymbols.isEmpty() ? SymbolDictionary.BLANK_NAME : bonusSymbols.get(0);
+            assertEquals(bonus, batch.getDictionary().nameOf(batch.getBonusSymbol(ticket)));
+        }
+    }
+
+    @Test
+    public void testPlayBatch_ClaimsConsecutiveRounds() {
+        gameService.startGame(1);
+        BatchResult batch = new BatchResult(10);
+
+        gameService.playBatch(batch, 1);
+        assertEquals(1, batch.getRound(0));
+        assertEquals(10, batch.getRound(9));
+        gameService.playBatch(batch, 1);
+        assertEquals(11, batch.getRound(0));
+        assertEquals(gameService.startGame(1, 11).getReward(), batch.getReward(0), 1e-9);
+    }
+
+    @Test
+    public void testPlayBatch_SinkReceivesEveryTicketInOrder() {
+        List<Long> rounds = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        double[] total = new double[1];
+
+        gameService.playBatch(2 * GameService.DEFAULT_BATCH_TICKETS + 5, 2, batch -> {
+            sizes.add(batch.size());
+            total[0] += batch.getTotalReward();
+            for (int ticket = 0; ticket < batch.size(); ticket++) {
+                rounds.add(batch.getRound(ticket));
+            }
+        });
+
+        assertEquals(List.of(GameService.DEFAULT_BATCH_TICKETS, GameService.DEFAULT_BATCH_TICKETS, 5), sizes);
+        for (int i = 0; i < rounds.size(); i++) {
+            assertEquals(i, rounds.get(i));
+        }
+        assertTrue(total[0] > 0);
+    }
+
+    @Test
+    public void testPlayBatch_RefillAllocatesNothingPerTicket() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        BatchResult batch = new BatchResult(10_000);
+        for (int warmUp = 0; warmUp < 20; warmUp++) {
+            gameService.playBatch(batch, 1);
+        }
+
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        gameService.playBatch(batch, 1);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        // Less than a byte per ticket: only the measurement itself may allocate
+        assertTrue(allocated < batch.capacity(), allocated + " bytes allocated");
+    }
+
+    @Test
+    public void testBatchResult_InvalidArguments() {
+        assertThrows(InvalidArgumentException.class, () -> new BatchResult(-1));
+        assertThrows(InvalidArgumentException.class, () -> gameService.playBatch((BatchResult) null, 1));
+        assertThrows(InvalidArgumentException.class, () -> gameService.playBatch(-1L, 1, batch -> { }));
+        assertThrows(InvalidArgumentException.class, () -> gameService.playBatch(1L, 1, null));
+        BatchResult batch = gameService.playBatch(3, 1);
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.getReward(3));
+    }
+}
@@ -0,0 +1,236 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardEnumeratorTest {
+
+    private static final EnumWinningCombinationType[] TYPES = {
+            EnumWinningCombinationType.same_symbol_3_times,
+            EnumWinningCombinationType.same_symbol_4_times,
+            EnumWinningCombinationType.same_symbols_horizontally,
+            EnumWinningCombinationType.same_symbols_vertically,
+            EnumWinningCombinationType.same_symbols_diagonally_left_to_right,
+            EnumWinningCombinationType.same_symbols_diagonally_right_to_left
+    };
+    private static final WinningGroup[] LINE_GROUPS = {
+            WinningGroup.horizontally_linear_symbols,
+            WinningGroup.vertically_linear_symbols,
+            WinningGroup.ltr_diagonally_linear_symbols,
+            WinningGroup.rtl_diagonally_linear_symbols
+    };
+
+    @TempDir
+    Path directory;
+
+    private Game gameConfig;
+
+    @BeforeEach
+    public void setUp() {
+        // Every cell draws "A", "B" or a bonus with its own weights: 4^9 boards
+        gameConfig = new Game();
+        gameConfig.setRows(3);
+        gameConfig.setColumns(3);
+        gameConfig.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "B", new Symbol("B", 1.0, 0, "standard", ""),
+                "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward"),
+                "+100", new Symbol("+100", 0, 100, "bonus", "extra_bonus")
+        ));
+        Probability probability = new Probability(List.of(), Map.of("10x", 1, "+100", 1));
+        List<CellProbability> cells = new ArrayList<>();
+        for (int cell = 0; cell < 9; cell++) {
+            cells.add(new CellProbability(cell % 3, cell / 3, Map.of("A", 1 + cell, "B", 10 - cell)));
+        }
+        probability.setCellProbabilities(cells);
+        gameConfig.setProbabilities(probability);
+
+        Map<String, WinningCombination> winCombinations = new HashMap<>();
+        winCombinations.put(TYPES[0].name(), new WinningCombination(TYPES[0], 1, WinningCondition.same_symbols,
+                WinningGroup.same_symbols, 3, null));
+        winCombinations.put(TYPES[1].name(), new WinningCombination(TYPES[1], 1.5, WinningCondition.same_symbols,
+                WinningGroup.same_symbols, 4, null));
+        for (int i = 0; i < LINE_GROUPS.length; i++) {
+            winCombinations.put(TYPES[i + 2].name(), new WinningCombination(TYPES[i + 2], 2 + i, WinningCondition.linear_symbols,
+                    LINE_GROUPS[i], 0, null));
+        }
+        gameConfig.setWinCombinations(winCombinations);
+    }
+
+    @Test
+    public void testRun_MatchesFullEvaluationOfEveryBoard() {
+        GameModel model = GameModel.compile(gameConfig);
+        BoardEnumerator enumerator = new BoardEnumerator(model, 2, Duration.ofMinutes(1));
+
+        RtpReport report = enumerator.run(null);
+
+        assertEquals(262_144, enumerator.getBoardCount());
+        assertTrue(report.isComplete());
+        assertReportEquals(bruteForce(model), report);
+    }
+
+    @Test
+    public void testRun_MatchesFullEvaluationOfEveryBoardWithPaylines() {
+        // Lines of two to five cells, a V, a square and a diagonal, the last rule still scans its direction
+        List<List<List<String>>> areas = List.of(
+                List.of(List.of("0:0", "1:1", "0:2"), List.of("2:0", "2:1", "2:2")),
+                List.of(List.of("0:0", "1:0"), List.of("1:2", "2:2")),
+                List.of(List.of("0:0", "0:1", "1:0", "1:1"), List.of("0:0", "0:2", "1:1", "2:0", "2:2")));
+        for (int i = 0; i < areas.size(); i++) {
+            gameConfig.getWinCombinations().get(TYPES[i + 2].name()).setCoveredAreas(areas.get(i));
+        }
+        GameModel model = GameModel.compile(gameConfig);
+
+        RtpReport report = new BoardEnumerator(model, 2, Duration.ofMinutes(1)).run(null);
+
+        assertReportEquals(bruteForce(model), report);
+    }
+
+    @Test
+    public void testRun_MatchesRtpCalculatorWithoutLines() {
+        gameConfig.getWinCombinations().keySet().removeIf(name -> !name.startsWith("same_symbol_"));
+        GameModel model = GameModel.compile(gameConfig);
+
+        RtpReport enumerated = new BoardEnumerator(model, 1, Duration.ofMinutes(1)).run(null);
+        RtpReport calculated = new RtpCalculator(model).calculate();
+
+        assertReportEquals(calculated, enumerated);
+    }
+
+    @Test
+    public void testRun_ResumesFromCheckpoint() throws Exception {
+        GameModel model = GameModel.compile(gameConfig);
+        Path checkpoint = directory.resolve("enumeration.checkpoint");
+        BoardEnumerator enumerator = new BoardEnumerator(model, 2, Duration.ZERO);
+
+        // An interrupted run leaves its completed chunks behind
+        assertNull(enumerator.run(checkpoint, 100));
+        assertTrue(Files.exists(checkpoint));
+        assertNull(new BoardEnumerator(model, 3, Duration.ZERO).run(checkpoint, 500));
+        RtpReport resumed = new BoardEnumerator(model, 1, Duration.ZERO).run(checkpoint);
+
+        assertReportEquals(new BoardEnumerator(model, 1, Duration.ofMinutes(1)).run(null), resumed);
+        // A completed checkpoint returns the report without playing again
+        assertReportEquals(resumed, enumerator.run(checkpoint, 0));
+    }
+
+    @Test
+    public void testRun_RejectsCheckpointOfAnotherGame() {
+        Path checkpoint = directory.resolve("enumeration.checkpoint");
+        new BoardEnumerator(GameModel.compile(gameConfig), 1, Duration.ZERO).run(checkpoint, 10);
+        Map<String, Symbol> symbols = new HashMap<>(gameConfig.getSymbols());
+        symbols.put("A", new Symbol("A", 3.0, 0, "standard", ""));
+        gameConfig.setSymbols(symbols);
+
+        BoardEnumerator other = new BoardEnumerator(GameModel.compile(gameConfig), 1, Duration.ZERO);
+
+        assertThrows(InvalidArgumentException.class, () -> other.run(checkpoint));
+    }
+
+    @Test
+    public void testConstructor_InvalidArguments() {
+        assertThrows(InvalidArgumentException.class, () -> new BoardEnumerator(null));
+        gameConfig.setRows(9);
+        gameConfig.setColumns(9);
+        assertThrows(InvalidArgumentException.class, () -> new BoardEnumerator(GameModel.compile(gameConfig)));
+    }
+
+    private static void assertReportEquals(RtpReport expected, RtpReport actual) {
+        assertEquals(expected.getRtp(), actual.getRtp(), 1e-9);
+        assertEquals(expected.getBaseRtp(), actual.getBaseRtp(), 1e-9);
+        assertEquals(expected.getMultiplierContribution(), actual.getMultiplierContribution(), 1e-9);
+        assertEquals(expected.getExtraContribution(), actual.getExtraContribution(), 1e-9);
+        assertEquals(expected.getHitRate(), actual.getHitRate(), 1e-12);
+        for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
+            assertEquals(expected.getWinProbability(type), actual.getWinProbability(type), 1e-12, type.name());
+            assertEquals(expected.getExpectedHits(type), actual.getExpectedHits(type), 1e-12, type.name());
+            assertEquals(expected.getExpectedPayout(type), actual.getExpectedPayout(type), 1e-9, type.name());
+        }
+    }
+
+    /**
+     * Evaluates every board from scratch with {@link RoundEvaluator} and {@link GameService}.
+     */
+    private static RtpReport bruteForce(GameModel model) {
+        GameService gameService = new GameService(new Game(), MatrixGenerator.forModel(model), RewardCalculator.forModel(model));
+        RoundEvaluator evaluator = new RoundEvaluator(model);
+        RoundEvaluation evaluation = new RoundEvaluation();
+        Board board = gameService.newBoard();
+        int[] outcomes = new int[board.size()];
+        int types = EnumWinningCombinationType.values().length;
+
+        double base = 0;
+        double multiplied = 0;
+        double extra = 0;
+        double hitRate = 0;
+        double[] winProbabilities = new double[types];
+        double[] expectedHits = new double[types];
+        double[] expectedPayouts = new double[types];
+        do {
+            double probability = 1;
+            for (int cell = 0; cell < board.size(); cell++) {
+                int[] weights = model.getCellWeights(cell);
+                board.set(cell, model.getCellSymbols(cell)[outcomes[cell]]);
+                probability *= (double) weights[outcomes[cell]] / Arrays.stream(weights).sum();
+            }
+            evaluator.evaluate(board, evaluation);
+            double baseReward = gameService.calculateBaseRewards(evaluation, null);
+            double reward = gameService.applyBonusSymbols(baseReward, evaluation, null);
+            double multipliedReward = baseReward * multiplier(model, evaluation);
+            base += probability * baseReward;
+            multiplied += probability * multipliedReward;
+            extra += probability * (reward - multipliedReward);
+            hitRate += reward > 0 ? probability : 0;
+            for (int i = 0; i < evaluation.getWinningSymbolCount(); i++) {
+                int symbol = evaluation.getWinningSymbol(i);
+                for (int wins = evaluation.getWins(symbol); wins != 0; wins &= wins - 1) {
+                    int type = Integer.numberOfTrailingZeros(wins);
+                    expectedHits[type] += probability;
+                    expectedPayouts[type] += probability * model.getRule(EnumWinningCombinationType.values()[type])
+                            .reward(symbol, evaluation.getSymbolCount(symbol));
+                }
+            }
+            for (EnumWinningCombinationType type : EnumWinningCombinationType.values()) {
+                for (int i = 0; i < evaluation.getWinningSymbolCount(); i++) {
+                    if (evaluation.hasWon(evaluation.getWinningSymbol(i), type)) {
+                        winProbabilities[type.ordinal()] += probability;
+                        break;
+                    }
+                }
+            }
+        } while (next(outcomes, model));
+        return new RtpReport(base, multiplied, extra, hitRate, true, winProbabilities, expectedHits, expectedPayouts);
+    }
+
+    private static double multiplier(GameModel model, RoundEvaluation evaluation) {
+        double multiplier = 1;
+        for (int i = 0; i < evaluation.getBonusSymbolCount(); i++) {
+            int symbol = evaluation.getBonusSymbol(i);
+            multiplier *= Math.pow(model.getBonusEngine().getMultiplier(symbol), evaluation.getSymbolCount(symbol));
+        }
+        return multiplier;
+    }
+
+    private static boolean next(int[] outcomes, GameModel model) {
+        for (int cell = 0; cell < outcomes.length; cell++) {
+            if (++outcomes[cell] < model.getCellWeights(cell).length) {
+                return true;
+            }
+            outcomes[cell] = 0;
+        }
+        return false;
+    }
+}
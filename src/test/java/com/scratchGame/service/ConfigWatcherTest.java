@@ -0,0 +1,130 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.GameResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigWatcherTest {
+
+    private static final String CONFIG = "{"
+            + "\"columns\":3,\"rows\":3,"
+            + "\"symbols\":{"
+            + "\"A\":{\"reward_multiplier\":5,\"type\":\"standard\"},"
+            + "\"B\":{\"reward_multiplier\":3,\"type\":\"standard\"},"
+            + "\"10x\":{\"reward_multiplier\":10,\"type\":\"bonus\",\"impact\":\"multiply_reward\"}},"
+            + "\"probabilities\":{"
+            + "\"standard_symbols\":[{\"column\":0,\"row\":0,\"symbols\":{\"A\":1,\"B\":1}}],"
+            + "\"bonus_symbols\":{\"symbols\":{\"10x\":1}}},"
+            + "\"win_combinations\":{"
+            + "\"same_symbol_3_times\":{\"reward_multiplier\":1,\"when\":\"same_symbols\",\"count\":3,\"group\":\"same_symbols\"}}"
+            + "}";
+
+    @TempDir
+    Path directory;
+
+    private Path config;
+    private GameModel model;
+    private GameService gameService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        config = directory.resolve("config.json");
+        Files.writeString(config, CONFIG);
+        model = ConfigWatcher.load(config);
+        gameService = new GameService(new Game(), MatrixGenerator.forModel(model, new SplitMixRandom(1)),
+                RewardCalculator.forModel(model));
+    }
+
+    @Test
+    public void testWatch_PublishesTheChangedConfiguration() throws Exception {
+        try (ConfigWatcher watcher = new ConfigWatcher(config, gameService, Duration.ofMillis(20))) {
+            Files.writeString(config, CONFIG.replace("\"reward_multiplier\":5", "\"reward_multiplier\":50"));
+            await(() -> watcher.getReloads() == 1);
+
+            GameModel reloaded = gameService.getModel();
+            assertNotEquals(model.getFingerprint(), reloaded.getFingerprint());
+            GameResult result = gameService.startGame(1);
+            assertEquals(reloaded.getFingerprint(), result.getConfigVersion());
+
+            // A compiled snapshot moved over the file is picked up as well
+            Path snapshot = directory.resolve("config.snapshot");
+            ModelSnapshot.write(model, snapshot);
+            Files.move(snapshot, config, StandardCopyOption.REPLACE_EXISTING);
+            await(() -> watcher.getReloads() == 2);
+            assertEquals(model.getFingerprint(), gameService.getModel().getFingerprint());
+        }
+    }
+
+    @Test
+    public void testReload_ConcurrentReloadsPublishTheFileOnce() throws Exception {
+        try (ConfigWatcher watcher = new ConfigWatcher(config, gameService, Duration.ofHours(1))) {
+            Files.writeString(config, CONFIG.replace("\"reward_multiplier\":5", "\"reward_multiplier\":50"));
+            GameModel expected = ConfigWatcher.load(config);
+            // Reloads from callers and from the watcher thread compare and publish one at a time
+            List<Thread> threads = new ArrayList<>();
+            int[] published = new int[1];
+            for (int i = 0; i < 8; i++) {
+                Thread thread = new Thread(() -> {
+                    if (watcher.reload()) {
+                        synchronized (published) {
+                            published[0]++;
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(1, published[0]);
+            assertEquals(1, watcher.getReloads());
+            assertEquals(expected.getFingerprint(), gameService.getModel().getFingerprint());
+        }
+    }
+
+    @Test
+    public void testWatch_KeepsTheModelOfABrokenFile() throws Exception {
+        try (ConfigWatcher watcher = new ConfigWatcher(config, gameService, Duration.ofMillis(20))) {
+            Files.writeString(config, CONFIG.replace("\"B\":1", "\"C\":1"));
+            await(() -> watcher.getFailures() > 0);
+
+            assertEquals(0, watcher.getReloads());
+            assertTrue(watcher.getLastError().contains("undefined symbol C"), watcher.getLastError());
+            assertSame(model, gameService.getModel());
+            // An unchanged configuration is not published again
+            Files.writeString(config, CONFIG);
+            assertFalse(watcher.reload());
+            assertSame(model, gameService.getModel());
+        }
+    }
+
+    @Test
+    public void testWatcher_InvalidArguments() {
+        assertThrows(InvalidArgumentException.class, () -> new ConfigWatcher(null, gameService));
+        assertThrows(InvalidArgumentException.class, () -> new ConfigWatcher(config, null));
+        assertThrows(InvalidArgumentException.class,
+                () -> new ConfigWatcher(directory.resolve("missing/config.json"), gameService));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
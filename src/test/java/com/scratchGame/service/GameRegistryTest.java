@@ -0,0 +1,145 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.ConfigurationException;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.utils.JsonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameRegistryTest {
+
+    private static final String CONFIG = "{"
+            + "\"columns\":3,\"rows\":3,"
+            + "\"symbols\":{"
+            + "\"A\":{\"reward_multiplier\":5,\"type\":\"standard\"},"
+            + "\"B\":{\"reward_multiplier\":3,\"type\":\"standard\"},"
+            + "\"10x\":{\"reward_multiplier\":10,\"type\":\"bonus\",\"impact\":\"multiply_reward\"}},"
+            + "\"probabilities\":{"
+            + "\"standard_symbols\":[{\"column\":0,\"row\":0,\"symbols\":{\"A\":1,\"B\":1}},"
+            + "{\"column\":1,\"row\":0,\"symbols\":{\"A\":1,\"B\":2}}],"
+            + "\"bonus_symbols\":{\"symbols\":{\"10x\":1}}},"
+            + "\"win_combinations\":{"
+            + "\"same_symbol_3_times\":{\"reward_multiplier\":1,\"when\":\"same_symbols\",\"count\":3,\"group\":\"same_symbols\"}}"
+            + "}";
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // Variants paying more for three of a kind, and one with another symbol multiplier
+        for (int variant = 1; variant <= 5; variant++) {
+            Files.writeString(directory.resolve("variant-" + variant + ".json"),
+                    CONFIG.replace("\"reward_multiplier\":1,", "\"reward_multiplier\":" + variant + ","));
+        }
+        Files.writeString(directory.resolve("rich.json"), CONFIG.replace("\"reward_multiplier\":5", "\"reward_multiplier\":50"));
+        Files.writeString(directory.resolve("broken.json"), CONFIG.replace("\"B\":2", "\"C\":2"));
+        Files.writeString(directory.resolve("notes.txt"), "not a game");
+    }
+
+    @Test
+    public void testGetModel_LoadsEveryGameOnce() {
+        GameRegistry registry = new GameRegistry(directory);
+
+        assertEquals(List.of("broken", "rich", "variant-1", "variant-2", "variant-3", "variant-4", "variant-5"),
+                registry.getGameIds());
+        GameModel model = registry.getModel("variant-2");
+        assertEquals(GameModel.compile(JsonUtils.readGameConfig(directory.resolve("variant-2.json").toString()))
+                .getFingerprint(), model.getFingerprint());
+        assertSame(registry.getService("variant-2"), registry.getService("variant-2"));
+        assertEquals(1, registry.getLoads());
+        assertEquals(2, registry.getHits());
+    }
+
+    @Test
+    public void testGetModel_EvictsTheLeastRecentlyRequestedGame() {
+        GameRegistry registry = new GameRegistry(directory, 3);
+        registry.getModel("variant-1");
+        registry.getModel("variant-2");
+        registry.getModel("variant-3");
+        registry.getModel("variant-1");
+
+        registry.getModel("variant-4");
+        assertEquals(Set.of("variant-1", "variant-3", "variant-4"), registry.getLoadedGameIds());
+        registry.getModel("variant-5");
+        assertEquals(Set.of("variant-1", "variant-4", "variant-5"), registry.getLoadedGameIds());
+        assertEquals(2, registry.getEvictions());
+
+        // An evicted game is loaded again
+        registry.getModel("variant-2");
+        assertEquals(3, registry.size());
+        assertEquals(6, registry.getLoads());
+        assertTrue(registry.invalidate("variant-2"));
+        assertFalse(registry.invalidate("variant-2"));
+    }
+
+    @Test
+    public void testGetModel_SharesTablesBetweenVariants() {
+        GameRegistry registry = new GameRegistry(directory);
+        GameModel first = registry.getModel("variant-1");
+        GameModel second = registry.getModel("variant-2");
+        GameModel rich = registry.getModel("rich");
+
+        assertNotEquals(first.getFingerprint(), second.getFingerprint());
+        assertSame(first.getDictionary(), second.getDictionary());
+        assertNotSame(first.getDictionary(), rich.getDictionary());
+        for (int cell = 0; cell < first.getCellCount(); cell++) {
+            assertSame(first.getCellTable(cell), second.getCellTable(cell));
+            assertSame(first.getCellTable(cell), rich.getCellTable(cell));
+            assertSame(first.getCellSymbols(cell), rich.getCellSymbols(cell));
+        }
+        // Every cell of the second and the third game
+        assertEquals(2 * 9, registry.getSharedTables());
+    }
+
+    @Test
+    public void testGetModel_LoadsConcurrentRequestsOnce() throws Exception {
+        GameRegistry registry = new GameRegistry(directory);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<GameService>> services = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                services.add(executor.submit(() -> registry.getService("variant-3")));
+            }
+            for (Future<GameService> service : services) {
+                assertSame(services.get(0).get(), service.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, registry.getLoads());
+    }
+
+    @Test
+    public void testGetModel_PrefersSnapshots() {
+        GameModel rich = GameModel.compile(JsonUtils.readGameConfig(directory.resolve("rich.json").toString()));
+        ModelSnapshot.write(rich, directory.resolve("variant-1.snapshot"));
+
+        GameRegistry registry = new GameRegistry(directory);
+        assertEquals(rich.getFingerprint(), registry.getModel("variant-1").getFingerprint());
+        assertEquals(7, registry.getGameIds().size());
+    }
+
+    @Test
+    public void testGetModel_RejectsUnknownAndBrokenGames() {
+        GameRegistry registry = new GameRegistry(directory);
+
+        assertThrows(InvalidArgumentException.class, () -> registry.getModel("missing"));
+        assertThrows(InvalidArgumentException.class, () -> registry.getModel("../variant-1"));
+        assertThrows(InvalidArgumentException.class, () -> registry.getModel(null));
+        ConfigurationException e = assertThrows(ConfigurationException.class, () -> registry.getModel("broken"));
+        assertTrue(e.getMessage().contains("undefined symbol C"), e.getMessage());
+        assertEquals(Set.of(), registry.getLoadedGameIds());
+        assertThrows(InvalidArgumentException.class, () -> new GameRegistry(directory, 0));
+    }
+}
@@ -0,0 +1,262 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.metrics.GameMetrics;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.GameResult;
+import com.scratchGame.models.Probability;
+import com.scratchGame.models.Symbol;
+import com.scratchGame.models.WinningCombination;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Plays one shared {@link GameService} from many threads at once.
+ */
+public class GameServiceConcurrencyTest {
+
+    private static final long SEED = 22;
+    private static final int THREADS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+    private Game gameConfig;
+
+    @BeforeEach
+    public void setUp() {
+        gameConfig = game(1);
+    }
+
+    /**
+     * Same symbol combinations only, so that {@link RtpCalculator} gives the exact return of the game.
+     */
+    private static Game game(double threeTimesMultiplier) {
+        Game game = new Game();
+        game.setRows(3);
+        game.setColumns(3);
+        game.setSymbols(Map.of(
+                "A", new Symbol("A", 5.0, 0, "standard", ""),
+                "B", new Symbol("B", 2.0, 0, "standard", ""),
+                "C", new Symbol("C", 1.0, 0, "standard", ""),
+                "10x", new Symbol("10x", 10.0, 0, "bonus", "multiply_reward"),
+                "+500", new Symbol("+500", 0.0, 500, "bonus", "extra_bonus"),
+                "MISS", new Symbol("MISS", 0.0, 0, "bonus", "miss")));
+        game.setProbabilities(new Probability(List.of(Map.of("A", 1, "B", 2, "C", 4)),
+                Map.of("10x", 1, "+500", 1, "MISS", 8)));
+        game.setWinCombinations(Map.of(
+                "same_symbol_3_times", new WinningCombination(EnumWinningCombinationType.same_symbol_3_times,
+                        threeTimesMultiplier, WinningCondition.same_symbols, WinningGroup.same_symbols, 3, null),
+                "same_symbol_5_times", new WinningCombination(EnumWinningCombinationType.same_symbol_5_times,
+                        2, WinningCondition.same_symbols, WinningGroup.same_symbols, 5, null)));
+        return game;
+    }
+
+    private GameService gameService(GameModel model, GameMetrics metrics) {
+        return new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(SEED)),
+                RewardCalculator.forModel(model), metrics);
+    }
+
+    @Test
+    public void testStartGame_ConcurrentRoundsAreNeverClaimedTwice() throws Exception {
+        GameMetrics metrics = new GameMetrics(1);
+        GameService gameService = gameService(GameModel.compile(gameConfig), metrics);
+        int roundsPerThread = 5_000;
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < roundsPerThread; i++) {
+                gameService.startGame(1);
+            }
+        });
+
+        // The next round claimed is the first one nobody played
+        long played = (long) THREADS * roundsPerThread;
+        assertEquals(played, gameService.playBatch(1, 1).getRound(0));
+        assertEquals(played + 1, metrics.getRounds());
+    }
+
+    @Test
+    public void testPlayBatch_ConcurrentBatchesMatchTheirReplay() throws Exception {
+        GameModel model = GameModel.compile(gameConfig);
+        GameService gameService = gameService(model, GameMetrics.DISABLED);
+        GameService replay = gameService(model, GameMetrics.DISABLED);
+        Set<Long> rounds = ConcurrentHashMap.newKeySet();
+        AtomicLong mismatches = new AtomicLong();
+
+        runConcurrently(THREADS, thread -> {
+            BatchResult batch = new BatchResult(256);
+            for (int i = 0; i < 20; i++) {
+                gameService.playBatch(batch, 1);
+                for (int ticket = 0; ticket < batch.size(); ticket++) {
+                    long round = batch.getRound(ticket);
+                    rounds.add(round);
+                    // Replayed single rounds, interleaved with the batches of the other threads
+                    if (round % 7 == 0 && replay.startGame(1, round).getReward() != batch.getReward(ticket)) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        assertEquals(0, mismatches.get());
+        assertEquals(THREADS * 20 * 256, rounds.size());
+        assertEquals(THREADS * 20 * 256 - 1, Collections.max(rounds));
+    }
+
+    @Test
+    public void testStartGame_ConcurrentRewardsMatchTheExactReturn() throws Exception {
+        GameModel model = GameModel.compile(gameConfig);
+        RtpReport report = new RtpCalculator(model).calculate();
+        assertTrue(report.isComplete());
+        GameService gameService = new GameService(gameConfig, MatrixGenerator.forModel(model),
+                RewardCalculator.forModel(model));
+        int roundsPerThread = 25_000;
+        double[] sums = new double[THREADS];
+        double[] squares = new double[THREADS];
+        long[] hits = new long[THREADS];
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < roundsPerThread; i++) {
+                double reward = gameService.startGame(1).getReward();
+                sums[thread] += reward;
+                squares[thread] += reward * reward;
+                hits[thread] += reward > 0 ? 1 : 0;
+            }
+        });
+
+        double rounds = (double) THREADS * roundsPerThread;
+        double mean = Arrays.stream(sums).sum() / rounds;
+        double variance = Arrays.stream(squares).sum() / rounds - mean * mean;
+        double hitRate = Arrays.stream(hits).sum() / rounds;
+        // Five standard errors: a correct engine fails about once in 1.7 million runs
+        assertEquals(report.getRtp(), mean, 5 * Math.sqrt(variance / rounds));
+        assertEquals(report.getHitRate(), hitRate, 5 * Math.sqrt(hitRate * (1 - hitRate) / rounds));
+    }
+
+    @Test
+    public void testPublish_ConcurrentRoundsUseOneModelEach() throws Exception {
+        GameModel first = GameModel.compile(gameConfig);
+        GameModel second = GameModel.compile(game(3));
+        GameService gameService = gameService(first, GameMetrics.DISABLED);
+        Map<Long, GameService> replays = Map.of(
+                first.getFingerprint(), gameService(first, GameMetrics.DISABLED),
+                second.getFingerprint(), gameService(second, GameMetrics.DISABLED));
+        AtomicLong mismatches = new AtomicLong();
+        AtomicLong played = new AtomicLong();
+        CountDownLatch playing = new CountDownLatch(THREADS);
+
+        Thread publisher = new Thread(() -> {
+            try {
+                playing.await();
+                for (int swap = 0; swap < 200; swap++) {
+                    gameService.publish(swap % 2 == 0 ? second : first);
+                    Thread.yield();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        publisher.start();
+        runConcurrently(THREADS, thread -> {
+            playing.countDown();
+            BatchResult batch = new BatchResult(64);
+            while (publisher.isAlive() || played.get() < 10_000) {
+                gameService.playBatch(batch, 1);
+                GameService replay = replays.get(batch.getFingerprint());
+                for (int ticket = 0; ticket < batch.size(); ticket++) {
+                    if (replay.startGame(1, batch.getRound(ticket)).getReward() != batch.getReward(ticket)) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+                GameResult result = gameService.startGame(1);
+                if (!replays.containsKey(result.getConfigVersion())) {
+                    mismatches.incrementAndGet();
+                }
+                played.addAndGet(batch.size() + 1);
+            }
+        });
+        publisher.join();
+
+        assertEquals(0, mismatches.get());
+        assertEquals(first.getFingerprint(), gameService.getModel().getFingerprint());
+    }
+
+    @Test
+    public void testPlayBatch_ThroughputScalesWithTheCores() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        assumeTrue(cores >= 2, "Scaling needs at least two cores");
+        GameService gameService = gameService(GameModel.compile(gameConfig), GameMetrics.DISABLED);
+        int threads = Math.min(cores, 8);
+
+        double single = 0;
+        double parallel = 0;
+        // Best of a few runs, the first ones also warm the play path up
+        for (int run = 0; run < 4; run++) {
+            single = Math.max(single, throughput(gameService, 1));
+            parallel = Math.max(parallel, throughput(gameService, threads));
+        }
+
+        double efficiency = parallel / (single * threads);
+        System.out.printf("Scaling: %.0f rounds/s on 1 thread, %.0f on %d threads, efficiency %.2f%n",
+                single, parallel, threads, efficiency);
+        // Roughly linear, leaving room for cores shared with the rest of the machine
+        assertTrue(efficiency >= 0.5, "Efficiency " + efficiency + " on " + threads + " threads");
+    }
+
+    /**
+     * @return the rounds per second played by the threads, each one playing the same number of rounds
+     */
+    private static double throughput(GameService gameService, int threads) throws Exception {
+        int batches = 400;
+        long start = System.nanoTime();
+        runConcurrently(threads, thread -> {
+            BatchResult batch = new BatchResult(GameService.DEFAULT_BATCH_TICKETS);
+            for (int i = 0; i < batches; i++) {
+                gameService.playBatch(batch, 1);
+            }
+        });
+        return (double) threads * batches * GameService.DEFAULT_BATCH_TICKETS * 1e9 / (System.nanoTime() - start);
+    }
+
+    /**
+     * Starts the threads together and waits for every one of them, rethrowing the first failure.
+     */
+    private static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier start = new CyclicBarrier(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int index = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get(2, TimeUnit.MINUTES);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -1,10 +1,16 @@
 package com.scratchGame.service;
 
 import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
 import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.metrics.GameMetrics;
+import com.scratchGame.models.Board;
 import com.scratchGame.models.Game;
 import com.scratchGame.models.GameResult;
 import com.scratchGame.models.Symbol;
+import com.scratchGame.models.WinningCombination;
+import com.scratchGame.utils.JsonUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -21,21 +27,6 @@ public class GameServiceTest {
 
     @BeforeEach
     public void setUp() {
-        // Mock MatrixGenerator and RewardCalculator
-        matrixGenerator = new MatrixGenerator(new Game()); // Just for initialization
-        rewardCalculator = new RewardCalculator(new Game()) {
-            @Override
-            public double calculateReward(EnumWinningCombinationType combinationType, List<List<String>> matrix) throws InvalidArgumentException {
-                // Simple reward calculation for testing
-                return switch (combinationType) {
-                    case same_symbol_3_times -> 10;
-                    case same_symbol_4_times -> 20;
-                    case same_symbol_5_times -> 30;
-                    default -> 0;
-                };
-            }
-        };
-
         gameConfig = new Game();
         gameConfig.setRows(3);
         gameConfig.setColumns(3);
@@ -43,10 +34,27 @@ public class GameServiceTest {
                 "A", new Symbol("A", 2.0, 1, "typeA", "impactA"),
                 "B", new Symbol("B", 1.5, 2, "typeB", "impactB"),
                 "C", new Symbol("C", 1.0, 0, "typeC", "impactC"),
-                "10x", new Symbol("10x", 0, 0, "bonus", "multiply"),
-                "+1000", new Symbol("+1000", 0, 0, "bonus", "extra")
+                "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward"),
+                "+1000", new Symbol("+1000", 0, 1000, "bonus", "extra_bonus")
         ));
+        // Only configured winning combinations are evaluated
+        Map<String, WinningCombination> winCombinations = new HashMap<>();
+        for (int count = 3; count <= 5; count++) {
+            EnumWinningCombinationType type = EnumWinningCombinationType.valueOf("same_symbol_" + count + "_times");
+            winCombinations.put(type.name(), new WinningCombination(type, 1, WinningCondition.same_symbols,
+                    WinningGroup.same_symbols, count, null));
+        }
+        winCombinations.put("same_symbols_horizontally", new WinningCombination(EnumWinningCombinationType.same_symbols_horizontally,
+                2, WinningCondition.linear_symbols, WinningGroup.horizontally_linear_symbols, 0, null));
+        winCombinations.put("same_symbols_vertically", new WinningCombination(EnumWinningCombinationType.same_symbols_vertically,
+                2, WinningCondition.linear_symbols, WinningGroup.vertically_linear_symbols, 0, null));
+        winCombinations.put("same_symbols_diagonally_left_to_right", new WinningCombination(EnumWinningCombinationType.same_symbols_diagonally_left_to_right,
+                5, WinningCondition.linear_symbols, WinningGroup.ltr_diagonally_linear_symbols, 0, null));
+        winCombinations.put("same_symbols_diagonally_right_to_left", new WinningCombination(EnumWinningCombinationType.same_symbols_diagonally_right_to_left,
+                5, WinningCondition.linear_symbols, WinningGroup.rtl_diagonally_linear_symbols, 0, null));
+        gameConfig.setWinCombinations(winCombinations);
 
+        rewardCalculator = stubRewardCalculator(gameConfig);
         matrixGenerator = new MatrixGenerator(gameConfig);
         gameService = new GameService(gameConfig, matrixGenerator, rewardCalculator);
     }
@@ -61,8 +69,8 @@ public class GameServiceTest {
         );
         MatrixGenerator mockMatrixGenerator = new MatrixGenerator(gameConfig) {
             @Override
-            public List<List<String>> generateMatrix() {
-                return matrix;
+            public Board generateBoard() {
+                return Board.fromMatrix(getDictionary(), matrix);
             }
         };
         gameService = new GameService(gameConfig, mockMatrixGenerator, rewardCalculator);
@@ -85,8 +93,8 @@ public class GameServiceTest {
         );
         MatrixGenerator mockMatrixGenerator = new MatrixGenerator(gameConfig) {
             @Override
-            public List<List<String>> generateMatrix() {
-                return matrix;
+            public Board generateBoard() {
+                return Board.fromMatrix(getDictionary(), matrix);
             }
         };
         gameService = new GameService(gameConfig, mockMatrixGenerator, rewardCalculator);
@@ -109,8 +117,8 @@ public class GameServiceTest {
         );
         MatrixGenerator mockMatrixGenerator = new MatrixGenerator(gameConfig) {
             @Override
-            public List<List<String>> generateMatrix() {
-                return matrix;
+            public Board generateBoard() {
+                return Board.fromMatrix(getDictionary(), matrix);
             }
         };
         gameService = new GameService(gameConfig, mockMatrixGenerator, rewardCalculator);
@@ -127,7 +135,7 @@ public class GameServiceTest {
     public void testStartGame_HandlingExceptions() {
         MatrixGenerator mockMatrixGenerator = new MatrixGenerator(gameConfig) {
             @Override
-            public List<List<String>> generateMatrix() {
+            public Board generateBoard() {
                 throw new RuntimeException("Matrix generation failed");
             }
         };
@@ -148,6 +156,36 @@ public class GameServiceTest {
                 "Constructor should throw exception for null RewardCalculator");
     }
 
+    @Test
+    public void testConstructor_ComponentsOfAnotherConfiguration() {
+        Game other = new Game();
+        other.setRows(2);
+        other.setColumns(2);
+        other.setSymbols(gameConfig.getSymbols());
+        other.setProbabilities(gameConfig.getProbabilities());
+        other.setWinCombinations(gameConfig.getWinCombinations());
+
+        assertThrows(InvalidArgumentException.class,
+                () -> new GameService(gameConfig, matrixGenerator, new RewardCalculator(other)),
+                "Constructor should reject a calculator compiled from another configuration");
+    }
+
+    @Test
+    public void testForModel_PlaysTheModel() {
+        GameModel model = GameModel.compile(gameConfig);
+        GameService first = GameService.forModel(model, new SplitMixRandom(7), GameMetrics.DISABLED);
+        GameService second = GameService.forModel(model, new SplitMixRandom(7), GameMetrics.DISABLED);
+
+        assertSame(model, first.getModel());
+        for (long round = 0; round < 100; round++) {
+            GameResult expected = first.startGame(10, round);
+            GameResult actual = second.startGame(10, round);
+            assertEquals(expected.getMatrix(), actual.getMatrix());
+            assertEquals(expected.getReward(), actual.getReward());
+        }
+        assertSame(model, GameService.forModel(model).getModel());
+    }
+
     @Test
     public void testStartGame_MultipleBonuses() {
         // Prepare a matrix with multiple bonus symbols
@@ -158,8 +196,8 @@ public class GameServiceTest {
         );
         MatrixGenerator mockMatrixGenerator = new MatrixGenerator(gameConfig) {
             @Override
-            public List<List<String>> generateMatrix() {
-                return matrix;
+            public Board generateBoard() {
+                return Board.fromMatrix(getDictionary(), matrix);
             }
         };
         gameService = new GameService(gameConfig, mockMatrixGenerator, rewardCalculator);
@@ -182,8 +220,8 @@ public class GameServiceTest {
         );
         MatrixGenerator mockMatrixGenerator = new MatrixGenerator(gameConfig) {
             @Override
-            public List<List<String>> generateMatrix() {
-                return matrix;
+            public Board generateBoard() {
+                return Board.fromMatrix(getDictionary(), matrix);
             }
         };
         gameService = new GameService(gameConfig, mockMatrixGenerator, rewardCalculator);
@@ -206,8 +244,8 @@ public class GameServiceTest {
         );
         MatrixGenerator mockMatrixGenerator = new MatrixGenerator(gameConfig) {
             @Override
-            public List<List<String>> generateMatrix() {
-                return matrix;
+            public Board generateBoard() {
+                return Board.fromMatrix(getDictionary(), matrix);
             }
         };
         gameService = new GameService(gameConfig, mockMatrixGenerator, rewardCalculator);
@@ -219,4 +257,83 @@ public class GameServiceTest {
         assertEquals(16000, result.getReward()); // Example calculation, adjust as needed
         assertEquals(List.of("10x", "+1000"), result.getAppliedBonusSymbol());
     }
+
+    @Test
+    public void testStartGame_ConfiguredBonusSymbols() {
+        // Bonus symbols that only exist in the configuration, each bonus cell applies its own impact
+        Map<String, Symbol> symbols = new HashMap<>(gameConfig.getSymbols());
+        symbols.put("3x", new Symbol("3x", 3, 0, "bonus", "multiply_reward"));
+        symbols.put("+250", new Symbol("+250", 0, 250, "bonus", "extra_bonus"));
+        symbols.put("MISS", new Symbol("MISS", 0, 0, "bonus", "miss"));
+        gameConfig.setSymbols(symbols);
+        List<List<String>> matrix = Arrays.asList(
+                Arrays.asList("A", "10x", "3x"),
+                Arrays.asList("+250", "A", "+1000"),
+                Arrays.asList("A", "MISS", "B")
+        );
+        MatrixGenerator mockMatrixGenerator = new MatrixGenerator(gameConfig) {
+            @Override
+            public Board generateBoard() {
+                return Board.fromMatrix(getDictionary(), matrix);
+            }
+        };
+        // The calculator is compiled from the same configuration as the generator
+        gameService = new GameService(gameConfig, mockMatrixGenerator, stubRewardCalculator(gameConfig));
+
+        GameResult result = gameService.startGame(10);
+
+        assertEquals((10 * 10 * 3 + 250 + 1000) * 10, result.getReward(), 0.001);
+        assertEquals(List.of("10x", "3x", "+250", "+1000", "MISS"), result.getAppliedBonusSymbol());
+    }
+
+    @Test
+    public void testPublish_SwapsTheModelBetweenRounds() {
+        Game sample = JsonUtils.readGameConfig("src/main/resources/config.json");
+        GameModel first = GameModel.compile(sample);
+        sample.setRows(4);
+        GameModel second = GameModel.compile(sample);
+        gameService = new GameService(sample, MatrixGenerator.forModel(first, new SplitMixRandom(9)),
+                RewardCalculator.forModel(first));
+
+        GameResult before = gameService.startGame(1);
+        assertEquals(first.getFingerprint(), before.getConfigVersion());
+        assertSame(first, gameService.publish(second));
+        assertSame(second, gameService.getModel());
+
+        // The round counter carries over to the new model
+        GameResult after = gameService.startGame(1);
+        assertEquals(second.getFingerprint(), after.getConfigVersion());
+        assertEquals(4, after.getMatrix().size());
+        GameService replay = new GameService(sample, MatrixGenerator.forModel(second, new SplitMixRandom(9)),
+                RewardCalculator.forModel(second));
+        assertEquals(replay.startGame(1, 1).getMatrix(), after.getMatrix());
+        assertEquals(4, gameService.newBoard().getRows());
+
+        // A batch in flight finishes on the model it started with
+        List<Long> fingerprints = new ArrayList<>();
+        gameService.playBatch(3000L, 1, batch -> {
+            fingerprints.add(batch.getFingerprint());
+            gameService.publish(first);
+        });
+        assertEquals(List.of(second.getFingerprint(), first.getFingerprint(), first.getFingerprint()), fingerprints);
+        assertThrows(InvalidArgumentException.class, () -> gameService.publish(null));
+    }
+
+    /**
+     * Mock RewardCalculator compiled from the configuration, paying the same symbol combinations only.
+     */
+    private static RewardCalculator stubRewardCalculator(Game gameConfig) {
+        return new RewardCalculator(gameConfig) {
+            @Override
+            public double calculateSymbolReward(EnumWinningCombinationType combinationType, int symbol, int symbolCount) throws InvalidArgumentException {
+                // Simple reward calculation for testing
+                return switch (combinationType) {
+                    case same_symbol_3_times -> 10;
+                    case same_symbol_4_times -> 20;
+                    case same_symbol_5_times -> 30;
+                    default -> 0;
+                };
+            }
+        };
+    }
 }
@@ -0,0 +1,164 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.Symbol;
+import com.scratchGame.models.SymbolDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineEvaluatorTest {
+
+    private SymbolDictionary dictionary;
+
+    @BeforeEach
+    public void setUp() {
+        Game game = new Game();
+        game.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "B", new Symbol("B", 1.5, 0, "standard", ""),
+                "C", new Symbol("C", 1.0, 0, "standard", "")
+        ));
+        dictionary = SymbolDictionary.of(game);
+    }
+
+    @Test
+    public void testFindLineSymbols_AllDirections() {
+        Board board = Board.fromMatrix(dictionary, List.of(
+                List.of("A", "B", "C", "C"),
+                List.of("C", "A", "C", "B"),
+                List.of("C", "C", "A", "B"),
+                List.of("C", "A", "C", "B")
+        ));
+        LineEvaluator evaluator = new LineEvaluator(4, 4);
+        long[] masks = evaluator.symbolMasks(board);
+
+        assertArrayEquals(new int[0], evaluator.findLineSymbols(board, masks, WinningGroup.horizontally_linear_symbols));
+        assertArrayEquals(ids("C", "B"), evaluator.findLineSymbols(board, masks, WinningGroup.vertically_linear_symbols));
+        assertArrayEquals(ids("A", "C"), evaluator.findLineSymbols(board, masks, WinningGroup.ltr_diagonally_linear_symbols));
+        assertArrayEquals(ids("C"), evaluator.findLineSymbols(board, masks, WinningGroup.rtl_diagonally_linear_symbols));
+    }
+
+    @Test
+    public void testBitboardMatchesCellScan() {
+        SplittableRandom random = new SplittableRandom(7);
+        int[][] sizes = {{3, 3}, {4, 4}, {5, 5}, {3, 5}, {5, 3}, {8, 8}};
+        for (int[] size : sizes) {
+            LineEvaluator evaluator = new LineEvaluator(size[0], size[1]);
+            for (int round = 0; round < 2_000; round++) {
+                Board board = new Board(dictionary, size[0], size[1]);
+                for (int cell = 0; cell < board.size(); cell++) {
+                    board.set(cell, 1 + random.nextInt(dictionary.size() - 1));
+                }
+                long[] masks = evaluator.symbolMasks(board);
+                for (WinningGroup group : WinningGroup.values()) {
+                    if (group == WinningGroup.same_symbols) {
+                        continue;
+                    }
+                    assertArrayEquals(evaluator.findLineSymbols(board, null, group),
+                            evaluator.findLineSymbols(board, masks, group),
+                            "Bitboard and cell scan disagree for " + group + " on " + Arrays.deepToString(board.toMatrix().toArray()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRunLengths_MatchABruteForceScan() {
+        SplittableRandom random = new SplittableRandom(23);
+        int[][] sizes = {{1, 20}, {20, 1}, {2, 7}, {7, 2}, {4, 9}, {9, 4}, {8, 8}, {12, 9}, {5, 31}};
+        WinningGroup[] groups = {WinningGroup.horizontally_linear_symbols, WinningGroup.vertically_linear_symbols,
+                WinningGroup.ltr_diagonally_linear_symbols, WinningGroup.rtl_diagonally_linear_symbols};
+        for (int[] size : sizes) {
+            for (int configuration = 0; configuration < 20; configuration++) {
+                WinningRule[] rules = new WinningRule[groups.length];
+                for (int i = 0; i < groups.length; i++) {
+                    rules[i] = new WinningRule(EnumWinningCombinationType.same_symbols_horizontally,
+                            WinningCondition.linear_symbols, groups[i], 2 + random.nextInt(6), 1, new double[0]);
+                }
+                LineEvaluator evaluator = new LineEvaluator(size[0], size[1], rules);
+                assertEquals(Arrays.stream(rules).mapToInt(WinningRule::getRunLength).min().orElseThrow(),
+                        evaluator.getMinimumRunLength());
+                for (int round = 0; round < 50; round++) {
+                    Board board = new Board(dictionary, size[0], size[1]);
+                    for (int cell = 0; cell < board.size(); cell++) {
+                        // Two symbols, so that long runs are common
+                        board.set(cell, 1 + random.nextInt(2));
+                    }
+                    long[] masks = evaluator.symbolMasks(board);
+                    for (WinningRule rule : rules) {
+                        int[] expected = bruteForce(board, rule.getGroup(), rule.getRunLength());
+                        assertArrayEquals(expected, evaluator.findLineSymbols(board, null, rule.getGroup()),
+                                "Scan of " + rule + " on " + board.toMatrix());
+                        if (masks != null) {
+                            assertArrayEquals(expected, evaluator.findLineSymbols(board, masks, rule.getGroup()),
+                                    "Bitboard of " + rule + " on " + board.toMatrix());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testForBoard_KeepsTheRunLengths() {
+        WinningRule rule = new WinningRule(EnumWinningCombinationType.same_symbols_vertically,
+                WinningCondition.linear_symbols, WinningGroup.vertically_linear_symbols, 5, 1, new double[0]);
+        LineEvaluator evaluator = new LineEvaluator(3, 3, new WinningRule[]{rule});
+        Board board = new Board(dictionary, 6, 2);
+        for (int row = 0; row < 6; row++) {
+            board.set(row * 2, dictionary.idOf(row < 4 ? "A" : "B"));
+            board.set(row * 2 + 1, dictionary.idOf("C"));
+        }
+
+        LineEvaluator resized = LineEvaluator.forBoard(evaluator, board);
+        assertEquals(5, resized.getRunLength(WinningGroup.vertically_linear_symbols));
+        assertEquals(LineEvaluator.RUN_LENGTH, resized.getRunLength(WinningGroup.horizontally_linear_symbols));
+        assertArrayEquals(ids("C"), resized.findLineSymbols(board, resized.symbolMasks(board),
+                WinningGroup.vertically_linear_symbols));
+    }
+
+    /**
+     * Checks the cells of every possible line one by one, in the scan order of {@link LineEvaluator}.
+     */
+    private static int[] bruteForce(Board board, WinningGroup group, int runLength) {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        int rowStep = group == WinningGroup.horizontally_linear_symbols ? 0 : 1;
+        int columnStep = switch (group) {
+            case horizontally_linear_symbols, ltr_diagonally_linear_symbols -> 1;
+            case rtl_diagonally_linear_symbols -> -1;
+            default -> 0;
+        };
+        boolean columnMajor = group == WinningGroup.vertically_linear_symbols;
+        Set<Integer> symbols = new LinkedHashSet<>();
+        for (int i = 0; i < (columnMajor ? columns : rows); i++) {
+            for (int j = 0; j < (columnMajor ? rows : columns); j++) {
+                int row = columnMajor ? j : i;
+                int column = columnMajor ? i : j;
+                int symbol = board.get(row * columns + column);
+                boolean line = true;
+                for (int k = 1; k < runLength && line; k++) {
+                    int r = row + k * rowStep;
+                    int c = column + k * columnStep;
+                    line = r < rows && c >= 0 && c < columns && board.get(r * columns + c) == symbol;
+                }
+                if (line && row + (runLength - 1) * rowStep < rows && symbol != SymbolDictionary.BLANK) {
+                    symbols.add(symbol);
+                }
+            }
+        }
+        return symbols.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int[] ids(String... names) {
+        return Arrays.stream(names).mapToInt(dictionary::idOf).toArray();
+    }
+}
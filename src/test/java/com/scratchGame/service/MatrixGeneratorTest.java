@@ -1,13 +1,18 @@
 package com.scratchGame.service;
 
+import com.scratchGame.models.Board;
+import com.scratchGame.models.CellProbability;
 import com.scratchGame.models.Game;
 import com.scratchGame.models.Probability;
 import com.scratchGame.models.Symbol;
+import com.scratchGame.models.SymbolDictionary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -60,6 +65,20 @@ public class MatrixGeneratorTest {
         }
     }
 
+    @Test
+    public void testGenerateBoard_UsesDictionaryIds() {
+        Board board = matrixGenerator.generateBoard();
+        SymbolDictionary dictionary = matrixGenerator.getDictionary();
+
+        assertEquals(3, board.getRows());
+        assertEquals(3, board.getColumns());
+        List<List<String>> matrix = board.toMatrix();
+        for (int cell = 0; cell < board.size(); cell++) {
+            String name = matrix.get(cell / 3).get(cell % 3);
+            assertEquals(dictionary.idOf(name), board.get(cell), "Board cells should hold the interned id of the rendered symbol");
+        }
+    }
+
     @Test
     public void testGenerateMatrix_EmptySymbols() {
         Game gameConfigWithNoSymbols = new Game();
@@ -124,8 +143,90 @@ public class MatrixGeneratorTest {
         }
     }
 
+    @Test
+    public void testGenerateMatrix_UsesCellPositions() {
+        Probability probability = new Probability(
+                List.of(Map.of("A", 1), Map.of("C", 1)),
+                Map.of()
+        );
+        probability.setCellProbabilities(List.of(
+                new CellProbability(0, 0, Map.of("A", 1)),
+                new CellProbability(2, 1, Map.of("C", 1))
+        ));
+        gameConfig.setProbabilities(probability);
+        matrixGenerator = new MatrixGenerator(gameConfig);
+
+        for (int round = 0; round < 50; round++) {
+            List<List<String>> matrix = matrixGenerator.generateMatrix();
+            assertEquals("A", matrix.get(0).get(0), "Cell 0:0 should only draw from its own weights");
+            assertEquals("C", matrix.get(1).get(2), "Cell 1:2 should only draw from its own weights");
+        }
+    }
+
+    @Test
+    public void testAliasTable_MatchesWeights() {
+        int[] weights = {1, 0, 3, 6};
+        AliasTable table = new AliasTable(weights);
+        SplittableRandom random = new SplittableRandom(42);
+        int draws = 200_000;
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < draws; i++) {
+            counts[table.sample(random.nextLong())]++;
+        }
+
+        assertEquals(0, counts[1], "Zero weight outcome should never be drawn");
+        assertEquals(0.1, counts[0] / (double) draws, 0.01);
+        assertEquals(0.3, counts[2] / (double) draws, 0.01);
+        assertEquals(0.6, counts[3] / (double) draws, 0.01);
+    }
+
     @Test
     public void testConstructor_NullGameConfig() {
         assertThrows(NullPointerException.class, () -> new MatrixGenerator(null), "MatrixGenerator should throw InvalidArgumentException for null game config");
     }
+
+    @Test
+    public void testGenerateBoard_ReproducibleBySeedAndRound() {
+        GameModel model = GameModel.compile(gameConfig);
+        MatrixGenerator generator = MatrixGenerator.forModel(model, new SplitMixRandom(7));
+        List<List<List<String>>> sequential = new ArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            sequential.add(generator.generateMatrix());
+        }
+
+        // Any round can be regenerated directly, by another generator with the same seed
+        MatrixGenerator replay = MatrixGenerator.forModel(model, new SplitMixRandom(7));
+        for (int round = 19; round >= 0; round--) {
+            assertEquals(sequential.get(round), replay.generateBoard(round).toMatrix(), "Round " + round);
+        }
+        Board board = replay.generateBoard(12);
+        assertSame(board, replay.generateBoard(board, 12));
+        assertEquals(sequential.get(12), board.toMatrix());
+
+        MatrixGenerator otherSeed = MatrixGenerator.forModel(model, new SplitMixRandom(8));
+        boolean differs = false;
+        for (int round = 0; round < 20; round++) {
+            differs |= !sequential.get(round).equals(otherSeed.generateBoard(round).toMatrix());
+        }
+        assertTrue(differs, "Another seed should draw other boards");
+    }
+
+    @Test
+    public void testSplitMixRandom_UniformBits() {
+        SplitMixRandom random = new SplitMixRandom(1);
+        int[] ones = new int[Long.SIZE];
+        int draws = 0;
+        for (long round = 0; round < 2000; round++) {
+            long roundKey = random.roundKey(round);
+            for (int draw = 0; draw < 10; draw++, draws++) {
+                long bits = random.bits(roundKey, draw);
+                for (int bit = 0; bit < Long.SIZE; bit++) {
+                    ones[bit] += (int) (bits >>> bit) & 1;
+                }
+            }
+        }
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            assertEquals(0.5, (double) ones[bit] / draws, 0.03, "Bit " + bit);
+        }
+    }
 }
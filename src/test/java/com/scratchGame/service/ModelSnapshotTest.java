@@ -0,0 +1,122 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.ConfigurationException;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.GameResult;
+import com.scratchGame.models.Probability;
+import com.scratchGame.utils.JsonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModelSnapshotTest {
+
+    private static final String CONFIG = "src/main/resources/config.json";
+
+    @TempDir
+    Path directory;
+
+    private Game gameConfig;
+    private GameModel model;
+    private Path snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        gameConfig = JsonUtils.readGameConfig(CONFIG);
+        // Only the first cell keeps its own weights, the others share the pooled ones
+        Probability probabilities = gameConfig.getProbabilities();
+        probabilities.setCellProbabilities(probabilities.getCellProbabilities().subList(0, 1));
+        model = GameModel.compile(gameConfig);
+        snapshot = directory.resolve("config.snapshot");
+        ModelSnapshot.write(model, snapshot);
+    }
+
+    @Test
+    public void testRead_RestoresTheCompiledModel() {
+        GameModel restored = ModelSnapshot.read(snapshot);
+
+        assertEquals(model.getFingerprint(), restored.getFingerprint());
+        assertEquals(model.toString(), restored.toString());
+        for (int cell = 0; cell < model.getCellCount(); cell++) {
+            assertArrayEquals(model.getCellSymbols(cell), restored.getCellSymbols(cell));
+            assertArrayEquals(model.getCellWeights(cell), restored.getCellWeights(cell));
+            assertEquals(model.getCellTable(cell).toString(), restored.getCellTable(cell).toString());
+        }
+        // Cells sharing their weights still share one table
+        for (int cell = 1; cell < model.getCellCount(); cell++) {
+            assertEquals(model.getCellTable(cell - 1) == model.getCellTable(cell),
+                    restored.getCellTable(cell - 1) == restored.getCellTable(cell), "cell " + cell);
+        }
+
+        GameService original = new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(3)),
+                RewardCalculator.forModel(model));
+        GameService loaded = new GameService(gameConfig, MatrixGenerator.forModel(restored, new SplitMixRandom(3)),
+                RewardCalculator.forModel(restored));
+        for (long round = 0; round < 2000; round++) {
+            GameResult expected = original.startGame(100, round);
+            GameResult actual = loaded.startGame(100, round);
+            assertEquals(expected.getMatrix(), actual.getMatrix());
+            assertEquals(expected.getReward(), actual.getReward());
+            assertEquals(expected.getAppliedWinningCombinations(), actual.getAppliedWinningCombinations());
+            assertEquals(expected.getAppliedBonusSymbol(), actual.getAppliedBonusSymbol());
+        }
+    }
+
+    @Test
+    public void testIsSnapshot_TellsSnapshotsFromConfigurations() {
+        assertTrue(ModelSnapshot.isSnapshot(snapshot));
+        assertFalse(ModelSnapshot.isSnapshot(Path.of(CONFIG)));
+        assertFalse(ModelSnapshot.isSnapshot(directory.resolve("missing")));
+        assertThrows(ConfigurationException.class, () -> ModelSnapshot.read(Path.of(CONFIG)));
+        assertThrows(ConfigurationException.class, () -> ModelSnapshot.read(directory.resolve("missing")));
+    }
+
+    @Test
+    public void testRead_RejectsCorruptedSnapshots() throws Exception {
+        byte[] bytes = Files.readAllBytes(snapshot);
+
+        // One flipped bit of a weight
+        overwrite(bytes.length / 2, (byte) (bytes[bytes.length / 2] ^ 1));
+        assertRejected("checksum mismatch");
+
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 1));
+        assertRejected("truncated");
+
+        Files.write(snapshot, bytes);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Short.BYTES).putShort(0, (short) (ModelSnapshot.VERSION + 1)),
+                    ModelSnapshot.VERSION_OFFSET);
+        }
+        assertRejected("version");
+
+        Files.write(snapshot, bytes);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, model.getFingerprint() + 1),
+                    ModelSnapshot.FINGERPRINT_OFFSET);
+        }
+        assertRejected("does not restore");
+
+        Files.write(snapshot, bytes);
+        assertEquals(model.getFingerprint(), ModelSnapshot.read(snapshot).getFingerprint());
+    }
+
+    private void overwrite(long position, byte value) throws Exception {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{value}), position);
+        }
+    }
+
+    private void assertRejected(String message) {
+        ConfigurationException e = assertThrows(ConfigurationException.class, () -> ModelSnapshot.read(snapshot));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}
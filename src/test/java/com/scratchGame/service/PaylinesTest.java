@@ -0,0 +1,80 @@
+package com.scratchGame.service;
+
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.Symbol;
+import com.scratchGame.models.SymbolDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaylinesTest {
+
+    private final SymbolDictionary dictionary = SymbolDictionary.of(List.of("A", "B", "10x"), Map.of(
+            "A", new Symbol("A", 2.0, 0, "standard", ""),
+            "B", new Symbol("B", 1.0, 0, "standard", ""),
+            "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward")));
+
+    @Test
+    public void testConstructor_CompilesTheCellsOfEveryLine() {
+        Paylines paylines = new Paylines(new int[][]{{2, 0, 1, 0}, {4, 8}, {8, 4, 0, 6}}, 9);
+
+        assertEquals(3, paylines.size());
+        assertArrayEquals(new int[]{0, 1, 2}, paylines.getCells(0));
+        assertArrayEquals(new int[]{4, 8}, paylines.getCells(1));
+        assertArrayEquals(new int[]{0, 4, 6, 8}, paylines.getCells(2));
+        assertEquals(2, paylines.getMinimumLength());
+        assertEquals(1, paylines.getWords());
+        assertEquals(2, new Paylines(new int[][]{{0, 99}}, 100).getWords());
+    }
+
+    @Test
+    public void testAnyWon_LinesAcrossSeveralWords() {
+        // Cells 60 to 70 of a 10x10 board, across the first two words
+        int[] line = new int[11];
+        Arrays.setAll(line, i -> 60 + i);
+        Paylines paylines = new Paylines(new int[][]{line, {0, 99}}, 100);
+        long[] masks = new long[2 * paylines.getWords()];
+
+        masks[0] = -1L << 60;
+        masks[1] = (1L << 7) - 1;
+        assertTrue(paylines.anyWon(masks, 0));
+        masks[1] = (1L << 6) - 1;
+        assertFalse(paylines.anyWon(masks, 0));
+        masks[2] = 1;
+        masks[3] = 1L << 35;
+        assertTrue(paylines.anyWon(masks, 2));
+    }
+
+    @Test
+    public void testFirstWinningSymbol_InConfigurationOrder() {
+        Paylines paylines = new Paylines(new int[][]{{0, 4, 8}, {6, 7, 8}, {0, 1, 2}}, 9);
+        Board board = board("B", "B", "B",
+                "A", "A", "10x",
+                "A", "A", "A");
+
+        assertEquals(dictionary.idOf("A"), paylines.firstWinningSymbol(board));
+        board.set(7, dictionary.idOf("B"));
+        assertEquals(dictionary.idOf("B"), paylines.firstWinningSymbol(board));
+        board.set(1, SymbolDictionary.BLANK);
+        assertEquals(SymbolDictionary.BLANK, paylines.firstWinningSymbol(board));
+        assertThrows(InvalidArgumentException.class, () -> paylines.firstWinningSymbol(new Board(dictionary, 2, 2)));
+    }
+
+    @Test
+    public void testConstructor_InvalidArguments() {
+        assertThrows(InvalidArgumentException.class, () -> new Paylines(new int[][]{{0, 1}, {}}, 9));
+        assertThrows(InvalidArgumentException.class, () -> new Paylines(new int[][]{{0, 9}}, 9));
+        assertThrows(InvalidArgumentException.class, () -> new Paylines(new int[][]{{-1, 0}}, 9));
+    }
+
+    private Board board(String... names) {
+        Board board = new Board(dictionary, 3, 3);
+        for (int cell = 0; cell < names.length; cell++) {
+            board.set(cell, dictionary.idOf(names[cell]));
+        }
+        return board;
+    }
+}
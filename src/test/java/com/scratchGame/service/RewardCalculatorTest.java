@@ -7,6 +7,7 @@ import com.scratchGame.exceptions.InvalidArgumentException;
 import com.scratchGame.models.Game;
 import com.scratchGame.models.Probability;
 import com.scratchGame.models.Symbol;
+import com.scratchGame.models.SymbolDictionary;
 import com.scratchGame.models.WinningCombination;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -160,6 +161,33 @@ public class RewardCalculatorTest {
         assertEquals(6.0 * 2.0, reward, 0.001); // baseRewardMultiplier * symbolMultiplier
     }
 
+    @Test
+    public void testCalculateReward_FirstConfiguredPaylinePays() {
+        game.getWinCombinations().get(EnumWinningCombinationType.same_symbols_horizontally.name())
+                .setCoveredAreas(List.of(List.of("0:0", "1:1", "0:2"), List.of("2:0", "2:1", "2:2")));
+        RewardCalculator calculator = new RewardCalculator(game);
+        List<List<String>> matrix = Arrays.asList(
+                Arrays.asList("B", "A", "B"),
+                Arrays.asList("A", "B", "A"),
+                Arrays.asList("A", "A", "A")
+        );
+
+        assertEquals(4.0 * 1.5, calculator.calculateReward(EnumWinningCombinationType.same_symbols_horizontally, matrix), 0.001);
+        // The first row of "A" is not one of the paylines
+        matrix.set(1, Arrays.asList("A", "C", "A"));
+        assertEquals(4.0 * 2.0, calculator.calculateReward(EnumWinningCombinationType.same_symbols_horizontally, matrix), 0.001);
+        matrix.set(2, Arrays.asList("A", "C", "A"));
+        assertEquals(0.0, calculator.calculateReward(EnumWinningCombinationType.same_symbols_horizontally, matrix), 0.001);
+    }
+
+    @Test
+    public void testCalculateSymbolReward() {
+        SymbolDictionary symbols = SymbolDictionary.of(game);
+
+        assertEquals(5.0 * 2.0 * 4, rewardCalculator.calculateSymbolReward(EnumWinningCombinationType.same_symbol_3_times, symbols.idOf("A"), 4), 0.001);
+        assertEquals(4.0 * 1.5, rewardCalculator.calculateSymbolReward(EnumWinningCombinationType.same_symbols_horizontally, symbols.idOf("B"), 3), 0.001);
+    }
+
     @Test
     public void testCalculateReward_NullArguments() {
         assertThrows(InvalidArgumentException.class, () -> rewardCalculator.calculateReward(null, null));
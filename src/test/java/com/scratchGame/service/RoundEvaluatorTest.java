@@ -0,0 +1,300 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.models.Board;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.Symbol;
+import com.scratchGame.models.SymbolDictionary;
+import com.scratchGame.models.WinningCombination;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoundEvaluatorTest {
+
+    private static final EnumWinningCombinationType[] LINE_TYPES = {
+            EnumWinningCombinationType.same_symbols_horizontally,
+            EnumWinningCombinationType.same_symbols_vertically,
+            EnumWinningCombinationType.same_symbols_diagonally_left_to_right,
+            EnumWinningCombinationType.same_symbols_diagonally_right_to_left
+    };
+    private static final WinningGroup[] LINE_GROUPS = {
+            WinningGroup.horizontally_linear_symbols,
+            WinningGroup.vertically_linear_symbols,
+            WinningGroup.ltr_diagonally_linear_symbols,
+            WinningGroup.rtl_diagonally_linear_symbols
+    };
+
+    private Game game;
+    private SymbolDictionary dictionary;
+
+    @BeforeEach
+    public void setUp() {
+        game = new Game();
+        game.setRows(3);
+        game.setColumns(3);
+        game.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "B", new Symbol("B", 1.5, 0, "standard", ""),
+                "C", new Symbol("C", 1.0, 0, "standard", ""),
+                "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward"),
+                "+500", new Symbol("+500", 0, 500, "bonus", "extra_bonus")
+        ));
+        Map<String, WinningCombination> winCombinations = new HashMap<>();
+        for (int count = 3; count <= 9; count++) {
+            EnumWinningCombinationType type = EnumWinningCombinationType.valueOf("same_symbol_" + count + "_times");
+            winCombinations.put(type.name(), new WinningCombination(type, 1, WinningCondition.same_symbols,
+                    WinningGroup.same_symbols, count, null));
+        }
+        for (int i = 0; i < LINE_TYPES.length; i++) {
+            winCombinations.put(LINE_TYPES[i].name(), new WinningCombination(LINE_TYPES[i], 1, WinningCondition.linear_symbols,
+                    LINE_GROUPS[i], 0, null));
+        }
+        game.setWinCombinations(winCombinations);
+        dictionary = SymbolDictionary.of(game);
+    }
+
+    @Test
+    public void testEvaluate_HistogramBonusesAndWins() {
+        Board board = Board.fromMatrix(dictionary, List.of(
+                List.of("+500", "A", "A"),
+                List.of("B", "A", "10x"),
+                List.of("+500", "A", "C")
+        ));
+
+        RoundEvaluation evaluation = new RoundEvaluator(GameModel.compile(game)).evaluate(board);
+
+        int a = dictionary.idOf("A");
+        assertEquals(4, evaluation.getSymbolCount(a));
+        assertEquals(2, evaluation.getSymbolCount(dictionary.idOf("+500")));
+        assertEquals(List.of("+500", "10x"), evaluation.toBonusSymbols());
+        assertEquals(Map.of("A", List.of(
+                EnumWinningCombinationType.same_symbol_3_times,
+                EnumWinningCombinationType.same_symbol_4_times,
+                EnumWinningCombinationType.same_symbols_vertically
+        )), evaluation.toWinCombinations());
+    }
+
+    @Test
+    public void testEvaluate_OnlyConfiguredCombinations() {
+        game.setWinCombinations(Map.of("same_symbol_4_times", new WinningCombination(EnumWinningCombinationType.same_symbol_4_times,
+                2, WinningCondition.same_symbols, WinningGroup.same_symbols, 4, null)));
+        Board board = Board.fromMatrix(dictionary, List.of(
+                List.of("A", "A", "A"),
+                List.of("B", "B", "B"),
+                List.of("A", "C", "C")
+        ));
+
+        RoundEvaluation evaluation = new RoundEvaluator(GameModel.compile(game)).evaluate(board);
+
+        assertEquals(Map.of("A", List.of(EnumWinningCombinationType.same_symbol_4_times)), evaluation.toWinCombinations());
+    }
+
+    @Test
+    public void testRunLengthPassMatchesLineScan() {
+        SplittableRandom random = new SplittableRandom(11);
+        int[][] sizes = {{9, 9}, {12, 7}, {7, 12}};
+        int[] standard = {dictionary.idOf("A"), dictionary.idOf("B"), dictionary.idOf("C")};
+        for (int[] size : sizes) {
+            game.setRows(size[0]);
+            game.setColumns(size[1]);
+            RoundEvaluator roundEvaluator = new RoundEvaluator(GameModel.compile(game));
+            LineEvaluator lineEvaluator = new LineEvaluator(size[0], size[1]);
+            RoundEvaluation evaluation = new RoundEvaluation();
+            for (int round = 0; round < 500; round++) {
+                Board board = new Board(dictionary, size[0], size[1]);
+                for (int cell = 0; cell < board.size(); cell++) {
+                    board.set(cell, 1 + random.nextInt(dictionary.size() - 1));
+                }
+                roundEvaluator.evaluate(board, evaluation);
+
+                for (int i = 0; i < LINE_GROUPS.length; i++) {
+                    int[] lineSymbols = lineEvaluator.findLineSymbols(board, null, LINE_GROUPS[i]);
+                    for (int symbol : standard) {
+                        boolean expected = false;
+                        for (int lineSymbol : lineSymbols) {
+                            expected |= lineSymbol == symbol;
+                        }
+                        assertEquals(expected, evaluation.hasWon(symbol, LINE_TYPES[i]),
+                                LINE_TYPES[i] + " for " + dictionary.nameOf(symbol) + " on " + board.toMatrix());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluate_ConfiguredRunLengthsOnRectangularBoards() {
+        SplittableRandom random = new SplittableRandom(13);
+        int[] runLengths = {5, 4, 2, 6};
+        Map<String, WinningCombination> winCombinations = new HashMap<>(game.getWinCombinations());
+        for (int i = 0; i < LINE_TYPES.length; i++) {
+            winCombinations.put(LINE_TYPES[i].name(), new WinningCombination(LINE_TYPES[i], 1,
+                    WinningCondition.linear_symbols, LINE_GROUPS[i], runLengths[i], null));
+        }
+        game.setWinCombinations(winCombinations);
+        int[][] sizes = {{8, 8}, {4, 16}, {3, 40}, {40, 3}, {50, 50}};
+        int[] standard = {dictionary.idOf("A"), dictionary.idOf("B"), dictionary.idOf("C")};
+        for (int[] size : sizes) {
+            game.setRows(size[0]);
+            game.setColumns(size[1]);
+            GameModel model = GameModel.compile(game);
+            RoundEvaluator roundEvaluator = new RoundEvaluator(model);
+            LineEvaluator lineEvaluator = new LineEvaluator(size[0], size[1], model.getLineRules());
+            RoundEvaluation evaluation = new RoundEvaluation();
+            for (int round = 0; round < 200; round++) {
+                Board board = new Board(dictionary, size[0], size[1]);
+                for (int cell = 0; cell < board.size(); cell++) {
+                    board.set(cell, standard[random.nextInt(2)]);
+                }
+                roundEvaluator.evaluate(board, evaluation);
+
+                for (int i = 0; i < LINE_GROUPS.length; i++) {
+                    Set<Integer> lineSymbols = new HashSet<>();
+                    for (int symbol : lineEvaluator.findLineSymbols(board, lineEvaluator.symbolMasks(board), LINE_GROUPS[i])) {
+                        lineSymbols.add(symbol);
+                    }
+                    for (int symbol : standard) {
+                        assertEquals(lineSymbols.contains(symbol), evaluation.hasWon(symbol, LINE_TYPES[i]),
+                                LINE_TYPES[i] + " for " + dictionary.nameOf(symbol) + " on " + board.toMatrix());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluate_ParallelBandsMatchASinglePass() {
+        SplittableRandom random = new SplittableRandom(24);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Run lengths up to longer than a band, so that halos reach over several bands
+            int[][] runLengths = {{3, 3, 3, 3}, {5, 4, 2, 6}, {2, 20, 7, 24}};
+            int[][] sizes = {{64, 20}, {50, 50}, {33, 7}, {100, 3}};
+            for (int[] lengths : runLengths) {
+                Map<String, WinningCombination> winCombinations = new HashMap<>(game.getWinCombinations());
+                for (int i = 0; i < LINE_TYPES.length; i++) {
+                    winCombinations.put(LINE_TYPES[i].name(), new WinningCombination(LINE_TYPES[i], 1,
+                            WinningCondition.linear_symbols, LINE_GROUPS[i], lengths[i], null));
+                }
+                game.setWinCombinations(winCombinations);
+                for (int[] size : sizes) {
+                    game.setRows(size[0]);
+                    game.setColumns(size[1]);
+                    GameModel model = GameModel.compile(game);
+                    RoundEvaluator sequential = new RoundEvaluator(model, pool, 1, 0);
+                    RoundEvaluator parallel = new RoundEvaluator(model, pool, 4, 0);
+                    assertEquals(1, sequential.getBands());
+                    assertEquals(Math.min(4, size[0] / 16), parallel.getBands());
+                    RoundEvaluation evaluation = new RoundEvaluation();
+                    for (int round = 0; round < 100; round++) {
+                        Board board = new Board(dictionary, size[0], size[1]);
+                        for (int cell = 0; cell < board.size(); cell++) {
+                            // Mostly two symbols for long runs, bonus symbols once in a while
+                            int pick = random.nextInt(20);
+                            board.set(cell, pick < 19 ? dictionary.idOf(pick % 2 == 0 ? "A" : "B")
+                                    : 1 + random.nextInt(dictionary.size() - 1));
+                        }
+                        RoundEvaluation expected = sequential.evaluate(board);
+                        parallel.evaluate(board, evaluation);
+
+                        assertEquals(expected.toWinCombinations(), evaluation.toWinCombinations(), board.toMatrix().toString());
+                        assertEquals(expected.toBonusSymbols(), evaluation.toBonusSymbols());
+                        for (int symbol = 0; symbol < dictionary.size(); symbol++) {
+                            assertEquals(expected.getSymbolCount(symbol), evaluation.getSymbolCount(symbol));
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testEvaluate_PaylinesMatchANaiveWalkOverTheirCells() {
+        SplittableRandom random = new SplittableRandom(25);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int[] standard = {dictionary.idOf("A"), dictionary.idOf("B"), dictionary.idOf("C")};
+        try {
+            int[][] sizes = {{3, 3}, {8, 8}, {10, 13}, {40, 40}};
+            for (int[] size : sizes) {
+                int cells = size[0] * size[1];
+                // Random shapes of 3 to 6 cells on three of the rules, the last one still scans its direction
+                int[][][] paylines = new int[3][50][];
+                Map<String, WinningCombination> winCombinations = new HashMap<>(game.getWinCombinations());
+                for (int i = 0; i < paylines.length; i++) {
+                    List<List<String>> areas = new ArrayList<>();
+                    for (int line = 0; line < paylines[i].length; line++) {
+                        paylines[i][line] = random.ints(0, cells).distinct().limit(Math.min(cells, 3 + random.nextInt(4))).toArray();
+                        areas.add(Arrays.stream(paylines[i][line]).mapToObj(cell -> cell / size[1] + ":" + cell % size[1]).toList());
+                    }
+                    winCombinations.put(LINE_TYPES[i].name(), new WinningCombination(LINE_TYPES[i], 1,
+                            WinningCondition.linear_symbols, LINE_GROUPS[i], 0, areas));
+                }
+                game.setWinCombinations(winCombinations);
+                game.setRows(size[0]);
+                game.setColumns(size[1]);
+                GameModel model = GameModel.compile(game);
+                LineEvaluator lineEvaluator = new LineEvaluator(size[0], size[1], model.getLineRules());
+                RoundEvaluator[] evaluators = {new RoundEvaluator(model), new RoundEvaluator(model, pool, 4, 0)};
+                RoundEvaluation evaluation = new RoundEvaluation();
+                for (int round = 0; round < 200; round++) {
+                    Board board = new Board(dictionary, size[0], size[1]);
+                    for (int cell = 0; cell < board.size(); cell++) {
+                        board.set(cell, random.nextInt(20) < 19 ? standard[random.nextInt(3)]
+                                : random.nextInt(dictionary.size()));
+                    }
+                    for (RoundEvaluator roundEvaluator : evaluators) {
+                        roundEvaluator.evaluate(board, evaluation);
+
+                        for (int i = 0; i < paylines.length; i++) {
+                            Set<Integer> expected = new HashSet<>();
+                            for (int[] line : paylines[i]) {
+                                int symbol = board.get(line[0]);
+                                if (dictionary.isStandard(symbol)
+                                        && Arrays.stream(line).allMatch(cell -> board.get(cell) == symbol)) {
+                                    expected.add(symbol);
+                                }
+                            }
+                            for (int symbol = 0; symbol < dictionary.size(); symbol++) {
+                                assertEquals(expected.contains(symbol), evaluation.hasWon(symbol, LINE_TYPES[i]),
+                                        LINE_TYPES[i] + " for " + dictionary.nameOf(symbol) + " on " + board.toMatrix());
+                            }
+                        }
+                        Set<Integer> diagonal = new HashSet<>();
+                        for (int symbol : lineEvaluator.findLineSymbols(board, lineEvaluator.symbolMasks(board), LINE_GROUPS[3])) {
+                            diagonal.add(symbol);
+                        }
+                        for (int symbol : standard) {
+                            assertEquals(diagonal.contains(symbol), evaluation.hasWon(symbol, LINE_TYPES[3]));
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testEvaluate_SmallBoardsStayOnTheCallingThread() {
+        game.setRows(20);
+        game.setColumns(20);
+        assertEquals(1, new RoundEvaluator(GameModel.compile(game), ForkJoinPool.commonPool(), 8,
+                RoundEvaluator.PARALLEL_THRESHOLD).getBands());
+        game.setRows(8);
+        game.setColumns(8);
+        assertEquals(1, new RoundEvaluator(GameModel.compile(game), ForkJoinPool.commonPool(), 8, 0).getBands());
+        game.setRows(128);
+        game.setColumns(128);
+        assertEquals(8, new RoundEvaluator(GameModel.compile(game), ForkJoinPool.commonPool(), 8,
+                RoundEvaluator.PARALLEL_THRESHOLD).getBands());
+    }
+}
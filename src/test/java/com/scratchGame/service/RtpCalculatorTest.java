@@ -0,0 +1,183 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RtpCalculatorTest {
+
+    private static final EnumWinningCombinationType[] TYPES = {
+            EnumWinningCombinationType.same_symbol_3_times,
+            EnumWinningCombinationType.same_symbol_4_times,
+            EnumWinningCombinationType.same_symbol_5_times
+    };
+
+    private Game gameConfig;
+
+    @BeforeEach
+    public void setUp() {
+        gameConfig = new Game();
+        gameConfig.setRows(2);
+        gameConfig.setColumns(3);
+        gameConfig.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "B", new Symbol("B", 1.0, 0, "standard", ""),
+                "C", new Symbol("C", 1.5, 0, "standard", ""),
+                "10x", new Symbol("10x", 10, 0, "bonus", "multiply_reward"),
+                "+100", new Symbol("+100", 0, 100, "bonus", "extra_bonus"),
+                "MISS", new Symbol("MISS", 0, 0, "bonus", "miss")
+        ));
+        Map<String, WinningCombination> winCombinations = new HashMap<>();
+        double[] multipliers = {1, 2, 5};
+        for (int i = 0; i < TYPES.length; i++) {
+            winCombinations.put(TYPES[i].name(), new WinningCombination(TYPES[i], multipliers[i],
+                    WinningCondition.same_symbols, WinningGroup.same_symbols, i + 3, null));
+        }
+        gameConfig.setWinCombinations(winCombinations);
+    }
+
+    @Test
+    public void testCalculate_SharedWeightsMatchEnumeration() {
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 2, "B", 3, "C", 4)),
+                Map.of("10x", 1, "+100", 1, "MISS", 1)));
+
+        assertMatchesEnumeration(GameModel.compile(gameConfig));
+    }
+
+    @Test
+    public void testCalculate_PositionedWeightsMatchEnumeration() {
+        Probability probability = new Probability(List.of(), Map.of("10x", 1, "+100", 2, "MISS", 1));
+        List<CellProbability> cells = new ArrayList<>();
+        for (int cell = 0; cell < 6; cell++) {
+            cells.add(new CellProbability(cell % 3, cell / 3, Map.of("A", 1 + cell, "B", 6 - cell, "C", 3)));
+        }
+        probability.setCellProbabilities(cells);
+        gameConfig.setProbabilities(probability);
+
+        assertMatchesEnumeration(GameModel.compile(gameConfig));
+    }
+
+    @Test
+    public void testCalculate_BinomialClosedForm() {
+        // P(A) = 1/2 on a 3x3 board: the reward is 2 x count(A) when at least 3 cells hold "A"
+        gameConfig.setRows(3);
+        gameConfig.setColumns(3);
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 1, "B", 1)), Map.of()));
+        gameConfig.setWinCombinations(Map.of("same_symbol_3_times", new WinningCombination(
+                EnumWinningCombinationType.same_symbol_3_times, 1, WinningCondition.same_symbols,
+                WinningGroup.same_symbols, 3, null)));
+        double expected = 0;
+        for (int a = 0; a <= 9; a++) {
+            double probability = binomial(9, a) / 512.0;
+            expected += probability * ((a >= 3 ? 2.0 * a : 0) + (9 - a >= 3 ? 9 - a : 0));
+        }
+
+        RtpReport report = new RtpCalculator(GameModel.compile(gameConfig)).calculate();
+
+        assertEquals(expected, report.getRtp(), 1e-12);
+        assertEquals(expected, report.getBaseRtp(), 1e-12);
+        assertEquals(1.0, report.getHitRate(), 1e-12);
+        assertEquals(0.0, report.getExtraContribution(), 1e-12);
+        assertTrue(report.isComplete());
+    }
+
+    @Test
+    public void testCalculate_MatchesSimulation() {
+        gameConfig.setRows(3);
+        gameConfig.setColumns(3);
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 2, "B", 3, "C", 4)),
+                Map.of("10x", 1, "MISS", 1)));
+        GameModel model = GameModel.compile(gameConfig);
+        GameService gameService = new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(7)),
+                RewardCalculator.forModel(model));
+
+        RtpReport report = new RtpCalculator(model).calculate();
+        SimulationStatistics statistics = new Simulator(gameService, 2, 10_000).run(200_000, 0, null);
+
+        assertEquals(report.getRtp(), statistics.getRtp(), 4 * statistics.getRtpHalfWidth(1));
+        assertEquals(report.getHitRate(), statistics.getHitRate(), 4 * statistics.getHitRateHalfWidth(1));
+        for (EnumWinningCombinationType type : TYPES) {
+            assertEquals(report.getExpectedHits(type), (double) statistics.getCombinationHits(type) / statistics.getRounds(),
+                    0.01, type.name());
+        }
+    }
+
+    @Test
+    public void testConstructor_NullModel() {
+        assertThrows(InvalidArgumentException.class, () -> new RtpCalculator(null));
+    }
+
+    /**
+     * Plays every board of the game and compares the exact report with the probability weighted results.
+     */
+    private static void assertMatchesEnumeration(GameModel model) {
+        GameService gameService = new GameService(new Game(), MatrixGenerator.forModel(model), RewardCalculator.forModel(model));
+        RoundEvaluator evaluator = new RoundEvaluator(model);
+        RoundEvaluation evaluation = new RoundEvaluation();
+        Board board = gameService.newBoard();
+        int[] outcomes = new int[board.size()];
+
+        double rtp = 0;
+        double baseRtp = 0;
+        double hitRate = 0;
+        double[] winProbabilities = new double[TYPES.length];
+        double[] expectedHits = new double[TYPES.length];
+        do {
+            double probability = 1;
+            for (int cell = 0; cell < board.size(); cell++) {
+                int[] weights = model.getCellWeights(cell);
+                board.set(cell, model.getCellSymbols(cell)[outcomes[cell]]);
+                probability *= (double) weights[outcomes[cell]] / Arrays.stream(weights).sum();
+            }
+            evaluator.evaluate(board, evaluation);
+            double baseReward = gameService.calculateBaseRewards(evaluation, null);
+            double reward = gameService.applyBonusSymbols(baseReward, evaluation, null);
+            rtp += probability * reward;
+            baseRtp += probability * baseReward;
+            hitRate += reward > 0 ? probability : 0;
+            for (int i = 0; i < TYPES.length; i++) {
+                int winners = 0;
+                for (int w = 0; w < evaluation.getWinningSymbolCount(); w++) {
+                    winners += evaluation.hasWon(evaluation.getWinningSymbol(w), TYPES[i]) ? 1 : 0;
+                }
+                winProbabilities[i] += winners > 0 ? probability : 0;
+                expectedHits[i] += winners * probability;
+            }
+        } while (next(outcomes, model));
+
+        RtpReport report = new RtpCalculator(model).calculate();
+        assertEquals(rtp, report.getRtp(), 1e-9);
+        assertEquals(baseRtp, report.getBaseRtp(), 1e-9);
+        assertEquals(hitRate, report.getHitRate(), 1e-12);
+        for (int i = 0; i < TYPES.length; i++) {
+            assertEquals(winProbabilities[i], report.getWinProbability(TYPES[i]), 1e-12, TYPES[i].name());
+            assertEquals(expectedHits[i], report.getExpectedHits(TYPES[i]), 1e-12, TYPES[i].name());
+        }
+    }
+
+    private static boolean next(int[] outcomes, GameModel model) {
+        for (int cell = 0; cell < outcomes.length; cell++) {
+            if (++outcomes[cell] < model.getCellWeights(cell).length) {
+                return true;
+            }
+            outcomes[cell] = 0;
+        }
+        return false;
+    }
+
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+}
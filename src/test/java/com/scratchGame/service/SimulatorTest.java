@@ -0,0 +1,140 @@
+package com.scratchGame.service;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.InvalidArgumentException;
+import com.scratchGame.models.Game;
+import com.scratchGame.models.Probability;
+import com.scratchGame.models.Symbol;
+import com.scratchGame.models.WinningCombination;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatorTest {
+
+    private Game gameConfig;
+
+    @BeforeEach
+    public void setUp() {
+        gameConfig = new Game();
+        gameConfig.setRows(3);
+        gameConfig.setColumns(3);
+        gameConfig.setSymbols(Map.of(
+                "A", new Symbol("A", 2.0, 0, "standard", ""),
+                "B", new Symbol("B", 1.0, 0, "standard", "")
+        ));
+        gameConfig.setWinCombinations(Map.of("same_symbol_3_times", new WinningCombination(
+                EnumWinningCombinationType.same_symbol_3_times, 1, WinningCondition.same_symbols,
+                WinningGroup.same_symbols, 3, null)));
+    }
+
+    private GameService gameService() {
+        GameModel model = GameModel.compile(gameConfig);
+        return new GameService(gameConfig, MatrixGenerator.forModel(model, new SplitMixRandom(42)), RewardCalculator.forModel(model));
+    }
+
+    @Test
+    public void testRun_ConstantReward() {
+        // Only "A" can be drawn, every round wins 9 x 2.0
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 1)), Map.of()));
+
+        SimulationStatistics statistics = new Simulator(gameService(), 4, 1000).run(10_500, 0, null);
+
+        assertEquals(10_500, statistics.getRounds());
+        assertEquals(18.0, statistics.getRtp(), 1e-9);
+        assertEquals(1.0, statistics.getHitRate());
+        assertEquals(0.0, statistics.getVariance(), 1e-9);
+        assertEquals(18.0, statistics.getMaxWin());
+        assertEquals(10_500, statistics.getCombinationHits(EnumWinningCombinationType.same_symbol_3_times));
+    }
+
+    @Test
+    public void testRun_StopsAtTargetPrecision() {
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 1)), Map.of()));
+        AtomicInteger reports = new AtomicInteger();
+
+        SimulationStatistics statistics = new Simulator(gameService(), 2, 100)
+                .run(1_000_000_000L, 0.01, snapshot -> reports.incrementAndGet());
+
+        assertTrue(statistics.getRounds() < 1_000_000_000L, "Simulation should stop early");
+        assertTrue(statistics.getRtpHalfWidth(Simulator.Z_95) <= 0.01);
+        assertTrue(reports.get() > 0);
+    }
+
+    @Test
+    public void testRun_RtpWithinConfidenceInterval() {
+        // P(A) = 1/2 on every cell: the reward is 2 x count(A) when at least 3 cells hold "A"
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 1, "B", 1)), Map.of()));
+        double expected = 0;
+        for (int a = 0; a <= 9; a++) {
+            double probability = binomial(9, a) / 512.0;
+            // "B" pays 1.0 x count(B) when it appears at least 3 times
+            expected += probability * ((a >= 3 ? 2.0 * a : 0) + (9 - a >= 3 ? 9 - a : 0));
+        }
+
+        SimulationStatistics statistics = new Simulator(gameService(), 4, 10_000).run(400_000, 0, null);
+
+        assertEquals(expected, statistics.getRtp(), 4 * statistics.getRtpHalfWidth(1));
+        assertEquals(1.0, statistics.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testRun_ReproducibleAcrossWorkerCounts() {
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 3, "B", 5)), Map.of()));
+
+        SimulationStatistics single = new Simulator(gameService(), 1, 1000).run(20_000, 0, null);
+        SimulationStatistics parallel = new Simulator(gameService(), 3, 700).run(20_000, 0, null);
+
+        assertEquals(single.getRounds(), parallel.getRounds());
+        assertEquals(single.getHits(), parallel.getHits());
+        assertEquals(single.getRtp(), parallel.getRtp(), 1e-9);
+        assertEquals(single.getMaxWin(), parallel.getMaxWin());
+    }
+
+    @Test
+    public void testMerge_MatchesSequentialStatistics() {
+        gameConfig.setProbabilities(new Probability(List.of(Map.of("A", 3, "B", 5)), Map.of()));
+        GameService gameService = gameService();
+        RoundEvaluation evaluation = new RoundEvaluation();
+        SimulationStatistics sequential = new SimulationStatistics();
+        SimulationStatistics[] parts = {new SimulationStatistics(), new SimulationStatistics(), new SimulationStatistics()};
+        for (int round = 0; round < 3000; round++) {
+            double reward = gameService.playRound(gameService.newBoard(), evaluation, round);
+            sequential.add(reward, evaluation);
+            parts[round % 7 % 3].add(reward, evaluation);
+        }
+        SimulationStatistics merged = new SimulationStatistics();
+        for (SimulationStatistics part : parts) {
+            merged.merge(part);
+        }
+
+        assertEquals(sequential.getRounds(), merged.getRounds());
+        assertEquals(sequential.getHits(), merged.getHits());
+        assertEquals(sequential.getRtp(), merged.getRtp(), 1e-9);
+        assertEquals(sequential.getVariance(), merged.getVariance(), 1e-9);
+        assertEquals(sequential.getMaxWin(), merged.getMaxWin());
+        assertEquals(sequential.getCombinationHits(EnumWinningCombinationType.same_symbol_3_times),
+                merged.getCombinationHits(EnumWinningCombinationType.same_symbol_3_times));
+    }
+
+    @Test
+    public void testConstructor_InvalidArguments() {
+        assertThrows(InvalidArgumentException.class, () -> new Simulator(null));
+        assertThrows(InvalidArgumentException.class, () -> new Simulator(gameService(), 0, 10));
+        assertThrows(InvalidArgumentException.class, () -> new Simulator(gameService()).run(-1, 0, null));
+    }
+
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+}
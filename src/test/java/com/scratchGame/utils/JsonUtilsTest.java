@@ -0,0 +1,132 @@
+package com.scratchGame.utils;
+
+import com.scratchGame.enums.EnumWinningCombinationType;
+import com.scratchGame.enums.WinningCondition;
+import com.scratchGame.enums.WinningGroup;
+import com.scratchGame.exceptions.ConfigurationException;
+import com.scratchGame.models.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonUtilsTest {
+
+    private static final String CONFIG = "{"
+            + "\"columns\":3,\"rows\":2,"
+            + "\"symbols\":{"
+            + "\"A\":{\"reward_multiplier\":5,\"type\":\"standard\"},"
+            + "\"B\":{\"reward_multiplier\":2.5,\"type\":\"standard\"},"
+            + "\"10x\":{\"reward_multiplier\":10,\"type\":\"bonus\",\"impact\":\"multiply_reward\"},"
+            + "\"+500\":{\"extra\":500,\"type\":\"bonus\",\"impact\":\"extra_bonus\"},"
+            + "\"MISS\":{\"type\":\"bonus\",\"impact\":\"miss\"}},"
+            + "\"probabilities\":{"
+            + "\"standard_symbols\":["
+            + "{\"column\":0,\"row\":0,\"symbols\":{\"A\":1,\"B\":2}},"
+            + "{\"column\":2,\"row\":1,\"symbols\":{\"A\":3}}],"
+            + "\"bonus_symbols\":{\"symbols\":{\"10x\":1,\"+500\":2,\"MISS\":3}}},"
+            + "\"win_combinations\":{"
+            + "\"same_symbol_3_times\":{\"reward_multiplier\":1,\"when\":\"same_symbols\",\"count\":3,\"group\":\"same_symbols\"},"
+            + "\"same_symbols_horizontally\":{\"reward_multiplier\":2,\"when\":\"linear_symbols\","
+            + "\"group\":\"horizontally_linear_symbols\",\"covered_areas\":[[\"0:0\",\"0:1\",\"0:2\"],[\"1:0\",\"1:1\",\"1:2\"]]}},"
+            + "\"comment\":{\"ignored\":[1,2,{\"x\":null}]}"
+            + "}";
+
+    @Test
+    public void testReadGameConfig_ReadsEverySection() {
+        Game game = read(CONFIG);
+
+        assertEquals(3, game.getColumns());
+        assertEquals(2, game.getRows());
+        assertEquals(Set.of("A", "B", "10x", "+500", "MISS"), game.getSymbols().keySet());
+        Symbol b = game.getSymbols().get("B");
+        assertEquals(2.5, b.getRewardMultiplier());
+        assertEquals("standard", b.getType());
+        assertEquals("", b.getImpact());
+        Symbol extra = game.getSymbols().get("+500");
+        assertEquals(500, extra.getExtra());
+        assertEquals(0, extra.getRewardMultiplier());
+        assertEquals("extra_bonus", extra.getImpact());
+
+        Probability probabilities = game.getProbabilities();
+        assertEquals(List.of(Map.of("A", 1, "B", 2), Map.of("A", 3)), probabilities.getStandardSymbolsProbabilities());
+        CellProbability cell = probabilities.getCellProbabilities().get(1);
+        assertEquals(2, cell.getColumn());
+        assertEquals(1, cell.getRow());
+        assertEquals(Map.of("10x", 1, "+500", 2, "MISS", 3), probabilities.getBonusSymbolsProbabilities());
+
+        WinningCombination sameSymbols = game.getWinCombinations().get("same_symbol_3_times");
+        assertEquals(EnumWinningCombinationType.same_symbol_3_times, sameSymbols.getCombinationType());
+        assertEquals(WinningCondition.same_symbols, sameSymbols.getWhen());
+        assertEquals(3, sameSymbols.getCount());
+        assertEquals(List.of(), sameSymbols.getCoveredAreas());
+        WinningCombination horizontal = game.getWinCombinations().get("same_symbols_horizontally");
+        assertEquals(WinningGroup.horizontally_linear_symbols, horizontal.getGroup());
+        assertEquals(2.0, horizontal.getRewardMultiplier());
+        assertEquals(List.of(List.of("0:0", "0:1", "0:2"), List.of("1:0", "1:1", "1:2")), horizontal.getCoveredAreas());
+    }
+
+    @Test
+    public void testReadGameConfig_PrintsNothing() {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        try {
+            read(CONFIG);
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals("", printed.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadGameConfig_ReadsTheSampleConfig() {
+        Game game = JsonUtils.readGameConfig("src/main/resources/config.json");
+
+        assertEquals(4, game.getRows());
+        assertEquals(11, game.getSymbols().size());
+        assertEquals(9, game.getProbabilities().getCellProbabilities().size());
+        assertEquals(11, game.getWinCombinations().size());
+    }
+
+    @Test
+    public void testReadGameConfig_RejectsBrokenReferences() {
+        assertInvalid(CONFIG.replace("\"B\":2}", "\"C\":2}"), "undefined symbol C");
+        assertInvalid(CONFIG.replace("\"MISS\":3", "\"A\":3"), "standard symbol A");
+        assertInvalid(CONFIG.replace("{\"A\":3}", "{\"MISS\":3}"), "bonus symbol MISS");
+        assertInvalid(CONFIG.replace("\"column\":2,\"row\":1", "\"column\":3,\"row\":1"), "outside of the 2x3 board");
+        assertInvalid(CONFIG.replace("\"column\":2,\"row\":1", "\"column\":0,\"row\":0"), "defined twice");
+        assertInvalid(CONFIG.replace("\"1:2\"", "\"2:2\""), "covers 2:2");
+        assertInvalid(CONFIG.replace("[\"1:0\",\"1:1\",\"1:2\"]", "[]"), "covers an empty area");
+        assertInvalid(CONFIG.replace("\"rows\":2", "\"rows\":0"), "must be positive");
+    }
+
+    @Test
+    public void testReadGameConfig_RejectsMalformedValues() {
+        assertInvalid(CONFIG.replace("same_symbol_3_times", "same_symbol_2_times"), "Unknown win combination");
+        assertInvalid(CONFIG.replace("\"group\":\"same_symbols\"", "\"group\":\"vertically_linear_symbols\""), "cannot group");
+        assertInvalid(CONFIG.replace("\"count\":3", "\"count\":0"), "at least one symbol");
+        assertInvalid(CONFIG.replace("\"group\":\"horizontally_linear_symbols\"",
+                "\"group\":\"horizontally_linear_symbols\",\"count\":1"), "at least two cells");
+        assertInvalid(CONFIG.replace("\"impact\":\"miss\"", "\"impact\":\"double\""), "unknown impact");
+        assertInvalid(CONFIG.replace("\"A\":1,", "\"A\":-1,"), "cannot be negative");
+        assertInvalid(CONFIG.replace("\"A\":1,", "\"A\":1.5,"), "line 1");
+        assertInvalid(CONFIG.replace("\"columns\":3,", ""), "must define columns");
+        assertInvalid(CONFIG.substring(0, CONFIG.length() / 2), "Failed to parse");
+        assertThrows(ConfigurationException.class, () -> JsonUtils.readGameConfig("missing-config.json"));
+    }
+
+    private static Game read(String json) {
+        return JsonUtils.readGameConfig(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void assertInvalid(String json, String message) {
+        ConfigurationException e = assertThrows(ConfigurationException.class, () -> read(json));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}